@@ -40,6 +40,11 @@ android {
         targetCompatibility = JavaVersion.VERSION_17
     }
 
+    sourceSets {
+        // JMH benchmarks compile with the unit tests but only run through the "jmh" task
+        getByName("test").java.srcDir("src/benchmark/java")
+    }
+
     buildFeatures {
         viewBinding = true
         dataBinding = true   // enable if your code uses com.example...databinding.* (you had those imports)
@@ -59,6 +64,7 @@ dependencies {
     implementation("androidx.recyclerview:recyclerview:1.3.2")
     implementation("androidx.viewpager2:viewpager2:1.1.0")
     implementation("androidx.coordinatorlayout:coordinatorlayout:1.2.0")
+    implementation("androidx.work:work-runtime:2.9.1")
     implementation("com.github.bumptech.glide:glide:4.16.0")
     annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
 
@@ -69,6 +75,8 @@ dependencies {
 
     // Tests
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.openjdk.jmh:jmh-core:1.37")
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
     androidTestImplementation("androidx.test.ext:junit:1.2.1")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.6.1")
     androidTestImplementation("androidx.test.espresso:espresso-contrib:3.6.1")
@@ -82,6 +90,22 @@ dependencies {
     implementation("com.google.firebase:firebase-auth:22.3.0")
 }
 
+// Benchmarks are not unit tests: keep them out of the test run and start them with
+// ./gradlew :app:jmh, optionally with -PjmhArgs="LotterySampler" to select some.
+tasks.withType<Test>().configureEach {
+    exclude("**/*Benchmark*", "**/jmh_generated/**")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks in src/benchmark/java."
+    val unitTests = tasks.named<Test>("testDebugUnitTest")
+    dependsOn("compileDebugUnitTestJavaWithJavac")
+    classpath = files(unitTests.map { it.classpath })
+    mainClass.set("org.openjdk.jmh.Main")
+    args((findProperty("jmhArgs") as String?)?.split(" ") ?: emptyList<String>())
+}
+
 tasks.withType<DokkaTask>().configureEach {
     outputDirectory.set(layout.buildDirectory.dir("dokka/html"))
 
@@ -0,0 +1,176 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Instrumented test for {@link AutoDrawScheduler} against the local Firestore emulator.
+ * <p>
+ * Start the emulator first with {@code firebase emulators:start --only firestore}.
+ * The device reaches the host machine through {@code 10.0.2.2}.
+ * </p>
+ * Covers the claim on {@link AutoDrawScheduler#STATE_FIELD}: a closed event is drawn once
+ * to capacity, later and concurrent passes do not draw it again, and an event already
+ * drawn by hand is only marked complete.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AutoDrawSchedulerEmulatorTest {
+
+    private static final int ENTRANTS = 8;
+    private static final int CAPACITY = 3;
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void connectEmulator() {
+        db = FirebaseFirestore.getInstance();
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException ignored) {
+            // Already configured by another test in this process.
+        }
+    }
+
+    /**
+     * Seeds a subcollection event of a new organizer whose registration closed a minute ago.
+     *
+     * @return The organizer ID; the event ID is the organizer ID with "-event" appended.
+     */
+    private static String seedClosedEvent(long lastDrawAtMillis) throws Exception {
+        String organizerId = "auto-draw-" + UUID.randomUUID();
+        String eventId = organizerId + "-event";
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("title", "Auto Draw Test");
+        event.put("organizerId", organizerId);
+        event.put("entrantStorage", Event.STORAGE_SUBCOLLECTION);
+        event.put("maxAttendees", CAPACITY);
+        event.put("registrationCloseAtMillis", System.currentTimeMillis() - 60_000);
+        event.put("waitlistCount", ENTRANTS);
+        event.put("selectedCount", 0);
+        if (lastDrawAtMillis > 0) event.put(LotteryEngine.LAST_DRAW_FIELD, lastDrawAtMillis);
+
+        WriteBatch batch = db.batch();
+        batch.set(db.collection("events").document(eventId), event);
+        EntrantRepository entrants = new EntrantRepository(db);
+        for (int i = 0; i < ENTRANTS; i++) {
+            Entrant entrant = new Entrant(eventId + "-user-" + i, Entrant.STATUS_WAITING, null);
+            entrant.setJoinedAt(new Date(System.currentTimeMillis() - 120_000 + i));
+            batch.set(entrants.entrants(eventId).document(entrant.getUserId()), entrant);
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+        return organizerId;
+    }
+
+    /** Runs one pass and waits for it. */
+    private static int runPass(AutoDrawScheduler scheduler) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Integer> processed = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        scheduler.runDue(new FirestoreEventRepository.ItemCallback<Integer>() {
+            @Override
+            public void onSuccess(Integer count) {
+                processed.set(count);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        assertTrue("Pass timed out", done.await(60, TimeUnit.SECONDS));
+        if (error.get() != null) throw error.get();
+        return processed.get();
+    }
+
+    private static int invitedCount(String eventId) throws Exception {
+        return Tasks.await(new EntrantRepository(db).entrants(eventId)
+                .whereEqualTo("status", Entrant.STATUS_INVITED)
+                .get(), 30, TimeUnit.SECONDS).size();
+    }
+
+    private static DocumentSnapshot event(String eventId) throws Exception {
+        return Tasks.await(db.collection("events").document(eventId).get(), 30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void closedEventIsDrawnOnceToCapacity() throws Exception {
+        String organizerId = seedClosedEvent(0);
+        String eventId = organizerId + "-event";
+        AutoDrawScheduler scheduler = new AutoDrawScheduler(db, organizerId);
+
+        assertEquals(1, runPass(scheduler));
+        assertEquals(AutoDrawScheduler.STATE_COMPLETE, event(eventId).getString(AutoDrawScheduler.STATE_FIELD));
+        assertEquals(CAPACITY, invitedCount(eventId));
+
+        // A completed event is no longer due
+        assertEquals(0, runPass(scheduler));
+        assertEquals(CAPACITY, invitedCount(eventId));
+    }
+
+    @Test
+    public void concurrentPassesNeverDrawTwice() throws Exception {
+        String organizerId = seedClosedEvent(0);
+        String eventId = organizerId + "-event";
+
+        // Two devices of the same organizer run their passes at the same time
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        for (int device = 0; device < 2; device++) {
+            new AutoDrawScheduler(db, organizerId).runDue(new FirestoreEventRepository.ItemCallback<Integer>() {
+                @Override
+                public void onSuccess(Integer processed) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    error.set(e);
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue("Passes timed out", done.await(60, TimeUnit.SECONDS));
+        if (error.get() != null) throw error.get();
+
+        // The losing pass may still be resuming the shared draw; a final pass settles it
+        runPass(new AutoDrawScheduler(db, organizerId));
+        assertEquals(AutoDrawScheduler.STATE_COMPLETE, event(eventId).getString(AutoDrawScheduler.STATE_FIELD));
+        assertEquals(CAPACITY, invitedCount(eventId));
+        assertEquals(1, Tasks.await(db.collection("events").document(eventId)
+                .collection("draws").get(), 30, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void eventDrawnByHandIsOnlyMarkedComplete() throws Exception {
+        String organizerId = seedClosedEvent(System.currentTimeMillis() - 30_000);
+        String eventId = organizerId + "-event";
+
+        assertEquals(1, runPass(new AutoDrawScheduler(db, organizerId)));
+        assertEquals(AutoDrawScheduler.STATE_COMPLETE, event(eventId).getString(AutoDrawScheduler.STATE_FIELD));
+        assertEquals(0, invitedCount(eventId));
+        assertFalse(Tasks.await(db.collection("events").document(eventId)
+                .collection("draws").document(AutoDrawScheduler.AUTO_DRAW_ID).get(), 30, TimeUnit.SECONDS).exists());
+    }
+}
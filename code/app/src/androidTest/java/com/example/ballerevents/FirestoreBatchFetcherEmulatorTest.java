@@ -0,0 +1,120 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Instrumented test for {@link FirestoreBatchFetcher} against the local Firestore emulator.
+ * <p>
+ * Start the emulator first with {@code firebase emulators:start --only firestore}.
+ * The device reaches the host machine through {@code 10.0.2.2}.
+ * </p>
+ * Covers the lottery winners screen: 300 winners should resolve in
+ * ceil(300 / 30) = 10 queries instead of 300 single-document reads.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirestoreBatchFetcherEmulatorTest {
+
+    private static final int WINNER_COUNT = 300;
+    private static FirebaseFirestore db;
+    private static final List<String> winnerIds = new ArrayList<>();
+
+    @BeforeClass
+    public static void seedEmulator() throws Exception {
+        db = FirebaseFirestore.getInstance();
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException ignored) {
+            // Already configured by another test in this process.
+        }
+
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < WINNER_COUNT; i++) {
+            String uid = String.format("batch-winner-%03d", i);
+            winnerIds.add(uid);
+            Map<String, Object> user = new HashMap<>();
+            user.put("name", "Winner " + i);
+            user.put("email", uid + "@test.com");
+            batch.set(db.collection("users").document(uid), user);
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+
+        // Draw order is random, so resolve the IDs in a shuffled order.
+        Collections.shuffle(winnerIds);
+    }
+
+    @Test
+    public void fetchProfiles_resolvesAllWinnersInOrderWithChunkedReads() throws Exception {
+        FirestoreBatchFetcher fetcher = new FirestoreBatchFetcher(db);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger progressCalls = new AtomicInteger();
+        AtomicReference<List<UserProfile>> result = new AtomicReference<>();
+        AtomicReference<List<String>> failed = new AtomicReference<>();
+
+        fetcher.fetchProfiles(winnerIds,
+                (loaded, completed, total) -> progressCalls.incrementAndGet(),
+                (profiles, failedIds, error) -> {
+                    result.set(profiles);
+                    failed.set(failedIds);
+                    done.countDown();
+                });
+
+        assertTrue("Fetch timed out", done.await(30, TimeUnit.SECONDS));
+
+        int expectedQueries = (WINNER_COUNT + FirestoreBatchFetcher.MAX_IDS_PER_QUERY - 1)
+                / FirestoreBatchFetcher.MAX_IDS_PER_QUERY;
+        assertEquals(expectedQueries, fetcher.getQueryCount());
+        assertEquals(expectedQueries - 1, progressCalls.get());
+        assertTrue(failed.get().isEmpty());
+
+        List<UserProfile> profiles = result.get();
+        assertEquals(WINNER_COUNT, profiles.size());
+        for (int i = 0; i < WINNER_COUNT; i++) {
+            assertEquals(winnerIds.get(i), profiles.get(i).getUid());
+        }
+    }
+
+    @Test
+    public void fetchProfiles_skipsMissingIdsWithoutFailing() throws Exception {
+        FirestoreBatchFetcher fetcher = new FirestoreBatchFetcher(db);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<UserProfile>> result = new AtomicReference<>();
+        AtomicReference<Exception> err = new AtomicReference<>();
+
+        List<String> ids = new ArrayList<>(winnerIds.subList(0, 5));
+        ids.add("no-such-user");
+        ids.add(winnerIds.get(0));
+
+        fetcher.fetchProfiles(ids, (profiles, failedIds, error) -> {
+            result.set(profiles);
+            err.set(error);
+            done.countDown();
+        });
+
+        assertTrue("Fetch timed out", done.await(30, TimeUnit.SECONDS));
+        assertNull(err.get());
+        assertEquals(1, fetcher.getQueryCount());
+        assertEquals(5, result.get().size());
+    }
+}
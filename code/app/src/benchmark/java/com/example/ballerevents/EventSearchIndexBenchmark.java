@@ -0,0 +1,74 @@
+package com.example.ballerevents;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link EventSearchIndex} against the linear scan in
+ * {@link EventFilter#performSearchAndFilter} at 10k and 100k events. Each invocation runs
+ * the full query set of {@link EventSearchIndexTest}. Run with
+ * {@code ./gradlew :app:jmh -PjmhArgs=EventSearchIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSearchIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int events;
+
+    private List<Event> ordered;
+    private List<EventSearchIndex.Query> queries;
+    private EventSearchIndex index;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(events);
+        ordered = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) ordered.add(EventSearchIndexTest.randomEvent(random, "e" + i));
+        queries = EventSearchIndexTest.queries();
+        index = build();
+    }
+
+    private EventSearchIndex build() {
+        EventSearchIndex built = new EventSearchIndex();
+        for (Event e : ordered) built.put(e);
+        return built;
+    }
+
+    @Benchmark
+    public EventSearchIndex buildIndex() {
+        return build();
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        for (EventSearchIndex.Query q : queries) blackhole.consume(index.filter(ordered, q));
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (EventSearchIndex.Query q : queries) {
+            blackhole.consume(EventFilter.performSearchAndFilter(
+                    ordered, q.normalizedQuery, q.tags, q.startDate, q.endDate));
+        }
+    }
+}
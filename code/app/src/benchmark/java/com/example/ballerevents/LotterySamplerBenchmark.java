@@ -0,0 +1,85 @@
+package com.example.ballerevents;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of every {@link LotterySampler} draw at 1M entrants, against a full shuffle
+ * of the pool as the baseline. Run with {@code ./gradlew :app:jmh -PjmhArgs=LotterySampler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LotterySamplerBenchmark {
+
+    @Param({"1000000"})
+    public int entrants;
+
+    @Param({"500"})
+    public int winners;
+
+    private List<Integer> pool;
+    private double[] weights;
+    private int[] tiers;
+    private long seed = 0;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(23);
+        pool = new ArrayList<>(entrants);
+        weights = new double[entrants];
+        tiers = new int[entrants];
+        for (int i = 0; i < entrants; i++) {
+            pool.add(i);
+            weights[i] = 0.5 + random.nextDouble();
+            tiers[i] = random.nextInt(3);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> sample() {
+        return new LotterySampler(seed++).sample(pool, winners);
+    }
+
+    @Benchmark
+    public List<Integer> reservoir() {
+        LotterySampler.Reservoir<Integer> reservoir = new LotterySampler(seed++).reservoir(winners);
+        for (Integer entrant : pool) reservoir.offer(entrant);
+        return reservoir.result();
+    }
+
+    @Benchmark
+    public List<Integer> sampleWeighted() {
+        return new LotterySampler(seed++).sampleWeighted(pool, i -> weights[i], winners);
+    }
+
+    @Benchmark
+    public List<Integer> samplePriority() {
+        return new LotterySampler(seed++).samplePriority(pool, i -> tiers[i], winners);
+    }
+
+    @Benchmark
+    public List<Integer> fullShuffle() {
+        List<Integer> shuffled = new ArrayList<>(pool);
+        Collections.shuffle(shuffled, new Random(seed++));
+        return new ArrayList<>(shuffled.subList(0, winners));
+    }
+}
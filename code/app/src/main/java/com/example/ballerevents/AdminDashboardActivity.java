@@ -60,6 +60,96 @@ public class AdminDashboardActivity extends AppCompatActivity {
         binding.btnSeeAllImages.setOnClickListener(v -> startActivity(new Intent(this, AdminImagesActivity.class)));
 
         binding.btnNavLogs.setOnClickListener(v -> startActivity(new Intent(this, AdminLogsActivity.class)));
+
+        binding.btnNavEvents.setOnLongClickListener(v -> {
+            showMaintenanceDialog();
+            return true;
+        });
+    }
+
+    /**
+     * Lists the one-off data migrations an admin can run on existing events and notifications.
+     */
+    private void showMaintenanceDialog() {
+        new AlertDialog.Builder(this)
+                .setTitle("Event Maintenance")
+                .setItems(new String[]{"Migrate entrants", "Backfill query fields", "Backfill notification read flags"}, (d, which) -> {
+                    if (which == 0) confirmEntrantsMigration();
+                    else if (which == 1) runFieldsBackfill();
+                    else runNotificationReadBackfill();
+                })
+                .show();
+    }
+
+    /**
+     * Writes the sortable start time, search title and waitlist count on events saved before they existed.
+     */
+    private void runFieldsBackfill() {
+        Toast.makeText(this, "Backfill started...", Toast.LENGTH_SHORT).show();
+        new EventFieldsBackfill(db).backfillAll(new EventFieldsBackfill.BackfillCallback() {
+            @Override
+            public void onComplete(int updated, int unparseable) {
+                Toast.makeText(AdminDashboardActivity.this,
+                        "Updated " + updated + " events" + (unparseable > 0 ? ", " + unparseable + " without a readable date" : ""),
+                        Toast.LENGTH_LONG).show();
+                loadRecentEvents();
+                loadRecentPosters();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Event fields backfill failed", e);
+                Toast.makeText(AdminDashboardActivity.this, "Backfill failed", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * Writes the {@code read} flag on notifications that only carry the legacy {@code isRead} one.
+     */
+    private void runNotificationReadBackfill() {
+        Toast.makeText(this, "Backfill started...", Toast.LENGTH_SHORT).show();
+        new NotificationReadBackfill(db).backfillAll(new BulkUpdater.Listener() {
+            @Override
+            public void onComplete(int updated) {
+                Toast.makeText(AdminDashboardActivity.this, "Updated " + updated + " notifications", Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Exception e, int updated) {
+                Log.e(TAG, "Notification read flag backfill failed after " + updated + " notifications", e);
+                Toast.makeText(AdminDashboardActivity.this, "Backfill failed", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * Asks for confirmation, then moves the entrants of all legacy events
+     * into their {@code entrants} subcollection.
+     */
+    private void confirmEntrantsMigration() {
+        new AlertDialog.Builder(this)
+                .setTitle("Migrate Entrants")
+                .setMessage("Move the entrants of all older events into the new storage format? This can be re-run safely.")
+                .setPositiveButton("Migrate", (d, w) -> {
+                    Toast.makeText(this, "Migration started...", Toast.LENGTH_SHORT).show();
+                    new EntrantsMigration(db).migrateAll(new EntrantsMigration.MigrationCallback() {
+                        @Override
+                        public void onComplete(int migrated, int failed) {
+                            Toast.makeText(AdminDashboardActivity.this,
+                                    "Migrated " + migrated + " events" + (failed > 0 ? ", " + failed + " failed (re-run to retry)" : ""),
+                                    Toast.LENGTH_LONG).show();
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            Log.e(TAG, "Entrants migration failed", e);
+                            Toast.makeText(AdminDashboardActivity.this, "Migration failed", Toast.LENGTH_SHORT).show();
+                        }
+                    });
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 
     /**
@@ -80,7 +170,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
      */
     private void loadRecentEvents() {
         db.collection("events")
-                .orderBy("date", Query.Direction.DESCENDING)
+                .orderBy("startTimeMillis", Query.Direction.DESCENDING)
                 .limit(5)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
@@ -159,7 +249,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
      */
     private void loadRecentPosters() {
         db.collection("events")
-                .orderBy("date", Query.Direction.DESCENDING)
+                .orderBy("startTimeMillis", Query.Direction.DESCENDING)
                 .limit(20)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
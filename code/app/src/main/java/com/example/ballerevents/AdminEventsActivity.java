@@ -3,6 +3,8 @@ package com.example.ballerevents;
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.util.Log;
@@ -12,17 +14,19 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.ballerevents.databinding.AdminEventsBinding;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Activity for the Administrator to browse and manage the list of all events.
  * Provides functionality to filter events by title and delete events from the system[cite: 103, 106].
+ * Events are loaded page by page through a {@link FirestorePagingSource}, and the title filter
+ * is a server-side prefix query on {@code titleLower}.
  */
 public class AdminEventsActivity extends AppCompatActivity
         implements AdminEventsAdapter.OnEventActionListener {
@@ -31,7 +35,15 @@ public class AdminEventsActivity extends AppCompatActivity
     private AdminEventsBinding binding;
     private FirebaseFirestore db;
     private AdminEventsAdapter adapter;
-    private List<Event> allEvents = new ArrayList<>();
+    private LinearLayoutManager layoutManager;
+    private FirestorePagingSource<Event> paging;
+    private RecyclerView.OnScrollListener pagingScrollListener;
+    private int searchGeneration = 0;
+
+    /** Delay before a changed search is sent, so typing does not start a query per key. */
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable pendingSearch = () -> loadEvents(binding.etSearch.getText().toString());
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -42,61 +54,76 @@ public class AdminEventsActivity extends AppCompatActivity
         db = FirebaseFirestore.getInstance();
         adapter = new AdminEventsAdapter(this);
 
-        binding.rvEvents.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        binding.rvEvents.setLayoutManager(layoutManager);
         binding.rvEvents.setAdapter(adapter);
 
         binding.tvTitle.setText("Events");
         binding.btnBack.setOnClickListener(v -> finish());
 
-        loadAllEvents();
+        loadEvents("");
 
         binding.etSearch.addTextChangedListener(new TextWatcher() {
             @Override public void beforeTextChanged(CharSequence s, int start, int c, int a) {}
             @Override public void onTextChanged(CharSequence s, int start, int b, int c) {
-                filter(s.toString());
+                handler.removeCallbacks(pendingSearch);
+                handler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
             }
             @Override public void afterTextChanged(Editable s) {}
         });
     }
 
-    /**
-     * Fetches all events from Firestore, ordered by date descending.
-     */
-    private void loadAllEvents() {
-        if (binding.progress != null) binding.progress.setVisibility(View.VISIBLE);
-
-        db.collection("events")
-                .orderBy("date", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(snap -> {
-                    if (binding.progress != null) binding.progress.setVisibility(View.GONE);
-                    allEvents = snap.toObjects(Event.class);
-                    for (int i = 0; i < snap.size(); i++) {
-                        allEvents.get(i).setId(snap.getDocuments().get(i).getId());
-                    }
-                    adapter.submitList(new ArrayList<>(allEvents));
-                })
-                .addOnFailureListener(e -> {
-                    if (binding.progress != null) binding.progress.setVisibility(View.GONE);
-                    Log.w(TAG, "Error", e);
-                });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(pendingSearch);
     }
 
     /**
-     * Filters the displayed list of events based on the search query.
+     * Starts paging through the events: newest first, or by title when a prefix is given.
      *
-     * @param query The text to filter by event title.
+     * @param titlePrefix Case-insensitive title prefix, empty for all events.
      */
-    private void filter(String query) {
-        if (query == null) query = "";
-        String q = query.toLowerCase();
-        List<Event> filtered = new ArrayList<>();
-        for (Event e : allEvents) {
-            if (e.getTitle() != null && e.getTitle().toLowerCase().contains(q)) {
-                filtered.add(e);
-            }
+    private void loadEvents(String titlePrefix) {
+        String prefix = titlePrefix == null ? "" : EventFieldsBackfill.titleKey(titlePrefix);
+        Query query;
+        if (prefix.isEmpty()) {
+            query = db.collection("events").orderBy("startTimeMillis", Query.Direction.DESCENDING);
+        } else {
+            // Matches every title that starts with the prefix
+            query = db.collection("events")
+                    .orderBy("titleLower")
+                    .startAt(prefix)
+                    .endAt(prefix + "\uf8ff");
         }
-        adapter.submitList(filtered);
+
+        if (pagingScrollListener != null) binding.rvEvents.removeOnScrollListener(pagingScrollListener);
+        int generation = ++searchGeneration;
+        paging = new FirestorePagingSource<>(query,
+                doc -> {
+                    Event e = doc.toObject(Event.class);
+                    if (e != null) e.setId(doc.getId());
+                    return e;
+                },
+                new FirestorePagingSource.Listener<Event>() {
+                    @Override
+                    public void onItemsChanged(List<Event> items, boolean initialLoad) {
+                        if (generation != searchGeneration) return; // superseded by a newer search
+                        if (binding.progress != null) {
+                            binding.progress.setVisibility(initialLoad ? View.VISIBLE : View.GONE);
+                        }
+                        adapter.submitList(items);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (binding.progress != null) binding.progress.setVisibility(View.GONE);
+                        Log.w(TAG, "Error", e);
+                    }
+                });
+        pagingScrollListener = paging.scrollListener(layoutManager);
+        binding.rvEvents.addOnScrollListener(pagingScrollListener);
+        paging.refresh();
     }
 
     @Override
@@ -122,8 +149,7 @@ public class AdminEventsActivity extends AppCompatActivity
                     db.collection("events").document(event.getId()).delete()
                             .addOnSuccessListener(a -> {
                                 Toast.makeText(this, "Deleted", Toast.LENGTH_SHORT).show();
-                                allEvents.remove(event);
-                                filter(binding.etSearch.getText().toString());
+                                paging.removeIf(e -> event.getId().equals(e.getId()));
                             });
                 })
                 .setNegativeButton("Cancel", null)
@@ -68,14 +68,19 @@ public class AdminEventsAdapter extends ListAdapter<Event, AdminEventsAdapter.Ev
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder h, int position) {
         Event e = getItem(position);
-        if (e == null) return;
+        if (e == null) {
+            bindPlaceholder(h);
+            return;
+        }
+        h.itemView.setEnabled(true);
+        h.ivMenu.setVisibility(View.VISIBLE);
 
         h.tvTitle.setText(e.getTitle());
         h.tvDate.setText(e.getDate());
         h.tvLocation.setText(e.getLocationName());
 
         Glide.with(h.itemView.getContext())
-                .load(e.getEventPosterUrl())
+                .load(ImageVariants.forView(h.ivPoster, e.getEventPosterVariants(), e.getEventPosterUrl()))
                 .placeholder(R.drawable.placeholder_image)
                 .error(R.drawable.placeholder_image)
                 .into(h.ivPoster);
@@ -90,6 +95,19 @@ public class AdminEventsAdapter extends ListAdapter<Event, AdminEventsAdapter.Ev
         });
     }
 
+    /**
+     * Shows an empty row for an event that is still loading (see {@link FirestorePagingSource}).
+     */
+    private void bindPlaceholder(EventViewHolder h) {
+        h.tvTitle.setText("Loading…");
+        h.tvDate.setText(null);
+        h.tvLocation.setText(null);
+        h.ivPoster.setImageResource(R.drawable.placeholder_image);
+        h.ivMenu.setVisibility(View.INVISIBLE);
+        h.itemView.setOnClickListener(null);
+        h.itemView.setEnabled(false);
+    }
+
     /**
      * Handles menu item selections for a specific event.
      *
@@ -132,7 +150,7 @@ public class AdminEventsAdapter extends ListAdapter<Event, AdminEventsAdapter.Ev
             new DiffUtil.ItemCallback<Event>() {
                 @Override
                 public boolean areItemsTheSame(@NonNull Event old, @NonNull Event n) {
-                    return old.getId().equals(n.getId());
+                    return String.valueOf(old.getId()).equals(n.getId());
                 }
                 @Override
                 public boolean areContentsTheSame(@NonNull Event old, @NonNull Event n) {
@@ -16,6 +16,7 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
@@ -102,7 +103,7 @@ public class AdminImagesActivity extends AppCompatActivity implements AdminImage
      */
     private void deletePosterFromEvent(Event event) {
         db.collection("events").document(event.getId())
-                .update("eventPosterUrl", "")
+                .update("eventPosterUrl", "", "eventPosterVariants", FieldValue.delete())
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Poster URL cleared", Toast.LENGTH_SHORT).show();
                     loadImages();
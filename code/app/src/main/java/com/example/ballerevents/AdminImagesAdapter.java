@@ -110,7 +110,7 @@ public class AdminImagesAdapter extends ListAdapter<Event, AdminImagesAdapter.VH
         if (event == null) return;
 
         Glide.with(h.itemView.getContext())
-                .load(event.getEventPosterUrl())
+                .load(ImageVariants.forView(h.ivPoster, event.getEventPosterVariants(), event.getEventPosterUrl()))
                 .placeholder(R.drawable.placeholder_image)
                 .error(R.drawable.placeholder_image)
                 .into(h.ivPoster);
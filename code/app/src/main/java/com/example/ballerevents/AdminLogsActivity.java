@@ -16,12 +16,14 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Activity that allows the Administrator to review global system logs.
  * Displays a list of all notifications sent within the system for auditing purposes.
- * Note: The logs in this view are read-only.
+ * Note: The logs in this view are read-only, apart from the {@code adminReviewed} moderation
+ * flag, which "Mark all reviewed" sets on every notification with a {@link BulkUpdater}.
  */
 public class AdminLogsActivity extends AppCompatActivity {
 
@@ -41,7 +43,8 @@ public class AdminLogsActivity extends AppCompatActivity {
 
         if (binding.btnBack != null) binding.btnBack.setOnClickListener(v -> finish());
         binding.tvTitle.setText("System Logs");
-        binding.btnMarkAll.setVisibility(View.GONE);
+        binding.btnMarkAll.setText("Mark all reviewed");
+        binding.btnMarkAll.setOnClickListener(v -> markAllReviewed());
         binding.chipGroup.setVisibility(View.GONE);
 
         setupRecycler();
@@ -100,6 +103,39 @@ public class AdminLogsActivity extends AppCompatActivity {
                 });
     }
 
+    /**
+     * Sets {@code adminReviewed} on every notification in the system. Notifications that
+     * were already reviewed are skipped; those written before the flag existed lack the
+     * field, so they cannot be excluded by the query itself.
+     */
+    private void markAllReviewed() {
+        binding.btnMarkAll.setEnabled(false);
+        new BulkUpdater(db).update(db.collectionGroup("notifications"),
+                Collections.singletonMap("adminReviewed", true),
+                doc -> Boolean.TRUE.equals(doc.getBoolean("adminReviewed")),
+                new BulkUpdater.Listener() {
+                    @Override
+                    public void onProgress(int updated, int scanned) {
+                        binding.btnMarkAll.setText("Reviewed " + updated + " of " + scanned + " scanned…");
+                    }
+
+                    @Override
+                    public void onComplete(int updated) {
+                        binding.btnMarkAll.setEnabled(true);
+                        binding.btnMarkAll.setText("Mark all reviewed");
+                        Toast.makeText(AdminLogsActivity.this, "Marked " + updated + " logs reviewed", Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onError(Exception e, int updated) {
+                        Log.e(TAG, "Marking logs reviewed failed after " + updated, e);
+                        binding.btnMarkAll.setEnabled(true);
+                        binding.btnMarkAll.setText("Mark all reviewed");
+                        Toast.makeText(AdminLogsActivity.this, "Failed after " + updated + " logs", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
     /**
      * Displays the technical details of a notification log in a dialog.
      *
@@ -64,7 +64,7 @@ public class AdminPostersAdapter extends ListAdapter<Event, AdminPostersAdapter.
             b.tvLabel.setText(event.getTitle());
 
             Glide.with(itemView.getContext())
-                    .load(event.getEventPosterUrl())
+                    .load(ImageVariants.forView(b.ivPoster, event.getEventPosterVariants(), event.getEventPosterUrl()))
                     .placeholder(R.drawable.placeholder_image)
                     .error(R.drawable.placeholder_image)
                     .into(b.ivPoster);
@@ -12,14 +12,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.ballerevents.databinding.ActivityAdminProfilesBinding;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Activity for the Administrator to browse and manage user profiles.
  * Allows the admin to view profile details and permanently delete users from the system.
+ * Profiles are loaded page by page through a {@link FirestorePagingSource}.
  */
 public class AdminProfilesActivity extends AppCompatActivity {
 
@@ -27,7 +28,8 @@ public class AdminProfilesActivity extends AppCompatActivity {
     private ActivityAdminProfilesBinding binding;
     private FirebaseFirestore db;
     private AdminProfilesAdapter adapter;
-    private final List<UserProfile> data = new ArrayList<>();
+    private LinearLayoutManager layoutManager;
+    private FirestorePagingSource<UserProfile> paging;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -48,7 +50,8 @@ public class AdminProfilesActivity extends AppCompatActivity {
      * Initializes the RecyclerView and Adapter with click and delete listeners.
      */
     private void setupRecycler() {
-        binding.recycler.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        binding.recycler.setLayoutManager(layoutManager);
 
         adapter = new AdminProfilesAdapter(new AdminProfilesAdapter.OnProfileActionListener() {
             @Override
@@ -73,27 +76,31 @@ public class AdminProfilesActivity extends AppCompatActivity {
     }
 
     /**
-     * Fetches all user profiles from Firestore and populates the list.
+     * Starts paging through the user profiles in document ID order, which every profile has.
      */
     private void loadAllProfiles() {
-        binding.progress.setVisibility(View.VISIBLE);
-        db.collection("users").get()
-                .addOnSuccessListener(snap -> {
-                    binding.progress.setVisibility(View.GONE);
-                    data.clear();
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : snap.getDocuments()) {
-                        UserProfile p = doc.toObject(UserProfile.class);
-                        if (p != null) {
-                            p.setUid(doc.getId());
-                            data.add(p);
-                        }
+        paging = new FirestorePagingSource<>(
+                db.collection("users").orderBy(FieldPath.documentId()),
+                doc -> {
+                    UserProfile p = doc.toObject(UserProfile.class);
+                    if (p != null) p.setUid(doc.getId());
+                    return p;
+                },
+                new FirestorePagingSource.Listener<UserProfile>() {
+                    @Override
+                    public void onItemsChanged(List<UserProfile> items, boolean initialLoad) {
+                        binding.progress.setVisibility(initialLoad ? View.VISIBLE : View.GONE);
+                        adapter.submitList(items);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        binding.progress.setVisibility(View.GONE);
+                        Log.w(TAG, "Error", e);
                     }
-                    adapter.submitList(new ArrayList<>(data));
-                })
-                .addOnFailureListener(e -> {
-                    binding.progress.setVisibility(View.GONE);
-                    Log.w(TAG, "Error", e);
                 });
+        binding.recycler.addOnScrollListener(paging.scrollListener(layoutManager));
+        paging.refresh();
     }
 
     /**
@@ -106,7 +113,7 @@ public class AdminProfilesActivity extends AppCompatActivity {
         db.collection("users").document(userId).delete()
                 .addOnSuccessListener(a -> {
                     Toast.makeText(this, "User deleted", Toast.LENGTH_SHORT).show();
-                    loadAllProfiles();
+                    paging.removeIf(p -> userId.equals(p.getId()));
                 });
     }
 }
\ No newline at end of file
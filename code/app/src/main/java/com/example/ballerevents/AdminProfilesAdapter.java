@@ -69,6 +69,8 @@ public class AdminProfilesAdapter extends ListAdapter<UserProfile, AdminProfiles
          * @param listener The listener for click events.
          */
         void bind(UserProfile p, OnProfileActionListener listener) {
+            itemView.setEnabled(true);
+            b.ivMenu.setVisibility(View.VISIBLE);
             b.tvName.setText(p.getName());
             b.tvEmail.setText(p.getEmail());
 
@@ -81,7 +83,7 @@ public class AdminProfilesAdapter extends ListAdapter<UserProfile, AdminProfiles
             }
 
             Glide.with(itemView.getContext())
-                    .load(p.getProfilePictureUrl())
+                    .load(ImageVariants.forView(b.ivAvatar, p.getProfilePictureVariants(), p.getProfilePictureUrl()))
                     .placeholder(R.drawable.placeholder_avatar1)
                     .error(R.drawable.placeholder_avatar1)
                     .into(b.ivAvatar);
@@ -102,6 +104,19 @@ public class AdminProfilesAdapter extends ListAdapter<UserProfile, AdminProfiles
                 popup.show();
             });
         }
+
+        /**
+         * Shows an empty row for a profile that is still loading (see {@link FirestorePagingSource}).
+         */
+        void bindPlaceholder() {
+            b.tvName.setText("Loading…");
+            b.tvEmail.setText(null);
+            b.tvRole.setText(null);
+            b.ivAvatar.setImageResource(R.drawable.placeholder_avatar1);
+            b.ivMenu.setVisibility(View.INVISIBLE);
+            itemView.setOnClickListener(null);
+            itemView.setEnabled(false);
+        }
     }
 
     @NonNull
@@ -116,6 +131,7 @@ public class AdminProfilesAdapter extends ListAdapter<UserProfile, AdminProfiles
     public void onBindViewHolder(@NonNull VH holder, int pos) {
         UserProfile p = getItem(pos);
         if (p != null) holder.bind(p, listener);
+        else holder.bindPlaceholder();
     }
 
     private static final DiffUtil.ItemCallback<UserProfile> ProfileDiffCallback =
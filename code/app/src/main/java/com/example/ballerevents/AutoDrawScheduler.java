@@ -0,0 +1,255 @@
+package com.example.ballerevents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the lottery of an organizer's events when their registration window closes, for
+ * organizers who do not draw by hand.
+ * <p>
+ * While started, the scheduler makes a pass over the organizer's events, draws every event
+ * that is due (see {@link #isDue}) with at most {@link #MAX_PARALLEL_EVENTS} draws in
+ * flight, then sleeps until the next registration window closes (at most
+ * {@link #MAX_SLEEP_MS}).
+ * </p>
+ * <p>
+ * Each event is claimed in a transaction that records {@link #STATE_FIELD} on the event.
+ * Events that were already drawn by hand are marked complete without drawing. The draw
+ * always uses {@link #AUTO_DRAW_ID}, so {@link LotteryEngine} records it at most once, even
+ * when several devices of the organizer run the scheduler or a pass is interrupted and
+ * resumed. The auto-draw fills {@code maxAttendees} seats, or the whole waitlist for events
+ * without a limit.
+ * </p>
+ */
+public class AutoDrawScheduler {
+
+    private static final String TAG = "AutoDrawScheduler";
+
+    /** Event field with the auto-draw state: {@link #STATE_RUNNING} or {@link #STATE_COMPLETE}. */
+    public static final String STATE_FIELD = "autoDrawState";
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_COMPLETE = "complete";
+    /** Draw ID used for the auto-draw of every event. */
+    public static final String AUTO_DRAW_ID = "auto";
+
+    /** Events whose window closed longer ago than this are left to the organizer. */
+    static final long LOOKBACK_MS = 7L * 24 * 60 * 60 * 1000;
+    /** Longest sleep between passes. */
+    static final long MAX_SLEEP_MS = 15 * 60 * 1000;
+    /** Shortest sleep between passes, so a failing pass does not spin. */
+    static final long MIN_SLEEP_MS = 5_000;
+    static final int MAX_PARALLEL_EVENTS = 3;
+
+    private final FirebaseFirestore db;
+    private final String organizerId;
+    private final LotteryEngine lotteryEngine;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tick = () -> runDue(null);
+    private boolean started = false;
+    private boolean passRunning = false;
+
+    /**
+     * @param db          Firestore instance.
+     * @param organizerId The organizer whose events are drawn.
+     */
+    public AutoDrawScheduler(FirebaseFirestore db, String organizerId) {
+        this.db = db;
+        this.organizerId = organizerId;
+        this.lotteryEngine = new LotteryEngine(db);
+    }
+
+    /**
+     * Runs a pass now and keeps scheduling passes until {@link #stop()}.
+     */
+    public void start() {
+        if (started) return;
+        started = true;
+        handler.post(tick);
+    }
+
+    /**
+     * Cancels the next pass. A pass in progress finishes its current draws.
+     */
+    public void stop() {
+        started = false;
+        handler.removeCallbacks(tick);
+    }
+
+    /**
+     * Draws every due event of the organizer once.
+     *
+     * @param cb Callback for completion (optional); receives the number of due events processed.
+     */
+    public void runDue(@Nullable FirestoreEventRepository.ItemCallback<Integer> cb) {
+        if (passRunning) {
+            if (cb != null) cb.onSuccess(0);
+            return;
+        }
+        passRunning = true;
+        long now = System.currentTimeMillis();
+
+        db.collection("events")
+                .whereEqualTo("organizerId", organizerId)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    Deque<String> due = new ArrayDeque<>();
+                    List<Long> closeTimes = new ArrayList<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        long closeAt = longField(doc, "registrationCloseAtMillis");
+                        String state = doc.getString(STATE_FIELD);
+                        if (isDue(closeAt, state, now)) {
+                            due.add(doc.getId());
+                        } else if (!STATE_COMPLETE.equals(state)) {
+                            closeTimes.add(closeAt);
+                        }
+                    }
+                    runQueue(due, new int[]{0}, new int[]{0}, () -> {
+                        passRunning = false;
+                        scheduleNext(nextWakeUpMillis(closeTimes, now));
+                    }, cb);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Could not load events for auto-draw", e);
+                    passRunning = false;
+                    scheduleNext(now + MIN_SLEEP_MS);
+                    if (cb != null) cb.onError(e);
+                });
+    }
+
+    /**
+     * Starts queued draws until {@link #MAX_PARALLEL_EVENTS} are in flight; each finished
+     * draw starts the next. Failures are logged and retried on the next pass.
+     */
+    private void runQueue(Deque<String> queue, int[] inFlight, int[] processed, Runnable onDone,
+                          @Nullable FirestoreEventRepository.ItemCallback<Integer> cb) {
+        if (queue.isEmpty() && inFlight[0] == 0) {
+            onDone.run();
+            if (cb != null) cb.onSuccess(processed[0]);
+            return;
+        }
+        while (inFlight[0] < MAX_PARALLEL_EVENTS && !queue.isEmpty()) {
+            String eventId = queue.poll();
+            inFlight[0]++;
+            drawEvent(eventId, new FirestoreEventRepository.VoidCallback() {
+                @Override
+                public void onSuccess() {
+                    inFlight[0]--;
+                    processed[0]++;
+                    runQueue(queue, inFlight, processed, onDone, cb);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    Log.w(TAG, "Auto-draw failed for " + eventId, e);
+                    inFlight[0]--;
+                    runQueue(queue, inFlight, processed, onDone, cb);
+                }
+            });
+        }
+    }
+
+    private void drawEvent(String eventId, FirestoreEventRepository.VoidCallback cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.runTransaction(tx -> {
+                    DocumentSnapshot snap = tx.get(eventRef);
+                    String state = snap.getString(STATE_FIELD);
+                    if (STATE_COMPLETE.equals(state)) return 0L;
+                    if (STATE_RUNNING.equals(state)) return longField(snap, "autoDrawSpots");
+
+                    Event event = snap.toObject(Event.class);
+                    long spots = event == null || longField(snap, LotteryEngine.LAST_DRAW_FIELD) > 0
+                            ? 0 : spotsToDraw(event.getMaxAttendees());
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put(STATE_FIELD, spots > 0 ? STATE_RUNNING : STATE_COMPLETE);
+                    updates.put("autoDrawSpots", spots);
+                    tx.update(eventRef, updates);
+                    return spots;
+                })
+                .addOnSuccessListener(spots -> {
+                    if (spots <= 0) {
+                        cb.onSuccess();
+                        return;
+                    }
+                    lotteryEngine.draw(eventId, spots.intValue(), AUTO_DRAW_ID, new LotteryEngine.DrawListener() {
+                        @Override
+                        public void onProgress(int notified, int total) { }
+
+                        @Override
+                        public void onComplete(int winners) {
+                            Map<String, Object> updates = new HashMap<>();
+                            updates.put(STATE_FIELD, STATE_COMPLETE);
+                            updates.put("autoDrawnAtMillis", System.currentTimeMillis());
+                            eventRef.update(updates)
+                                    .addOnSuccessListener(unused -> cb.onSuccess())
+                                    .addOnFailureListener(cb::onError);
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            cb.onError(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    private void scheduleNext(long atMillis) {
+        if (!started) return;
+        handler.removeCallbacks(tick);
+        handler.postDelayed(tick, Math.max(0, atMillis - System.currentTimeMillis()));
+    }
+
+    /**
+     * @param closeAtMillis The event's registrationCloseAtMillis (0 if unset).
+     * @param state         The event's {@link #STATE_FIELD} (null if never auto-drawn).
+     * @param nowMillis     The current time.
+     * @return True if the window closed within {@link #LOOKBACK_MS} and the auto-draw has
+     * not completed.
+     */
+    static boolean isDue(long closeAtMillis, @Nullable String state, long nowMillis) {
+        return closeAtMillis > 0
+                && closeAtMillis <= nowMillis
+                && closeAtMillis > nowMillis - LOOKBACK_MS
+                && !STATE_COMPLETE.equals(state);
+    }
+
+    /**
+     * @param maxAttendees The event capacity; zero or less means unlimited.
+     * @return Winners to draw; every entrant wins when the capacity is unlimited.
+     */
+    static long spotsToDraw(int maxAttendees) {
+        return maxAttendees > 0 ? maxAttendees : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param closeTimes Close times of events that are not yet drawn.
+     * @param nowMillis  The current time.
+     * @return When the next pass should run.
+     */
+    static long nextWakeUpMillis(List<Long> closeTimes, long nowMillis) {
+        long next = nowMillis + MAX_SLEEP_MS;
+        for (long closeAt : closeTimes) {
+            if (closeAt > nowMillis && closeAt < next) next = closeAt;
+        }
+        return Math.max(next, nowMillis + MIN_SLEEP_MS);
+    }
+
+    private static long longField(DocumentSnapshot snap, String field) {
+        Long value = snap.getLong(field);
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.ballerevents;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Periodic background pass of {@link AutoDrawScheduler} for the signed-in organizer, so
+ * events are drawn when their registration closes even if the app is not open.
+ * <p>
+ * WorkManager runs the pass about every {@link #INTERVAL_MINUTES} minutes while the device
+ * is online. {@link OrganizerActivity} still runs the scheduler in the foreground, which
+ * draws closer to the closing time; both claim events through {@link AutoDrawScheduler}'s
+ * transaction, so an event is never drawn twice.
+ * </p>
+ */
+public class AutoDrawWorker extends Worker {
+
+    private static final String TAG = "AutoDrawWorker";
+
+    /** Unique name of the periodic work. */
+    static final String WORK_NAME = "auto-draw";
+    /** WorkManager's minimum period. */
+    static final long INTERVAL_MINUTES = 15;
+    /** Stops waiting on a pass before WorkManager's ten-minute limit; the next run resumes it. */
+    static final long PASS_TIMEOUT_MINUTES = 9;
+
+    public AutoDrawWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the periodic pass. Keeps the existing schedule if there is one.
+     *
+     * @param context Any context.
+     */
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                AutoDrawWorker.class, INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Runs on a background thread. The scheduler's Firestore callbacks arrive on the main
+     * thread, so this thread only waits for the pass to finish.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return Result.success();
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        new AutoDrawScheduler(FirebaseFirestore.getInstance(), user.getUid())
+                .runDue(new FirestoreEventRepository.ItemCallback<Integer>() {
+                    @Override
+                    public void onSuccess(Integer processed) {
+                        Log.d(TAG, "Auto-draw pass processed " + processed + " events");
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Auto-draw pass failed", e);
+                        failed.set(true);
+                        done.countDown();
+                    }
+                });
+
+        try {
+            if (!done.await(PASS_TIMEOUT_MINUTES, TimeUnit.MINUTES)) return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+        return failed.get() ? Result.retry() : Result.success();
+    }
+}
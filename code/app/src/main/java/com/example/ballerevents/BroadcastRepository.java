@@ -0,0 +1,402 @@
+package com.example.ballerevents;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Event-wide broadcast notifications.
+ * <p>
+ * A broadcast is a single document in <code>events/{eventId}/broadcasts/{broadcastId}</code>
+ * instead of one copy per recipient under <code>users/{uid}/notifications</code>. Its
+ * {@link #AUDIENCE_FIELD} lists the entrant statuses it is meant for (empty means every
+ * entrant). Each user sees the broadcasts of the events in their {@code appliedEventIds}
+ * that were sent after they joined and whose audience contains their status. Users who
+ * turned notifications off see none, as {@link NotificationDispatcher} would have skipped
+ * them.
+ * </p>
+ * <p>
+ * Read state is kept per user and per event as a read cursor on the user document
+ * ({@link #READ_CURSORS_FIELD}): a broadcast is read when its timestamp is not after the
+ * cursor. Dismissed broadcasts are listed in {@link #DISMISSED_FIELD}.
+ * </p>
+ */
+public class BroadcastRepository {
+
+    private static final String TAG = "BroadcastRepository";
+
+    public static final String BROADCASTS = "broadcasts";
+    /** Broadcast field with the {@code Entrant.STATUS_*} values it is sent to. */
+    public static final String AUDIENCE_FIELD = "audience";
+    /** User field mapping event IDs to the timestamp of the newest read broadcast. */
+    public static final String READ_CURSORS_FIELD = "broadcastReadAt";
+    /** User field with the IDs of broadcasts the user deleted from their inbox. */
+    public static final String DISMISSED_FIELD = "dismissedBroadcastIds";
+    /** Newest broadcasts loaded per event. */
+    static final int MAX_PER_EVENT = 20;
+
+    /** Orders notifications newest first; pending (null) timestamps come first. */
+    public static final Comparator<Notification> NEWEST_FIRST = (a, b) -> {
+        Date da = a.getTimestamp();
+        Date dbb = b.getTimestamp();
+        if (da == null || dbb == null) return da == null ? (dbb == null ? 0 : -1) : 1;
+        return dbb.compareTo(da);
+    };
+
+    private final FirebaseFirestore db;
+    private final EntrantRepository entrantRepository;
+    private final FirestoreBatchFetcher batchFetcher;
+
+    public BroadcastRepository() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public BroadcastRepository(FirebaseFirestore db) {
+        this.db = db;
+        this.entrantRepository = new EntrantRepository(db);
+        this.batchFetcher = new FirestoreBatchFetcher(db);
+    }
+
+    /**
+     * Writes one broadcast for an event.
+     *
+     * @param eventId      The event ID.
+     * @param notification The title, message and type; the timestamp is set by the server.
+     * @param audience     Entrant statuses that receive it; empty for every entrant.
+     * @param cb           Callback for completion.
+     */
+    public void broadcast(String eventId, Notification notification, Collection<String> audience,
+                          FirestoreEventRepository.VoidCallback cb) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", notification.getTitle());
+        data.put("message", notification.getMessage());
+        data.put("eventId", eventId);
+        data.put("type", notification.getType());
+        data.put("senderId", notification.getSenderId());
+        data.put(AUDIENCE_FIELD, new ArrayList<>(audience));
+        data.put("timestamp", FieldValue.serverTimestamp());
+
+        db.collection("events").document(eventId).collection(BROADCASTS)
+                .add(data)
+                .addOnSuccessListener(ref -> cb.onSuccess())
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Listens to the broadcasts addressed to a user, newest first. The listener follows
+     * changes to the user's events, read cursors and dismissed broadcasts.
+     *
+     * @param uid The user ID.
+     * @param cb  Callback receiving the full broadcast list on every change.
+     * @return The registration; call remove() to stop listening.
+     */
+    public ListenerRegistration listenToFeed(String uid, FirestoreEventRepository.ListCallback<Notification> cb) {
+        Feed feed = new Feed(uid, cb);
+        feed.start();
+        return feed::remove;
+    }
+
+    /**
+     * Marks a broadcast, and every older broadcast of the same event, as read for a user.
+     * The cursor never moves backwards.
+     *
+     * @param uid       The user ID.
+     * @param broadcast The broadcast.
+     */
+    public void markRead(String uid, Notification broadcast) {
+        Date timestamp = broadcast.getTimestamp();
+        if (timestamp == null || broadcast.getEventId() == null) return;
+        DocumentReference userRef = db.collection("users").document(uid);
+        String field = READ_CURSORS_FIELD + "." + broadcast.getEventId();
+
+        db.runTransaction(tx -> {
+            Timestamp current = tx.get(userRef).getTimestamp(field);
+            if (current == null || current.toDate().before(timestamp)) {
+                tx.update(userRef, field, new Timestamp(timestamp));
+            }
+            return null;
+        }).addOnFailureListener(e -> Log.w(TAG, "Failed to update read cursor", e));
+    }
+
+    /**
+     * Marks every broadcast of the given events as read for a user.
+     *
+     * @param uid      The user ID.
+     * @param eventIds The events whose cursors move to the current server time.
+     */
+    public void markAllRead(String uid, Collection<String> eventIds) {
+        if (eventIds.isEmpty()) return;
+        Map<String, Object> updates = new HashMap<>();
+        for (String eventId : eventIds) {
+            updates.put(READ_CURSORS_FIELD + "." + eventId, FieldValue.serverTimestamp());
+        }
+        db.collection("users").document(uid).update(updates)
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to update read cursors", e));
+    }
+
+    /**
+     * Hides a broadcast from a user's inbox.
+     *
+     * @param uid         The user ID.
+     * @param broadcastId The broadcast document ID.
+     */
+    public void dismiss(String uid, String broadcastId) {
+        db.collection("users").document(uid)
+                .update(DISMISSED_FIELD, FieldValue.arrayUnion(broadcastId))
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to dismiss broadcast", e));
+    }
+
+    /**
+     * @param timestamp When the broadcast was sent (null while pending).
+     * @param cursor    The user's read cursor for the event (null if never read).
+     * @return True if the broadcast is at or before the cursor.
+     */
+    static boolean isRead(@Nullable Date timestamp, @Nullable Date cursor) {
+        return timestamp != null && cursor != null && !timestamp.after(cursor);
+    }
+
+    /**
+     * @param audience The broadcast's audience (null or empty for every entrant).
+     * @param status   The user's status in the event (null if not an entrant).
+     * @return True if the broadcast is addressed to the user.
+     */
+    static boolean inAudience(@Nullable List<String> audience, @Nullable String status) {
+        return status != null && (audience == null || audience.isEmpty() || audience.contains(status));
+    }
+
+    /**
+     * @param timestamp When the broadcast was sent (null while pending).
+     * @param joinedAt  When the user joined the event (null for legacy events).
+     * @param audience  The broadcast's audience (null or empty for every entrant).
+     * @param status    The user's status in the event (null if not an entrant).
+     * @param shown     True if the feed already showed the broadcast to the user.
+     * @return True if the broadcast belongs in the user's feed: it was not sent before
+     * they joined, and it is addressed to their status or was shown under an earlier one.
+     */
+    static boolean isVisible(@Nullable Date timestamp, @Nullable Date joinedAt,
+                             @Nullable List<String> audience, @Nullable String status, boolean shown) {
+        if (status == null) return false;
+        if (timestamp != null && joinedAt != null && timestamp.before(joinedAt)) return false;
+        return shown || inAudience(audience, status);
+    }
+
+    /**
+     * One user's broadcast feed: a listener on the user document, one on the user's entrant
+     * documents, and one per joined event. Runs on the main thread.
+     * <p>
+     * Audiences are matched against the user's current status, so statuses are resolved
+     * again whenever an entrant document changes (e.g. waiting to invited) and, for legacy
+     * events, whenever the user's event lists change. A broadcast stays in the feed once
+     * shown, so a status change does not take back a message the user already saw.
+     * </p>
+     */
+    private final class Feed {
+        private final String uid;
+        private final FirestoreEventRepository.ListCallback<Notification> cb;
+        private final Map<String, ListenerRegistration> eventListeners = new HashMap<>();
+        private final Map<String, List<DocumentSnapshot>> docsByEvent = new HashMap<>();
+        private Map<String, String> statuses = new HashMap<>();
+        private Map<String, Date> joinedAt = new HashMap<>();
+        /** Broadcasts already shown, kept visible after the user's status changes. */
+        private final Set<String> shown = new HashSet<>();
+        private Map<String, Date> cursors = new HashMap<>();
+        private Set<String> dismissed = new HashSet<>();
+        private boolean notificationsEnabled = true;
+        @Nullable private List<String> appliedEventIds;
+        /** The user's event lists, compared to notice legacy status changes. */
+        @Nullable private List<List<String>> eventLists;
+        /** Live entrants in subcollection events; null until the entrant listener first fires. */
+        @Nullable private Map<String, Entrant> subcollectionEntrants;
+        @Nullable private ListenerRegistration userListener;
+        @Nullable private ListenerRegistration entrantListener;
+        private int resolveRequest = 0;
+        private boolean removed = false;
+
+        Feed(String uid, FirestoreEventRepository.ListCallback<Notification> cb) {
+            this.uid = uid;
+            this.cb = cb;
+        }
+
+        void start() {
+            userListener = db.collection("users").document(uid).addSnapshotListener((snap, e) -> {
+                if (e != null) {
+                    cb.onError(e);
+                    return;
+                }
+                if (snap == null || !snap.exists()) return;
+
+                notificationsEnabled = NotificationDispatcher.acceptsNotifications(snap);
+                cursors = readCursors(snap.get(READ_CURSORS_FIELD));
+                dismissed = new HashSet<>(stringList(snap.get(DISMISSED_FIELD)));
+                appliedEventIds = stringList(snap.get("appliedEventIds"));
+                List<List<String>> lists = Arrays.asList(appliedEventIds,
+                        stringList(snap.get("invitedEventIds")), stringList(snap.get("joinedEventIds")));
+                if (!lists.equals(eventLists)) {
+                    eventLists = lists;
+                    resolveStatuses();
+                } else {
+                    emit();
+                }
+            });
+            entrantListener = entrantRepository.listenToEntrantsForUser(uid,
+                    new FirestoreEventRepository.ItemCallback<Map<String, Entrant>>() {
+                        @Override
+                        public void onSuccess(Map<String, Entrant> entrants) {
+                            subcollectionEntrants = entrants;
+                            resolveStatuses();
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            cb.onError(e);
+                        }
+                    });
+        }
+
+        void remove() {
+            removed = true;
+            if (userListener != null) userListener.remove();
+            if (entrantListener != null) entrantListener.remove();
+            for (ListenerRegistration reg : eventListeners.values()) reg.remove();
+            eventListeners.clear();
+        }
+
+        /**
+         * Looks up the user's status in each joined event: subcollection events from the
+         * entrant listener, with their join time, legacy events from their arrays. Waits until both the user
+         * document and the entrant listener have been read.
+         */
+        private void resolveStatuses() {
+            if (appliedEventIds == null || subcollectionEntrants == null) return;
+            int request = ++resolveRequest;
+            Map<String, String> resolved = new HashMap<>();
+            Map<String, Date> joined = new HashMap<>();
+            List<String> legacy = new ArrayList<>();
+            for (String eventId : appliedEventIds) {
+                Entrant entrant = subcollectionEntrants.get(eventId);
+                if (entrant != null && entrant.getStatus() != null) {
+                    resolved.put(eventId, entrant.getStatus());
+                    if (entrant.getJoinedAt() != null) joined.put(eventId, entrant.getJoinedAt());
+                } else {
+                    legacy.add(eventId);
+                }
+            }
+            if (legacy.isEmpty()) {
+                applyStatuses(request, resolved, joined);
+                return;
+            }
+            batchFetcher.fetchEvents(legacy, (events, failedIds, firstError) -> {
+                if (!failedIds.isEmpty()) Log.w(TAG, "Failed to load " + failedIds.size() + " events", firstError);
+                for (Event event : events) {
+                    if (event.usesEntrantSubcollection()) continue;
+                    String status = Entrant.statusFromArrays(event, uid);
+                    if (status != null) resolved.put(event.getId(), status);
+                }
+                applyStatuses(request, resolved, joined);
+            });
+        }
+
+        /** Attaches listeners for newly joined events and drops those the user left. */
+        private void applyStatuses(int request, Map<String, String> resolved, Map<String, Date> joined) {
+            if (removed || request != resolveRequest) return;
+            statuses = resolved;
+            joinedAt = joined;
+
+            List<String> stale = new ArrayList<>();
+            for (String eventId : eventListeners.keySet()) {
+                if (!resolved.containsKey(eventId)) stale.add(eventId);
+            }
+            for (String eventId : stale) {
+                eventListeners.remove(eventId).remove();
+                docsByEvent.remove(eventId);
+            }
+            for (String eventId : resolved.keySet()) {
+                if (!eventListeners.containsKey(eventId)) eventListeners.put(eventId, listen(eventId));
+            }
+            emit();
+        }
+
+        private ListenerRegistration listen(String eventId) {
+            return db.collection("events").document(eventId).collection(BROADCASTS)
+                    .orderBy("timestamp", Query.Direction.DESCENDING)
+                    .limit(MAX_PER_EVENT)
+                    .addSnapshotListener((snap, e) -> {
+                        if (e != null) {
+                            Log.w(TAG, "Broadcast listener failed for " + eventId, e);
+                            return;
+                        }
+                        if (snap == null) return;
+                        docsByEvent.put(eventId, snap.getDocuments());
+                        emit();
+                    });
+        }
+
+        /** Builds fresh notification objects so list diffing sees read-state changes. */
+        private void emit() {
+            if (removed) return;
+            List<Notification> feed = new ArrayList<>();
+            if (!notificationsEnabled) {
+                cb.onSuccess(feed);
+                return;
+            }
+            for (Map.Entry<String, List<DocumentSnapshot>> entry : docsByEvent.entrySet()) {
+                String status = statuses.get(entry.getKey());
+                Date joined = joinedAt.get(entry.getKey());
+                for (DocumentSnapshot doc : entry.getValue()) {
+                    if (dismissed.contains(doc.getId())) continue;
+                    Notification n = doc.toObject(Notification.class);
+                    if (n == null) continue;
+                    if (!isVisible(n.getTimestamp(), joined, stringList(doc.get(AUDIENCE_FIELD)),
+                            status, shown.contains(doc.getId()))) continue;
+                    shown.add(doc.getId());
+                    n.setBroadcast(true);
+                    n.setRead(isRead(n.getTimestamp(), cursors.get(entry.getKey())));
+                    feed.add(n);
+                }
+            }
+            feed.sort(NEWEST_FIRST);
+            cb.onSuccess(feed);
+        }
+    }
+
+    private static Map<String, Date> readCursors(@Nullable Object raw) {
+        Map<String, Date> cursors = new HashMap<>();
+        if (raw instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) raw).entrySet()) {
+                if (entry.getValue() instanceof Timestamp) {
+                    cursors.put(String.valueOf(entry.getKey()), ((Timestamp) entry.getValue()).toDate());
+                }
+            }
+        }
+        return cursors;
+    }
+
+    private static List<String> stringList(@Nullable Object raw) {
+        List<String> list = new ArrayList<>();
+        if (raw instanceof List) {
+            for (Object item : (List<?>) raw) {
+                if (item instanceof String) list.add((String) item);
+            }
+        }
+        return list;
+    }
+}
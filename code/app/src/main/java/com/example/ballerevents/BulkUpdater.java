@@ -0,0 +1,171 @@
+package com.example.ballerevents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Applies the same field updates to every document matched by a query, however many there are.
+ * <p>
+ * The query is read in pages of {@link #PAGE_SIZE} documents ordered by document ID, each
+ * page starting after the last document of the previous one, so documents that stop matching
+ * once updated (e.g. {@code read == false}) do not shift the pages. Each page is committed as
+ * up to {@link #MAX_PARALLEL_BATCHES} batches of {@link EntrantsMigration#MAX_WRITES_PER_BATCH}
+ * writes in parallel, and a failed batch is retried with exponential backoff. The next page is
+ * read once the current one is committed, so at most one page is held in memory.
+ * </p>
+ * <p>
+ * An optional filter skips documents that the query cannot exclude, such as those already
+ * carrying the new value in a field that older documents lack.
+ * </p>
+ */
+public class BulkUpdater {
+
+    private static final String TAG = "BulkUpdater";
+
+    static final int MAX_PARALLEL_BATCHES = 3;
+    /** Documents read per page: one full batch for each parallel slot. */
+    static final int PAGE_SIZE = EntrantsMigration.MAX_WRITES_PER_BATCH * MAX_PARALLEL_BATCHES;
+    static final int MAX_ATTEMPTS = 4;
+    static final long RETRY_BASE_DELAY_MS = 500;
+
+    /**
+     * Receives the progress and outcome of {@link #update}.
+     */
+    public interface Listener {
+        /**
+         * Called after each page is committed.
+         *
+         * @param updated Documents updated so far.
+         * @param scanned Documents read so far, including skipped ones.
+         */
+        default void onProgress(int updated, int scanned) {}
+
+        /**
+         * @param updated Documents updated in total.
+         */
+        void onComplete(int updated);
+
+        /**
+         * Called when a batch fails after every retry; nothing further is updated.
+         *
+         * @param e       The last error.
+         * @param updated Documents updated before the failure.
+         */
+        void onError(Exception e, int updated);
+    }
+
+    private final FirebaseFirestore db;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public BulkUpdater() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public BulkUpdater(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Updates every document matched by {@code query}.
+     *
+     * @param query    A filtered query without ordering, limit or cursor; it may be a
+     *                 collection group query.
+     * @param updates  Field values to write to each document.
+     * @param skip     Matches documents to leave untouched (optional).
+     * @param listener Receives progress and the outcome.
+     */
+    public void update(Query query, Map<String, ?> updates,
+                       @Nullable Predicate<DocumentSnapshot> skip, Listener listener) {
+        new Run(query.orderBy(FieldPath.documentId()), updates, skip, listener).nextPage(null);
+    }
+
+    /** State of one {@link #update} call. Runs on the main thread. */
+    private final class Run {
+        private final Query ordered;
+        private final Map<String, ?> updates;
+        @Nullable private final Predicate<DocumentSnapshot> skip;
+        private final Listener listener;
+        private int updated = 0;
+        private int scanned = 0;
+        private boolean failed = false;
+
+        Run(Query ordered, Map<String, ?> updates,
+            @Nullable Predicate<DocumentSnapshot> skip, Listener listener) {
+            this.ordered = ordered;
+            this.updates = updates;
+            this.skip = skip;
+            this.listener = listener;
+        }
+
+        void nextPage(@Nullable DocumentSnapshot after) {
+            Query page = after != null ? ordered.startAfter(after) : ordered;
+            page.limit(PAGE_SIZE).get()
+                    .addOnSuccessListener(snap -> {
+                        List<DocumentSnapshot> docs = snap.getDocuments();
+                        scanned += docs.size();
+                        List<DocumentSnapshot> targets = new ArrayList<>();
+                        for (DocumentSnapshot doc : docs) {
+                            if (skip == null || !skip.test(doc)) targets.add(doc);
+                        }
+                        boolean lastPage = docs.size() < PAGE_SIZE;
+                        DocumentSnapshot cursor = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+                        commitPage(targets, () -> {
+                            listener.onProgress(updated, scanned);
+                            if (lastPage) listener.onComplete(updated);
+                            else nextPage(cursor);
+                        });
+                    })
+                    .addOnFailureListener(e -> listener.onError(e, updated));
+        }
+
+        private void commitPage(List<DocumentSnapshot> targets, Runnable onDone) {
+            List<List<DocumentSnapshot>> chunks =
+                    FirestoreBatchFetcher.chunk(targets, EntrantsMigration.MAX_WRITES_PER_BATCH);
+            if (chunks.isEmpty()) {
+                onDone.run();
+                return;
+            }
+            int[] remaining = {chunks.size()};
+            for (List<DocumentSnapshot> chunk : chunks) {
+                commit(chunk, 1, () -> {
+                    updated += chunk.size();
+                    if (--remaining[0] == 0 && !failed) onDone.run();
+                });
+            }
+        }
+
+        private void commit(List<DocumentSnapshot> chunk, int attempt, Runnable onSuccess) {
+            WriteBatch batch = db.batch();
+            Map<String, Object> fields = new HashMap<>(updates);
+            for (DocumentSnapshot doc : chunk) batch.update(doc.getReference(), fields);
+            batch.commit()
+                    .addOnSuccessListener(unused -> onSuccess.run())
+                    .addOnFailureListener(e -> {
+                        if (failed) return;
+                        if (attempt >= MAX_ATTEMPTS) {
+                            failed = true;
+                            listener.onError(e, updated);
+                            return;
+                        }
+                        long delay = RETRY_BASE_DELAY_MS << (attempt - 1);
+                        Log.w(TAG, "Bulk update batch failed (attempt " + attempt + "), retrying in " + delay + " ms", e);
+                        handler.postDelayed(() -> commit(chunk, attempt + 1, onSuccess), delay);
+                    });
+        }
+    }
+}
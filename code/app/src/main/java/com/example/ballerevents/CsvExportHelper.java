@@ -6,28 +6,44 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.MediaStore;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Helper class for exporting data to CSV files.
+ * Helper class for exporting entrants to CSV and other file formats.
  *
- * <p>This class provides methods to export lists of entrants to CSV format
- * and save them to the device's Downloads folder. It handles both legacy
- * external storage (Android 9 and below) and scoped storage (Android 10+).</p>
+ * <p>This class streams lists of entrants through an {@link ExportPipeline} and saves them
+ * to the device's Downloads folder. It handles both legacy external storage
+ * (Android 9 and below) and scoped storage (Android 10+).</p>
  *
  * <p>Features:</p>
  * <ul>
  * <li>Exports accepted entrants with name and email</li>
+ * <li>Exports any of the organizer's lists, with selectable columns, as CSV or
+ * JSON Lines, optionally gzip-compressed (see {@link ExportOptions})</li>
+ * <li>Reads entrants page by page and writes each page straight to the file on a
+ * background thread, so memory use does not grow with the roster</li>
  * <li>Generates timestamped filenames</li>
  * <li>Saves to Downloads folder for easy access</li>
  * <li>Handles Android version differences automatically</li>
@@ -37,8 +53,11 @@ public class CsvExportHelper {
 
     private static final String TAG = "CsvExportHelper";
 
+    /** Entrants read, resolved and written per page. */
+    static final int PAGE_SIZE = 500;
+
     /**
-     * Callback interface for CSV export operations.
+     * Callback interface for CSV export operations. All methods run on the main thread.
      */
     public interface ExportCallback {
         /**
@@ -49,145 +68,243 @@ public class CsvExportHelper {
         void onSuccess(String filePath);
 
         /**
-         * Called when export fails.
+         * Called when export fails. Nothing is left in Downloads.
          *
          * @param error The exception that caused the failure.
          */
         void onFailure(Exception error);
+
+        /**
+         * Called after each page is written.
+         *
+         * @param rowsWritten Entrant rows written so far.
+         */
+        default void onProgress(int rowsWritten) {}
     }
 
     /**
-     * Exports a list of accepted entrants to a CSV file.
+     * Exports every accepted entrant of an event to a CSV file.
      *
      * <p>The CSV will contain two columns: Name and Email.
      * The file is saved to the Downloads folder with a timestamped filename.</p>
      *
-     * @param context       Application context for file operations.
-     * @param eventTitle    Title of the event (used in filename).
-     * @param entrants      List of UserProfile objects who accepted.
-     * @param callback      Callback to receive success/failure results.
+     * @param context  Context for file operations.
+     * @param event    The event (already loaded).
+     * @param callback Callback to receive progress and success/failure results.
      */
-    public static void exportAcceptedEntrants(
-            Context context,
-            String eventTitle,
-            List<UserProfile> entrants,
-            ExportCallback callback
-    ) {
-        if (entrants == null || entrants.isEmpty()) {
-            callback.onFailure(new IllegalArgumentException("No entrants to export"));
-            return;
-        }
-
-        try {
-            StringBuilder csvContent = new StringBuilder();
-            csvContent.append("Name,Email\n");
-
-            for (UserProfile entrant : entrants) {
-                String name = escapeCSV(entrant.getName());
-                String email = escapeCSV(entrant.getEmail());
-                csvContent.append(name).append(",").append(email).append("\n");
-            }
+    public static void exportAcceptedEntrants(Context context, Event event, ExportCallback callback) {
+        exportEntrants(context, event, ExportOptions.ACCEPTED_CSV, callback);
+    }
 
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US)
-                    .format(new Date());
-            String sanitizedTitle = sanitizeFilename(eventTitle);
-            String filename = "Accepted_Entrants_" + sanitizedTitle + "_" + timestamp + ".csv";
+    /**
+     * Exports the entrants of an event in the selected lists. Every selected list is read in
+     * a single pass over the entrants, so exporting all lists costs one read per entrant.
+     *
+     * @param context  Context for file operations.
+     * @param event    The event (already loaded).
+     * @param options  Format, compression, columns and lists to export.
+     * @param callback Callback to receive progress and success/failure results.
+     */
+    public static void exportEntrants(Context context, Event event, ExportOptions options, ExportCallback callback) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US)
+                .format(new Date());
+        String filename = options.fileName(sanitizeFilename(event.getTitle()), timestamp);
 
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                saveToDownloadsQ(context, filename, csvContent.toString(), callback);
-            } else {
-                saveToDownloadsLegacy(context, filename, csvContent.toString(), callback);
-            }
+        new StreamingExport(context.getApplicationContext(), event, options, filename, callback).start();
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error creating CSV", e);
-            callback.onFailure(e);
+    /**
+     * Writes one CSV row, escaping each field with {@link #escapeCSV}.
+     *
+     * @param writer Destination.
+     * @param fields Field values; null is written as an empty field.
+     * @throws IOException If the writer fails.
+     */
+    static void writeRow(Writer writer, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(escapeCSV(fields[i]));
         }
+        writer.write('\n');
     }
 
     /**
-     * Saves CSV to Downloads folder on Android 10+ using MediaStore API.
-     *
-     * @param context  Application context.
-     * @param filename Name of the file to save.
-     * @param content  String content of the CSV.
-     * @param callback Callback for success or failure.
+     * One export in progress. Firestore reads run on the main thread; opening, writing and
+     * closing the file run on a single background thread. The next page is requested only
+     * after the previous one is written, so one page is held in memory at a time.
      */
-    private static void saveToDownloadsQ(
-            Context context,
-            String filename,
-            String content,
-            ExportCallback callback
-    ) {
-        try {
-            ContentResolver resolver = context.getContentResolver();
-            ContentValues values = new ContentValues();
-            values.put(MediaStore.Downloads.DISPLAY_NAME, filename);
-            values.put(MediaStore.Downloads.MIME_TYPE, "text/csv");
-            values.put(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS);
-
-            Uri uri = resolver.insert(MediaStore.Downloads.EXTERNAL_CONTENT_URI, values);
-
-            if (uri == null) {
-                callback.onFailure(new IOException("Failed to create file in Downloads"));
-                return;
-            }
+    private static final class StreamingExport {
+        private final Context context;
+        private final Event event;
+        private final ExportOptions options;
+        private final String filename;
+        private final ExportCallback callback;
+        private final EntrantRepository entrantRepository = new EntrantRepository();
+        private final FirestoreBatchFetcher batchFetcher = new FirestoreBatchFetcher(FirebaseFirestore.getInstance());
+        private final ExecutorService io = Executors.newSingleThreadExecutor();
+        private final Handler main = new Handler(Looper.getMainLooper());
 
-            try (OutputStream outputStream = resolver.openOutputStream(uri)) {
-                if (outputStream == null) {
-                    callback.onFailure(new IOException("Failed to open output stream"));
-                    return;
+        // Touched only on the io thread
+        private ExportPipeline pipeline;
+        private Uri uri;
+        private File file;
+
+        /** Set on the main thread once finishing or failing has been scheduled. */
+        private boolean done = false;
+
+        StreamingExport(Context context, Event event, ExportOptions options, String filename,
+                        ExportCallback callback) {
+            this.context = context;
+            this.event = event;
+            this.options = options;
+            this.filename = filename;
+            this.callback = callback;
+        }
+
+        void start() {
+            io.execute(() -> {
+                try {
+                    open();
+                    main.post(() -> nextPage(null));
+                } catch (Exception e) {
+                    main.post(() -> fail(e));
                 }
+            });
+        }
 
-                outputStream.write(content.getBytes());
-                outputStream.flush();
+        private void nextPage(@Nullable String after) {
+            entrantRepository.fetchEntrantPage(event, options.statuses(), after, PAGE_SIZE, new FirestoreEventRepository.ItemCallback<EntrantRepository.EntrantPage>() {
+                        @Override
+                        public void onSuccess(EntrantRepository.EntrantPage page) {
+                            List<String> ids = new ArrayList<>();
+                            for (Entrant entrant : page.entrants) ids.add(entrant.getId());
+                            if (ids.isEmpty()) {
+                                afterPage(page);
+                                return;
+                            }
+                            batchFetcher.fetchProfiles(ids, (profiles, failedIds, error) -> {
+                                if (!failedIds.isEmpty()) {
+                                    fail(error != null ? error
+                                            : new IOException(failedIds.size() + " entrants could not be loaded"));
+                                    return;
+                                }
+                                writePage(profiles, page);
+                            });
+                        }
 
-                Log.d(TAG, "CSV saved successfully to: " + uri.toString());
-                callback.onSuccess("Downloads/" + filename);
-            }
+                        @Override
+                        public void onError(Exception e) {
+                            fail(e);
+                        }
+                    });
+        }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error saving CSV (Android 10+)", e);
-            callback.onFailure(e);
+        private void writePage(List<UserProfile> profiles, EntrantRepository.EntrantPage page) {
+            Map<String, UserProfile> byId = new HashMap<>();
+            for (UserProfile profile : profiles) byId.put(profile.getUid(), profile);
+            io.execute(() -> {
+                try {
+                    pipeline.writePage(page.entrants, byId);
+                    int rows = pipeline.getRowsWritten();
+                    main.post(() -> {
+                        callback.onProgress(rows);
+                        afterPage(page);
+                    });
+                } catch (Exception e) {
+                    main.post(() -> fail(e));
+                }
+            });
         }
-    }
 
-    /**
-     * Saves CSV to Downloads folder on Android 9 and below using File API.
-     *
-     * @param context  Application context.
-     * @param filename Name of the file to save.
-     * @param content  String content of the CSV.
-     * @param callback Callback for success or failure.
-     */
-    private static void saveToDownloadsLegacy(
-            Context context,
-            String filename,
-            String content,
-            ExportCallback callback
-    ) {
-        try {
-            File downloadsDir = Environment.getExternalStoragePublicDirectory(
-                    Environment.DIRECTORY_DOWNLOADS
-            );
-
-            if (!downloadsDir.exists()) {
-                downloadsDir.mkdirs();
-            }
+        private void afterPage(EntrantRepository.EntrantPage page) {
+            if (page.hasMore) nextPage(page.cursor);
+            else finish();
+        }
+
+        private void finish() {
+            if (done) return;
+            done = true;
+            io.execute(() -> {
+                try {
+                    if (pipeline.getRowsWritten() == 0) throw new IllegalArgumentException("No entrants to export");
+                    pipeline.close();
+                    String path = publish();
+                    Log.d(TAG, "Export saved successfully to: " + path);
+                    main.post(() -> callback.onSuccess(path));
+                } catch (Exception e) {
+                    discard();
+                    main.post(() -> callback.onFailure(e));
+                }
+                io.shutdown();
+            });
+        }
 
-            File file = new File(downloadsDir, filename);
+        private void fail(Exception e) {
+            if (done) return;
+            done = true;
+            Log.e(TAG, "Error exporting entrants", e);
+            io.execute(() -> {
+                discard();
+                main.post(() -> callback.onFailure(e));
+                io.shutdown();
+            });
+        }
 
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                fos.write(content.getBytes());
-                fos.flush();
+        /**
+         * Creates the file in Downloads: through MediaStore on Android 10+ (hidden as pending
+         * until {@link #publish}), or with the File API on Android 9 and below.
+         */
+        private void open() throws IOException {
+            OutputStream out;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                ContentResolver resolver = context.getContentResolver();
+                ContentValues values = new ContentValues();
+                values.put(MediaStore.Downloads.DISPLAY_NAME, filename);
+                values.put(MediaStore.Downloads.MIME_TYPE, options.mimeType());
+                values.put(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS);
+                values.put(MediaStore.Downloads.IS_PENDING, 1);
 
-                Log.d(TAG, "CSV saved successfully to: " + file.getAbsolutePath());
-                callback.onSuccess(file.getAbsolutePath());
+                uri = resolver.insert(MediaStore.Downloads.EXTERNAL_CONTENT_URI, values);
+                if (uri == null) throw new IOException("Failed to create file in Downloads");
+                out = resolver.openOutputStream(uri);
+                if (out == null) throw new IOException("Failed to open output stream");
+            } else {
+                File downloadsDir = Environment.getExternalStoragePublicDirectory(
+                        Environment.DIRECTORY_DOWNLOADS
+                );
+                if (!downloadsDir.exists()) {
+                    downloadsDir.mkdirs();
+                }
+                file = new File(downloadsDir, filename);
+                out = new FileOutputStream(file);
             }
+            try {
+                pipeline = new ExportPipeline(out, options);
+            } catch (IOException e) {
+                out.close();
+                throw e;
+            }
+        }
+
+        private String publish() {
+            if (uri != null) {
+                ContentValues values = new ContentValues();
+                values.put(MediaStore.Downloads.IS_PENDING, 0);
+                context.getContentResolver().update(uri, values, null, null);
+                return "Downloads/" + filename;
+            }
+            return file.getAbsolutePath();
+        }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error saving CSV (Legacy)", e);
-            callback.onFailure(e);
+        /** Closes and deletes a partly written file. */
+        private void discard() {
+            try {
+                if (pipeline != null) pipeline.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error closing partial export", e);
+            }
+            if (uri != null) context.getContentResolver().delete(uri, null, null);
+            if (file != null && file.exists() && !file.delete()) Log.w(TAG, "Could not delete " + file);
         }
     }
 
@@ -200,7 +317,7 @@ public class CsvExportHelper {
      * @param value The string value to escape.
      * @return Escaped string safe for CSV format.
      */
-    private static String escapeCSV(String value) {
+    static String escapeCSV(String value) {
         if (value == null) {
             return "";
         }
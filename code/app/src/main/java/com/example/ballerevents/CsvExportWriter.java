@@ -0,0 +1,41 @@
+package com.example.ballerevents;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes a header row of column names followed by one CSV row per entrant, escaped with
+ * {@link CsvExportHelper#escapeCSV}.
+ */
+final class CsvExportWriter implements ExportWriter {
+
+    private final Writer out;
+    private final List<ExportColumn> columns;
+    private final String[] fields;
+
+    CsvExportWriter(Writer out, List<ExportColumn> columns) {
+        this.out = out;
+        this.columns = columns;
+        this.fields = new String[columns.size()];
+    }
+
+    @Override
+    public void begin() throws IOException {
+        for (int i = 0; i < fields.length; i++) fields[i] = columns.get(i).header;
+        CsvExportHelper.writeRow(out, fields);
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = values[i] != null ? values[i].toString() : null;
+        }
+        CsvExportHelper.writeRow(out, fields);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -19,14 +19,10 @@ import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.GeoPoint;
 import com.google.firebase.firestore.ListenerRegistration;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Activity for displaying detailed information about a specific event.
  *
@@ -47,11 +43,15 @@ public class DetailsActivity extends AppCompatActivity {
     private FirebaseFirestore db;
     private FirebaseAuth auth;
     private ListenerRegistration eventListener;
+    private ListenerRegistration entrantListener;
+    private EntrantRepository entrantRepository;
     private FusedLocationProviderClient fusedLocationClient;
 
     private String eventId;
     private String currentUserId;
     private Event mEvent;
+    /** Current user's status for subcollection events (null if not an entrant). */
+    private String entrantStatus;
     private UserProfile organizerProfile;
 
     private final ActivityResultLauncher<String> requestPermissionLauncher =
@@ -72,6 +72,7 @@ public class DetailsActivity extends AppCompatActivity {
 
         db = FirebaseFirestore.getInstance();
         auth = FirebaseAuth.getInstance();
+        entrantRepository = new EntrantRepository(db);
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
 
         if (auth.getCurrentUser() != null) {
@@ -100,6 +101,7 @@ public class DetailsActivity extends AppCompatActivity {
                         mEvent = snapshot.toObject(Event.class);
                         if (mEvent != null) {
                             mEvent.setId(snapshot.getId());
+                            if (mEvent.usesEntrantSubcollection()) listenToOwnEntry();
                             updateUI();
                         }
                     }
@@ -110,6 +112,31 @@ public class DetailsActivity extends AppCompatActivity {
     protected void onStop() {
         super.onStop();
         if (eventListener != null) eventListener.remove();
+        if (entrantListener != null) {
+            entrantListener.remove();
+            entrantListener = null;
+        }
+    }
+
+    /**
+     * Listens to the current user's entrant document, which holds their status
+     * for events stored with {@link Event#STORAGE_SUBCOLLECTION}.
+     */
+    private void listenToOwnEntry() {
+        if (entrantListener != null || currentUserId == null) return;
+        entrantListener = entrantRepository.listenToEntrant(eventId, currentUserId,
+                new FirestoreEventRepository.ItemCallback<Entrant>() {
+                    @Override
+                    public void onSuccess(Entrant entrant) {
+                        entrantStatus = entrant != null ? entrant.getStatus() : null;
+                        if (mEvent != null) updateStatusUI();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Entrant listen failed", e);
+                    }
+                });
     }
 
     /**
@@ -122,8 +149,7 @@ public class DetailsActivity extends AppCompatActivity {
         binding.tvDate.setText(mEvent.getDate() + " at " + mEvent.getTime());
         binding.tvLocation.setText(mEvent.getLocationName());
 
-        int waitingCount = (mEvent.getWaitlistUserIds() != null) ? mEvent.getWaitlistUserIds().size() : 0;
-        binding.tvWaitlistCount.setText("👤 " + waitingCount + " Waiting");
+        binding.tvWaitlistCount.setText("👤 " + mEvent.getWaitlistCount() + " Waiting");
 
         if (mEvent.getOrganizerId() != null) {
             DocumentReference userRef = db.collection("users").document(mEvent.getOrganizerId());
@@ -169,22 +195,21 @@ public class DetailsActivity extends AppCompatActivity {
     private void updateStatusUI() {
         if (currentUserId == null) return;
 
-        boolean isWaitlisted = mEvent.getWaitlistUserIds() != null && mEvent.getWaitlistUserIds().contains(currentUserId);
-        boolean isSelected = mEvent.getSelectedUserIds() != null && mEvent.getSelectedUserIds().contains(currentUserId);
-        boolean isCancelled = mEvent.getCancelledUserIds() != null && mEvent.getCancelledUserIds().contains(currentUserId);
-        boolean isFull = mEvent.getWaitlistUserIds() != null && (mEvent.getMaxAttendees() > 0 && mEvent.getWaitlistUserIds().size() >= mEvent.getMaxAttendees());
+        String status = mEvent.usesEntrantSubcollection()
+                ? entrantStatus
+                : Entrant.statusFromArrays(mEvent, currentUserId);
 
-        String status = "unknown";
-        if (mEvent.getInvitationStatus() != null) {
-            status = mEvent.getInvitationStatus().getOrDefault(currentUserId, "pending");
-        }
+        boolean isWaitlisted = Entrant.STATUS_WAITING.equals(status);
+        boolean isSelected = Entrant.isSelectedStatus(status);
+        boolean isCancelled = Entrant.isCancelledStatus(status);
+        JoinOutcome joinable = JoinOutcome.evaluate(mEvent, false, System.currentTimeMillis());
 
         binding.btnJoinWaitlist.setVisibility(View.GONE);
         binding.layoutInviteActions.setVisibility(View.GONE);
         binding.tvStatusMessage.setVisibility(View.GONE);
 
         if (isSelected) {
-            if ("accepted".equals(status)) {
+            if (Entrant.STATUS_ACCEPTED.equals(status)) {
                 binding.tvStatusMessage.setText("You are going! ✅");
                 binding.tvStatusMessage.setVisibility(View.VISIBLE);
                 binding.tvStatusMessage.setTextColor(getColor(android.R.color.holo_green_dark));
@@ -201,8 +226,8 @@ public class DetailsActivity extends AppCompatActivity {
             binding.tvStatusMessage.setText("You declined this invitation.");
             binding.tvStatusMessage.setVisibility(View.VISIBLE);
             binding.tvStatusMessage.setTextColor(getColor(android.R.color.holo_red_dark));
-        } else if (isFull) {
-            binding.tvStatusMessage.setText("The waitlist is currently full!");
+        } else if (joinable != JoinOutcome.JOINED) {
+            binding.tvStatusMessage.setText(joinMessage(joinable));
             binding.tvStatusMessage.setVisibility(View.VISIBLE);
         } else {
             binding.btnJoinWaitlist.setVisibility(View.VISIBLE);
@@ -226,8 +251,8 @@ public class DetailsActivity extends AppCompatActivity {
             }
         });
 
-        binding.btnAccept.setOnClickListener(v -> respondToInvite("accepted"));
-        binding.btnDecline.setOnClickListener(v -> respondToInvite("declined"));
+        binding.btnAccept.setOnClickListener(v -> respondToInvite(Entrant.STATUS_ACCEPTED));
+        binding.btnDecline.setOnClickListener(v -> respondToInvite(Entrant.STATUS_DECLINED));
     }
 
     /**
@@ -254,17 +279,29 @@ public class DetailsActivity extends AppCompatActivity {
      */
     private void joinWaitlist(GeoPoint location) {
         if (mEvent == null) return;
-        db.collection("events").document(eventId)
-                .update("waitlistUserIds", FieldValue.arrayUnion(currentUserId));
+        entrantRepository.join(mEvent, currentUserId, location, new FirestoreEventRepository.ItemCallback<JoinOutcome>() {
+            @Override
+            public void onSuccess(JoinOutcome outcome) {
+                Toast.makeText(DetailsActivity.this, joinMessage(outcome), Toast.LENGTH_SHORT).show();
+            }
 
-        if (location != null) {
-            db.collection("events").document(eventId)
-                    .update("entrantLocations." + currentUserId, location);
-        }
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Join failed", e);
+                Toast.makeText(DetailsActivity.this, "Could not join waitlist", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-        db.collection("users").document(currentUserId)
-                .update("appliedEventIds", FieldValue.arrayUnion(eventId))
-                .addOnSuccessListener(a -> Toast.makeText(this, "Joined Waitlist!", Toast.LENGTH_SHORT).show());
+    private static String joinMessage(JoinOutcome outcome) {
+        switch (outcome) {
+            case JOINED: return "Joined Waitlist!";
+            case ALREADY_JOINED: return "You already joined this event";
+            case NOT_OPEN_YET: return "Registration has not opened yet";
+            case CLOSED: return "Registration has closed";
+            case FULL: return "The waitlist is currently full!";
+            default: return "Could not join waitlist";
+        }
     }
 
     /**
@@ -274,19 +311,16 @@ public class DetailsActivity extends AppCompatActivity {
      */
     private void respondToInvite(String response) {
         if (mEvent == null) return;
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("invitationStatus." + currentUserId, response);
-
-        if ("declined".equals(response)) {
-            updates.put("selectedUserIds", FieldValue.arrayRemove(currentUserId));
-            updates.put("cancelledUserIds", FieldValue.arrayUnion(currentUserId));
-        }
+        entrantRepository.respondToInvite(eventId, currentUserId, response, new FirestoreEventRepository.VoidCallback() {
+            @Override
+            public void onSuccess() {
+                Toast.makeText(DetailsActivity.this, "Response sent: " + response, Toast.LENGTH_SHORT).show();
+            }
 
-        db.collection("events").document(eventId).update(updates)
-                .addOnSuccessListener(a -> {
-                    Toast.makeText(this, "Response sent: " + response, Toast.LENGTH_SHORT).show();
-                    updateStatusUI();
-                })
-                .addOnFailureListener(e -> Toast.makeText(this, "Error sending response", Toast.LENGTH_SHORT).show());
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(DetailsActivity.this, "Error sending response", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
\ No newline at end of file
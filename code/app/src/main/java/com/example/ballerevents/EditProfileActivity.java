@@ -42,6 +42,7 @@ public class EditProfileActivity extends AppCompatActivity {
     private String currentUserId;
     private String newProfileImageUriString;
     private String existingProfileImageUrl;
+    private Map<String, String> existingProfileImageVariants;
 
     private final ActivityResultLauncher<String> imagePicker =
             registerForActivityResult(new ActivityResultContracts.GetContent(), uri -> {
@@ -97,6 +98,7 @@ public class EditProfileActivity extends AppCompatActivity {
 
                             if (user.getProfilePictureUrl() != null && !user.getProfilePictureUrl().isEmpty()) {
                                 existingProfileImageUrl = user.getProfilePictureUrl();
+                                existingProfileImageVariants = user.getProfilePictureVariants();
                                 Glide.with(this).load(user.getProfilePictureUrl())
                                         .placeholder(R.drawable.placeholder_avatar1)
                                         .circleCrop()
@@ -158,10 +160,12 @@ public class EditProfileActivity extends AppCompatActivity {
         if (newProfileImageUriString != null && !newProfileImageUriString.startsWith("http")) {
             Uri imageUri = Uri.parse(newProfileImageUriString);
 
-            ImageUploadHelper.uploadProfileImage(imageUri, new ImageUploadHelper.UploadCallback() {
+            ImageUploadHelper.uploadProfileImage(this, imageUri, new ImageUploadHelper.UploadCallback() {
                 @Override
-                public void onSuccess(String downloadUrl) {
+                public void onSuccess(String downloadUrl, Map<String, String> variantUrls) {
                     updates.put("profilePictureUrl", downloadUrl);
+                    updates.put("profilePictureVariants", variantUrls);
+                    ImageUploadHelper.deleteVariants(existingProfileImageVariants);
 
                     if (existingProfileImageUrl != null &&
                             !existingProfileImageUrl.isEmpty() &&
@@ -238,6 +242,7 @@ public class EditProfileActivity extends AppCompatActivity {
 
         String uid = user.getUid();
 
+        ImageUploadHelper.deleteVariants(existingProfileImageVariants);
         if (existingProfileImageUrl != null && !existingProfileImageUrl.isEmpty()) {
             ImageUploadHelper.deleteImage(existingProfileImageUrl, new ImageUploadHelper.DeleteCallback() {
                 @Override
@@ -0,0 +1,124 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentId;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ServerTimestamp;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Firestore model for a single entrant of an event.
+ * <p>
+ * This class maps to documents stored in:
+ * <code>events/{eventId}/entrants/{userId}</code>
+ * and is used by events whose {@link Event#getEntrantStorage()} is
+ * {@link Event#STORAGE_SUBCOLLECTION}. The document ID is the entrant's user ID.
+ * </p>
+ */
+public class Entrant {
+
+    /** On the waiting list, not yet drawn. */
+    public static final String STATUS_WAITING = "waiting";
+    /** Drawn in the lottery, invitation notification not yet sent. */
+    public static final String STATUS_CHOSEN = "chosen";
+    /** Invited and awaiting a response. */
+    public static final String STATUS_INVITED = "invited";
+    /** Accepted the invitation (enrolled). */
+    public static final String STATUS_ACCEPTED = "accepted";
+    /** Declined the invitation. */
+    public static final String STATUS_DECLINED = "declined";
+    /** Removed by the organizer. */
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    @DocumentId
+    private String id;
+    private String userId;
+    private String status;
+    private GeoPoint location;
+    private boolean winnerNotified;
+
+    @ServerTimestamp
+    private Date joinedAt;
+
+    /**
+     * Required empty constructor for Firestore deserialization.
+     */
+    public Entrant() {}
+
+    /**
+     * Constructs an entrant document.
+     *
+     * @param userId   The entrant's user ID.
+     * @param status   One of the {@code STATUS_*} constants.
+     * @param location Location captured on join (optional).
+     */
+    public Entrant(String userId, String status, @Nullable GeoPoint location) {
+        this.userId = userId;
+        this.status = status;
+        this.location = location;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public GeoPoint getLocation() { return location; }
+    public void setLocation(GeoPoint location) { this.location = location; }
+
+    public boolean isWinnerNotified() { return winnerNotified; }
+    public void setWinnerNotified(boolean winnerNotified) { this.winnerNotified = winnerNotified; }
+
+    public Date getJoinedAt() { return joinedAt; }
+    public void setJoinedAt(Date joinedAt) { this.joinedAt = joinedAt; }
+
+    /**
+     * @param status An entrant status.
+     * @return True if the status occupies a seat (drawn, invited or accepted).
+     */
+    public static boolean isSelectedStatus(@Nullable String status) {
+        return STATUS_CHOSEN.equals(status)
+                || STATUS_INVITED.equals(status)
+                || STATUS_ACCEPTED.equals(status);
+    }
+
+    /**
+     * @param status An entrant status.
+     * @return True if the entrant dropped out (declined or cancelled).
+     */
+    public static boolean isCancelledStatus(@Nullable String status) {
+        return STATUS_DECLINED.equals(status) || STATUS_CANCELLED.equals(status);
+    }
+
+    /**
+     * Derives a user's entrant status from the legacy array fields of an event
+     * stored with {@link Event#STORAGE_ARRAY}.
+     *
+     * @param event The event.
+     * @param uid   The user ID.
+     * @return One of the {@code STATUS_*} constants, or null if the user is not an entrant.
+     */
+    @Nullable
+    public static String statusFromArrays(Event event, String uid) {
+        Map<String, String> invitation = event.getInvitationStatus();
+        String invite = invitation != null ? invitation.get(uid) : null;
+
+        if (event.getCancelledUserIds() != null && event.getCancelledUserIds().contains(uid)) {
+            return STATUS_CANCELLED.equals(invite) ? STATUS_CANCELLED : STATUS_DECLINED;
+        }
+        if (STATUS_ACCEPTED.equals(invite)) return STATUS_ACCEPTED;
+        if (event.getSelectedUserIds().contains(uid)) return STATUS_INVITED;
+        if (STATUS_DECLINED.equals(invite)) return STATUS_DECLINED;
+        if (event.getWaitlistUserIds() != null && event.getWaitlistUserIds().contains(uid)) {
+            return STATUS_WAITING;
+        }
+        return null;
+    }
+}
@@ -4,29 +4,35 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.view.View;
+import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.util.Pair;
+import androidx.core.widget.NestedScrollView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.ballerevents.databinding.EntrantMainBinding;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.datepicker.MaterialDatePicker;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.journeyapps.barcodescanner.ScanContract;
 import com.journeyapps.barcodescanner.ScanOptions;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * Main dashboard for Entrants.
@@ -49,12 +55,26 @@ public class EntrantMainActivity extends AppCompatActivity {
     private NearEventAdapter nearAdapter;
     private TrendingEventAdapter searchAdapter;
 
-    private List<Event> allEvents = new ArrayList<>();
+    private static final int TRENDING_COUNT = 3;
+    private final EventStore eventStore = new EventStore(TRENDING_COUNT);
     private List<String> selectedTags = new ArrayList<>();
     private ListenerRegistration allEventsListener;
+    private ListenerRegistration unreadListener;
+    private ListenerRegistration broadcastListener;
+    private long unreadNotifications = 0;
+    private long unreadBroadcasts = 0;
 
     private Date startDateFilter = null;
     private Date endDateFilter = null;
+    private boolean openNowFilter = false;
+
+    // Server-side search state (see performSearchAndFilter)
+    private final FirestoreEventRepository repository = new FirestoreEventRepository();
+    private final List<Event> pagedResults = new ArrayList<>();
+    private EventSearchIndex.Query pagedSearch;
+    private FirestoreEventRepository.SearchCursor searchCursor;
+    private boolean searchHasMore = false;
+    private boolean searchLoading = false;
 
     private final ActivityResultLauncher<ScanOptions> barcodeLauncher = registerForActivityResult(new ScanContract(),
             result -> {
@@ -91,12 +111,63 @@ public class EntrantMainActivity extends AppCompatActivity {
     protected void onStart() {
         super.onStart();
         loadAllEvents();
+        listenToUnreadCount();
     }
 
     @Override
     protected void onStop() {
         super.onStop();
         if (allEventsListener != null) allEventsListener.remove();
+        if (unreadListener != null) unreadListener.remove();
+        if (broadcastListener != null) broadcastListener.remove();
+    }
+
+    /**
+     * Shows the number of unread notifications on the notifications button: personal ones
+     * from the counter kept by {@link NotificationInbox} rather than the inbox itself, plus
+     * the unread broadcasts of the user's events.
+     */
+    private void listenToUnreadCount() {
+        if (auth.getCurrentUser() == null) return;
+        String uid = auth.getCurrentUser().getUid();
+        if (unreadListener != null) unreadListener.remove();
+        if (broadcastListener != null) broadcastListener.remove();
+        unreadListener = NotificationInbox.listenToUnreadCount(db, uid,
+                new FirestoreEventRepository.ItemCallback<Long>() {
+                    @Override
+                    public void onSuccess(Long count) {
+                        unreadNotifications = count;
+                        updateNotificationBadge();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Unread count listener failed", e);
+                    }
+                });
+        broadcastListener = new BroadcastRepository(db).listenToFeed(uid,
+                new FirestoreEventRepository.ListCallback<Notification>() {
+                    @Override
+                    public void onSuccess(List<Notification> broadcasts) {
+                        long unread = 0;
+                        for (Notification n : broadcasts) {
+                            if (!n.isRead()) unread++;
+                        }
+                        unreadBroadcasts = unread;
+                        updateNotificationBadge();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Broadcast listener failed", e);
+                    }
+                });
+    }
+
+    private void updateNotificationBadge() {
+        long count = unreadNotifications + unreadBroadcasts;
+        binding.tvNotificationBadge.setVisibility(count > 0 ? View.VISIBLE : View.GONE);
+        binding.tvNotificationBadge.setText(count > 99 ? "99+" : String.valueOf(count));
     }
 
     /**
@@ -118,36 +189,42 @@ public class EntrantMainActivity extends AppCompatActivity {
 
     /**
      * Listens for real-time updates to the events collection.
-     * Sorts events by waitlist count to determine "Popular" events.
+     * Only the changed documents are deserialized and applied to the {@link EventStore},
+     * which keeps the "Popular" top events and the search results up to date incrementally.
      */
     private void loadAllEvents() {
         if (allEventsListener != null) allEventsListener.remove();
+        eventStore.clear();
 
         allEventsListener = db.collection("events")
                 .orderBy("title", Query.Direction.ASCENDING)
                 .addSnapshotListener((snap, e) -> {
                     if (e != null || snap == null) return;
 
-                    allEvents.clear();
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : snap.getDocuments()) {
+                    for (DocumentChange change : snap.getDocumentChanges()) {
+                        QueryDocumentSnapshot doc = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            eventStore.removed(doc.getId(), change.getOldIndex());
+                            continue;
+                        }
+
                         Event event = doc.toObject(Event.class);
-                        if (event != null) {
-                            event.setId(doc.getId());
-                            allEvents.add(event);
+                        event.setId(doc.getId());
+                        if (change.getType() == DocumentChange.Type.ADDED) {
+                            eventStore.added(event, change.getNewIndex());
+                        } else {
+                            eventStore.modified(event, change.getOldIndex(), change.getNewIndex());
                         }
                     }
 
-                    List<Event> popularList = new ArrayList<>(allEvents);
-                    Collections.sort(popularList, (e1, e2) ->
-                            Integer.compare(e2.getWaitlistCount(), e1.getWaitlistCount())
-                    );
-
-                    List<Event> top3 = popularList.subList(0, Math.min(popularList.size(), 3));
-                    trendingAdapter.submitList(top3);
-
-                    nearAdapter.submitList(new ArrayList<>(allEvents));
+                    if (eventStore.consumeTrendingChanged()) {
+                        trendingAdapter.submitList(eventStore.getTrending());
+                    }
+                    nearAdapter.submitList(eventStore.getAll());
 
-                    performSearchAndFilter();
+                    if (eventStore.consumeMatchesChanged() && hasActiveFilters() && pagedSearch == null) {
+                        showSearchResults(eventStore.getMatches());
+                    }
                 });
     }
 
@@ -167,6 +244,20 @@ public class EntrantMainActivity extends AppCompatActivity {
         setupChipListener(binding.chipTheater);
 
         binding.btnFilterDate.setOnClickListener(v -> showDatePicker());
+
+        binding.chipOpenNow.setOnCheckedChangeListener((button, isChecked) -> {
+            openNowFilter = isChecked;
+            performSearchAndFilter();
+        });
+
+        // Fetch the next search page when the results are scrolled near the bottom
+        binding.scrollContent.setOnScrollChangeListener((NestedScrollView.OnScrollChangeListener)
+                (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                    View content = v.getChildAt(0);
+                    if (content != null && scrollY + v.getHeight() >= content.getHeight() - v.getHeight()) {
+                        loadNextSearchPage();
+                    }
+                });
     }
 
     /**
@@ -179,8 +270,8 @@ public class EntrantMainActivity extends AppCompatActivity {
 
         picker.addOnPositiveButtonClickListener(selection -> {
             if (selection != null) {
-                startDateFilter = new Date(selection.first);
-                endDateFilter = new Date(selection.second);
+                startDateFilter = utcDayToLocal(selection.first);
+                endDateFilter = utcDayToLocal(selection.second);
 
                 SimpleDateFormat sdf = new SimpleDateFormat("MMM dd", Locale.US);
                 String dateText = sdf.format(startDateFilter) + " - " + sdf.format(endDateFilter);
@@ -193,6 +284,20 @@ public class EntrantMainActivity extends AppCompatActivity {
         picker.show(getSupportFragmentManager(), "DATE_PICKER");
     }
 
+    /**
+     * The date picker reports days as UTC midnight; event start times are local.
+     *
+     * @return Local midnight of the same calendar day.
+     */
+    private static Date utcDayToLocal(long utcMillis) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        utc.setTimeInMillis(utcMillis);
+        Calendar local = Calendar.getInstance();
+        local.clear();
+        local.set(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH), utc.get(Calendar.DAY_OF_MONTH));
+        return local.getTime();
+    }
+
     /**
      * Handles navigation based on the user's role (Organizer, Admin, or Entrant).
      */
@@ -219,29 +324,95 @@ public class EntrantMainActivity extends AppCompatActivity {
         });
     }
 
+    private boolean hasActiveFilters() {
+        return binding.etSearch.getText().length() > 0 || !selectedTags.isEmpty() || startDateFilter != null
+                || openNowFilter;
+    }
+
     /**
-     * Filters the event list based on search query, selected tags, and date range.
+     * Filters the event list based on search query, selected tags, date range and open registration.
      * Updates the UI to show either search results or the default dashboard.
+     * <p>
+     * Text-only searches run over the events already loaded for the dashboard; later event
+     * changes are re-filtered row by row by the {@link EventStore}. Searches with tags, dates
+     * or "Open Now" are planned into a Firestore query by
+     * {@link FirestoreEventRepository#searchEvents} and loaded page by page while scrolling.
+     * </p>
      */
     private void performSearchAndFilter() {
-        String query = binding.etSearch.getText().toString();
-        boolean hasFilters = !query.isEmpty() || !selectedTags.isEmpty() || startDateFilter != null;
+        pagedSearch = null;
+        pagedResults.clear();
 
-        if (!hasFilters) {
+        if (!hasActiveFilters()) {
+            eventStore.setSearch(null);
+            eventStore.consumeMatchesChanged();
             binding.originalContentLayout.setVisibility(View.VISIBLE);
             binding.searchResultsLayout.setVisibility(View.GONE);
             binding.btnFilterDate.setText("Date");
             return;
         }
 
+        EventSearchIndex.Query search = new EventSearchIndex.Query(
+                binding.etSearch.getText().toString(), selectedTags, startDateFilter, endDateFilter);
+
+        if (selectedTags.isEmpty() && startDateFilter == null && !openNowFilter) {
+            eventStore.setSearch(search);
+            eventStore.consumeMatchesChanged();
+            showSearchResults(eventStore.getMatches());
+            return;
+        }
+
+        eventStore.setSearch(null);
+        eventStore.consumeMatchesChanged();
+        pagedSearch = search;
+        searchCursor = null;
+        searchHasMore = true;
+        searchLoading = false;
+        loadNextSearchPage();
+        showSearchResults(new ArrayList<>());
+    }
+
+    /**
+     * Fetches the next page of the current server-side search. Pages that the client-side
+     * checks thin out are followed immediately until the screen has a page worth of results.
+     */
+    private void loadNextSearchPage() {
+        if (pagedSearch == null || searchLoading || !searchHasMore) return;
+        EventSearchIndex.Query search = pagedSearch;
+        searchLoading = true;
+
+        repository.searchEvents(search, openNowFilter, searchCursor, FirestoreEventRepository.SEARCH_PAGE_SIZE,
+                new FirestoreEventRepository.ItemCallback<FirestoreEventRepository.SearchPage>() {
+                    @Override
+                    public void onSuccess(FirestoreEventRepository.SearchPage page) {
+                        if (search != pagedSearch || page == null) return; // superseded
+                        searchLoading = false;
+                        searchCursor = page.cursor;
+                        searchHasMore = page.hasMore;
+                        pagedResults.addAll(page.events);
+
+                        if (searchHasMore && pagedResults.size() < FirestoreEventRepository.SEARCH_PAGE_SIZE) {
+                            loadNextSearchPage();
+                        }
+                        showSearchResults(new ArrayList<>(pagedResults));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (search != pagedSearch) return;
+                        searchLoading = false;
+                        Log.e(TAG, "Event search failed", e);
+                        Toast.makeText(EntrantMainActivity.this, "Search failed", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    private void showSearchResults(List<Event> filteredResults) {
         binding.originalContentLayout.setVisibility(View.GONE);
         binding.searchResultsLayout.setVisibility(View.VISIBLE);
 
-        List<Event> filteredResults = EventFilter.performSearchAndFilter(
-                allEvents, query, selectedTags, startDateFilter, endDateFilter);
-
         searchAdapter.submitList(filteredResults);
-        binding.tvNoResults.setVisibility(filteredResults.isEmpty() ? View.VISIBLE : View.GONE);
+        binding.tvNoResults.setVisibility(filteredResults.isEmpty() && !searchLoading ? View.VISIBLE : View.GONE);
     }
 
     private void launchDetailsActivity(Event event) {
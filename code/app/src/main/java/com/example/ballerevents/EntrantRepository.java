@@ -0,0 +1,495 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository for reading and changing the entrants of an event.
+ * <p>
+ * Events use one of two storage modes (see {@link Event#getEntrantStorage()}):
+ * <ul>
+ * <li>{@link Event#STORAGE_ARRAY} (legacy): entrants live in the array and map fields
+ * of the event document.</li>
+ * <li>{@link Event#STORAGE_SUBCOLLECTION}: each entrant is a document in
+ * <code>events/{eventId}/entrants/{userId}</code> and the event document only keeps the
+ * denormalized {@code waitlistCount}, {@code selectedCount}, {@code cancelledCount} and
+ * {@code enrolledCount} counters, which are updated in the same transaction as the entrant.
+ * The contended {@code waitlistCount} and {@code selectedCount} go through
+ * {@link ShardedCounter} and reach the event document when the shards are rolled up.</li>
+ * </ul>
+ * Callers do not need to know which mode an event uses.
+ * </p>
+ */
+public class EntrantRepository {
+
+    /**
+     * One page of {@link #fetchEntrantPage} results.
+     */
+    public static class EntrantPage {
+        /** Entrants on this page, in document ID order (legacy events: join order). */
+        public final List<Entrant> entrants;
+        /** ID of the last entrant read; pass it back to fetch the next page. */
+        @Nullable public final String cursor;
+        /** False once there are no more entrants. */
+        public final boolean hasMore;
+
+        EntrantPage(List<Entrant> entrants, @Nullable String cursor, boolean hasMore) {
+            this.entrants = entrants;
+            this.cursor = cursor;
+            this.hasMore = hasMore;
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final ShardedCounter shardedCounter;
+
+    public EntrantRepository() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public EntrantRepository(FirebaseFirestore db) {
+        this.db = db;
+        this.shardedCounter = new ShardedCounter(db);
+    }
+
+    /**
+     * @param eventId The event ID.
+     * @return The entrants subcollection of the event.
+     */
+    public CollectionReference entrants(String eventId) {
+        return db.collection("events").document(eventId).collection("entrants");
+    }
+
+    /**
+     * Adds a user to the waiting list of an event in a single transaction that checks the
+     * registration window, the capacity and existing membership against the stored event
+     * (see {@link JoinOutcome#evaluate}). The entrant, the optional location and the user's
+     * {@code appliedEventIds} are written together or not at all.
+     * <p>
+     * Legacy events are decided from the event document alone. Subcollection events also
+     * read the entrant document, and compare the capacity with the cached
+     * {@code waitlistCount}, which may trail the shards by up to
+     * {@link ShardedCounter#ROLLUP_INTERVAL_MS}.
+     * </p>
+     *
+     * @param event    The event to join.
+     * @param uid      The joining user's ID.
+     * @param location Location captured on join (optional).
+     * @param cb       Callback receiving the outcome; only Firestore failures are errors.
+     */
+    public void join(Event event, String uid, @Nullable GeoPoint location,
+                     FirestoreEventRepository.ItemCallback<JoinOutcome> cb) {
+        DocumentReference eventRef = db.collection("events").document(event.getId());
+        DocumentReference userRef = db.collection("users").document(uid);
+        DocumentReference entrantRef = entrants(event.getId()).document(uid);
+
+        db.runTransaction(tx -> {
+                    Event current = readEvent(tx, eventRef);
+                    long now = System.currentTimeMillis();
+
+                    if (!current.usesEntrantSubcollection()) {
+                        JoinOutcome outcome = JoinOutcome.evaluate(current, knownUserIds(current).contains(uid), now);
+                        if (outcome != JoinOutcome.JOINED) return outcome;
+
+                        // Keep the indexed waitlistCount equal to the array size.
+                        Map<String, Object> updates = new HashMap<>();
+                        updates.put("waitlistUserIds", FieldValue.arrayUnion(uid));
+                        List<String> waitlist = current.getWaitlistUserIds();
+                        updates.put("waitlistCount", (waitlist != null ? waitlist.size() : 0) + 1);
+                        if (location != null) updates.put("entrantLocations." + uid, location);
+                        tx.update(eventRef, updates);
+                    } else {
+                        JoinOutcome outcome = JoinOutcome.evaluate(current, tx.get(entrantRef).exists(), now);
+                        if (outcome != JoinOutcome.JOINED) return outcome;
+
+                        tx.set(entrantRef, new Entrant(uid, Entrant.STATUS_WAITING, location));
+                        shardedCounter.increment(tx, event.getId(), ShardedCounter.WAITLIST, 1);
+                    }
+                    tx.update(userRef, "appliedEventIds", FieldValue.arrayUnion(event.getId()));
+                    return JoinOutcome.JOINED;
+                })
+                .addOnSuccessListener(outcome -> {
+                    if (outcome == JoinOutcome.JOINED && event.usesEntrantSubcollection()) {
+                        shardedCounter.maybeRollUp(event);
+                    }
+                    cb.onSuccess(outcome);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Records an entrant's answer to a lottery invitation. A decline frees the seat for a
+     * replacement draw (see {@link ReplacementDrawer}).
+     *
+     * @param eventId  The event ID.
+     * @param uid      The invited user's ID.
+     * @param response {@link Entrant#STATUS_ACCEPTED} or {@link Entrant#STATUS_DECLINED}.
+     * @param cb       Callback for completion.
+     */
+    public void respondToInvite(String eventId, String uid, String response,
+                                FirestoreEventRepository.VoidCallback cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference entrantRef = entrants(eventId).document(uid);
+
+        db.runTransaction(tx -> {
+                    Event event = readEvent(tx, eventRef);
+                    if (event.usesEntrantSubcollection()) {
+                        String from = tx.get(entrantRef).getString("status");
+                        if (!Entrant.STATUS_CHOSEN.equals(from) && !Entrant.STATUS_INVITED.equals(from)) {
+                            throw new FirebaseFirestoreException("No open invitation for this user",
+                                    FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+                        }
+                        tx.update(entrantRef, "status", response);
+                        applyCounterDeltas(tx, eventRef, from, response);
+                        if (Entrant.STATUS_DECLINED.equals(response)) freeSeat(tx, eventRef);
+                    } else {
+                        Map<String, Object> updates = new HashMap<>();
+                        updates.put("invitationStatus." + uid, response);
+                        if (Entrant.STATUS_DECLINED.equals(response)) {
+                            updates.put("selectedUserIds", FieldValue.arrayRemove(uid));
+                            updates.put("cancelledUserIds", FieldValue.arrayUnion(uid));
+                            if (event.getSelectedUserIds().contains(uid)) {
+                                updates.put(ReplacementDrawer.PENDING_FIELD, FieldValue.increment(1));
+                            }
+                        }
+                        tx.update(eventRef, updates);
+                    }
+                    return event;
+                })
+                .addOnSuccessListener(event -> {
+                    if (event.usesEntrantSubcollection()) shardedCounter.maybeRollUp(event);
+                    if (Entrant.STATUS_DECLINED.equals(response)) new ReplacementDrawer(db).requestRefill(eventId);
+                    cb.onSuccess();
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Cancels a selected or enrolled entrant on behalf of the organizer, freeing their spot
+     * for a replacement draw (see {@link ReplacementDrawer}).
+     *
+     * @param eventId The event ID.
+     * @param uid     The entrant's user ID.
+     * @param cb      Callback for completion.
+     */
+    public void cancelEntrant(String eventId, String uid, FirestoreEventRepository.VoidCallback cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference entrantRef = entrants(eventId).document(uid);
+
+        db.runTransaction(tx -> {
+                    Event event = readEvent(tx, eventRef);
+                    if (event.usesEntrantSubcollection()) {
+                        String from = tx.get(entrantRef).getString("status");
+                        if (!Entrant.isSelectedStatus(from)) {
+                            throw new FirebaseFirestoreException("Entrant is not selected",
+                                    FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+                        }
+                        tx.update(entrantRef, "status", Entrant.STATUS_CANCELLED);
+                        applyCounterDeltas(tx, eventRef, from, Entrant.STATUS_CANCELLED);
+                        freeSeat(tx, eventRef);
+                    } else {
+                        Map<String, Object> updates = new HashMap<>();
+                        if (event.getSelectedUserIds().contains(uid)) {
+                            updates.put(ReplacementDrawer.PENDING_FIELD, FieldValue.increment(1));
+                        }
+                        updates.put("selectedUserIds", FieldValue.arrayRemove(uid));
+                        updates.put("cancelledUserIds", FieldValue.arrayUnion(uid));
+                        updates.put("invitationStatus." + uid, Entrant.STATUS_CANCELLED);
+                        tx.update(eventRef, updates);
+                    }
+                    return event;
+                })
+                .addOnSuccessListener(event -> {
+                    if (event.usesEntrantSubcollection()) shardedCounter.maybeRollUp(event);
+                    new ReplacementDrawer(db).requestRefill(eventId);
+                    cb.onSuccess();
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Fetches the IDs of the entrants whose status is one of {@code statuses}, in join order.
+     *
+     * @param event    The event (already loaded).
+     * @param statuses {@code Entrant.STATUS_*} values to match.
+     * @param cb       Callback receiving the user IDs.
+     */
+    public void fetchUserIdsByStatus(Event event, Collection<String> statuses,
+                                     FirestoreEventRepository.ListCallback<String> cb) {
+        if (!event.usesEntrantSubcollection()) {
+            List<String> ids = new ArrayList<>();
+            for (String uid : knownUserIds(event)) {
+                if (statuses.contains(Entrant.statusFromArrays(event, uid))) ids.add(uid);
+            }
+            cb.onSuccess(ids);
+            return;
+        }
+
+        entrants(event.getId())
+                .whereIn("status", new ArrayList<>(statuses))
+                .get()
+                .addOnSuccessListener(snap -> {
+                    List<Entrant> list = snap.toObjects(Entrant.class);
+                    // Sorted here instead of with orderBy to avoid a composite index on (status, joinedAt).
+                    list.sort((a, b) -> {
+                        Date da = a.getJoinedAt();
+                        Date dbb = b.getJoinedAt();
+                        if (da == null || dbb == null) return da == null ? (dbb == null ? 0 : 1) : -1;
+                        return da.compareTo(dbb);
+                    });
+                    List<String> ids = new ArrayList<>();
+                    for (Entrant entrant : list) ids.add(entrant.getId());
+                    cb.onSuccess(ids);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Fetches one page of the entrants whose status is one of {@code statuses}, for callers
+     * that walk every entrant without holding them all (e.g. exports). Legacy entrants are
+     * built from the event's arrays and have no join time.
+     *
+     * @param event    The event (already loaded).
+     * @param statuses {@code Entrant.STATUS_*} values to match.
+     * @param after    Cursor from the previous page, or null for the first page.
+     * @param limit    Entrants per page.
+     * @param cb       Callback receiving the page.
+     */
+    public void fetchEntrantPage(Event event, Collection<String> statuses, @Nullable String after, int limit,
+                                 FirestoreEventRepository.ItemCallback<EntrantPage> cb) {
+        if (!event.usesEntrantSubcollection()) {
+            cb.onSuccess(legacyEntrantPage(event, statuses, after, limit));
+            return;
+        }
+
+        Query query = entrants(event.getId())
+                .whereIn("status", new ArrayList<>(statuses))
+                .orderBy(FieldPath.documentId());
+        if (after != null) query = query.startAfter(after);
+        query.limit(limit).get()
+                .addOnSuccessListener(snap -> {
+                    List<Entrant> page = new ArrayList<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        Entrant entrant = doc.toObject(Entrant.class);
+                        if (entrant != null) page.add(entrant);
+                    }
+                    String cursor = snap.isEmpty() ? after : snap.getDocuments().get(snap.size() - 1).getId();
+                    cb.onSuccess(new EntrantPage(page, cursor, snap.size() == limit));
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Pages the entrants of a legacy event in {@link #knownUserIds} order.
+     */
+    static EntrantPage legacyEntrantPage(Event event, Collection<String> statuses, @Nullable String after, int limit) {
+        List<String> ids = new ArrayList<>(knownUserIds(event));
+        int from = after != null ? ids.indexOf(after) + 1 : 0;
+        Map<String, GeoPoint> locations = event.getEntrantLocations();
+
+        List<Entrant> page = new ArrayList<>();
+        String cursor = after;
+        int i = from;
+        for (; i < ids.size() && page.size() < limit; i++) {
+            String uid = ids.get(i);
+            cursor = uid;
+            String status = Entrant.statusFromArrays(event, uid);
+            if (!statuses.contains(status)) continue;
+            Entrant entrant = new Entrant(uid, status, locations != null ? locations.get(uid) : null);
+            entrant.setId(uid);
+            page.add(entrant);
+        }
+        return new EntrantPage(page, cursor, i < ids.size());
+    }
+
+    /**
+     * Listens to a single entrant document. Only meaningful for subcollection events.
+     *
+     * @param eventId The event ID.
+     * @param uid     The user ID.
+     * @param cb      Callback receiving the entrant, or null if the user has not joined.
+     * @return The ListenerRegistration object (call remove() to stop listening).
+     */
+    public ListenerRegistration listenToEntrant(String eventId, String uid,
+                                                FirestoreEventRepository.ItemCallback<Entrant> cb) {
+        return entrants(eventId).document(uid).addSnapshotListener((snap, e) -> {
+            if (e != null) {
+                cb.onError(e);
+                return;
+            }
+            cb.onSuccess(snap != null && snap.exists() ? snap.toObject(Entrant.class) : null);
+        });
+    }
+
+    /**
+     * Fetches the join locations of an event's entrants.
+     *
+     * @param event The event (already loaded).
+     * @param cb    Callback receiving a map of user IDs to locations.
+     */
+    public void fetchLocations(Event event, FirestoreEventRepository.ItemCallback<Map<String, GeoPoint>> cb) {
+        if (!event.usesEntrantSubcollection()) {
+            cb.onSuccess(event.getEntrantLocations());
+            return;
+        }
+        entrants(event.getId())
+                .whereNotEqualTo("location", null)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    Map<String, GeoPoint> locations = new LinkedHashMap<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        GeoPoint gp = doc.getGeoPoint("location");
+                        if (gp != null) locations.put(doc.getId(), gp);
+                    }
+                    cb.onSuccess(locations);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Fetches a user's status in every subcollection event they joined, using a
+     * collection group query on {@code entrants}. Legacy events are not included;
+     * use {@link Entrant#statusFromArrays} for those.
+     *
+     * @param uid The user ID.
+     * @param cb  Callback receiving a map of event IDs to statuses.
+     */
+    public void fetchStatusesForUser(String uid, FirestoreEventRepository.ItemCallback<Map<String, String>> cb) {
+        db.collectionGroup("entrants")
+                .whereEqualTo("userId", uid)
+                .get()
+                .addOnSuccessListener(snap -> cb.onSuccess(statusesByEvent(snap.getDocuments())))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Listens to a user's entrant documents in every subcollection event they joined, with
+     * the same collection group query as {@link #fetchStatusesForUser}.
+     *
+     * @param uid The user ID.
+     * @param cb  Callback receiving a map of event IDs to entrants on every change.
+     * @return The ListenerRegistration object (call remove() to stop listening).
+     */
+    public ListenerRegistration listenToEntrantsForUser(String uid,
+                                                        FirestoreEventRepository.ItemCallback<Map<String, Entrant>> cb) {
+        return db.collectionGroup("entrants")
+                .whereEqualTo("userId", uid)
+                .addSnapshotListener((snap, e) -> {
+                    if (e != null) {
+                        cb.onError(e);
+                        return;
+                    }
+                    if (snap == null) return;
+                    Map<String, Entrant> entrants = new HashMap<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        DocumentReference eventRef = doc.getReference().getParent().getParent();
+                        Entrant entrant = doc.toObject(Entrant.class);
+                        if (eventRef != null && entrant != null) entrants.put(eventRef.getId(), entrant);
+                    }
+                    cb.onSuccess(entrants);
+                });
+    }
+
+    private static Map<String, String> statusesByEvent(List<DocumentSnapshot> docs) {
+        Map<String, String> statuses = new HashMap<>();
+        for (DocumentSnapshot doc : docs) {
+            DocumentReference eventRef = doc.getReference().getParent().getParent();
+            if (eventRef != null) statuses.put(eventRef.getId(), doc.getString("status"));
+        }
+        return statuses;
+    }
+
+    /**
+     * Returns every user ID referenced by the legacy fields of an event, in waitlist order first.
+     */
+    static Set<String> knownUserIds(Event event) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (event.getWaitlistUserIds() != null) ids.addAll(event.getWaitlistUserIds());
+        ids.addAll(event.getSelectedUserIds());
+        if (event.getCancelledUserIds() != null) ids.addAll(event.getCancelledUserIds());
+        if (event.getInvitationStatus() != null) ids.addAll(event.getInvitationStatus().keySet());
+        return ids;
+    }
+
+    /**
+     * Computes how each event counter changes when an entrant moves between statuses.
+     *
+     * @param from The previous status (null if the user was not an entrant).
+     * @param to   The new status (null if the entrant is removed).
+     * @return Counter field names mapped to non-zero deltas.
+     */
+    static Map<String, Long> counterDeltas(@Nullable String from, @Nullable String to) {
+        Map<String, Long> deltas = new HashMap<>();
+        putDelta(deltas, "waitlistCount",
+                Entrant.STATUS_WAITING.equals(from), Entrant.STATUS_WAITING.equals(to));
+        putDelta(deltas, "selectedCount",
+                Entrant.isSelectedStatus(from), Entrant.isSelectedStatus(to));
+        putDelta(deltas, "cancelledCount",
+                Entrant.isCancelledStatus(from), Entrant.isCancelledStatus(to));
+        putDelta(deltas, "enrolledCount",
+                Entrant.STATUS_ACCEPTED.equals(from), Entrant.STATUS_ACCEPTED.equals(to));
+        return deltas;
+    }
+
+    private static void putDelta(Map<String, Long> deltas, String field, boolean before, boolean after) {
+        long delta = (after ? 1 : 0) - (before ? 1 : 0);
+        if (delta != 0) deltas.put(field, delta);
+    }
+
+    /**
+     * Writes the counter changes for a status change: sharded counters go to a random
+     * shard, the others are incremented on the event document.
+     */
+    private void applyCounterDeltas(Transaction tx, DocumentReference eventRef,
+                                    @Nullable String from, @Nullable String to) {
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Long> entry : counterDeltas(from, to).entrySet()) {
+            if (ShardedCounter.isSharded(entry.getKey())) {
+                shardedCounter.increment(tx, eventRef.getId(), entry.getKey(), entry.getValue());
+            } else {
+                updates.put(entry.getKey(), FieldValue.increment(entry.getValue()));
+            }
+        }
+        if (!updates.isEmpty()) tx.update(eventRef, updates);
+    }
+
+    /**
+     * Records a freed seat for {@link ReplacementDrawer}.
+     */
+    private static void freeSeat(Transaction tx, DocumentReference eventRef) {
+        tx.update(eventRef, ReplacementDrawer.PENDING_FIELD, FieldValue.increment(1));
+    }
+
+    private static Event readEvent(Transaction tx, DocumentReference eventRef)
+            throws FirebaseFirestoreException {
+        DocumentSnapshot snap = tx.get(eventRef);
+        Event event = snap.toObject(Event.class);
+        if (event == null) {
+            throw new FirebaseFirestoreException("Event not found",
+                    FirebaseFirestoreException.Code.NOT_FOUND);
+        }
+        event.setId(snap.getId());
+        return event;
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One-off tool that moves the entrants of legacy events ({@link Event#STORAGE_ARRAY})
+ * into the <code>events/{eventId}/entrants</code> subcollection.
+ * <p>
+ * For each event the entrant documents are written first, in batches of at most
+ * {@link #MAX_WRITES_PER_BATCH}, and documents left in the subcollection by an earlier,
+ * aborted run for users who are no longer entrants are deleted. The event is then switched to
+ * {@link Event#STORAGE_SUBCOLLECTION} in a transaction that also stores the counters and
+ * deletes the array fields. That transaction re-reads the event and aborts if entrants
+ * changed in the meantime, so the migration is safe to run while the app is in use and
+ * can simply be re-run after a failure.
+ * </p>
+ */
+public class EntrantsMigration {
+
+    /** Firestore allows 500 writes per batch; leave some headroom. */
+    static final int MAX_WRITES_PER_BATCH = 450;
+
+    /**
+     * Callback for {@link #migrateAll}.
+     */
+    public interface MigrationCallback {
+        /**
+         * @param migrated Number of events converted in this run.
+         * @param failed   Number of events that could not be converted (re-run to retry).
+         */
+        void onComplete(int migrated, int failed);
+        void onError(Exception e);
+    }
+
+    private final FirebaseFirestore db;
+    private final EntrantRepository entrantRepository;
+
+    public EntrantsMigration() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public EntrantsMigration(FirebaseFirestore db) {
+        this.db = db;
+        this.entrantRepository = new EntrantRepository(db);
+    }
+
+    /**
+     * Migrates every legacy event, one event at a time.
+     *
+     * @param cb Callback reporting how many events were converted.
+     */
+    public void migrateAll(MigrationCallback cb) {
+        db.collection("events").get()
+                .addOnSuccessListener(snap -> {
+                    List<String> pending = new ArrayList<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        if (!Event.STORAGE_SUBCOLLECTION.equals(doc.getString("entrantStorage"))) {
+                            pending.add(doc.getId());
+                        }
+                    }
+                    migrateSequentially(pending, 0, 0, 0, cb);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    private void migrateSequentially(List<String> ids, int index, int migrated, int failed,
+                                     MigrationCallback cb) {
+        if (index >= ids.size()) {
+            cb.onComplete(migrated, failed);
+            return;
+        }
+        migrateEvent(ids.get(index), new FirestoreEventRepository.VoidCallback() {
+            @Override
+            public void onSuccess() {
+                migrateSequentially(ids, index + 1, migrated + 1, failed, cb);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                migrateSequentially(ids, index + 1, migrated, failed + 1, cb);
+            }
+        });
+    }
+
+    /**
+     * Migrates a single event. Does nothing if the event already uses the subcollection.
+     *
+     * @param eventId The event ID.
+     * @param cb      Callback for completion.
+     */
+    public void migrateEvent(String eventId, FirestoreEventRepository.VoidCallback cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        eventRef.get()
+                .addOnSuccessListener(snap -> {
+                    Event event = snap.toObject(Event.class);
+                    if (event == null || event.usesEntrantSubcollection()) {
+                        cb.onSuccess();
+                        return;
+                    }
+                    event.setId(snap.getId());
+                    List<Entrant> entrants = buildEntrants(event, System.currentTimeMillis());
+                    writeEntrants(eventId, entrants, 0,
+                            () -> deleteStaleEntrants(eventId, entrants,
+                                    () -> switchStorage(eventRef, entrants, cb), cb), cb);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    private void writeEntrants(String eventId, List<Entrant> entrants, int from,
+                               Runnable onDone, FirestoreEventRepository.VoidCallback cb) {
+        if (from >= entrants.size()) {
+            onDone.run();
+            return;
+        }
+        int to = Math.min(entrants.size(), from + MAX_WRITES_PER_BATCH);
+        WriteBatch batch = db.batch();
+        for (Entrant entrant : entrants.subList(from, to)) {
+            batch.set(entrantRepository.entrants(eventId).document(entrant.getUserId()), entrant);
+        }
+        batch.commit()
+                .addOnSuccessListener(unused -> writeEntrants(eventId, entrants, to, onDone, cb))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Deletes subcollection documents whose user is not in {@code written}. A run whose switch
+     * aborted leaves its documents behind; without this, users who left the event before the
+     * re-run would survive as entrants once the switch succeeds.
+     */
+    private void deleteStaleEntrants(String eventId, List<Entrant> written,
+                                     Runnable onDone, FirestoreEventRepository.VoidCallback cb) {
+        entrantRepository.entrants(eventId).get()
+                .addOnSuccessListener(snap -> {
+                    List<String> existing = new ArrayList<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) existing.add(doc.getId());
+                    deleteEntrants(eventId, staleIds(existing, written), 0, onDone, cb);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    private void deleteEntrants(String eventId, List<String> ids, int from,
+                                Runnable onDone, FirestoreEventRepository.VoidCallback cb) {
+        if (from >= ids.size()) {
+            onDone.run();
+            return;
+        }
+        int to = Math.min(ids.size(), from + MAX_WRITES_PER_BATCH);
+        WriteBatch batch = db.batch();
+        for (String uid : ids.subList(from, to)) {
+            batch.delete(entrantRepository.entrants(eventId).document(uid));
+        }
+        batch.commit()
+                .addOnSuccessListener(unused -> deleteEntrants(eventId, ids, to, onDone, cb))
+                .addOnFailureListener(cb::onError);
+    }
+
+    private void switchStorage(DocumentReference eventRef, List<Entrant> written,
+                               FirestoreEventRepository.VoidCallback cb) {
+        db.runTransaction(tx -> {
+                    DocumentSnapshot snap = tx.get(eventRef);
+                    Event event = snap.toObject(Event.class);
+                    if (event == null || event.usesEntrantSubcollection()) return null;
+
+                    if (!sameEntrants(buildEntrants(event, 0), written)) {
+                        throw new FirebaseFirestoreException("Entrants changed during migration",
+                                FirebaseFirestoreException.Code.ABORTED);
+                    }
+
+                    Map<String, Object> updates = new HashMap<>(countersFor(written));
+                    updates.put("entrantStorage", Event.STORAGE_SUBCOLLECTION);
+                    updates.put("waitlistUserIds", FieldValue.delete());
+                    updates.put("chosenUserIds", FieldValue.delete());
+                    updates.put("selectedUserIds", FieldValue.delete());
+                    updates.put("cancelledUserIds", FieldValue.delete());
+                    updates.put("invitationStatus", FieldValue.delete());
+                    updates.put("entrantLocations", FieldValue.delete());
+                    tx.update(eventRef, updates);
+                    return null;
+                })
+                .addOnSuccessListener(unused -> cb.onSuccess())
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Converts the legacy fields of an event into entrant documents.
+     * Join times are spaced one millisecond apart from {@code baseMillis} so that
+     * the subcollection keeps the original waitlist order.
+     *
+     * @param event      A legacy event.
+     * @param baseMillis Join time of the first entrant.
+     * @return One entrant per referenced user.
+     */
+    static List<Entrant> buildEntrants(Event event, long baseMillis) {
+        List<Entrant> entrants = new ArrayList<>();
+        Map<String, GeoPoint> locations = event.getEntrantLocations();
+        int i = 0;
+        for (String uid : EntrantRepository.knownUserIds(event)) {
+            String status = Entrant.statusFromArrays(event, uid);
+            if (status == null) continue;
+            GeoPoint location = locations != null ? locations.get(uid) : null;
+            Entrant entrant = new Entrant(uid, status, location);
+            entrant.setWinnerNotified(!Entrant.STATUS_WAITING.equals(status));
+            entrant.setJoinedAt(new Date(baseMillis + i++));
+            entrants.add(entrant);
+        }
+        return entrants;
+    }
+
+    /**
+     * Counts entrants per counter field, matching the rules in {@link EntrantRepository}.
+     */
+    static Map<String, Long> countersFor(List<Entrant> entrants) {
+        Map<String, Long> counters = new HashMap<>();
+        counters.put("waitlistCount", 0L);
+        counters.put("selectedCount", 0L);
+        counters.put("cancelledCount", 0L);
+        counters.put("enrolledCount", 0L);
+        for (Entrant entrant : entrants) {
+            for (Map.Entry<String, Long> delta
+                    : EntrantRepository.counterDeltas(null, entrant.getStatus()).entrySet()) {
+                counters.put(delta.getKey(), counters.get(delta.getKey()) + delta.getValue());
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * @param existingIds IDs of the documents in the entrants subcollection.
+     * @param written     The entrants just written.
+     * @return The existing IDs that are not among the written entrants.
+     */
+    static List<String> staleIds(List<String> existingIds, List<Entrant> written) {
+        Set<String> keep = new HashSet<>();
+        for (Entrant entrant : written) keep.add(entrant.getUserId());
+        List<String> stale = new ArrayList<>();
+        for (String id : existingIds) {
+            if (!keep.contains(id)) stale.add(id);
+        }
+        return stale;
+    }
+
+    private static boolean sameEntrants(List<Entrant> a, List<Entrant> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            Entrant x = a.get(i);
+            Entrant y = b.get(i);
+            if (!x.getUserId().equals(y.getUserId())) return false;
+            if (!x.getStatus().equals(y.getStatus())) return false;
+            if (!sameLocation(x.getLocation(), y.getLocation())) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameLocation(@Nullable GeoPoint a, @Nullable GeoPoint b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -4,6 +4,7 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import com.google.firebase.firestore.DocumentId;
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.GeoPoint;
 
 import java.util.ArrayList;
@@ -18,6 +19,11 @@ import java.util.Map;
  */
 public class Event implements Parcelable {
 
+    /** Entrants are stored in the array and map fields of the event document (legacy). */
+    public static final String STORAGE_ARRAY = "array";
+    /** Entrants are stored in the {@code events/{id}/entrants} subcollection. */
+    public static final String STORAGE_SUBCOLLECTION = "subcollection";
+
     @DocumentId
     private String id;
 
@@ -25,15 +31,19 @@ public class Event implements Parcelable {
     private String title;
     private String date;
     private String time;
+    // Canonical start time (epoch millis, 0 if unknown); date and time are display strings
+    private long startTimeMillis = 0;
     private String locationName;
     private String description;
     private String price;
     private String organizer;
     private String organizerId;
 
-    // Images
+    // Images; the variant maps hold ImageVariants URLs by key (null for older uploads)
     private String eventPosterUrl;
     private String eventBannerUrl;
+    private Map<String, String> eventPosterVariants;
+    private Map<String, String> eventBannerVariants;
 
     // Config
     private boolean geolocationRequired;
@@ -54,15 +64,76 @@ public class Event implements Parcelable {
     private long registrationOpenAtMillis = 0;
     private long registrationCloseAtMillis = 0;
 
+    // Entrant storage mode and denormalized counters (null when the document lacks them)
+    private String entrantStorage;
+    private Integer waitlistCount;
+    private Integer selectedCount;
+    private Integer cancelledCount;
+    private Integer enrolledCount;
+    private long countersRolledUpAtMillis = 0;
+
     public Event() {}
 
     /**
      * Helper to get the current size of the waitlist.
+     * Uses the denormalized counter when present, otherwise the size of the waitlist array.
      * @return The number of users currently on the waitlist.
      */
     public int getWaitlistCount() {
+        if (waitlistCount != null) return waitlistCount;
         return waitlistUserIds != null ? waitlistUserIds.size() : 0;
     }
+    public void setWaitlistCount(int waitlistCount) { this.waitlistCount = waitlistCount; }
+
+    /**
+     * @return The number of drawn, invited or enrolled entrants.
+     */
+    public int getSelectedCount() {
+        if (selectedCount != null) return selectedCount;
+        return getChosenUserIds().size();
+    }
+    public void setSelectedCount(int selectedCount) { this.selectedCount = selectedCount; }
+
+    /**
+     * @return The number of entrants who declined or were cancelled.
+     */
+    public int getCancelledCount() {
+        if (cancelledCount != null) return cancelledCount;
+        return cancelledUserIds != null ? cancelledUserIds.size() : 0;
+    }
+    public void setCancelledCount(int cancelledCount) { this.cancelledCount = cancelledCount; }
+
+    /**
+     * @return The number of entrants who accepted their invitation.
+     */
+    public int getEnrolledCount() {
+        if (enrolledCount != null) return enrolledCount;
+        int count = 0;
+        if (invitationStatus != null) {
+            for (String status : invitationStatus.values()) {
+                if (Entrant.STATUS_ACCEPTED.equals(status)) count++;
+            }
+        }
+        return count;
+    }
+    public void setEnrolledCount(int enrolledCount) { this.enrolledCount = enrolledCount; }
+
+    /**
+     * @return When {@link ShardedCounter} last folded its shards into the cached counters.
+     */
+    public long getCountersRolledUpAtMillis() { return countersRolledUpAtMillis; }
+    public void setCountersRolledUpAtMillis(long countersRolledUpAtMillis) { this.countersRolledUpAtMillis = countersRolledUpAtMillis; }
+
+    public String getEntrantStorage() { return entrantStorage; }
+    public void setEntrantStorage(String entrantStorage) { this.entrantStorage = entrantStorage; }
+
+    /**
+     * @return True if entrants live in the {@code entrants} subcollection rather than on this document.
+     */
+    @Exclude
+    public boolean usesEntrantSubcollection() {
+        return STORAGE_SUBCOLLECTION.equals(entrantStorage);
+    }
 
     // --- GETTERS & SETTERS ---
 
@@ -78,6 +149,9 @@ public class Event implements Parcelable {
     public String getTime() { return time; }
     public void setTime(String time) { this.time = time; }
 
+    public long getStartTimeMillis() { return startTimeMillis; }
+    public void setStartTimeMillis(long startTimeMillis) { this.startTimeMillis = startTimeMillis; }
+
     public String getLocationName() { return locationName; }
     public void setLocationName(String locationName) { this.locationName = locationName; }
 
@@ -99,6 +173,12 @@ public class Event implements Parcelable {
     public String getEventBannerUrl() { return eventBannerUrl; }
     public void setEventBannerUrl(String eventBannerUrl) { this.eventBannerUrl = eventBannerUrl; }
 
+    public Map<String, String> getEventPosterVariants() { return eventPosterVariants; }
+    public void setEventPosterVariants(Map<String, String> eventPosterVariants) { this.eventPosterVariants = eventPosterVariants; }
+
+    public Map<String, String> getEventBannerVariants() { return eventBannerVariants; }
+    public void setEventBannerVariants(Map<String, String> eventBannerVariants) { this.eventBannerVariants = eventBannerVariants; }
+
     public boolean isGeolocationRequired() { return geolocationRequired; }
     public void setGeolocationRequired(boolean geolocationRequired) { this.geolocationRequired = geolocationRequired; }
 
@@ -144,6 +224,18 @@ public class Event implements Parcelable {
     public long registrationCloseAtMillis() { return registrationCloseAtMillis; }
     public void setRegistrationCloseAtMillis(long registrationCloseAtMillis) { this.registrationCloseAtMillis = registrationCloseAtMillis; }
 
+    /**
+     * Uses the same rule as {@link JoinOutcome#evaluate}: a time of 0 means no limit on that side.
+     *
+     * @param nowMillis The current time.
+     * @return True if registration has opened (or has no opening time) and closes later
+     * (or has no closing time).
+     */
+    public boolean isRegistrationOpenAt(long nowMillis) {
+        return registrationOpenAtMillis <= nowMillis
+                && (registrationCloseAtMillis == 0 || registrationCloseAtMillis > nowMillis);
+    }
+
     // Parcelable Implementation
     protected Event(Parcel in) {
         id = in.readString();
@@ -173,6 +265,42 @@ public class Event implements Parcelable {
         registrationOpenAtMillis = in.readLong();
         registrationCloseAtMillis = in.readLong();
         isTrending = in.readByte() != 0;
+
+        entrantStorage = in.readString();
+        waitlistCount = readNullableInt(in);
+        selectedCount = readNullableInt(in);
+        cancelledCount = readNullableInt(in);
+        enrolledCount = readNullableInt(in);
+        countersRolledUpAtMillis = in.readLong();
+        startTimeMillis = in.readLong();
+        eventPosterVariants = readNullableStringMap(in);
+        eventBannerVariants = readNullableStringMap(in);
+    }
+
+    private static Integer readNullableInt(Parcel in) {
+        return in.readByte() != 0 ? in.readInt() : null;
+    }
+
+    private static void writeNullableInt(Parcel dest, Integer value) {
+        dest.writeByte((byte) (value != null ? 1 : 0));
+        if (value != null) dest.writeInt(value);
+    }
+
+    private static Map<String, String> readNullableStringMap(Parcel in) {
+        int size = in.readInt();
+        if (size < 0) return null;
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < size; i++) map.put(in.readString(), in.readString());
+        return map;
+    }
+
+    private static void writeNullableStringMap(Parcel dest, Map<String, String> map) {
+        dest.writeInt(map != null ? map.size() : -1);
+        if (map == null) return;
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            dest.writeString(e.getKey());
+            dest.writeString(e.getValue());
+        }
     }
 
     @Override
@@ -204,6 +332,16 @@ public class Event implements Parcelable {
         dest.writeLong(registrationOpenAtMillis);
         dest.writeLong(registrationCloseAtMillis);
         dest.writeByte((byte) (isTrending ? 1 : 0));
+
+        dest.writeString(entrantStorage);
+        writeNullableInt(dest, waitlistCount);
+        writeNullableInt(dest, selectedCount);
+        writeNullableInt(dest, cancelledCount);
+        writeNullableInt(dest, enrolledCount);
+        dest.writeLong(countersRolledUpAtMillis);
+        dest.writeLong(startTimeMillis);
+        writeNullableStringMap(dest, eventPosterVariants);
+        writeNullableStringMap(dest, eventBannerVariants);
     }
 
     @Override
@@ -0,0 +1,193 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One-off tool that writes the derived query fields on events saved before they existed.
+ * <ul>
+ * <li>{@code startTimeMillis}: older documents only carry the display strings {@code date}
+ * and {@code time}, in one of the formats in {@link #DATE_PATTERNS} and {@link #TIME_PATTERN}.
+ * They are parsed once here, so nothing else has to parse them. 0 is stored when they cannot
+ * be parsed, so queries ordered by {@code startTimeMillis} still include every event.</li>
+ * <li>{@code titleLower}: the lowercased title used for prefix search
+ * (see {@link #titleKey}).</li>
+ * <li>{@code waitlistCount}: the size of {@code waitlistUserIds}, so that events no one has
+ * joined since the field was added still rank in
+ * {@link FirestoreEventRepository#fetchPopularEvents(int, FirestoreEventRepository.ListCallback)}.</li>
+ * <li>{@code registrationCloseAtMillis}: 0 (no closing time) where it was never set, so
+ * "Open Now" searches, which query for 0, find these events.</li>
+ * </ul>
+ * Safe to re-run.
+ */
+public class EventFieldsBackfill {
+
+    /** Date formats used by seeded data and by {@link OrganizerEventCreationActivity}. */
+    static final String[] DATE_PATTERNS = {"dd MMMM, yyyy", "MM/dd/yyyy"};
+    /** Time format used by {@link OrganizerEventCreationActivity}. */
+    static final String TIME_PATTERN = "hh:mm a";
+    /** Events whose transactions run at the same time. */
+    static final int EVENTS_PER_ROUND = 20;
+
+    /**
+     * Callback for {@link #backfillAll}.
+     */
+    public interface BackfillCallback {
+        /**
+         * @param updated     Number of events updated.
+         * @param unparseable Number of events whose date could not be parsed (start time stored as 0).
+         */
+        void onComplete(int updated, int unparseable);
+        void onError(Exception e);
+    }
+
+    private final FirebaseFirestore db;
+
+    public EventFieldsBackfill() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public EventFieldsBackfill(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Writes the missing fields of every event. Each event is updated in its own transaction
+     * that reads it again and writes only the fields it still lacks, so a join landing after
+     * the scan is counted in {@code waitlistCount} instead of overwritten.
+     * {@link #EVENTS_PER_ROUND} events are updated at a time.
+     *
+     * @param cb Callback reporting how many events were updated.
+     */
+    public void backfillAll(BackfillCallback cb) {
+        db.collection("events").get()
+                .addOnSuccessListener(snap -> {
+                    List<DocumentSnapshot> pending = new ArrayList<>();
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        if (!missingFields(doc).isEmpty()) pending.add(doc);
+                    }
+                    backfillSequentially(pending, 0, 0, 0, cb);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * @return The derived fields the document lacks, with their values.
+     */
+    private static Map<String, Object> missingFields(DocumentSnapshot doc) {
+        Map<String, Object> fields = new HashMap<>();
+        if (!doc.contains("startTimeMillis")) {
+            fields.put("startTimeMillis", parseLegacyStartTime(doc.getString("date"), doc.getString("time")));
+        }
+        String title = doc.getString("title");
+        if (title != null && !doc.contains("titleLower")) {
+            fields.put("titleLower", titleKey(title));
+        }
+        if (!doc.contains(ShardedCounter.WAITLIST)) {
+            Object waitlist = doc.get("waitlistUserIds");
+            fields.put(ShardedCounter.WAITLIST, waitlist instanceof List ? ((List<?>) waitlist).size() : 0);
+        }
+        if (!doc.contains("registrationCloseAtMillis")) {
+            fields.put("registrationCloseAtMillis", 0L);
+        }
+        return fields;
+    }
+
+    private void backfillSequentially(List<DocumentSnapshot> docs, int from, int updated, int unparseable,
+                                      BackfillCallback cb) {
+        if (from >= docs.size()) {
+            cb.onComplete(updated, unparseable);
+            return;
+        }
+        int to = Math.min(docs.size(), from + EVENTS_PER_ROUND);
+        List<Task<Map<String, Object>>> round = new ArrayList<>();
+        for (DocumentSnapshot doc : docs.subList(from, to)) round.add(backfill(doc.getReference()));
+
+        Tasks.whenAllSuccess(round)
+                .addOnSuccessListener(results -> {
+                    int written = updated;
+                    int failed = unparseable;
+                    for (Object result : results) {
+                        Map<?, ?> fields = (Map<?, ?>) result;
+                        if (fields.isEmpty()) continue;
+                        written++;
+                        if (Long.valueOf(0).equals(fields.get("startTimeMillis"))) failed++;
+                    }
+                    backfillSequentially(docs, to, written, failed, cb);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Writes the fields one event still lacks, computed from a fresh read.
+     *
+     * @return A task with the fields written (empty if none were missing).
+     */
+    private Task<Map<String, Object>> backfill(DocumentReference ref) {
+        return db.<Map<String, Object>>runTransaction(tx -> {
+            DocumentSnapshot doc = tx.get(ref);
+            if (!doc.exists()) return new HashMap<>();
+            Map<String, Object> fields = missingFields(doc);
+            if (!fields.isEmpty()) tx.update(ref, fields);
+            return fields;
+        });
+    }
+
+    /**
+     * Normalizes a title for the {@code titleLower} field, which backs prefix searches.
+     *
+     * @param title The event title.
+     * @return The trimmed, lowercased title.
+     */
+    public static String titleKey(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses the legacy date and time strings of an event in the device time zone.
+     * A missing or unparseable time means midnight.
+     *
+     * @param date The date string, e.g. "05 March, 2025" or "03/05/2025".
+     * @param time The time string, e.g. "07:30 PM" (may be null).
+     * @return Epoch millis, or 0 if the date cannot be parsed.
+     */
+    static long parseLegacyStartTime(@Nullable String date, @Nullable String time) {
+        if (date == null || date.trim().isEmpty()) return 0;
+        String trimmedDate = date.trim();
+        String trimmedTime = time != null ? time.trim() : "";
+
+        for (String datePattern : DATE_PATTERNS) {
+            // Formatters are created per call: SimpleDateFormat is not thread-safe.
+            if (!trimmedTime.isEmpty()) {
+                Date parsed = parseFully(datePattern + " " + TIME_PATTERN, trimmedDate + " " + trimmedTime);
+                if (parsed != null) return parsed.getTime();
+            }
+            Date parsed = parseFully(datePattern, trimmedDate);
+            if (parsed != null) return parsed.getTime();
+        }
+        return 0;
+    }
+
+    @Nullable
+    private static Date parseFully(String pattern, String text) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setLenient(false);
+        ParsePosition position = new ParsePosition(0);
+        Date parsed = format.parse(text, position);
+        return parsed != null && position.getIndex() == text.length() ? parsed : null;
+    }
+}
@@ -1,12 +1,8 @@
 package com.example.ballerevents;
 
-import android.util.Log;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Provides reusable filtering logic for {@link Event} objects.
@@ -17,11 +13,13 @@ import java.util.Locale;
  * <li>Tags/Categories</li>
  * <li>Date Range (Availability)</li>
  * </ul>
+ * Date ranges are checked against {@link Event#getStartTimeMillis()}, so no date strings
+ * are parsed and the filter is safe to run on any thread.
  */
 public class EventFilter {
 
-    private static final String TAG = "EventFilter";
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd MMMM, yyyy", Locale.US);
+    /** Added to the end of a date range so that the whole last day is included. */
+    static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
 
     /**
      * Filters a list of events using search query, tags, and date range.
@@ -43,34 +41,60 @@ public class EventFilter {
         List<Event> filteredResults = new ArrayList<>();
 
         for (Event event : allEvents) {
-            // Text Matching
-            boolean matchesQuery = normalizedQuery.isEmpty() ||
-                    (event.getTitle() != null && event.getTitle().toLowerCase().contains(normalizedQuery)) ||
-                    (event.getDescription() != null && event.getDescription().toLowerCase().contains(normalizedQuery)) ||
-                    (event.getOrganizer() != null && event.getOrganizer().toLowerCase().contains(normalizedQuery));
+            if (matches(event, normalizedQuery, selectedTags, startDate, endDate)) {
+                filteredResults.add(event);
+            }
+        }
+        return filteredResults;
+    }
 
-            // Tag Matching
-            boolean matchesTags = (selectedTags == null) || selectedTags.isEmpty() ||
-                    (event.getTags() != null && event.getTags().containsAll(selectedTags));
+    /**
+     * Checks a single event against the search query, tags, and date range.
+     *
+     * @param event           The event to check.
+     * @param normalizedQuery The search query, already lowercased and trimmed.
+     * @param selectedTags    The list of required tags.
+     * @param startDate       The start of the availability range (null if ignored).
+     * @param endDate         The end of the availability range (null if ignored).
+     * @return True if the event matches every criterion.
+     */
+    public static boolean matches(Event event,
+                                  String normalizedQuery,
+                                  List<String> selectedTags,
+                                  Date startDate,
+                                  Date endDate) {
+        // Text Matching
+        boolean matchesQuery = normalizedQuery.isEmpty() ||
+                (event.getTitle() != null && event.getTitle().toLowerCase().contains(normalizedQuery)) ||
+                (event.getDescription() != null && event.getDescription().toLowerCase().contains(normalizedQuery)) ||
+                (event.getOrganizer() != null && event.getOrganizer().toLowerCase().contains(normalizedQuery));
 
-            // Date Matching
-            boolean matchesDate = true;
-            if (startDate != null && endDate != null && event.getDate() != null) {
-                try {
-                    Date eventDate = DATE_FORMAT.parse(event.getDate());
-                    if (eventDate != null) {
-                        matchesDate = !eventDate.before(startDate) && !eventDate.after(endDate);
-                    }
-                } catch (ParseException e) {
-                    Log.w(TAG, "Failed to parse event date: " + event.getDate());
-                    matchesDate = false;
-                }
-            }
+        // Tag Matching
+        boolean matchesTags = (selectedTags == null) || selectedTags.isEmpty() ||
+                (event.getTags() != null && event.getTags().containsAll(selectedTags));
 
-            if (matchesQuery && matchesTags && matchesDate) {
-                filteredResults.add(event);
+        // Date Matching
+        boolean matchesDate = true;
+        if (startDate != null && endDate != null) {
+            if (event.getStartTimeMillis() > 0) {
+                matchesDate = inDateRange(event.getStartTimeMillis(), startDate, endDate);
+            } else {
+                // Events without a start time only match if they have no date at all
+                // (see EventFieldsBackfill)
+                matchesDate = event.getDate() == null;
             }
         }
-        return filteredResults;
+
+        return matchesQuery && matchesTags && matchesDate;
+    }
+
+    /**
+     * @param startTimeMillis The event start time.
+     * @param startDate       The first day of the range.
+     * @param endDate         The last day of the range (inclusive).
+     * @return True if the start time falls within the range.
+     */
+    static boolean inDateRange(long startTimeMillis, Date startDate, Date endDate) {
+        return startTimeMillis >= startDate.getTime() && startTimeMillis < endDate.getTime() + DAY_MILLIS;
     }
-}
\ No newline at end of file
+}
@@ -13,7 +13,9 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Adapter for displaying a user's event history with status indicators.
@@ -31,6 +33,7 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
     private final List<Event> events = new ArrayList<>();
     private final OnEventClickListener listener;
     private final String currentUserId;
+    private final Map<String, String> entrantStatuses = new HashMap<>();
 
     /**
      * Constructs the adapter.
@@ -56,6 +59,20 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
         notifyDataSetChanged();
     }
 
+    /**
+     * Sets the user's status for events whose entrants live in the subcollection,
+     * since those statuses are not on the event document.
+     *
+     * @param statuses Map of event IDs to {@code Entrant.STATUS_*} values.
+     */
+    public void setEntrantStatuses(Map<String, String> statuses) {
+        entrantStatuses.clear();
+        if (statuses != null) {
+            entrantStatuses.putAll(statuses);
+        }
+        notifyDataSetChanged();
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -73,7 +90,7 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
         holder.tvDate.setText(event.getDate());
 
         Glide.with(context)
-                .load(event.getEventPosterUrl())
+                .load(ImageVariants.forView(holder.ivImage, event.getEventPosterVariants(), event.getEventPosterUrl()))
                 .placeholder(R.drawable.placeholder_coldplay_banner)
                 .into(holder.ivImage);
 
@@ -81,27 +98,22 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
         String statusText = "Unknown";
         int colorRes = android.R.color.darker_gray;
 
-        boolean isWaitlisted = event.getWaitlistUserIds() != null && event.getWaitlistUserIds().contains(currentUserId);
-        boolean isSelected = event.getSelectedUserIds() != null && event.getSelectedUserIds().contains(currentUserId);
-        boolean isCancelled = event.getCancelledUserIds() != null && event.getCancelledUserIds().contains(currentUserId);
-
-        String inviteStatus = "pending";
-        if (event.getInvitationStatus() != null) {
-            inviteStatus = event.getInvitationStatus().getOrDefault(currentUserId, "pending");
-        }
+        String status = event.usesEntrantSubcollection()
+                ? entrantStatuses.get(event.getId())
+                : Entrant.statusFromArrays(event, currentUserId);
 
-        if (isSelected) {
-            if ("accepted".equals(inviteStatus)) {
+        if (Entrant.isSelectedStatus(status)) {
+            if (Entrant.STATUS_ACCEPTED.equals(status)) {
                 statusText = "ENROLLED ✅";
                 colorRes = android.R.color.holo_green_dark;
             } else {
                 statusText = "SELECTED! 🎉";
                 colorRes = android.R.color.holo_purple;
             }
-        } else if (isCancelled) {
+        } else if (Entrant.isCancelledStatus(status)) {
             statusText = "Declined";
             colorRes = android.R.color.holo_red_dark;
-        } else if (isWaitlisted) {
+        } else if (Entrant.STATUS_WAITING.equals(status)) {
             statusText = "Waitlisted ⏳";
             colorRes = android.R.color.holo_orange_dark;
         }
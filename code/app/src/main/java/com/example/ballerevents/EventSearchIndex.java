@@ -0,0 +1,363 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory search index over {@link Event}s that answers the same questions as
+ * {@link EventFilter#performSearchAndFilter} without rescanning every event.
+ * <p>
+ * Each event gets an integer slot. For each slot the index caches:
+ * <ul>
+ * <li>the lowercased title, description and organizer;</li>
+ * <li>trigram postings: for every 3-character sequence of those fields, the sorted list of
+ * slots containing it;</li>
+ * <li>one bitset per tag;</li>
+ * <li>a column of event start times.</li>
+ * </ul>
+ * A query intersects the postings of its trigrams (smallest list first), the tag bitsets and
+ * the date range, then confirms each remaining candidate with the same substring test as
+ * {@link EventFilter}. Queries shorter than three characters skip the postings and are
+ * confirmed against the cached lowercase text.
+ * </p>
+ * <p>
+ * Updates are incremental: an updated event moves to a new slot and its old slot is marked
+ * dead. Dead slots are compacted away once they outnumber live ones. Not thread-safe.
+ * </p>
+ */
+public class EventSearchIndex {
+
+    private static final int GRAM = 3;
+
+    /** Date column marker: the event has no date, so it passes any date range. */
+    private static final long DATE_NONE = Long.MIN_VALUE;
+    /** Date column marker: the event has a date but no start time, so it fails any date range. */
+    private static final long DATE_INVALID = Long.MAX_VALUE;
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final List<Event> events = new ArrayList<>();
+    private final List<String[]> texts = new ArrayList<>();
+    private long[] dates = new long[16];
+    private final BitSet live = new BitSet();
+    private int deadCount = 0;
+
+    private final Map<String, IntList> postings = new HashMap<>();
+    private final Map<String, BitSet> tagBits = new HashMap<>();
+
+    /**
+     * A search request, equivalent to the arguments of {@link EventFilter#performSearchAndFilter}.
+     */
+    public static final class Query {
+        final String normalizedQuery;
+        final List<String> tags;
+        @Nullable final Date startDate;
+        @Nullable final Date endDate;
+
+        /**
+         * @param query     The search query (case-insensitive).
+         * @param tags      The list of required tags (may be null).
+         * @param startDate The start of the availability range (null if ignored).
+         * @param endDate   The end of the availability range (null if ignored).
+         */
+        public Query(@Nullable String query, @Nullable List<String> tags,
+                     @Nullable Date startDate, @Nullable Date endDate) {
+            this.normalizedQuery = query != null ? query.toLowerCase().trim() : "";
+            this.tags = tags != null ? new ArrayList<>(tags) : Collections.emptyList();
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        boolean hasDateRange() {
+            return startDate != null && endDate != null;
+        }
+    }
+
+    /**
+     * Adds an event, or replaces the indexed copy of an event with the same ID.
+     *
+     * @param event The event to index. Its ID must be set.
+     */
+    public void put(Event event) {
+        remove(event.getId());
+
+        int slot = events.size();
+        events.add(event);
+        String[] text = {lower(event.getTitle()), lower(event.getDescription()), lower(event.getOrganizer())};
+        texts.add(text);
+        slotById.put(event.getId(), slot);
+        live.set(slot);
+
+        if (slot >= dates.length) dates = Arrays.copyOf(dates, dates.length * 2);
+        dates[slot] = dateKey(event);
+
+        Set<String> grams = new LinkedHashSet<>();
+        for (String field : text) {
+            if (field != null) addGrams(field, grams);
+        }
+        for (String gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                list = new IntList();
+                postings.put(gram, list);
+            }
+            list.add(slot);
+        }
+
+        if (event.getTags() != null) {
+            for (String tag : event.getTags()) {
+                BitSet bits = tagBits.get(tag);
+                if (bits == null) {
+                    bits = new BitSet();
+                    tagBits.put(tag, bits);
+                }
+                bits.set(slot);
+            }
+        }
+    }
+
+    /**
+     * Removes an event from the index. Unknown IDs are ignored.
+     *
+     * @param eventId The event ID.
+     */
+    public void remove(String eventId) {
+        Integer slot = slotById.remove(eventId);
+        if (slot == null) return;
+        live.clear(slot);
+        events.set(slot, null);
+        texts.set(slot, null);
+        deadCount++;
+        if (deadCount > 1024 && deadCount > slotById.size()) compact();
+    }
+
+    /** Removes every event. */
+    public void clear() {
+        slotById.clear();
+        events.clear();
+        texts.clear();
+        live.clear();
+        postings.clear();
+        tagBits.clear();
+        deadCount = 0;
+    }
+
+    /**
+     * @return The number of indexed events.
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Runs a query over the whole index.
+     *
+     * @param query The search request.
+     * @return IDs of the matching events, in the order they were (last) indexed.
+     */
+    public List<String> search(Query query) {
+        List<String> ids = new ArrayList<>();
+        BitSet tagFilter = tagFilter(query);
+        if (tagFilter != null && tagFilter.isEmpty()) return ids;
+
+        int[] candidates = gramCandidates(query.normalizedQuery);
+        if (candidates != null) {
+            for (int slot : candidates) {
+                if (tagFilter != null && !tagFilter.get(slot)) continue;
+                if (matchesSlot(slot, query)) ids.add(events.get(slot).getId());
+            }
+        } else {
+            BitSet scan = tagFilter != null ? tagFilter : live;
+            for (int slot = scan.nextSetBit(0); slot >= 0; slot = scan.nextSetBit(slot + 1)) {
+                if (matchesSlot(slot, query)) ids.add(events.get(slot).getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Checks one indexed event against a query using the cached columns.
+     *
+     * @param eventId The event ID.
+     * @param query   The search request.
+     * @return True if the event is indexed and matches.
+     */
+    public boolean matches(String eventId, Query query) {
+        Integer slot = slotById.get(eventId);
+        if (slot == null) return false;
+        if (!query.tags.isEmpty()) {
+            for (String tag : query.tags) {
+                BitSet bits = tagBits.get(tag);
+                if (bits == null || !bits.get(slot)) return false;
+            }
+        }
+        return matchesSlot(slot, query);
+    }
+
+    /**
+     * Runs a query and returns the matching events in the order of {@code ordered}, which is
+     * the drop-in equivalent of {@link EventFilter#performSearchAndFilter}.
+     *
+     * @param ordered The events in the desired result order; all must be indexed.
+     * @param query   The search request.
+     * @return The matching events.
+     */
+    public List<Event> filter(List<Event> ordered, Query query) {
+        Set<String> ids = new java.util.HashSet<>(search(query));
+        List<Event> out = new ArrayList<>();
+        for (Event event : ordered) {
+            if (ids.contains(event.getId())) out.add(event);
+        }
+        return out;
+    }
+
+    // --- Query evaluation ---
+
+    /**
+     * @return Slots carrying every selected tag, or null when no tag is selected.
+     */
+    @Nullable
+    private BitSet tagFilter(Query query) {
+        if (query.tags.isEmpty()) return null;
+        BitSet result = null;
+        for (String tag : query.tags) {
+            BitSet bits = tagBits.get(tag);
+            if (bits == null) return new BitSet();
+            if (result == null) {
+                result = (BitSet) bits.clone();
+                result.and(live);
+            } else {
+                result.and(bits);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Live slots containing every trigram of the query, or null when the query is
+     * too short to use the postings.
+     */
+    @Nullable
+    private int[] gramCandidates(String normalizedQuery) {
+        if (normalizedQuery.length() < GRAM) return null;
+
+        Set<String> grams = new LinkedHashSet<>();
+        addGrams(normalizedQuery, grams);
+        List<IntList> lists = new ArrayList<>();
+        for (String gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) return new int[0];
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] current = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int currentSize = current.length;
+        for (int i = 1; i < lists.size() && currentSize > 0; i++) {
+            currentSize = intersect(current, currentSize, lists.get(i));
+        }
+
+        int liveCount = 0;
+        for (int i = 0; i < currentSize; i++) {
+            if (live.get(current[i])) current[liveCount++] = current[i];
+        }
+        return Arrays.copyOf(current, liveCount);
+    }
+
+    /**
+     * Intersects {@code a[0..aSize)} with {@code b} in place. Both are sorted ascending.
+     *
+     * @return The size of the intersection, stored at the start of {@code a}.
+     */
+    private static int intersect(int[] a, int aSize, IntList b) {
+        int i = 0, j = 0, out = 0;
+        while (i < aSize && j < b.size) {
+            int x = a[i];
+            int y = b.values[j];
+            if (x == y) {
+                a[out++] = x;
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private boolean matchesSlot(int slot, Query query) {
+        String[] text = texts.get(slot);
+        if (text == null) return false;
+
+        String q = query.normalizedQuery;
+        if (!q.isEmpty()) {
+            boolean found = false;
+            for (String field : text) {
+                if (field != null && field.contains(q)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+
+        if (query.hasDateRange()) {
+            long date = dates[slot];
+            if (date == DATE_INVALID) return false;
+            if (date != DATE_NONE) {
+                return EventFilter.inDateRange(date, query.startDate, query.endDate);
+            }
+        }
+        return true;
+    }
+
+    // --- Index maintenance ---
+
+    private void compact() {
+        List<Event> liveEvents = new ArrayList<>();
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            liveEvents.add(events.get(slot));
+        }
+        clear();
+        for (Event event : liveEvents) put(event);
+    }
+
+    /** Mirrors the date rule of {@link EventFilter#matches}. */
+    private static long dateKey(Event event) {
+        if (event.getStartTimeMillis() > 0) return event.getStartTimeMillis();
+        return event.getDate() == null ? DATE_NONE : DATE_INVALID;
+    }
+
+    @Nullable
+    private static String lower(@Nullable String s) {
+        return s != null ? s.toLowerCase() : null;
+    }
+
+    private static void addGrams(String text, Set<String> out) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            out.add(text.substring(i, i + GRAM));
+        }
+    }
+
+    /** Growable array of ascending slot numbers. */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
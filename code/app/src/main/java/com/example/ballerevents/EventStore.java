@@ -0,0 +1,260 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * In-memory copy of a live, ordered events query that is updated one document change at a time.
+ * <p>
+ * Snapshot listeners report each change with its old and new index in the query order, so
+ * additions, modifications and removals are applied in place instead of rebuilding the list.
+ * The store also keeps:
+ * <ul>
+ * <li>the top {@code k} events by waitlist size, in a min-heap that is only rebuilt when one
+ * of its members shrinks or disappears;</li>
+ * <li>the set of events matching the current filter, where only changed events are
+ * re-evaluated;</li>
+ * <li>an {@link EventSearchIndex} over all events, so a new search does not rescan them.</li>
+ * </ul>
+ * Not thread-safe; snapshot listeners deliver on the main thread.
+ * </p>
+ */
+public class EventStore {
+
+    /** Largest waitlist first; ties broken by ID so the order is stable. */
+    static final Comparator<Event> BY_POPULARITY = (a, b) -> {
+        int c = Integer.compare(b.getWaitlistCount(), a.getWaitlistCount());
+        return c != 0 ? c : String.valueOf(a.getId()).compareTo(String.valueOf(b.getId()));
+    };
+
+    private final int trendingSize;
+    private final List<Event> ordered = new ArrayList<>();
+    private final Map<String, Event> byId = new HashMap<>();
+
+    /** Min-heap of the current top events: the least popular member is at the head. */
+    private final PriorityQueue<Event> trending;
+    private boolean trendingChanged = false;
+
+    @Nullable
+    private Predicate<Event> filter;
+    private final Set<String> matchingIds = new HashSet<>();
+    private boolean matchesChanged = false;
+
+    private final EventSearchIndex searchIndex = new EventSearchIndex();
+
+    /**
+     * @param trendingSize Number of events to keep in the trending set.
+     */
+    public EventStore(int trendingSize) {
+        this.trendingSize = trendingSize;
+        this.trending = new PriorityQueue<>(Math.max(1, trendingSize), BY_POPULARITY.reversed());
+    }
+
+    /** Removes every event, e.g. before a listener is re-attached. */
+    public void clear() {
+        ordered.clear();
+        byId.clear();
+        trending.clear();
+        matchingIds.clear();
+        searchIndex.clear();
+        trendingChanged = true;
+        matchesChanged = true;
+    }
+
+    /**
+     * Applies an added document.
+     *
+     * @param event    The new event.
+     * @param newIndex Its position in the query order.
+     */
+    public void added(Event event, int newIndex) {
+        ordered.add(clampIndex(newIndex, ordered.size()), event);
+        byId.put(event.getId(), event);
+        searchIndex.put(event);
+        offerTrending(event);
+        refilter(event);
+    }
+
+    /**
+     * Applies a modified document.
+     *
+     * @param event    The updated event.
+     * @param oldIndex Its previous position in the query order.
+     * @param newIndex Its new position in the query order.
+     */
+    public void modified(Event event, int oldIndex, int newIndex) {
+        Event previous = byId.put(event.getId(), event);
+        searchIndex.put(event);
+        if (oldIndex == newIndex && oldIndex >= 0 && oldIndex < ordered.size()) {
+            ordered.set(oldIndex, event);
+        } else {
+            removeFromOrder(event.getId(), oldIndex);
+            ordered.add(clampIndex(newIndex, ordered.size()), event);
+        }
+
+        if (previous != null && trending.remove(previous)) {
+            trendingChanged = true;
+            if (event.getWaitlistCount() < previous.getWaitlistCount()) {
+                // An event outside the heap may now rank higher.
+                rebuildTrending();
+                refilter(event);
+                return;
+            }
+        }
+        offerTrending(event);
+        refilter(event);
+    }
+
+    /**
+     * Applies a removed document.
+     *
+     * @param eventId  The removed event's ID.
+     * @param oldIndex Its previous position in the query order.
+     */
+    public void removed(String eventId, int oldIndex) {
+        Event previous = byId.remove(eventId);
+        removeFromOrder(eventId, oldIndex);
+        searchIndex.remove(eventId);
+        if (previous != null && trending.remove(previous)) rebuildTrending();
+        if (matchingIds.remove(eventId)) matchesChanged = true;
+    }
+
+    /**
+     * @return A copy of all events, in query order.
+     */
+    public List<Event> getAll() {
+        return new ArrayList<>(ordered);
+    }
+
+    /**
+     * @return The number of events in the store.
+     */
+    public int size() {
+        return ordered.size();
+    }
+
+    /**
+     * @return The trending events, most popular first.
+     */
+    public List<Event> getTrending() {
+        List<Event> top = new ArrayList<>(trending);
+        Collections.sort(top, BY_POPULARITY);
+        return top;
+    }
+
+    /**
+     * Returns whether the trending set changed since the last call, and resets the flag.
+     */
+    public boolean consumeTrendingChanged() {
+        boolean changed = trendingChanged;
+        trendingChanged = false;
+        return changed;
+    }
+
+    /**
+     * Replaces the filter and evaluates it against every event.
+     *
+     * @param filter The new filter, or null to match nothing.
+     */
+    public void setFilter(@Nullable Predicate<Event> filter) {
+        this.filter = filter;
+        matchingIds.clear();
+        if (filter != null) {
+            for (Event event : ordered) {
+                if (filter.test(event)) matchingIds.add(event.getId());
+            }
+        }
+        matchesChanged = true;
+    }
+
+    /**
+     * Replaces the filter with a search, answered from the search index. Changed events are
+     * then re-checked against the index's cached columns.
+     *
+     * @param query The search request, or null to match nothing.
+     */
+    public void setSearch(@Nullable EventSearchIndex.Query query) {
+        matchingIds.clear();
+        if (query == null) {
+            filter = null;
+        } else {
+            filter = event -> searchIndex.matches(event.getId(), query);
+            matchingIds.addAll(searchIndex.search(query));
+        }
+        matchesChanged = true;
+    }
+
+    /**
+     * @return The events matching the current filter, in query order.
+     */
+    public List<Event> getMatches() {
+        List<Event> out = new ArrayList<>();
+        if (matchingIds.isEmpty()) return out;
+        for (Event event : ordered) {
+            if (matchingIds.contains(event.getId())) out.add(event);
+        }
+        return out;
+    }
+
+    /**
+     * Returns whether the filtered results changed since the last call, and resets the flag.
+     */
+    public boolean consumeMatchesChanged() {
+        boolean changed = matchesChanged;
+        matchesChanged = false;
+        return changed;
+    }
+
+    private void refilter(Event event) {
+        boolean matches = filter != null && filter.test(event);
+        boolean changed = matches ? matchingIds.add(event.getId()) : matchingIds.remove(event.getId());
+        // A modified event that still matches must be re-rendered as well.
+        if (changed || matches) matchesChanged = true;
+    }
+
+    private void offerTrending(Event event) {
+        if (trendingSize <= 0) return;
+        if (trending.size() < trendingSize) {
+            trending.add(event);
+            trendingChanged = true;
+        } else if (BY_POPULARITY.compare(event, trending.peek()) < 0) {
+            trending.poll();
+            trending.add(event);
+            trendingChanged = true;
+        }
+    }
+
+    private void rebuildTrending() {
+        trending.clear();
+        for (Event event : ordered) offerTrending(event);
+        trendingChanged = true;
+    }
+
+    private void removeFromOrder(String eventId, int index) {
+        if (index >= 0 && index < ordered.size() && eventId.equals(ordered.get(index).getId())) {
+            ordered.remove(index);
+            return;
+        }
+        // Index out of sync (should not happen); fall back to a linear search.
+        for (int i = 0; i < ordered.size(); i++) {
+            if (eventId.equals(ordered.get(i).getId())) {
+                ordered.remove(i);
+                return;
+            }
+        }
+    }
+
+    private static int clampIndex(int index, int size) {
+        return Math.max(0, Math.min(index, size));
+    }
+}
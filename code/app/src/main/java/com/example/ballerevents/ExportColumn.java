@@ -0,0 +1,78 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A column that an entrant export can include. Each column reads one value from an entrant
+ * and, where relevant, their profile.
+ */
+public enum ExportColumn {
+    NAME("name", "Name"),
+    EMAIL("email", "Email"),
+    LIST("list", "List"),
+    STATUS("status", "Status"),
+    JOINED_AT("joinedAt", "Joined At"),
+    INVITATION("invitation", "Invitation"),
+    LATITUDE("latitude", "Latitude"),
+    LONGITUDE("longitude", "Longitude");
+
+    /** The columns of the original accepted-entrant export. */
+    public static final List<ExportColumn> NAME_AND_EMAIL =
+            Collections.unmodifiableList(Arrays.asList(NAME, EMAIL));
+
+    /** Key used by formats with named fields, such as JSON Lines. */
+    public final String key;
+    /** Header used by formats with a header row, such as CSV. */
+    public final String header;
+
+    ExportColumn(String key, String header) {
+        this.key = key;
+        this.header = header;
+    }
+
+    /**
+     * Reads this column for one entrant.
+     *
+     * @param entrant The entrant.
+     * @param profile The entrant's profile, or null if it no longer exists.
+     * @return A String, Double or Date, or null if the entrant has no value.
+     */
+    @Nullable
+    public Object valueOf(Entrant entrant, @Nullable UserProfile profile) {
+        GeoPoint location = entrant.getLocation();
+        switch (this) {
+            case NAME: return profile != null ? profile.getName() : null;
+            case EMAIL: return profile != null ? profile.getEmail() : null;
+            case LIST: {
+                ViewMode mode = ViewMode.of(entrant.getStatus());
+                return mode != null ? mode.label() : null;
+            }
+            case STATUS: return entrant.getStatus();
+            case JOINED_AT: return entrant.getJoinedAt();
+            case INVITATION: return invitationState(entrant.getStatus());
+            case LATITUDE: return location != null ? location.getLatitude() : null;
+            case LONGITUDE: return location != null ? location.getLongitude() : null;
+            default: return null;
+        }
+    }
+
+    /**
+     * @param status An entrant status.
+     * @return Where the entrant's invitation stands, or null if they have not been drawn.
+     */
+    @Nullable
+    static String invitationState(@Nullable String status) {
+        if (Entrant.STATUS_CHOSEN.equals(status)) return "not sent";
+        if (Entrant.STATUS_INVITED.equals(status)) return "pending";
+        if (Entrant.STATUS_ACCEPTED.equals(status)) return "accepted";
+        if (Entrant.STATUS_DECLINED.equals(status)) return "declined";
+        if (Entrant.STATUS_CANCELLED.equals(status)) return "revoked";
+        return null;
+    }
+}
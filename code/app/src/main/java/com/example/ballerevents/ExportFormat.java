@@ -0,0 +1,38 @@
+package com.example.ballerevents;
+
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * File formats an entrant export can be written in.
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv") {
+        @Override
+        public ExportWriter newWriter(Writer out, List<ExportColumn> columns) {
+            return new CsvExportWriter(out, columns);
+        }
+    },
+    JSON_LINES("jsonl", "application/x-ndjson") {
+        @Override
+        public ExportWriter newWriter(Writer out, List<ExportColumn> columns) {
+            return new JsonLinesExportWriter(out, columns);
+        }
+    };
+
+    /** File extension, without the dot. */
+    public final String extension;
+    public final String mimeType;
+
+    ExportFormat(String extension, String mimeType) {
+        this.extension = extension;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * @param out     Destination.
+     * @param columns Columns of every row, in order.
+     * @return A writer for this format.
+     */
+    public abstract ExportWriter newWriter(Writer out, List<ExportColumn> columns);
+}
@@ -0,0 +1,66 @@
+package com.example.ballerevents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What an entrant export writes: the file format, whether it is gzip-compressed, the columns
+ * and the lists of entrants to include.
+ */
+public final class ExportOptions {
+
+    /** Accepted entrants' names and emails as plain CSV, as exported before other options existed. */
+    public static final ExportOptions ACCEPTED_CSV = new ExportOptions(ExportFormat.CSV, false,
+            ExportColumn.NAME_AND_EMAIL, EnumSet.of(ViewMode.ENROLLED));
+
+    public final ExportFormat format;
+    public final boolean gzip;
+    /** Columns of every row, in order. */
+    public final List<ExportColumn> columns;
+    /** Lists of entrants to include. All of them are read in one pass. */
+    public final Set<ViewMode> modes;
+
+    /**
+     * @param format  File format.
+     * @param gzip    True to compress the file with gzip.
+     * @param columns Columns to write, in order; must not be empty.
+     * @param modes   Lists of entrants to include; must not be empty.
+     */
+    public ExportOptions(ExportFormat format, boolean gzip, List<ExportColumn> columns, Set<ViewMode> modes) {
+        if (columns.isEmpty()) throw new IllegalArgumentException("No columns selected");
+        if (modes.isEmpty()) throw new IllegalArgumentException("No lists selected");
+        this.format = format;
+        this.gzip = gzip;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.modes = Collections.unmodifiableSet(EnumSet.copyOf(modes));
+    }
+
+    /**
+     * @return Every entrant status in the selected lists.
+     */
+    public List<String> statuses() {
+        List<String> statuses = new ArrayList<>();
+        for (ViewMode mode : modes) statuses.addAll(mode.statuses());
+        return statuses;
+    }
+
+    /**
+     * @param title     The event title, already safe for use in a filename.
+     * @param timestamp Timestamp to include in the name.
+     * @return The file name, with an extension matching the format and compression.
+     */
+    public String fileName(String title, String timestamp) {
+        String prefix = modes.equals(EnumSet.of(ViewMode.ENROLLED)) ? "Accepted_Entrants_" : "Entrants_";
+        return prefix + title + "_" + timestamp + "." + format.extension + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * @return The MIME type of the file.
+     */
+    public String mimeType() {
+        return gzip ? "application/gzip" : format.mimeType;
+    }
+}
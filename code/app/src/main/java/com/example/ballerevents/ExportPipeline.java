@@ -0,0 +1,92 @@
+package com.example.ballerevents;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes pages of entrants to an output stream as described by {@link ExportOptions}: through
+ * gzip if requested, then a buffered UTF-8 writer, then the format's {@link ExportWriter}.
+ * Each page is written as it arrives and not kept, so memory use depends on the page size
+ * only. Entrants outside the selected lists are skipped. Not thread-safe; use from one thread.
+ */
+final class ExportPipeline implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private final ExportWriter rows;
+    private final List<ExportColumn> columns;
+    private final ExportOptions options;
+    private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+    private final Object[] values;
+    private int rowsWritten = 0;
+
+    /**
+     * Wraps the stream and writes the format's header.
+     *
+     * @param out     Destination; closed by {@link #close}.
+     * @param options What to write.
+     */
+    ExportPipeline(OutputStream out, ExportOptions options) throws IOException {
+        OutputStream sink = options.gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        this.writer = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.options = options;
+        this.columns = options.columns;
+        this.rows = options.format.newWriter(writer, columns);
+        this.values = new Object[columns.size()];
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        rows.begin();
+    }
+
+    /**
+     * Writes one row per entrant in the selected lists.
+     *
+     * @param entrants Entrants of one page.
+     * @param profiles Their profiles by user ID; entrants without one get empty name and email.
+     * @return Rows written for this page.
+     */
+    int writePage(List<Entrant> entrants, Map<String, UserProfile> profiles) throws IOException {
+        int written = 0;
+        for (Entrant entrant : entrants) {
+            ViewMode mode = ViewMode.of(entrant.getStatus());
+            if (mode == null || !options.modes.contains(mode)) continue;
+            UserProfile profile = profiles.get(entrant.getId());
+            for (int i = 0; i < values.length; i++) {
+                Object value = columns.get(i).valueOf(entrant, profile);
+                values[i] = value instanceof Date ? isoFormat.format((Date) value) : value;
+            }
+            rows.write(values);
+            written++;
+        }
+        rowsWritten += written;
+        return written;
+    }
+
+    /**
+     * @return Rows written so far, not counting any header.
+     */
+    int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Flushes everything, finishes the gzip stream if any and closes the destination.
+     */
+    @Override
+    public void close() throws IOException {
+        rows.close();
+        writer.close();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.ballerevents;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes export rows in one file format. Implementations write straight to the underlying
+ * writer and keep no rows in memory. Closing an export writer flushes it but does not close
+ * the underlying writer.
+ *
+ * @see ExportFormat
+ */
+public interface ExportWriter extends Closeable {
+
+    /**
+     * Writes anything that comes before the rows, such as a header.
+     */
+    void begin() throws IOException;
+
+    /**
+     * Writes one row.
+     *
+     * @param values One value per column, in column order: a String, a Number or null.
+     */
+    void write(Object[] values) throws IOException;
+}
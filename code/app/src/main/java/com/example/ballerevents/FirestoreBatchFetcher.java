@@ -0,0 +1,272 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves a list of document IDs against a Firestore collection.
+ * <p>
+ * Firestore limits a {@code whereIn} filter on {@link FieldPath#documentId()} to
+ * {@link #MAX_IDS_PER_QUERY} values, so the ID list is split into legal chunks which are
+ * queried concurrently, with at most {@code maxInFlight} queries running at once.
+ * Results are handed back in the caller's ID order, and IDs whose chunk failed are
+ * reported instead of being silently dropped.
+ * </p>
+ */
+public class FirestoreBatchFetcher {
+
+    /** Maximum number of values Firestore accepts in a single {@code in} filter. */
+    public static final int MAX_IDS_PER_QUERY = 30;
+
+    /** Default number of chunk queries allowed in flight at the same time. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    /**
+     * Converts a fetched document into a model object.
+     *
+     * @param <T> The model type.
+     */
+    public interface DocumentMapper<T> {
+        /**
+         * @param doc The fetched document.
+         * @return The mapped object, or null to skip the document.
+         */
+        @Nullable
+        T map(DocumentSnapshot doc);
+    }
+
+    /**
+     * Callback invoked once every chunk has completed.
+     *
+     * @param <T> The model type.
+     */
+    public interface BatchCallback<T> {
+        /**
+         * @param results    Items in the order of the requested IDs. IDs without a document are skipped.
+         * @param failedIds  IDs whose chunk query failed (empty when everything succeeded).
+         * @param firstError The first error encountered, or null.
+         */
+        void onComplete(List<T> results, List<String> failedIds, @Nullable Exception firstError);
+    }
+
+    /**
+     * Optional listener notified each time a chunk completes, so callers can render
+     * results incrementally instead of waiting for the whole batch.
+     *
+     * @param <T> The model type.
+     */
+    public interface ProgressListener<T> {
+        /**
+         * @param loadedSoFar     Items resolved so far, in the order of the requested IDs.
+         * @param completedChunks Number of chunk queries that have finished.
+         * @param totalChunks     Total number of chunk queries for this batch.
+         */
+        void onProgress(List<T> loadedSoFar, int completedChunks, int totalChunks);
+    }
+
+    private final FirebaseFirestore db;
+    private final int maxInFlight;
+    private int queryCount = 0;
+
+    public FirestoreBatchFetcher(FirebaseFirestore db) {
+        this(db, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param db          Firestore instance to query.
+     * @param maxInFlight Maximum number of chunk queries running concurrently (at least 1).
+     */
+    public FirestoreBatchFetcher(FirebaseFirestore db, int maxInFlight) {
+        this.db = db;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Fetches user profiles by UID. The UID is copied onto each returned profile.
+     *
+     * @param uids The user IDs to resolve.
+     * @param cb   Callback receiving the ordered profiles.
+     */
+    public void fetchProfiles(List<String> uids, BatchCallback<UserProfile> cb) {
+        fetchProfiles(uids, null, cb);
+    }
+
+    /**
+     * Fetches user profiles by UID, reporting the ordered partial list after every chunk.
+     *
+     * @param uids     The user IDs to resolve.
+     * @param progress Listener invoked after each chunk completes (may be null).
+     * @param cb       Callback receiving the ordered profiles.
+     */
+    public void fetchProfiles(List<String> uids,
+                              @Nullable ProgressListener<UserProfile> progress,
+                              BatchCallback<UserProfile> cb) {
+        fetch("users", uids, doc -> {
+            UserProfile p = doc.toObject(UserProfile.class);
+            if (p != null) p.setUid(doc.getId());
+            return p;
+        }, progress, cb);
+    }
+
+    /**
+     * Fetches events by ID. The document ID is copied onto each returned event.
+     *
+     * @param eventIds The event IDs to resolve.
+     * @param cb       Callback receiving the ordered events.
+     */
+    public void fetchEvents(List<String> eventIds, BatchCallback<Event> cb) {
+        fetch("events", eventIds, doc -> {
+            Event e = doc.toObject(Event.class);
+            if (e != null) e.setId(doc.getId());
+            return e;
+        }, null, cb);
+    }
+
+    /**
+     * Fetches documents from {@code collection} whose IDs are in {@code ids}.
+     *
+     * @param collection Top-level collection name.
+     * @param ids        Document IDs to resolve. Nulls and duplicates are ignored.
+     * @param mapper     Converts each document into a model object.
+     * @param progress   Listener invoked after each chunk completes (may be null).
+     * @param cb         Callback receiving the ordered results.
+     * @param <T>        The model type.
+     */
+    public <T> void fetch(String collection,
+                          List<String> ids,
+                          DocumentMapper<T> mapper,
+                          @Nullable ProgressListener<T> progress,
+                          BatchCallback<T> cb) {
+        List<String> ordered = distinctIds(ids);
+        if (ordered.isEmpty()) {
+            cb.onComplete(new ArrayList<>(), new ArrayList<>(), null);
+            return;
+        }
+        new BatchRun<>(collection, ordered, mapper, progress, cb).start();
+    }
+
+    /**
+     * Returns the number of chunk queries this fetcher has issued so far.
+     * Each query costs one round trip, regardless of how many documents it returns.
+     *
+     * @return The total query count.
+     */
+    public int getQueryCount() {
+        return queryCount;
+    }
+
+    /**
+     * Removes nulls, empty strings and duplicates while keeping the first occurrence order.
+     */
+    static List<String> distinctIds(@Nullable List<String> ids) {
+        List<String> out = new ArrayList<>();
+        if (ids == null) return out;
+        for (String id : new LinkedHashSet<>(ids)) {
+            if (id != null && !id.isEmpty()) out.add(id);
+        }
+        return out;
+    }
+
+    /**
+     * Splits a list into consecutive sub-lists of at most {@code size} elements.
+     */
+    static <E> List<List<E>> chunk(List<E> items, int size) {
+        List<List<E>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(new ArrayList<>(items.subList(i, Math.min(items.size(), i + size))));
+        }
+        return chunks;
+    }
+
+    /**
+     * State for a single {@link #fetch} call. All listeners run on the main thread,
+     * so no synchronization is needed.
+     */
+    private final class BatchRun<T> {
+        private final String collection;
+        private final List<String> orderedIds;
+        private final List<List<String>> chunks;
+        private final DocumentMapper<T> mapper;
+        private final ProgressListener<T> progress;
+        private final BatchCallback<T> cb;
+
+        private final Map<String, T> found = new HashMap<>();
+        private final List<String> failedIds = new ArrayList<>();
+        private Exception firstError;
+        private int nextChunk = 0;
+        private int inFlight = 0;
+        private int completedChunks = 0;
+
+        BatchRun(String collection,
+                 List<String> orderedIds,
+                 DocumentMapper<T> mapper,
+                 @Nullable ProgressListener<T> progress,
+                 BatchCallback<T> cb) {
+            this.collection = collection;
+            this.orderedIds = orderedIds;
+            this.chunks = chunk(orderedIds, MAX_IDS_PER_QUERY);
+            this.mapper = mapper;
+            this.progress = progress;
+            this.cb = cb;
+        }
+
+        void start() {
+            int initial = Math.min(maxInFlight, chunks.size());
+            for (int i = 0; i < initial; i++) launchNext();
+        }
+
+        private void launchNext() {
+            List<String> ids = chunks.get(nextChunk++);
+            inFlight++;
+            queryCount++;
+            db.collection(collection)
+                    .whereIn(FieldPath.documentId(), ids)
+                    .get()
+                    .addOnCompleteListener(task -> {
+                        inFlight--;
+                        if (task.isSuccessful() && task.getResult() != null) {
+                            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                                T item = mapper.map(doc);
+                                if (item != null) found.put(doc.getId(), item);
+                            }
+                        } else {
+                            failedIds.addAll(ids);
+                            if (firstError == null) firstError = task.getException();
+                        }
+
+                        completedChunks++;
+                        if (progress != null && completedChunks < chunks.size()) {
+                            progress.onProgress(orderedResults(), completedChunks, chunks.size());
+                        }
+
+                        if (nextChunk < chunks.size()) {
+                            launchNext();
+                        } else if (inFlight == 0) {
+                            finish();
+                        }
+                    });
+        }
+
+        private List<T> orderedResults() {
+            List<T> results = new ArrayList<>();
+            for (String id : orderedIds) {
+                T item = found.get(id);
+                if (item != null) results.add(item);
+            }
+            return results;
+        }
+
+        private void finish() {
+            cb.onComplete(orderedResults(), failedIds, firstError);
+        }
+    }
+}
@@ -2,10 +2,12 @@ package com.example.ballerevents;
 
 import androidx.annotation.Nullable;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
@@ -14,7 +16,11 @@ import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Repository class handling all Firestore operations related to Events.
@@ -39,6 +45,45 @@ public class FirestoreEventRepository {
         void onError(Exception e);
     }
 
+    /** Documents read per search page. */
+    public static final int SEARCH_PAGE_SIZE = 20;
+    /** Firestore limit on the values of an {@code array-contains-any} filter. */
+    static final int MAX_ANY_VALUES = 30;
+
+    /**
+     * One page of {@link #searchEvents} results.
+     */
+    public static class SearchPage {
+        /** Events on this page that match every criterion, in query order. */
+        public final List<Event> events;
+        /** Where the page ended; pass it back to fetch the next page. */
+        @Nullable public final SearchCursor cursor;
+        /** False once the query has no more documents. */
+        public final boolean hasMore;
+
+        SearchPage(List<Event> events, @Nullable SearchCursor cursor, boolean hasMore) {
+            this.events = events;
+            this.cursor = cursor;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /**
+     * Position in a paged search. An "open now" search without a date range runs as two
+     * queries in turn (see {@link #planSearch}); the cursor records which one it is in.
+     */
+    public static final class SearchCursor {
+        /** True once paging events with no closing time. */
+        final boolean openEnded;
+        /** Last document read in the current query, or null to start it. */
+        @Nullable final DocumentSnapshot after;
+
+        SearchCursor(boolean openEnded, @Nullable DocumentSnapshot after) {
+            this.openEnded = openEnded;
+            this.after = after;
+        }
+    }
+
     /**
      * Maps a Firestore QuerySnapshot to a list of Event objects.
      */
@@ -57,24 +102,66 @@ public class FirestoreEventRepository {
 
     /**
      * Fetches the top 3 events by Waitlist Size.
-     * Note: Sorting is performed client-side as Firestore does not natively support
-     * sorting by array length.
      *
      * @param cb Callback to receive the top 3 popular events.
      */
     public void fetchPopularEvents(ListCallback<Event> cb) {
+        fetchPopularEvents(3, cb);
+    }
+
+    /**
+     * Fetches the {@code limit} events with the largest waitlists.
+     * <p>
+     * Runs an indexed {@code orderBy("waitlistCount")} query, so only {@code limit} documents
+     * are read. The field is maintained by every waitlist write (see {@link EntrantRepository}
+     * and {@link ShardedCounter}) and written on older documents by {@link EventFieldsBackfill}.
+     * Documents not yet backfilled are not returned by that query, so when it yields fewer than
+     * {@code limit} events the legacy client-side sort is merged in.
+     * </p>
+     *
+     * @param limit Maximum number of events to return.
+     * @param cb    Callback to receive the most popular events, largest waitlist first.
+     */
+    public void fetchPopularEvents(int limit, ListCallback<Event> cb) {
+        db.collection("events")
+                .orderBy(ShardedCounter.WAITLIST, Query.Direction.DESCENDING)
+                .limit(limit)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    List<Event> indexed = mapToEvents(snap);
+                    if (indexed.size() >= limit) {
+                        cb.onSuccess(indexed);
+                    } else {
+                        fetchPopularEventsClientSide(indexed, limit, cb);
+                    }
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Legacy popularity sort for events that lack the {@code waitlistCount} field.
+     * Sorting is performed client-side as Firestore does not natively support
+     * sorting by array length.
+     *
+     * @param indexed Events already returned by the indexed query.
+     */
+    private void fetchPopularEventsClientSide(List<Event> indexed, int limit, ListCallback<Event> cb) {
         db.collection("events")
                 .limit(100)
                 .get()
                 .addOnSuccessListener(snap -> {
-                    List<Event> events = mapToEvents(snap);
+                    Map<String, Event> byId = new LinkedHashMap<>();
+                    for (Event e : indexed) byId.put(e.getId(), e);
+                    for (Event e : mapToEvents(snap)) {
+                        if (!byId.containsKey(e.getId())) byId.put(e.getId(), e);
+                    }
+                    List<Event> events = new ArrayList<>(byId.values());
 
                     Collections.sort(events, (e1, e2) ->
                             Integer.compare(e2.getWaitlistCount(), e1.getWaitlistCount())
                     );
 
-                    List<Event> top3 = events.subList(0, Math.min(events.size(), 3));
-                    cb.onSuccess(top3);
+                    cb.onSuccess(new ArrayList<>(events.subList(0, Math.min(events.size(), limit))));
                 })
                 .addOnFailureListener(cb::onError);
     }
@@ -135,6 +222,128 @@ public class FirestoreEventRepository {
                 .addOnFailureListener(cb::onError);
     }
 
+    /**
+     * Fetches events starting within a time range, earliest first. The range is answered by
+     * the single-field index on {@code startTimeMillis}, so no dates are parsed on the device.
+     *
+     * @param fromMillis Start of the range (inclusive).
+     * @param toMillis   End of the range (exclusive).
+     * @param cb         Callback to receive the list of events.
+     */
+    public void fetchEventsStartingBetween(long fromMillis, long toMillis, ListCallback<Event> cb) {
+        db.collection("events")
+                .whereGreaterThanOrEqualTo("startTimeMillis", fromMillis)
+                .whereLessThan("startTimeMillis", toMillis)
+                .orderBy("startTimeMillis", Query.Direction.ASCENDING)
+                .get()
+                .addOnSuccessListener(snap -> cb.onSuccess(mapToEvents(snap)))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Turns a search into a Firestore query. At most one field can carry a range filter,
+     * and results are ordered by that field:
+     * <ul>
+     * <li>tags become {@code array-contains-any} (the page is then checked for all tags);</li>
+     * <li>a date range becomes a range on {@code startTimeMillis};</li>
+     * <li>otherwise "registration open" becomes {@code registrationCloseAtMillis > now},
+     * followed by a second query for {@code registrationCloseAtMillis == 0}, which means no
+     * closing time (see {@link JoinOutcome#evaluate});</li>
+     * <li>with neither, events are ordered by title.</li>
+     * </ul>
+     * Everything the query cannot express is checked on the returned page by
+     * {@link #matchesSearch}.
+     *
+     * @param search     The search criteria.
+     * @param openOnly   True to keep only events whose registration window is open.
+     * @param openEnded  For "registration open" without a date range: true for the second
+     *                   query, over events with no closing time.
+     * @param nowMillis  The current time.
+     * @return The query, without cursor or limit.
+     */
+    Query planSearch(EventSearchIndex.Query search, boolean openOnly, boolean openEnded, long nowMillis) {
+        Query query = db.collection("events");
+        if (!search.tags.isEmpty()) {
+            List<String> anyOf = search.tags.subList(0, Math.min(search.tags.size(), MAX_ANY_VALUES));
+            query = query.whereArrayContainsAny("tags", new ArrayList<>(anyOf));
+        }
+
+        if (search.hasDateRange()) {
+            query = query
+                    .whereGreaterThanOrEqualTo("startTimeMillis", search.startDate.getTime())
+                    .whereLessThan("startTimeMillis", search.endDate.getTime() + EventFilter.DAY_MILLIS)
+                    .orderBy("startTimeMillis", Query.Direction.ASCENDING);
+        } else if (openOnly && openEnded) {
+            query = query.whereEqualTo("registrationCloseAtMillis", 0);
+        } else if (openOnly) {
+            query = query
+                    .whereGreaterThan("registrationCloseAtMillis", nowMillis)
+                    .orderBy("registrationCloseAtMillis", Query.Direction.ASCENDING);
+        } else {
+            query = query.orderBy("title", Query.Direction.ASCENDING);
+        }
+        // Tie-breaker so the cursor is unambiguous
+        return query.orderBy(FieldPath.documentId());
+    }
+
+    /**
+     * @return True if {@link #planSearch} splits the search into a query for events that
+     * close at a set time followed by one for events with no closing time.
+     */
+    static boolean searchesOpenEnded(EventSearchIndex.Query search, boolean openOnly) {
+        return openOnly && !search.hasDateRange();
+    }
+
+    /**
+     * Checks the criteria that {@link #planSearch} leaves to the client: the free-text
+     * query, the remaining tags and the registration window.
+     */
+    static boolean matchesSearch(Event event, EventSearchIndex.Query search, boolean openOnly, long nowMillis) {
+        return EventFilter.matches(event, search.normalizedQuery, search.tags, search.startDate, search.endDate)
+                && (!openOnly || event.isRegistrationOpenAt(nowMillis));
+    }
+
+    /**
+     * Runs one page of a search. Filters are applied server-side where Firestore allows
+     * (see {@link #planSearch}); the rest is checked over the page only, so a page may hold
+     * fewer matches than it read documents.
+     *
+     * @param search   The search criteria.
+     * @param openOnly True to keep only events whose registration window is open.
+     * @param after    Cursor from the previous page, or null for the first page.
+     * @param pageSize Documents to read.
+     * @param cb       Callback to receive the page.
+     */
+    public void searchEvents(EventSearchIndex.Query search, boolean openOnly,
+                             @Nullable SearchCursor after, int pageSize,
+                             ItemCallback<SearchPage> cb) {
+        long now = System.currentTimeMillis();
+        boolean openEnded = after != null && after.openEnded;
+        Query query = planSearch(search, openOnly, openEnded, now);
+        if (after != null && after.after != null) query = query.startAfter(after.after);
+
+        query.limit(pageSize)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    List<Event> matches = new ArrayList<>();
+                    for (Event event : mapToEvents(snap)) {
+                        if (matchesSearch(event, search, openOnly, now)) matches.add(event);
+                    }
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    boolean full = docs.size() == pageSize;
+                    if (!full && !openEnded && searchesOpenEnded(search, openOnly)) {
+                        // Events closing at a set time are exhausted; continue with open-ended ones
+                        cb.onSuccess(new SearchPage(matches, new SearchCursor(true, null), true));
+                        return;
+                    }
+                    DocumentSnapshot last = docs.isEmpty()
+                            ? (after != null ? after.after : null)
+                            : docs.get(docs.size() - 1);
+                    cb.onSuccess(new SearchPage(matches, new SearchCursor(openEnded, last), full));
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
     /**
      * Fetches a single event by its ID.
      *
@@ -165,54 +374,35 @@ public class FirestoreEventRepository {
     }
 
     /**
-     * Performs the lottery sampling logic.
-     * Selects a random sample of users from the waiting list and updates their status to "chosen".
+     * Performs the lottery sampling logic with a new draw ID.
+     * Selects a random sample of users from the waiting list, invites them and notifies every
+     * entrant of the result. See {@link LotteryEngine} for how large waitlists are chunked.
      *
      * @param eventId    The ID of the event.
      * @param sampleSize The number of attendees to select.
      * @param cb         Callback for completion.
      */
     public void sampleAttendeesAndNotify(String eventId, int sampleSize, VoidCallback cb) {
-        CollectionReference entrantsRef = db.collection("events")
-                .document(eventId)
-                .collection("entrants");
-
-        entrantsRef
-                .whereEqualTo("status", "waiting")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
-
-                    if (docs.isEmpty()) {
-                        if (cb != null) cb.onSuccess();
-                        return;
-                    }
-
-                    Collections.shuffle(docs);
-                    int n = Math.min(sampleSize, docs.size());
-                    List<DocumentSnapshot> chosen = docs.subList(0, n);
+        new LotteryEngine(db).draw(eventId, sampleSize, LotteryEngine.newDrawId(), new LotteryEngine.DrawListener() {
+            @Override
+            public void onProgress(int notified, int total) { }
 
-                    WriteBatch batch = db.batch();
-                    for (DocumentSnapshot snap : chosen) {
-                        DocumentReference entrantRef = snap.getReference();
-                        batch.update(entrantRef,
-                                "status", "chosen",
-                                "winnerNotified", false);
-                    }
+            @Override
+            public void onComplete(int winners) {
+                if (cb != null) cb.onSuccess();
+            }
 
-                    batch.commit()
-                            .addOnSuccessListener(unused -> sendWinnerNotifications(eventId, cb))
-                            .addOnFailureListener(e -> {
-                                if (cb != null) cb.onError(e);
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    if (cb != null) cb.onError(e);
-                });
+            @Override
+            public void onError(Exception e) {
+                if (cb != null) cb.onError(e);
+            }
+        });
     }
 
     /**
      * Sends notifications to users who have been selected in the lottery.
+     * Draws now invite winners directly; this finishes entrants left in "chosen" by older
+     * versions of the app. Winners who turned notifications off are invited without one.
      *
      * @param eventId The ID of the event.
      * @param cb      Callback for completion.
@@ -232,33 +422,49 @@ public class FirestoreEventRepository {
                         return;
                     }
 
-                    WriteBatch batch = db.batch();
+                    List<String> userIds = new ArrayList<>();
                     for (DocumentSnapshot snap : querySnapshot.getDocuments()) {
                         String userId = snap.getString("userId");
-                        if (userId == null) continue;
-
-                        DocumentReference notifRef = db.collection("users")
-                                .document(userId)
-                                .collection("notifications")
-                                .document();
-
-                        java.util.Map<String, Object> notif = new java.util.HashMap<>();
-                        notif.put("eventId", eventId);
-                        notif.put("title", "You won the lottery!");
-                        notif.put("message", "You have been selected for this event.");
-                        notif.put("timestamp", FieldValue.serverTimestamp());
-                        notif.put("read", false);
-                        notif.put("type", "invitation");
-
-                        batch.set(notifRef, notif);
-
-                        DocumentReference entrantRef = snap.getReference();
-                        batch.update(entrantRef, "winnerNotified", true, "status", "invited");
+                        if (userId != null) userIds.add(userId);
                     }
 
-                    batch.commit()
-                            .addOnSuccessListener(unused -> { if (cb != null) cb.onSuccess(); })
-                            .addOnFailureListener(e -> { if (cb != null) cb.onError(e); });
+                    new FirestoreBatchFetcher(db).fetchProfiles(userIds, (profiles, failedIds, firstError) -> {
+                        if (!failedIds.isEmpty()) {
+                            // Nothing is written, so the next call retries every winner
+                            if (cb != null) cb.onError(firstError);
+                            return;
+                        }
+                        Set<String> optedIn = new HashSet<>(NotificationDispatcher.optedIn(profiles));
+
+                        List<Task<Void>> commits = new ArrayList<>();
+                        for (List<DocumentSnapshot> chunk
+                                : FirestoreBatchFetcher.chunk(querySnapshot.getDocuments(), LotteryEngine.CHUNK_SIZE)) {
+                            WriteBatch batch = db.batch();
+                            for (DocumentSnapshot snap : chunk) {
+                                String userId = snap.getString("userId");
+                                if (userId == null) continue;
+
+                                if (optedIn.contains(userId)) {
+                                    DocumentReference notifRef = db.collection("users")
+                                            .document(userId)
+                                            .collection("notifications")
+                                            .document();
+
+                                    batch.set(notifRef, new Notification("You won the lottery!",
+                                            "You have been selected for this event.", eventId, "invitation"));
+                                    NotificationInbox.countNew(batch, db, userId, 1);
+                                }
+
+                                DocumentReference entrantRef = snap.getReference();
+                                batch.update(entrantRef, "winnerNotified", true, "status", "invited");
+                            }
+                            commits.add(batch.commit());
+                        }
+
+                        Tasks.whenAll(commits)
+                                .addOnSuccessListener(unused -> { if (cb != null) cb.onSuccess(); })
+                                .addOnFailureListener(e -> { if (cb != null) cb.onError(e); });
+                    });
                 })
                 .addOnFailureListener(e -> { if (cb != null) cb.onError(e); });
     }
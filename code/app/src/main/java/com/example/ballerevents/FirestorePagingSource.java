@@ -0,0 +1,281 @@
+package com.example.ballerevents;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Loads an ordered Firestore query page by page using {@code startAfter} cursors, for lists
+ * that are too large to read with a single {@code get()}.
+ * <p>
+ * The source publishes a list snapshot after every change, ready for
+ * {@link androidx.recyclerview.widget.ListAdapter#submitList}. Items that are not in
+ * memory appear as {@code null} placeholder rows:
+ * <ul>
+ * <li>a few rows at the end while the next page loads;</li>
+ * <li>the rows of pages that were dropped to stay within {@code maxLoadedPages}.</li>
+ * </ul>
+ * A dropped page keeps its size and cursors, and is reloaded when it scrolls back into
+ * view, reading only the documents between its cursors. The next page is requested once the user scrolls within {@code prefetchDistance}
+ * rows of the end. Not thread-safe; Firestore callbacks arrive on the main thread.
+ * </p>
+ *
+ * @param <T> The model type.
+ */
+public class FirestorePagingSource<T> {
+
+    /** Documents requested per page. */
+    public static final int DEFAULT_PAGE_SIZE = 30;
+    /** Rows from the end at which the next page is requested. */
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+    /** Pages kept in memory; further pages are replaced by placeholders. */
+    public static final int DEFAULT_MAX_LOADED_PAGES = 6;
+    /** Placeholder rows shown at the end while the next page loads. */
+    static final int LOADING_PLACEHOLDERS = 3;
+
+    /**
+     * Receives list snapshots and load errors.
+     *
+     * @param <T> The model type.
+     */
+    public interface Listener<T> {
+        /**
+         * @param items       All rows, with null for placeholders.
+         * @param initialLoad True until the first page has arrived.
+         */
+        void onItemsChanged(List<T> items, boolean initialLoad);
+        void onError(Exception e);
+    }
+
+    private static class Page<T> {
+        @Nullable final DocumentSnapshot after;
+        @Nullable DocumentSnapshot last;
+        @Nullable List<T> items;
+        int size;
+        boolean reloading;
+
+        Page(@Nullable DocumentSnapshot after) {
+            this.after = after;
+        }
+    }
+
+    private final Query query;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int maxLoadedPages;
+    private final FirestoreBatchFetcher.DocumentMapper<T> mapper;
+    private final Listener<T> listener;
+
+    private final List<Page<T>> pages = new ArrayList<>();
+    private boolean appending = false;
+    private boolean endReached = false;
+    /** Incremented by {@link #refresh()} so that older responses are ignored. */
+    private int generation = 0;
+
+    public FirestorePagingSource(Query query, FirestoreBatchFetcher.DocumentMapper<T> mapper, Listener<T> listener) {
+        this(query, DEFAULT_PAGE_SIZE, DEFAULT_PREFETCH_DISTANCE, DEFAULT_MAX_LOADED_PAGES, mapper, listener);
+    }
+
+    /**
+     * @param query            An ordered query without limit or cursor.
+     * @param pageSize         Documents per page.
+     * @param prefetchDistance Rows from the end at which the next page is requested.
+     * @param maxLoadedPages   Pages kept in memory (at least 2).
+     * @param mapper           Converts documents to items.
+     * @param listener         Receives snapshots and errors.
+     */
+    public FirestorePagingSource(Query query, int pageSize, int prefetchDistance, int maxLoadedPages,
+                                 FirestoreBatchFetcher.DocumentMapper<T> mapper, Listener<T> listener) {
+        this.query = query;
+        this.pageSize = Math.max(1, pageSize);
+        this.prefetchDistance = Math.max(0, prefetchDistance);
+        this.maxLoadedPages = Math.max(2, maxLoadedPages);
+        this.mapper = mapper;
+        this.listener = listener;
+    }
+
+    /**
+     * Discards everything and loads the first page again.
+     */
+    public void refresh() {
+        generation++;
+        pages.clear();
+        appending = false;
+        endReached = false;
+        loadNextPage();
+    }
+
+    /**
+     * Tells the source which row is on screen: requests the next page when near the end and
+     * reloads dropped pages around the row.
+     *
+     * @param position An adapter position.
+     */
+    public void loadAround(int position) {
+        if (position >= rowCount() - prefetchDistance) loadNextPage();
+
+        int pageIndex = pageOf(position);
+        for (int i = pageIndex - 1; i <= pageIndex + 1; i++) {
+            if (i >= 0 && i < pages.size() && pages.get(i).items == null) reloadPage(i);
+        }
+    }
+
+    /**
+     * Removes loaded items, e.g. after they were deleted, without reloading.
+     *
+     * @param filter Matches the items to remove.
+     */
+    public void removeIf(Predicate<T> filter) {
+        boolean changed = false;
+        for (Page<T> page : pages) {
+            if (page.items != null && page.items.removeIf(filter)) {
+                page.size = page.items.size();
+                changed = true;
+            }
+        }
+        if (changed) publish();
+    }
+
+    /**
+     * @return A scroll listener that calls {@link #loadAround} for the visible rows.
+     */
+    public RecyclerView.OnScrollListener scrollListener(LinearLayoutManager layoutManager) {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int first = layoutManager.findFirstVisibleItemPosition();
+                int last = layoutManager.findLastVisibleItemPosition();
+                if (first == RecyclerView.NO_POSITION) return;
+                loadAround(first);
+                loadAround(last);
+            }
+        };
+    }
+
+    private void loadNextPage() {
+        if (appending || endReached) return;
+        appending = true;
+
+        Page<T> page = new Page<>(pages.isEmpty() ? null : pages.get(pages.size() - 1).last);
+        int requestGeneration = generation;
+        publish();
+
+        pageQuery(page.after).get()
+                .addOnSuccessListener(snap -> {
+                    if (requestGeneration != generation) return;
+                    appending = false;
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    if (docs.size() < pageSize) endReached = true;
+                    if (!docs.isEmpty()) {
+                        fill(page, docs);
+                        pages.add(page);
+                        trim(pages.size() - 1);
+                    }
+                    publish();
+                })
+                .addOnFailureListener(e -> {
+                    if (requestGeneration != generation) return;
+                    appending = false;
+                    publish();
+                    listener.onError(e);
+                });
+    }
+
+    private void reloadPage(int index) {
+        Page<T> page = pages.get(index);
+        if (page.reloading) return;
+        page.reloading = true;
+        int requestGeneration = generation;
+
+        // End at the stored cursor, so items removed from this page or documents added
+        // since are not pulled in from the next page.
+        Query reload = pageQuery(page.after);
+        if (page.last != null) reload = reload.endAt(page.last);
+        reload.get()
+                .addOnSuccessListener(snap -> {
+                    if (requestGeneration != generation) return;
+                    page.reloading = false;
+                    // Keep the stored cursor so the following pages stay where they are.
+                    DocumentSnapshot last = page.last;
+                    fill(page, snap.getDocuments());
+                    page.last = last;
+                    trim(index);
+                    publish();
+                })
+                .addOnFailureListener(e -> {
+                    if (requestGeneration != generation) return;
+                    page.reloading = false;
+                    listener.onError(e);
+                });
+    }
+
+    private Query pageQuery(@Nullable DocumentSnapshot after) {
+        Query q = after != null ? query.startAfter(after) : query;
+        return q.limit(pageSize);
+    }
+
+    private void fill(Page<T> page, List<DocumentSnapshot> docs) {
+        List<T> items = new ArrayList<>();
+        for (DocumentSnapshot doc : docs) {
+            T item = mapper.map(doc);
+            if (item != null) items.add(item);
+        }
+        page.items = items;
+        page.size = items.size();
+        page.last = docs.isEmpty() ? page.after : docs.get(docs.size() - 1);
+    }
+
+    /** Drops the loaded pages farthest from {@code focus} until the limit is met. */
+    private void trim(int focus) {
+        int loaded = 0;
+        for (Page<T> page : pages) if (page.items != null) loaded++;
+        while (loaded > maxLoadedPages) {
+            int farthest = -1;
+            for (int i = 0; i < pages.size(); i++) {
+                if (pages.get(i).items == null || i == focus) continue;
+                if (farthest < 0 || Math.abs(i - focus) > Math.abs(farthest - focus)) farthest = i;
+            }
+            if (farthest < 0) return;
+            pages.get(farthest).items = null;
+            loaded--;
+        }
+    }
+
+    private int rowCount() {
+        int count = 0;
+        for (Page<T> page : pages) count += page.size;
+        return count;
+    }
+
+    private int pageOf(int position) {
+        int start = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            start += pages.get(i).size;
+            if (position < start) return i;
+        }
+        return pages.size() - 1;
+    }
+
+    private void publish() {
+        List<T> rows = new ArrayList<>();
+        for (Page<T> page : pages) {
+            if (page.items != null) {
+                rows.addAll(page.items);
+            } else {
+                for (int i = 0; i < page.size; i++) rows.add(null);
+            }
+        }
+        if (appending) {
+            for (int i = 0; i < LOADING_PLACEHOLDERS; i++) rows.add(null);
+        }
+        listener.onItemsChanged(rows, pages.isEmpty() && appending);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.ballerevents;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shrinks picked images before they are uploaded.
+ *
+ * <p>The image is decoded with the largest power-of-two {@code inSampleSize} that still
+ * covers the target size, scaled to fit within the maximum dimensions of its {@link Spec},
+ * turned upright according to its EXIF orientation, and re-encoded at the spec's quality.
+ * Smaller {@link ImageVariants} are then scaled down from it in turn, each from the previous
+ * one. The re-encoded bytes carry no EXIF metadata, so camera details and GPS tags are dropped.
+ * Images are processed one at a time on a background thread to bound decode memory.</p>
+ */
+public final class ImageProcessor {
+
+    private static final String TAG = "ImageProcessor";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /** Variants below full size, largest first, so each is scaled from the one before. */
+    private static final ImageVariants.Variant[] SMALLER_VARIANTS = {
+            ImageVariants.Variant.MEDIUM, ImageVariants.Variant.THUMBNAIL
+    };
+
+    /**
+     * Output encodings. WebP keeps transparency; JPEG does not.
+     */
+    public enum Encoding {
+        WEBP("webp", "image/webp"),
+        JPEG("jpg", "image/jpeg");
+
+        /** File extension, without the dot. */
+        public final String extension;
+        public final String mimeType;
+
+        Encoding(String extension, String mimeType) {
+            this.extension = extension;
+            this.mimeType = mimeType;
+        }
+
+        @SuppressWarnings("deprecation")
+        Bitmap.CompressFormat format() {
+            if (this == JPEG) return Bitmap.CompressFormat.JPEG;
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                    ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+        }
+    }
+
+    /**
+     * Maximum size, encoding and quality for each kind of uploaded image.
+     */
+    public enum Spec {
+        /** Shown in small circles. */
+        PROFILE(512, 512, Encoding.WEBP, 80),
+        /** Portrait event poster, shown full-width on a phone. */
+        POSTER(1080, 1920, Encoding.WEBP, 80),
+        /** Landscape event banner. */
+        BANNER(1920, 1080, Encoding.WEBP, 80);
+
+        public final int maxWidth;
+        public final int maxHeight;
+        public final Encoding encoding;
+        /** Encoder quality, 0-100. */
+        public final int quality;
+
+        Spec(int maxWidth, int maxHeight, Encoding encoding, int quality) {
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.encoding = encoding;
+            this.quality = quality;
+        }
+    }
+
+    /**
+     * A processed image, ready to upload.
+     */
+    public static final class Result {
+        /** Encoded bytes of each variant. Always has {@link ImageVariants.Variant#FULL}. */
+        public final Map<ImageVariants.Variant, byte[]> variants;
+        public final Encoding encoding;
+
+        Result(Map<ImageVariants.Variant, byte[]> variants, Encoding encoding) {
+            this.variants = variants;
+            this.encoding = encoding;
+        }
+
+        /**
+         * @return The full-size image.
+         */
+        public byte[] bytes() {
+            return variants.get(ImageVariants.Variant.FULL);
+        }
+    }
+
+    /**
+     * Callback interface for {@link #process}. Runs on the main thread.
+     */
+    public interface Callback {
+        void onSuccess(Result result);
+
+        void onFailure(Exception e);
+    }
+
+    private ImageProcessor() {}
+
+    /**
+     * Processes an image on a background thread.
+     *
+     * @param context  Context used to read the image.
+     * @param imageUri The local URI of the image.
+     * @param spec     Target size and encoding.
+     * @param callback Receives the encoded image or the error.
+     */
+    public static void process(Context context, Uri imageUri, Spec spec, Callback callback) {
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        Handler main = new Handler(Looper.getMainLooper());
+        EXECUTOR.execute(() -> {
+            try {
+                Result result = processBlocking(resolver, imageUri, spec);
+                main.post(() -> callback.onSuccess(result));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to process image " + imageUri, e);
+                main.post(() -> callback.onFailure(e));
+            } catch (OutOfMemoryError e) {
+                Log.e(TAG, "Out of memory processing image " + imageUri, e);
+                main.post(() -> callback.onFailure(new IOException("Image too large to process", e)));
+            }
+        });
+    }
+
+    private static Result processBlocking(ContentResolver resolver, Uri imageUri, Spec spec) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, imageUri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not a readable image: " + imageUri);
+        }
+
+        // Fit the stored pixels into the spec as they will stand once turned upright
+        int orientation = readOrientation(resolver, imageUri);
+        boolean sideways = orientation == ExifInterface.ORIENTATION_ROTATE_90
+                || orientation == ExifInterface.ORIENTATION_ROTATE_270
+                || orientation == ExifInterface.ORIENTATION_TRANSPOSE
+                || orientation == ExifInterface.ORIENTATION_TRANSVERSE;
+        int maxWidth = sideways ? spec.maxHeight : spec.maxWidth;
+        int maxHeight = sideways ? spec.maxWidth : spec.maxHeight;
+
+        int[] target = scaledSize(bounds.outWidth, bounds.outHeight, maxWidth, maxHeight);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, target[0], target[1]);
+        Bitmap decoded;
+        try (InputStream in = open(resolver, imageUri)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) throw new IOException("Failed to decode image: " + imageUri);
+
+        Matrix matrix = new Matrix();
+        matrix.postScale(target[0] / (float) decoded.getWidth(), target[1] / (float) decoded.getHeight());
+        applyOrientation(matrix, orientation);
+        Bitmap upright = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), matrix, true);
+        if (upright != decoded) decoded.recycle();
+
+        Map<ImageVariants.Variant, byte[]> variants = new EnumMap<>(ImageVariants.Variant.class);
+        Bitmap source = upright;
+        try {
+            variants.put(ImageVariants.Variant.FULL, encode(upright, spec, imageUri));
+            for (ImageVariants.Variant variant : SMALLER_VARIANTS) {
+                int[] size = ImageVariants.scaledToShortEdge(source.getWidth(), source.getHeight(), variant.shortEdge);
+                if (size == null) continue;
+                Bitmap scaled = Bitmap.createScaledBitmap(source, size[0], size[1], true);
+                if (source != upright) source.recycle();
+                source = scaled;
+                variants.put(variant, encode(scaled, spec, imageUri));
+            }
+        } finally {
+            if (source != upright) source.recycle();
+            upright.recycle();
+        }
+        return new Result(variants, spec.encoding);
+    }
+
+    private static byte[] encode(Bitmap bitmap, Spec spec, Uri imageUri) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!bitmap.compress(spec.encoding.format(), spec.quality, out)) {
+            throw new IOException("Failed to encode image: " + imageUri);
+        }
+        return out.toByteArray();
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri imageUri) throws IOException {
+        InputStream in = resolver.openInputStream(imageUri);
+        if (in == null) throw new IOException("Failed to open image: " + imageUri);
+        return in;
+    }
+
+    /**
+     * @return The EXIF orientation, or {@link ExifInterface#ORIENTATION_NORMAL} if the image
+     * has none or it cannot be read.
+     */
+    private static int readOrientation(ContentResolver resolver, Uri imageUri) {
+        try (InputStream in = open(resolver, imageUri)) {
+            return new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read EXIF orientation of " + imageUri, e);
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static void applyOrientation(Matrix matrix, int orientation) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL: matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_180: matrix.postRotate(180); break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL: matrix.postScale(1, -1); break;
+            case ExifInterface.ORIENTATION_TRANSPOSE: matrix.postRotate(90); matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_90: matrix.postRotate(90); break;
+            case ExifInterface.ORIENTATION_TRANSVERSE: matrix.postRotate(-90); matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_ROTATE_270: matrix.postRotate(-90); break;
+            default: break;
+        }
+    }
+
+    /**
+     * Fits an image within maximum dimensions, keeping its aspect ratio. Images that already
+     * fit are not enlarged.
+     *
+     * @return The target {width, height}, each at least 1.
+     */
+    static int[] scaledSize(int width, int height, int maxWidth, int maxHeight) {
+        if (width <= maxWidth && height <= maxHeight) return new int[]{width, height};
+        double scale = Math.min(maxWidth / (double) width, maxHeight / (double) height);
+        return new int[]{
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+
+    /**
+     * @return The largest power of two that can divide the image while keeping it at least
+     * as large as the target size.
+     */
+    static int sampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sample = 1;
+        while (width / (sample * 2) >= targetWidth && height / (sample * 2) >= targetHeight) {
+            sample *= 2;
+        }
+        return sample;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.ballerevents;
 
+import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 
@@ -9,16 +10,21 @@ import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
-import com.google.firebase.storage.UploadTask;
 
-import java.util.UUID;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Helper class for uploading images to Firebase Storage.
  *
  * <p>This class provides a centralized interface for uploading profile pictures,
- * event posters, and event banners to Firebase Storage. Each uploaded image
- * receives a unique filename and is stored in an organized folder structure.</p>
+ * event posters, and event banners to Firebase Storage. Each image is first shrunk
+ * and re-encoded by {@link ImageProcessor} for its kind, then receives a unique
+ * filename and is stored in an organized folder structure. Uploads go through
+ * {@link ImageUploadManager}, so an interrupted upload resumes when retried.</p>
  */
 public class ImageUploadHelper {
 
@@ -37,9 +43,12 @@ public class ImageUploadHelper {
         /**
          * Called when the upload succeeds.
          *
-         * @param downloadUrl The public download URL for the uploaded image.
+         * @param downloadUrl The public download URL for the full-size image.
+         * @param variantUrls Download URLs keyed by every {@link ImageVariants.Variant#key},
+         *                    including the full-size one. Variants that were not needed
+         *                    share the URL of the next larger one.
          */
-        void onSuccess(String downloadUrl);
+        void onSuccess(String downloadUrl, Map<String, String> variantUrls);
 
         /**
          * Called when the upload fails.
@@ -52,87 +61,98 @@ public class ImageUploadHelper {
     /**
      * Uploads a profile picture to Firebase Storage.
      *
+     * @param context  Context used to read the image.
      * @param imageUri The local URI of the image to upload.
      * @param callback Callback to receive the download URL or error.
      */
-    public static void uploadProfileImage(Uri imageUri, UploadCallback callback) {
+    public static void uploadProfileImage(Context context, Uri imageUri, UploadCallback callback) {
         if (imageUri == null) {
             callback.onFailure(new IllegalArgumentException("Image URI cannot be null"));
             return;
         }
-        uploadImage(imageUri, PROFILE_IMAGES_PATH, callback);
+        uploadImage(context, imageUri, PROFILE_IMAGES_PATH, ImageProcessor.Spec.PROFILE, callback);
     }
 
     /**
      * Uploads an event poster to Firebase Storage.
      *
+     * @param context  Context used to read the image.
      * @param imageUri The local URI of the poster image to upload.
      * @param callback Callback to receive the download URL or error.
      */
-    public static void uploadEventPoster(Uri imageUri, UploadCallback callback) {
+    public static void uploadEventPoster(Context context, Uri imageUri, UploadCallback callback) {
         if (imageUri == null) {
             callback.onFailure(new IllegalArgumentException("Image URI cannot be null"));
             return;
         }
-        uploadImage(imageUri, EVENT_POSTERS_PATH, callback);
+        uploadImage(context, imageUri, EVENT_POSTERS_PATH, ImageProcessor.Spec.POSTER, callback);
     }
 
     /**
      * Uploads an event banner to Firebase Storage.
      *
+     * @param context  Context used to read the image.
      * @param imageUri The local URI of the banner image to upload.
      * @param callback Callback to receive the download URL or error.
      */
-    public static void uploadEventBanner(Uri imageUri, UploadCallback callback) {
+    public static void uploadEventBanner(Context context, Uri imageUri, UploadCallback callback) {
         if (imageUri == null) {
             callback.onFailure(new IllegalArgumentException("Image URI cannot be null"));
             return;
         }
-        uploadImage(imageUri, EVENT_BANNERS_PATH, callback);
+        uploadImage(context, imageUri, EVENT_BANNERS_PATH, ImageProcessor.Spec.BANNER, callback);
+    }
+
+    /**
+     * Builds the upload request for an event poster, for uploading it together with other
+     * images through {@link ImageUploadManager}.
+     *
+     * @param imageUri The local URI of the poster image.
+     */
+    static ImageUploadManager.Request eventPosterRequest(Uri imageUri) {
+        return new ImageUploadManager.Request(imageUri, ImageProcessor.Spec.POSTER, EVENT_POSTERS_PATH);
+    }
+
+    /**
+     * Builds the upload request for an event banner, for uploading it together with other
+     * images through {@link ImageUploadManager}.
+     *
+     * @param imageUri The local URI of the banner image.
+     */
+    static ImageUploadManager.Request eventBannerRequest(Uri imageUri) {
+        return new ImageUploadManager.Request(imageUri, ImageProcessor.Spec.BANNER, EVENT_BANNERS_PATH);
     }
 
     /**
      * Internal method that handles the actual upload to Firebase Storage.
      *
-     * <p>Generates a unique filename using UUID and uploads the image to the
-     * specified storage path. Once complete, retrieves the public download URL.</p>
+     * <p>Hands the image to {@link ImageUploadManager}, which processes it for its kind into
+     * its {@link ImageVariants}, stores every variant under a unique UUID filename in the
+     * specified storage path, and resumes the upload if an earlier attempt at the same image
+     * was interrupted.</p>
      *
+     * @param context     Context used to read the image.
      * @param imageUri    The local URI of the image.
      * @param storagePath The folder path in Firebase Storage.
+     * @param spec        Size and encoding for this kind of image.
      * @param callback    Callback to receive results.
      */
-    private static void uploadImage(Uri imageUri, String storagePath, UploadCallback callback) {
-        String filename = UUID.randomUUID().toString() + ".jpg";
-        StorageReference imageRef = storage.getReference().child(storagePath + filename);
-
-        imageRef.putFile(imageUri)
-                .addOnSuccessListener(new OnSuccessListener<UploadTask.TaskSnapshot>() {
-                    @Override
-                    public void onSuccess(UploadTask.TaskSnapshot taskSnapshot) {
-                        imageRef.getDownloadUrl()
-                                .addOnSuccessListener(new OnSuccessListener<Uri>() {
-                                    @Override
-                                    public void onSuccess(Uri downloadUri) {
-                                        Log.d(TAG, "Image uploaded successfully: " + downloadUri.toString());
-                                        callback.onSuccess(downloadUri.toString());
-                                    }
-                                })
-                                .addOnFailureListener(new OnFailureListener() {
-                                    @Override
-                                    public void onFailure(@NonNull Exception e) {
-                                        Log.e(TAG, "Failed to get download URL", e);
-                                        callback.onFailure(e);
-                                    }
-                                });
-                    }
-                })
-                .addOnFailureListener(new OnFailureListener() {
-                    @Override
-                    public void onFailure(@NonNull Exception e) {
-                        Log.e(TAG, "Image upload failed", e);
-                        callback.onFailure(e);
-                    }
-                });
+    private static void uploadImage(Context context, Uri imageUri, String storagePath,
+                                    ImageProcessor.Spec spec, UploadCallback callback) {
+        ImageUploadManager.Request request = new ImageUploadManager.Request(imageUri, spec, storagePath);
+        new ImageUploadManager(context).upload(Collections.singletonList(request), new ImageUploadManager.Listener() {
+            @Override
+            public void onComplete(List<ImageUploadManager.UploadedImage> images) {
+                ImageUploadManager.UploadedImage image = images.get(0);
+                callback.onSuccess(image.downloadUrl, image.variantUrls);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Image upload failed", e);
+                callback.onFailure(e);
+            }
+        });
     }
 
     /**
@@ -178,6 +198,19 @@ public class ImageUploadHelper {
         }
     }
 
+    /**
+     * Deletes the smaller variants of an image. The full-size image is left to
+     * {@link #deleteImage}, since its URL is also stored on its own.
+     *
+     * @param variantUrls Stored variant URLs by key (may be null for older images).
+     */
+    public static void deleteVariants(Map<String, String> variantUrls) {
+        if (variantUrls == null) return;
+        Set<String> smaller = new HashSet<>(variantUrls.values());
+        smaller.remove(variantUrls.get(ImageVariants.Variant.FULL.key));
+        for (String url : smaller) deleteImage(url, null);
+    }
+
     /**
      * Callback interface for image deletion operations.
      */
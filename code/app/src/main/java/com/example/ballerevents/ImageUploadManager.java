@@ -0,0 +1,451 @@
+package com.example.ballerevents;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Uploads images to Firebase Storage so that an interrupted upload continues where it stopped.
+ * <p>
+ * Each image is processed once by {@link ImageProcessor} and its variants are written to the
+ * cache directory. Every variant is uploaded through a Storage resumable session, which sends
+ * the file in chunks; the session URI is saved in {@link SharedPreferences} as soon as the
+ * session starts. A failed variant is retried with exponential backoff from the last
+ * confirmed chunk. Uploading the same image again, including after the process was killed,
+ * reuses the cached files, skips variants that already finished and resumes the others.
+ * </p>
+ * <p>
+ * Images given to one {@link #upload} call run in parallel and complete together: the
+ * listener hears once, after every image is stored, or on the first failure, which stops the
+ * others. Stopped uploads keep their sessions so that the next attempt resumes them.
+ * </p>
+ * All callbacks run on the main thread.
+ */
+public class ImageUploadManager {
+
+    private static final String TAG = "ImageUploadManager";
+
+    private static final String PREFS = "image_uploads";
+    private static final String CACHE_DIR = "image_uploads";
+    static final int MAX_ATTEMPTS = 4;
+    static final long RETRY_BASE_DELAY_MS = 1000;
+
+    /** Writes processed variants to the cache, one image at a time. */
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor();
+
+    /**
+     * One image to upload.
+     */
+    public static final class Request {
+        final Uri source;
+        final ImageProcessor.Spec spec;
+        final String storagePath;
+
+        /**
+         * @param source      The local URI of the image.
+         * @param spec        Size and encoding for this kind of image.
+         * @param storagePath The folder path in Firebase Storage, ending in a slash.
+         */
+        public Request(Uri source, ImageProcessor.Spec spec, String storagePath) {
+            this.source = source;
+            this.spec = spec;
+            this.storagePath = storagePath;
+        }
+    }
+
+    /**
+     * The download URLs of an uploaded image.
+     */
+    public static final class UploadedImage {
+        /** URL of the full-size variant. */
+        public final String downloadUrl;
+        /** URLs of every variant by {@link ImageVariants.Variant#key}, as completed by {@link ImageVariants#complete}. */
+        public final Map<String, String> variantUrls;
+
+        UploadedImage(String downloadUrl, Map<String, String> variantUrls) {
+            this.downloadUrl = downloadUrl;
+            this.variantUrls = variantUrls;
+        }
+    }
+
+    /**
+     * Receives the outcome of an {@link #upload} call. Exactly one method is called, unless
+     * the job is cancelled first.
+     */
+    public interface Listener {
+        /**
+         * @param images The uploaded images, in request order.
+         */
+        void onComplete(List<UploadedImage> images);
+
+        /**
+         * Called on the first image that fails after every retry. The other images are
+         * stopped; their progress is kept for the next attempt.
+         */
+        void onError(Exception e);
+    }
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final FirebaseStorage storage;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public ImageUploadManager(Context context) {
+        this(context, FirebaseStorage.getInstance());
+    }
+
+    public ImageUploadManager(Context context, FirebaseStorage storage) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.storage = storage;
+    }
+
+    /**
+     * Uploads images in parallel, resuming any earlier attempt at the same images.
+     *
+     * @param requests The images; may be empty.
+     * @param listener Receives the outcome.
+     * @return The job, for cancelling.
+     */
+    public Job upload(List<Request> requests, Listener listener) {
+        Job job = new Job(requests, listener);
+        job.start();
+        return job;
+    }
+
+    /**
+     * @return The key under which an image's progress is saved.
+     */
+    static String stateKey(ImageProcessor.Spec spec, String source) {
+        return spec.name() + "|" + source;
+    }
+
+    /**
+     * @return Backoff before the given retry (1-based attempt that failed).
+     */
+    static long retryDelayMs(int attempt) {
+        return RETRY_BASE_DELAY_MS << (attempt - 1);
+    }
+
+    /**
+     * @param httpResultCode HTTP status of a failed upload request.
+     * @return True if the resumable session no longer exists and a new one must be started.
+     */
+    static boolean isSessionGone(int httpResultCode) {
+        return httpResultCode == 404 || httpResultCode == 410;
+    }
+
+    /**
+     * The images of one {@link #upload} call.
+     */
+    public final class Job {
+        private final List<ImageUpload> uploads = new ArrayList<>();
+        private final Listener listener;
+        private final UploadedImage[] results;
+        private int remaining;
+        private boolean finished = false;
+        private boolean completed = false;
+
+        Job(List<Request> requests, Listener listener) {
+            for (Request request : requests) uploads.add(new ImageUpload(request, this));
+            this.listener = listener;
+            this.results = new UploadedImage[requests.size()];
+            this.remaining = requests.size();
+        }
+
+        void start() {
+            if (uploads.isEmpty()) {
+                finished = completed = true;
+                listener.onComplete(Collections.emptyList());
+                return;
+            }
+            for (ImageUpload upload : uploads) upload.start();
+        }
+
+        void onUploaded(ImageUpload upload, UploadedImage image) {
+            if (finished) return;
+            results[uploads.indexOf(upload)] = image;
+            if (--remaining == 0) {
+                finished = completed = true;
+                listener.onComplete(Arrays.asList(results));
+            }
+        }
+
+        void onFailed(Exception e) {
+            if (finished) return;
+            finished = true;
+            for (ImageUpload upload : uploads) upload.pause();
+            listener.onError(e);
+        }
+
+        /**
+         * Stops every image that has not finished. No listener method is called afterwards.
+         *
+         * @param discard False to keep the progress so that the same images resume next time
+         *                (e.g. on a configuration change); true to delete it, along with any
+         *                variants already stored, when the upload is abandoned.
+         */
+        public void cancel(boolean discard) {
+            if (completed) return;
+            finished = true;
+            for (ImageUpload upload : uploads) {
+                if (discard) upload.discard();
+                else upload.pause();
+            }
+        }
+    }
+
+    /**
+     * Uploads the variants of one image. Runs on the main thread, apart from cache writes.
+     */
+    private final class ImageUpload {
+        private final Request request;
+        private final Job job;
+        private final String key;
+        private final List<UploadTask> running = new ArrayList<>();
+        private final Map<ImageVariants.Variant, String> sessions = new HashMap<>();
+        private boolean stopped = false;
+        private int pending;
+
+        ImageUpload(Request request, Job job) {
+            this.request = request;
+            this.job = job;
+            this.key = stateKey(request.spec, request.source.toString());
+        }
+
+        void start() {
+            if (prefs.getString(key + "/base", null) != null) {
+                if (cachedFilesPresent()) {
+                    Log.d(TAG, "Resuming upload of " + request.source);
+                    uploadVariants();
+                    return;
+                }
+                clearState(true);
+            }
+            ImageProcessor.process(context, request.source, request.spec, new ImageProcessor.Callback() {
+                @Override
+                public void onSuccess(ImageProcessor.Result result) {
+                    if (!stopped) cache(result);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (!stopped) job.onFailed(e);
+                }
+            });
+        }
+
+        /** Writes the variants to the cache directory, then saves the upload's state. */
+        private void cache(ImageProcessor.Result result) {
+            String base = UUID.randomUUID().toString();
+            String extension = result.encoding.extension;
+            IO.execute(() -> {
+                try {
+                    for (Map.Entry<ImageVariants.Variant, byte[]> variant : result.variants.entrySet()) {
+                        try (OutputStream out = new FileOutputStream(file(base, variant.getKey(), extension))) {
+                            out.write(variant.getValue());
+                        }
+                    }
+                    handler.post(() -> {
+                        SharedPreferences.Editor editor = prefs.edit()
+                                .putString(key + "/base", base)
+                                .putString(key + "/ext", extension)
+                                .putString(key + "/mime", result.encoding.mimeType);
+                        StringBuilder names = new StringBuilder();
+                        for (ImageVariants.Variant variant : result.variants.keySet()) {
+                            if (names.length() > 0) names.append(',');
+                            names.append(variant.name());
+                        }
+                        editor.putString(key + "/variants", names.toString()).apply();
+                        if (!stopped) uploadVariants();
+                    });
+                } catch (IOException e) {
+                    handler.post(() -> {
+                        if (!stopped) job.onFailed(e);
+                    });
+                }
+            });
+        }
+
+        private void uploadVariants() {
+            pending = 0;
+            for (ImageVariants.Variant variant : variants()) {
+                if (prefs.getString(urlKey(variant), null) != null) continue;
+                pending++;
+                uploadVariant(variant, 1);
+            }
+            if (pending == 0) finish();
+        }
+
+        private void uploadVariant(ImageVariants.Variant variant, int attempt) {
+            String base = prefs.getString(key + "/base", null);
+            String extension = prefs.getString(key + "/ext", null);
+            String suffix = variant == ImageVariants.Variant.FULL ? "" : "_" + variant.key;
+            StorageReference ref = storage.getReference()
+                    .child(request.storagePath + base + suffix + "." + extension);
+            StorageMetadata metadata = new StorageMetadata.Builder()
+                    .setContentType(prefs.getString(key + "/mime", null))
+                    .build();
+            Uri file = Uri.fromFile(file(base, variant, extension));
+            String session = prefs.getString(sessionKey(variant), null);
+
+            UploadTask task = session != null
+                    ? ref.putFile(file, metadata, Uri.parse(session))
+                    : ref.putFile(file, metadata);
+            running.add(task);
+            task.addOnProgressListener(snapshot -> {
+                        Uri sessionUri = snapshot.getUploadSessionUri();
+                        if (sessionUri != null && !sessionUri.toString().equals(sessions.get(variant))) {
+                            sessions.put(variant, sessionUri.toString());
+                            prefs.edit().putString(sessionKey(variant), sessionUri.toString()).apply();
+                        }
+                    })
+                    .continueWithTask(t -> {
+                        if (!t.isSuccessful()) throw t.getException();
+                        return ref.getDownloadUrl();
+                    })
+                    .addOnSuccessListener(downloadUri -> {
+                        running.remove(task);
+                        if (stopped) return;
+                        prefs.edit()
+                                .putString(urlKey(variant), downloadUri.toString())
+                                .remove(sessionKey(variant))
+                                .apply();
+                        if (--pending == 0) finish();
+                    })
+                    .addOnFailureListener(e -> {
+                        running.remove(task);
+                        if (stopped) return;
+                        if (e instanceof StorageException
+                                && isSessionGone(((StorageException) e).getHttpResultCode())) {
+                            sessions.remove(variant);
+                            prefs.edit().remove(sessionKey(variant)).apply();
+                        }
+                        if (attempt >= MAX_ATTEMPTS) {
+                            Log.e(TAG, "Upload of " + request.source + " failed", e);
+                            job.onFailed(e);
+                            return;
+                        }
+                        long delay = retryDelayMs(attempt);
+                        Log.w(TAG, "Upload failed (attempt " + attempt + "), retrying in " + delay + " ms", e);
+                        handler.postDelayed(() -> {
+                            if (!stopped) uploadVariant(variant, attempt + 1);
+                        }, delay);
+                    });
+        }
+
+        private void finish() {
+            Map<String, String> urls = new HashMap<>();
+            for (ImageVariants.Variant variant : variants()) {
+                urls.put(variant.key, prefs.getString(urlKey(variant), null));
+            }
+            clearState(false);
+            String fullUrl = urls.get(ImageVariants.Variant.FULL.key);
+            Log.d(TAG, "Image uploaded successfully: " + fullUrl);
+            job.onUploaded(this, new UploadedImage(fullUrl, ImageVariants.complete(urls)));
+        }
+
+        /** Stops running variants; their sessions stay saved. */
+        void pause() {
+            stopped = true;
+            for (UploadTask task : new ArrayList<>(running)) task.cancel();
+            running.clear();
+        }
+
+        /** Stops and forgets the upload, deleting any variants already stored. */
+        void discard() {
+            pause();
+            clearState(true);
+        }
+
+        private boolean cachedFilesPresent() {
+            String base = prefs.getString(key + "/base", null);
+            String extension = prefs.getString(key + "/ext", null);
+            List<ImageVariants.Variant> variants = variants();
+            if (variants.isEmpty()) return false;
+            for (ImageVariants.Variant variant : variants) {
+                if (prefs.getString(urlKey(variant), null) == null
+                        && !file(base, variant, extension).exists()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private List<ImageVariants.Variant> variants() {
+            List<ImageVariants.Variant> variants = new ArrayList<>();
+            String names = prefs.getString(key + "/variants", "");
+            for (String name : names.split(",")) {
+                if (!name.isEmpty()) variants.add(ImageVariants.Variant.valueOf(name));
+            }
+            return variants;
+        }
+
+        /**
+         * Removes the saved state and cached files.
+         *
+         * @param deleteUploaded True to also delete variants already stored.
+         */
+        private void clearState(boolean deleteUploaded) {
+            String base = prefs.getString(key + "/base", null);
+            String extension = prefs.getString(key + "/ext", null);
+            List<ImageVariants.Variant> variants = variants();
+            SharedPreferences.Editor editor = prefs.edit();
+            for (String stored : prefs.getAll().keySet()) {
+                if (stored.startsWith(key + "/")) editor.remove(stored);
+            }
+            for (ImageVariants.Variant variant : variants) {
+                String url = prefs.getString(urlKey(variant), null);
+                if (deleteUploaded && url != null) ImageUploadHelper.deleteImage(url, null);
+            }
+            editor.apply();
+            sessions.clear();
+            if (base == null) return;
+            IO.execute(() -> {
+                for (ImageVariants.Variant variant : variants) {
+                    File file = file(base, variant, extension);
+                    if (file.exists() && !file.delete()) Log.w(TAG, "Could not delete " + file);
+                }
+            });
+        }
+
+        private String sessionKey(ImageVariants.Variant variant) {
+            return key + "/session/" + variant.name();
+        }
+
+        private String urlKey(ImageVariants.Variant variant) {
+            return key + "/url/" + variant.name();
+        }
+    }
+
+    private File file(String base, ImageVariants.Variant variant, @Nullable String extension) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        if (!dir.exists() && !dir.mkdirs()) Log.w(TAG, "Could not create " + dir);
+        return new File(dir, base + "_" + variant.key + "." + extension);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.ballerevents;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.ImageView;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sizes an uploaded image is stored in, and the choice of size for a view.
+ *
+ * <p>Each image is uploaded as a {@link Variant#FULL} variant and, when smaller than it,
+ * {@link Variant#MEDIUM} and {@link Variant#THUMBNAIL} variants whose shorter edge is capped.
+ * Their download URLs are stored next to the original URL field as a map from
+ * {@link Variant#key} to URL (e.g. {@code eventPosterVariants}); the original field keeps
+ * the full-size URL, so images uploaded before variants existed still load.</p>
+ */
+public final class ImageVariants {
+
+    /**
+     * A stored size. Variants are declared from smallest to largest.
+     */
+    public enum Variant {
+        /** List rows, avatars and small grid tiles. */
+        THUMBNAIL("thumb", 320),
+        /** Cards and carousels. */
+        MEDIUM("medium", 720),
+        /** The processed upload, as bounded by its {@link ImageProcessor.Spec}. */
+        FULL("full", Integer.MAX_VALUE);
+
+        /** Key in the stored map of variant URLs. */
+        public final String key;
+        /** Maximum length in pixels of the shorter edge. */
+        public final int shortEdge;
+
+        Variant(String key, int shortEdge) {
+            this.key = key;
+            this.shortEdge = shortEdge;
+        }
+    }
+
+    private ImageVariants() {}
+
+    /**
+     * Picks the URL to load into a view: the smallest stored variant that covers the view's
+     * size, or the full-size URL.
+     *
+     * @param view     The target view; its size is taken from its layout (see {@link #targetSize}).
+     * @param variants Stored variant URLs by key (may be null for older images).
+     * @param fullUrl  The original full-size URL field.
+     * @return The URL to load; may be null or empty if the image has none.
+     */
+    @Nullable
+    public static String forView(ImageView view, @Nullable Map<String, String> variants, @Nullable String fullUrl) {
+        int[] size = targetSize(view);
+        return pick(variants, fullUrl, size[0], size[1]);
+    }
+
+    /**
+     * Picks the smallest variant whose shorter edge is at least the longer side of the target,
+     * so it fills the target even when center-cropped.
+     *
+     * @param widthPx  Target width in pixels.
+     * @param heightPx Target height in pixels, or 0 if unknown.
+     */
+    @Nullable
+    static String pick(@Nullable Map<String, String> variants, @Nullable String fullUrl, int widthPx, int heightPx) {
+        if (variants != null) {
+            int needed = Math.max(widthPx, heightPx);
+            for (Variant variant : Variant.values()) {
+                String url = variants.get(variant.key);
+                if (url != null && !url.isEmpty() && variant.shortEdge >= needed) return url;
+            }
+        }
+        if (fullUrl != null && !fullUrl.isEmpty()) return fullUrl;
+        return variants != null ? variants.get(Variant.FULL.key) : null;
+    }
+
+    /**
+     * Fills in variants that were not generated because the image was already small enough,
+     * with the URL of the next larger variant. Every {@link Variant#key} is then present, so
+     * merging the map into an older one leaves no stale URLs behind.
+     *
+     * @param urls Uploaded variant URLs by key; must include {@link Variant#FULL}.
+     * @return A map with every variant key.
+     */
+    static Map<String, String> complete(Map<String, String> urls) {
+        Map<String, String> complete = new HashMap<>(urls);
+        Variant[] variants = Variant.values();
+        for (int i = variants.length - 2; i >= 0; i--) {
+            if (complete.get(variants[i].key) == null) {
+                complete.put(variants[i].key, complete.get(variants[i + 1].key));
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Size of a variant of an image, or null if the image is already no larger than it.
+     *
+     * @return The {width, height} with the shorter edge at {@code shortEdge}, or null.
+     */
+    @Nullable
+    static int[] scaledToShortEdge(int width, int height, int shortEdge) {
+        int shorter = Math.min(width, height);
+        if (shorter <= shortEdge) return null;
+        double scale = shortEdge / (double) shorter;
+        return new int[]{
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+
+    /**
+     * Estimates the pixel size a view will have. Views are often bound before layout, so the
+     * measured size is used only if available; otherwise fixed sizes are read from the layout
+     * parameters of the view or, for {@code match_parent}, its nearest fixed-size ancestor.
+     * An unknown width falls back to the screen width and an unknown height to 0.
+     */
+    private static int[] targetSize(View view) {
+        if (view.getWidth() > 0 && view.getHeight() > 0) {
+            return new int[]{view.getWidth(), view.getHeight()};
+        }
+        int width = layoutSize(view, true);
+        int height = layoutSize(view, false);
+        if (width <= 0) width = view.getResources().getDisplayMetrics().widthPixels;
+        return new int[]{width, Math.max(height, 0)};
+    }
+
+    private static int layoutSize(View view, boolean horizontal) {
+        View current = view;
+        while (current != null) {
+            ViewGroup.LayoutParams params = current.getLayoutParams();
+            if (params == null) return 0;
+            int size = horizontal ? params.width : params.height;
+            if (size != ViewGroup.LayoutParams.MATCH_PARENT) return size;
+            ViewParent parent = current.getParent();
+            current = parent instanceof View ? (View) parent : null;
+        }
+        return 0;
+    }
+}
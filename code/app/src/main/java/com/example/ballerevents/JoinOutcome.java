@@ -0,0 +1,36 @@
+package com.example.ballerevents;
+
+/**
+ * Result of asking to join an event's waiting list (see {@link EntrantRepository#join}).
+ * Only {@link #JOINED} changes anything.
+ */
+public enum JoinOutcome {
+    /** The user was added to the waiting list. */
+    JOINED,
+    /** The user was already an entrant; nothing changed. */
+    ALREADY_JOINED,
+    /** Registration has not opened yet. */
+    NOT_OPEN_YET,
+    /** Registration has closed. */
+    CLOSED,
+    /** The waiting list has reached {@code maxAttendees}. */
+    FULL;
+
+    /**
+     * Decides whether a user may join. A registration time of 0 means no limit on that side,
+     * and a {@code maxAttendees} of 0 or less means no capacity limit.
+     *
+     * @param event         The current event.
+     * @param alreadyJoined True if the user is already an entrant in any status.
+     * @param nowMillis     The current time.
+     * @return {@link #JOINED} if the join may proceed, otherwise the reason it may not.
+     */
+    public static JoinOutcome evaluate(Event event, boolean alreadyJoined, long nowMillis) {
+        if (alreadyJoined) return ALREADY_JOINED;
+        if (event.registrationOpenAtMillis() > nowMillis) return NOT_OPEN_YET;
+        long closeAt = event.registrationCloseAtMillis();
+        if (closeAt > 0 && closeAt <= nowMillis) return CLOSED;
+        if (event.getMaxAttendees() > 0 && event.getWaitlistCount() >= event.getMaxAttendees()) return FULL;
+        return JOINED;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ballerevents;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes one JSON object per line (JSON Lines), keyed by {@link ExportColumn#key}. Numbers
+ * are written as JSON numbers and missing values as {@code null}.
+ */
+final class JsonLinesExportWriter implements ExportWriter {
+
+    private final Writer out;
+    private final List<ExportColumn> columns;
+
+    JsonLinesExportWriter(Writer out, List<ExportColumn> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    @Override
+    public void begin() {
+        // JSON Lines has no header
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        out.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            writeString(columns.get(i).key);
+            out.write(':');
+            Object value = values[i];
+            if (value == null) {
+                out.write("null");
+            } else if (value instanceof Number) {
+                out.write(value.toString());
+            } else {
+                writeString(value.toString());
+            }
+        }
+        out.write("}\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                    else out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
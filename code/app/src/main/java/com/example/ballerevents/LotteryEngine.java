@@ -0,0 +1,630 @@
+package com.example.ballerevents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs lottery draws in two phases so that any waitlist size works and an interrupted draw
+ * can be finished later.
+ * <ol>
+ * <li><b>Draw.</b> A transaction picks the winners from the current waitlist with a seeded
+ * {@link LotterySampler} and stores the result and the seed in
+ * <code>events/{eventId}/draws/{drawId}</code>. The transaction does nothing if that
+ * document already exists, so retrying with the same draw ID never draws twice. Legacy
+ * ({@link Event#STORAGE_ARRAY}) events also move the winners within the same transaction,
+ * computed from the fresh event rather than a cached copy.</li>
+ * <li><b>Fan-out.</b> Winners and losers are notified in chunks of {@link #CHUNK_SIZE}, up to
+ * {@link #MAX_PARALLEL_CHUNKS} at a time, each retried up to {@link #MAX_ATTEMPTS} times.
+ * Every chunk records its completion on the draw document in the same commit (subcollection
+ * loser chunks instead skip entrants already notified), and notification IDs equal the draw
+ * ID, so re-running a chunk neither duplicates notifications nor recounts them as unread.
+ * {@link #resumePending} continues any draw left in {@link #STATE_NOTIFYING}.</li>
+ * </ol>
+ * For {@link Event#STORAGE_SUBCOLLECTION} events each winner chunk is a transaction that
+ * re-reads its entrants and only invites those still waiting, so concurrent cancellations
+ * are respected.
+ * <p>
+ * Every chunk also reads the recipients' user documents and skips the notification of
+ * users who turned notifications off (see {@link NotificationDispatcher#acceptsNotifications});
+ * winners among them are still invited.
+ * </p>
+ */
+public class LotteryEngine {
+
+    private static final String TAG = "LotteryEngine";
+
+    /** Draw recorded; notifications still being sent. */
+    public static final String STATE_NOTIFYING = "notifying";
+    /** Every winner and loser has been notified. */
+    public static final String STATE_COMPLETE = "complete";
+
+    /** Event field holding the time of the latest recorded draw. */
+    public static final String LAST_DRAW_FIELD = "lastDrawAtMillis";
+
+    /** Entrants per chunk: three writes each (status, notification, unread counter) stay below 500. */
+    static final int CHUNK_SIZE = 150;
+    static final int MAX_PARALLEL_CHUNKS = 3;
+    /** Waiting entrants read per page while sampling subcollection events. */
+    static final int SAMPLE_PAGE_SIZE = 500;
+    static final int MAX_ATTEMPTS = 4;
+    static final long RETRY_BASE_DELAY_MS = 500;
+
+    /**
+     * Receives the progress of a draw.
+     */
+    public interface DrawListener {
+        /**
+         * @param notified Entrants notified so far.
+         * @param total    Entrants to notify (winners and losers).
+         */
+        void onProgress(int notified, int total);
+
+        /**
+         * @param winners Number of winners in the draw.
+         */
+        void onComplete(int winners);
+
+        void onError(Exception e);
+    }
+
+    private final FirebaseFirestore db;
+    private final ShardedCounter shardedCounter;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public LotteryEngine() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public LotteryEngine(FirebaseFirestore db) {
+        this.db = db;
+        this.shardedCounter = new ShardedCounter(db);
+    }
+
+    /**
+     * @return A new, unique draw ID.
+     */
+    public static String newDrawId() {
+        return UUID.randomUUID().toString();
+    }
+
+    private DocumentReference eventRef(String eventId) {
+        return db.collection("events").document(eventId);
+    }
+
+    private DocumentReference drawRef(String eventId, String drawId) {
+        return eventRef(eventId).collection("draws").document(drawId);
+    }
+
+    private DocumentReference userRef(String userId) {
+        return db.collection("users").document(userId);
+    }
+
+    private DocumentReference notificationRef(String userId, String drawId) {
+        return db.collection("users").document(userId).collection("notifications").document(drawId);
+    }
+
+    /**
+     * Draws up to {@code spots} winners and notifies every entrant of the result.
+     *
+     * @param eventId  The event ID.
+     * @param spots    Number of winners to draw.
+     * @param drawId   Idempotency key from {@link #newDrawId()}; reuse it to retry the same draw.
+     * @param listener Receives progress and the outcome.
+     */
+    public void draw(String eventId, int spots, String drawId, DrawListener listener) {
+        draw(eventId, spots, drawId, true, listener);
+    }
+
+    /**
+     * Draws up to {@code spots} winners and notifies them, and optionally the losers.
+     *
+     * @param eventId      The event ID.
+     * @param spots        Number of winners to draw.
+     * @param drawId       Idempotency key; reuse it to retry the same draw.
+     * @param notifyLosers False to only notify the winners, e.g. for replacement draws.
+     * @param listener     Receives progress and the outcome.
+     */
+    public void draw(String eventId, int spots, String drawId, boolean notifyLosers, DrawListener listener) {
+        eventRef(eventId).get()
+                .addOnSuccessListener(snap -> {
+                    Event event = snap.toObject(Event.class);
+                    if (event == null) {
+                        listener.onError(new FirebaseFirestoreException("Event not found",
+                                FirebaseFirestoreException.Code.NOT_FOUND));
+                        return;
+                    }
+                    event.setId(snap.getId());
+                    long seed = new Random().nextLong();
+                    Task<Void> recorded = event.usesEntrantSubcollection()
+                            ? recordSubcollectionDraw(event, spots, drawId, seed, notifyLosers)
+                            : recordArrayDraw(event, spots, drawId, seed, notifyLosers);
+                    recorded.addOnSuccessListener(unused -> fanOut(eventId, drawId, listener))
+                            .addOnFailureListener(listener::onError);
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    /**
+     * Finishes the notifications of every draw of an event that was interrupted.
+     *
+     * @param eventId  The event ID.
+     * @param listener Receives progress; {@code onComplete} is called once per resumed draw.
+     */
+    public void resumePending(String eventId, DrawListener listener) {
+        eventRef(eventId).collection("draws")
+                .whereEqualTo("state", STATE_NOTIFYING)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    for (DocumentSnapshot doc : snap.getDocuments()) {
+                        fanOut(eventId, doc.getId(), listener);
+                    }
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    // --- Phase 1: draw ---
+
+    private Task<Void> recordArrayDraw(Event cached, int spots, String drawId, long seed, boolean notifyLosers) {
+        DocumentReference eventRef = eventRef(cached.getId());
+        DocumentReference drawRef = drawRef(cached.getId(), drawId);
+        return db.runTransaction(tx -> {
+            if (tx.get(drawRef).exists()) return null;
+
+            DocumentSnapshot eventSnap = tx.get(eventRef);
+            Event event = eventSnap.toObject(Event.class);
+            if (event == null) {
+                throw new FirebaseFirestoreException("Event not found", FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            if (event.usesEntrantSubcollection()) {
+                throw new FirebaseFirestoreException("Event was migrated during the draw",
+                        FirebaseFirestoreException.Code.ABORTED);
+            }
+
+            // A fresh sampler per attempt, so a retried transaction draws the same winners.
+            List<String> pool = FirestoreBatchFetcher.distinctIds(event.getWaitlistUserIds());
+            List<String> winners = new LotterySampler(seed).sample(pool, spots);
+            List<String> losers = notifyLosers ? LotterySampler.losers(pool, winners) : new ArrayList<>();
+
+            List<String> selected = new ArrayList<>(event.getSelectedUserIds() != null
+                    ? event.getSelectedUserIds() : Collections.emptyList());
+            selected.addAll(winners);
+            List<String> remaining = new ArrayList<>(event.getWaitlistUserIds());
+            remaining.removeAll(winners);
+
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("waitlistUserIds", remaining);
+            updates.put("waitlistCount", remaining.size());
+            updates.put("selectedUserIds", selected);
+            updates.put(LAST_DRAW_FIELD, System.currentTimeMillis());
+            for (String uid : winners) updates.put("invitationStatus." + uid, "pending");
+            tx.update(eventRef, updates);
+
+            Map<String, Object> record = drawRecord(drawId, event, spots, seed, winners, losers, losers.size());
+            record.put("notifyLosers", notifyLosers);
+            tx.set(drawRef, record);
+            return null;
+        });
+    }
+
+    /**
+     * Streams the waiting entrants in document ID order through a reservoir, so only the
+     * winners are held in memory, then records the draw.
+     */
+    private Task<Void> recordSubcollectionDraw(Event event, int spots, String drawId, long seed,
+                                               boolean notifyLosers) {
+        LotterySampler.Reservoir<String> reservoir = new LotterySampler(seed).reservoir(spots);
+        TaskCompletionSource<Void> sampled = new TaskCompletionSource<>();
+        streamWaiting(event.getId(), null, reservoir, sampled);
+
+        DocumentReference drawRef = drawRef(event.getId(), drawId);
+        return sampled.getTask().continueWithTask(unused -> {
+            List<String> winners = reservoir.result();
+            int loserCount = notifyLosers ? (int) (reservoir.seen() - winners.size()) : 0;
+            // Entrant statuses change chunk by chunk during the fan-out; losers are
+            // found again there by paging, so only their number is stored.
+            return db.runTransaction(tx -> {
+                if (tx.get(drawRef).exists()) return null;
+                Map<String, Object> record = drawRecord(drawId, event, spots, seed, winners, null, loserCount);
+                record.put("notifyLosers", notifyLosers);
+                tx.set(drawRef, record);
+                tx.update(eventRef(event.getId()), LAST_DRAW_FIELD, System.currentTimeMillis());
+                return null;
+            });
+        });
+    }
+
+    private void streamWaiting(String eventId, @Nullable String after,
+                               LotterySampler.Reservoir<String> reservoir, TaskCompletionSource<Void> done) {
+        Query page = new EntrantRepository(db).entrants(eventId)
+                .whereEqualTo("status", Entrant.STATUS_WAITING)
+                .orderBy(FieldPath.documentId());
+        if (after != null) page = page.startAfter(after);
+
+        page.limit(SAMPLE_PAGE_SIZE).get()
+                .addOnSuccessListener(snap -> {
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    for (DocumentSnapshot doc : docs) reservoir.offer(doc.getId());
+                    if (docs.size() < SAMPLE_PAGE_SIZE) {
+                        done.setResult(null);
+                    } else {
+                        streamWaiting(eventId, docs.get(docs.size() - 1).getId(), reservoir, done);
+                    }
+                })
+                .addOnFailureListener(done::setException);
+    }
+
+    private static Map<String, Object> drawRecord(String drawId, Event event, int spots, long seed,
+                                                  List<String> winners, @Nullable List<String> losers,
+                                                  int loserCount) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("drawId", drawId);
+        record.put("eventTitle", event.getTitle());
+        record.put("entrantStorage", event.usesEntrantSubcollection()
+                ? Event.STORAGE_SUBCOLLECTION : Event.STORAGE_ARRAY);
+        record.put("requestedSpots", spots);
+        record.put("seed", seed);
+        record.put("winnerIds", winners);
+        if (losers != null) record.put("loserIds", losers);
+        record.put("loserCount", loserCount);
+        record.put("drawnAtMillis", System.currentTimeMillis());
+        record.put("state", STATE_NOTIFYING);
+        record.put("completedWinnerChunks", new ArrayList<Long>());
+        record.put("completedLoserChunks", new ArrayList<Long>());
+        record.put("loserCursor", null);
+        record.put("notifiedCount", 0);
+        return record;
+    }
+
+    // --- Phase 2: fan-out ---
+
+    /** The stored state of one draw, read at the start of a fan-out. */
+    private static class DrawState {
+        String eventId;
+        String drawId;
+        String eventTitle;
+        boolean subcollection;
+        boolean notifyLosers;
+        List<String> winnerIds;
+        List<String> loserIds;
+        long drawnAtMillis;
+        Set<Long> completedWinnerChunks;
+        Set<Long> completedLoserChunks;
+        String loserCursor;
+        int notified;
+        int total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fanOut(String eventId, String drawId, DrawListener listener) {
+        drawRef(eventId, drawId).get()
+                .addOnSuccessListener(snap -> {
+                    if (!snap.exists()) {
+                        listener.onError(new FirebaseFirestoreException("Draw not found",
+                                FirebaseFirestoreException.Code.NOT_FOUND));
+                        return;
+                    }
+                    DrawState state = new DrawState();
+                    state.eventId = eventId;
+                    state.drawId = drawId;
+                    state.eventTitle = snap.getString("eventTitle");
+                    state.subcollection = Event.STORAGE_SUBCOLLECTION.equals(snap.getString("entrantStorage"));
+                    state.notifyLosers = !Boolean.FALSE.equals(snap.getBoolean("notifyLosers"));
+                    state.winnerIds = listOrEmpty((List<String>) snap.get("winnerIds"));
+                    state.loserIds = listOrEmpty((List<String>) snap.get("loserIds"));
+                    Long drawnAt = snap.getLong("drawnAtMillis");
+                    state.drawnAtMillis = drawnAt != null ? drawnAt : Long.MAX_VALUE;
+                    state.completedWinnerChunks = new HashSet<>(listOrEmpty((List<Long>) snap.get("completedWinnerChunks")));
+                    state.completedLoserChunks = new HashSet<>(listOrEmpty((List<Long>) snap.get("completedLoserChunks")));
+                    state.loserCursor = snap.getString("loserCursor");
+                    Long notified = snap.getLong("notifiedCount");
+                    Long loserCount = snap.getLong("loserCount");
+                    state.notified = notified != null ? notified.intValue() : 0;
+                    state.total = state.winnerIds.size() + (loserCount != null ? loserCount.intValue() : 0);
+
+                    if (STATE_COMPLETE.equals(snap.getString("state"))) {
+                        listener.onComplete(state.winnerIds.size());
+                        return;
+                    }
+                    listener.onProgress(state.notified, state.total);
+                    notifyWinners(state, listener);
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    private void notifyWinners(DrawState state, DrawListener listener) {
+        List<List<String>> chunks = FirestoreBatchFetcher.chunk(state.winnerIds, CHUNK_SIZE);
+        runChunks(chunks.size(),
+                i -> state.completedWinnerChunks.contains((long) i) ? null
+                        : (state.subcollection
+                        ? () -> inviteWinnerChunk(state, i, chunks.get(i))
+                        : () -> notifyChunk(state, i, chunks.get(i), true)),
+                i -> progress(state, chunks.get(i).size(), listener),
+                () -> notifyLosers(state, listener),
+                listener::onError);
+    }
+
+    private void notifyLosers(DrawState state, DrawListener listener) {
+        if (!state.notifyLosers) {
+            finish(state, listener);
+            return;
+        }
+        if (state.subcollection) {
+            notifyNextLoserPage(state, listener);
+            return;
+        }
+        List<List<String>> chunks = FirestoreBatchFetcher.chunk(state.loserIds, CHUNK_SIZE);
+        runChunks(chunks.size(),
+                i -> state.completedLoserChunks.contains((long) i) ? null
+                        : () -> notifyChunk(state, i, chunks.get(i), false),
+                i -> progress(state, chunks.get(i).size(), listener),
+                () -> finish(state, listener),
+                listener::onError);
+    }
+
+    /**
+     * Subcollection losers are still waiting after the winner chunks, so they are paged in
+     * document ID order and the cursor is stored with each page. A page interrupted before
+     * its cursor was stored is sent again on resume; {@link #notifyLoserChunk} skips the
+     * entrants it already notified.
+     */
+    private void notifyNextLoserPage(DrawState state, DrawListener listener) {
+        Query page = new EntrantRepository(db).entrants(state.eventId)
+                .whereEqualTo("status", Entrant.STATUS_WAITING)
+                .orderBy(FieldPath.documentId());
+        if (state.loserCursor != null) page = page.startAfter(state.loserCursor);
+
+        int pageSize = CHUNK_SIZE * MAX_PARALLEL_CHUNKS;
+        page.limit(pageSize).get()
+                .addOnSuccessListener(snap -> {
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    if (docs.isEmpty()) {
+                        finish(state, listener);
+                        return;
+                    }
+                    List<String> losers = new ArrayList<>();
+                    for (DocumentSnapshot doc : docs) {
+                        // Entrants who joined after the draw were not part of it
+                        Date joinedAt = doc.getDate("joinedAt");
+                        if (joinedAt == null || joinedAt.getTime() <= state.drawnAtMillis) losers.add(doc.getId());
+                    }
+                    String cursor = docs.get(docs.size() - 1).getId();
+                    boolean lastPage = docs.size() < pageSize;
+
+                    List<List<String>> chunks = FirestoreBatchFetcher.chunk(losers, CHUNK_SIZE);
+                    runChunks(chunks.size(),
+                            i -> () -> notifyLoserChunk(state, chunks.get(i)),
+                            i -> progress(state, chunks.get(i).size(), listener),
+                            () -> withRetry(() -> drawRef(state.eventId, state.drawId).update("loserCursor", cursor), 1,
+                                    () -> {
+                                        state.loserCursor = cursor;
+                                        if (lastPage) finish(state, listener);
+                                        else notifyNextLoserPage(state, listener);
+                                    },
+                                    listener::onError),
+                            listener::onError);
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    /**
+     * Moves one chunk of subcollection winners from waiting to invited and notifies them.
+     * Entrants who are no longer waiting are skipped.
+     */
+    private Task<Void> inviteWinnerChunk(DrawState state, int chunkIndex, List<String> userIds) {
+        DocumentReference drawRef = drawRef(state.eventId, state.drawId);
+        EntrantRepository entrants = new EntrantRepository(db);
+        return db.runTransaction(tx -> {
+            List<?> done = (List<?>) tx.get(drawRef).get("completedWinnerChunks");
+            if (done != null && done.contains((long) chunkIndex)) return null;
+
+            List<DocumentSnapshot> snaps = new ArrayList<>();
+            Set<String> optedIn = new HashSet<>();
+            for (String uid : userIds) {
+                snaps.add(tx.get(entrants.entrants(state.eventId).document(uid)));
+                if (NotificationDispatcher.acceptsNotifications(tx.get(userRef(uid)))) optedIn.add(uid);
+            }
+
+            int invited = 0;
+            for (DocumentSnapshot snap : snaps) {
+                if (!snap.exists() || !Entrant.STATUS_WAITING.equals(snap.getString("status"))) continue;
+                tx.update(snap.getReference(), "status", Entrant.STATUS_INVITED, "winnerNotified", true);
+                if (optedIn.contains(snap.getId())) {
+                    tx.set(notificationRef(snap.getId(), state.drawId), winnerNotification(state));
+                    NotificationInbox.countNew(tx, db, snap.getId(), 1);
+                }
+                invited++;
+            }
+            if (invited > 0) {
+                shardedCounter.increment(tx, state.eventId, ShardedCounter.WAITLIST, -invited);
+                shardedCounter.increment(tx, state.eventId, ShardedCounter.SELECTED, invited);
+            }
+            tx.update(drawRef,
+                    "completedWinnerChunks", FieldValue.arrayUnion((long) chunkIndex),
+                    "notifiedCount", FieldValue.increment(userIds.size()));
+            return null;
+        });
+    }
+
+    /**
+     * Notifies one chunk of subcollection losers that have no notification for this draw yet.
+     * Loser pages are found again by query rather than stored, so their chunks cannot be
+     * recorded by index; checking each notification instead keeps a resumed page from
+     * counting the same notification twice in the unread counter. Users who opted out are
+     * not notified.
+     */
+    private Task<Void> notifyLoserChunk(DrawState state, List<String> userIds) {
+        DocumentReference drawRef = drawRef(state.eventId, state.drawId);
+        return db.runTransaction(tx -> {
+            List<String> pending = new ArrayList<>();
+            for (String uid : userIds) {
+                if (!tx.get(notificationRef(uid, state.drawId)).exists()
+                        && NotificationDispatcher.acceptsNotifications(tx.get(userRef(uid)))) {
+                    pending.add(uid);
+                }
+            }
+            for (String uid : pending) {
+                tx.set(notificationRef(uid, state.drawId), loserNotification(state));
+                NotificationInbox.countNew(tx, db, uid, 1);
+            }
+            if (!pending.isEmpty()) tx.update(drawRef, "notifiedCount", FieldValue.increment(pending.size()));
+            return null;
+        });
+    }
+
+    /**
+     * Writes one chunk of notifications to the users who accept them and records the chunk
+     * index on the draw. A transaction, so the opt-outs are read with the chunk and a chunk
+     * already recorded is not written again.
+     */
+    private Task<Void> notifyChunk(DrawState state, int chunkIndex, List<String> userIds, boolean winners) {
+        DocumentReference drawRef = drawRef(state.eventId, state.drawId);
+        String chunksField = winners ? "completedWinnerChunks" : "completedLoserChunks";
+        return db.runTransaction(tx -> {
+            List<?> done = (List<?>) tx.get(drawRef).get(chunksField);
+            if (done != null && done.contains((long) chunkIndex)) return null;
+
+            List<String> targets = new ArrayList<>();
+            for (String uid : userIds) {
+                if (NotificationDispatcher.acceptsNotifications(tx.get(userRef(uid)))) targets.add(uid);
+            }
+            for (String uid : targets) {
+                tx.set(notificationRef(uid, state.drawId),
+                        winners ? winnerNotification(state) : loserNotification(state));
+                NotificationInbox.countNew(tx, db, uid, 1);
+            }
+            tx.update(drawRef,
+                    "notifiedCount", FieldValue.increment(userIds.size()),
+                    chunksField, FieldValue.arrayUnion((long) chunkIndex));
+            return null;
+        });
+    }
+
+    private void finish(DrawState state, DrawListener listener) {
+        withRetry(() -> drawRef(state.eventId, state.drawId).update("state", STATE_COMPLETE), 1,
+                () -> {
+                    if (state.subcollection) shardedCounter.rollUp(state.eventId, null);
+                    listener.onComplete(state.winnerIds.size());
+                },
+                listener::onError);
+    }
+
+    private static void progress(DrawState state, int count, DrawListener listener) {
+        state.notified = Math.min(state.total, state.notified + count);
+        listener.onProgress(state.notified, state.total);
+    }
+
+    private static Notification winnerNotification(DrawState state) {
+        return new Notification(
+                "You Won the Lottery! 🎉",
+                "You have been selected for " + state.eventTitle + ". Please accept or decline your invitation.",
+                state.eventId,
+                "invitation");
+    }
+
+    private static Notification loserNotification(DrawState state) {
+        return new Notification(
+                "Lottery Update",
+                "You were not selected in the recent draw for " + state.eventTitle + ". You remain on the waitlist for future chances.",
+                state.eventId,
+                "info");
+    }
+
+    // --- Chunk scheduling ---
+
+    /**
+     * Runs {@code count} chunks with at most {@link #MAX_PARALLEL_CHUNKS} in flight.
+     *
+     * @param count      Number of chunks.
+     * @param task       Creates the write for chunk {@code i}, or returns null if it is already done.
+     * @param onChunk    Called after each chunk succeeds.
+     * @param onDone     Called once every chunk has succeeded.
+     * @param onError    Called once, with the first error that exhausted its retries.
+     */
+    private void runChunks(int count, IntFunction<Supplier<Task<Void>>> task,
+                           IntConsumer onChunk, Runnable onDone,
+                           Consumer<Exception> onError) {
+        int[] next = {0};
+        int[] remaining = {count};
+        boolean[] failed = {false};
+        if (count == 0) {
+            onDone.run();
+            return;
+        }
+
+        Runnable[] launch = new Runnable[1];
+        launch[0] = () -> {
+            while (!failed[0] && next[0] < count) {
+                int i = next[0]++;
+                Supplier<Task<Void>> op = task.apply(i);
+                if (op == null) {
+                    if (--remaining[0] == 0) onDone.run();
+                    continue;
+                }
+                withRetry(op, 1,
+                        () -> {
+                            onChunk.accept(i);
+                            if (--remaining[0] == 0) onDone.run();
+                            else launch[0].run();
+                        },
+                        e -> {
+                            if (failed[0]) return;
+                            failed[0] = true;
+                            onError.accept(e);
+                        });
+                if (inFlight(count, next[0], remaining[0]) >= MAX_PARALLEL_CHUNKS) return;
+            }
+        };
+        launch[0].run();
+    }
+
+    private static int inFlight(int count, int started, int remaining) {
+        return remaining - (count - started);
+    }
+
+    private void withRetry(Supplier<Task<Void>> op, int attempt, Runnable onSuccess,
+                           Consumer<Exception> onError) {
+        op.get()
+                .addOnSuccessListener(unused -> onSuccess.run())
+                .addOnFailureListener(e -> {
+                    if (attempt >= MAX_ATTEMPTS) {
+                        onError.accept(e);
+                        return;
+                    }
+                    long delay = RETRY_BASE_DELAY_MS << (attempt - 1);
+                    Log.w(TAG, "Lottery write failed (attempt " + attempt + "), retrying in " + delay + " ms", e);
+                    handler.postDelayed(() -> withRetry(op, attempt + 1, onSuccess, onError), delay);
+                });
+    }
+
+    private static <E> List<E> listOrEmpty(@Nullable List<E> list) {
+        return list != null ? list : new ArrayList<>();
+    }
+}
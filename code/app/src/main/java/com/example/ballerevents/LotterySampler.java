@@ -0,0 +1,202 @@
+package com.example.ballerevents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Draws lottery winners from a pool of entrants. Pure Java, so it can be tested on the JVM.
+ * <p>
+ * A sampler created with a seed is reproducible: the same seed and the same pool, in the
+ * same order, always give the same winners. {@link LotteryEngine} stores the seed of every
+ * draw so that a draw can be audited later.
+ * </p>
+ * <ul>
+ * <li>{@link #sample}: uniform, without replacement, for a pool held in memory.</li>
+ * <li>{@link #reservoir}: uniform, for a pool read page by page; keeps only {@code k} items.</li>
+ * <li>{@link #sampleWeighted}: each entrant's chance is proportional to a weight.</li>
+ * <li>{@link #samplePriority}: higher tiers win first, uniformly within a tier.</li>
+ * </ul>
+ * Not thread-safe.
+ */
+public class LotterySampler {
+
+    private final Random random;
+
+    /**
+     * Creates an unseeded sampler.
+     */
+    public LotterySampler() {
+        this.random = new Random();
+    }
+
+    /**
+     * @param seed The seed; equal seeds give equal draws.
+     */
+    public LotterySampler(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Picks up to {@code k} distinct items uniformly at random. Runs a partial Fisher-Yates
+     * shuffle, so the cost is O(n) to copy the pool plus O(k) swaps.
+     *
+     * @param pool The candidates; not modified.
+     * @param k    The number of winners.
+     * @return The winners in the order they were drawn.
+     */
+    public <T> List<T> sample(List<T> pool, int k) {
+        List<T> items = new ArrayList<>(pool);
+        int n = Math.min(Math.max(0, k), items.size());
+        for (int i = 0; i < n; i++) {
+            Collections.swap(items, i, i + random.nextInt(items.size() - i));
+        }
+        return new ArrayList<>(items.subList(0, n));
+    }
+
+    /**
+     * @param k The number of winners.
+     * @return An empty reservoir that draws from this sampler's random sequence.
+     */
+    public <T> Reservoir<T> reservoir(int k) {
+        return new Reservoir<>(k, random);
+    }
+
+    /**
+     * Picks up to {@code k} distinct items, where each draw favours items in proportion to
+     * their weight (Efraimidis-Spirakis: keep the {@code k} largest keys {@code u^(1/w)}).
+     * Items with a weight of zero or less are never drawn.
+     *
+     * @param pool   The candidates; not modified.
+     * @param weight The weight of an item.
+     * @param k      The number of winners.
+     * @return The winners, highest key first.
+     */
+    public <T> List<T> sampleWeighted(List<T> pool, ToDoubleFunction<T> weight, int k) {
+        int n = Math.max(0, k);
+        if (n == 0) return new ArrayList<>();
+
+        // Min-heap on the key, so the smallest of the k best is evicted first.
+        PriorityQueue<Keyed<T>> heap = new PriorityQueue<>(n, (a, b) -> Double.compare(a.key, b.key));
+        for (T item : pool) {
+            double w = weight.applyAsDouble(item);
+            if (!(w > 0)) continue;
+            // log(u) / w orders items like u^(1/w) without underflow for large weights.
+            double key = Math.log(1.0 - random.nextDouble()) / w;
+            if (heap.size() < n) {
+                heap.add(new Keyed<>(item, key));
+            } else if (key > heap.peek().key) {
+                heap.poll();
+                heap.add(new Keyed<>(item, key));
+            }
+        }
+
+        List<T> winners = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) winners.add(heap.poll().item);
+        Collections.reverse(winners);
+        return winners;
+    }
+
+    /**
+     * Picks up to {@code k} distinct items, filling the spots from the highest priority tier
+     * down. The tier that only partly fits is sampled uniformly.
+     *
+     * @param pool     The candidates; not modified.
+     * @param priority The tier of an item; higher wins first.
+     * @param k        The number of winners.
+     * @return The winners, highest tier first.
+     */
+    public <T> List<T> samplePriority(List<T> pool, ToIntFunction<T> priority, int k) {
+        List<T> sorted = new ArrayList<>(pool);
+        // Stable sort keeps the pool order within a tier, so seeded draws stay reproducible.
+        sorted.sort((a, b) -> Integer.compare(priority.applyAsInt(b), priority.applyAsInt(a)));
+
+        int n = Math.min(Math.max(0, k), sorted.size());
+        List<T> winners = new ArrayList<>(n);
+        int start = 0;
+        while (winners.size() < n) {
+            int tier = priority.applyAsInt(sorted.get(start));
+            int end = start;
+            while (end < sorted.size() && priority.applyAsInt(sorted.get(end)) == tier) end++;
+            winners.addAll(sample(sorted.subList(start, end), n - winners.size()));
+            start = end;
+        }
+        return winners;
+    }
+
+    /**
+     * @param pool    The candidates.
+     * @param winners Items drawn from {@code pool}.
+     * @return The items of {@code pool} that are not winners, in pool order.
+     */
+    public static <T> List<T> losers(List<T> pool, List<T> winners) {
+        Set<T> won = new HashSet<>(winners);
+        List<T> losers = new ArrayList<>(Math.max(0, pool.size() - won.size()));
+        for (T item : pool) {
+            if (!won.contains(item)) losers.add(item);
+        }
+        return losers;
+    }
+
+    /**
+     * Uniform sample of a stream of unknown length (Algorithm R). Holds at most {@code k}
+     * items, so a waitlist can be read page by page without keeping it in memory.
+     *
+     * @param <T> The item type.
+     */
+    public static class Reservoir<T> {
+        private final int k;
+        private final Random random;
+        private final List<T> items;
+        private long seen = 0;
+
+        Reservoir(int k, Random random) {
+            this.k = Math.max(0, k);
+            this.random = random;
+            this.items = new ArrayList<>(Math.min(this.k, 1024));
+        }
+
+        /**
+         * @param item The next item of the stream.
+         */
+        public void offer(T item) {
+            seen++;
+            if (items.size() < k) {
+                items.add(item);
+                return;
+            }
+            long j = (long) (random.nextDouble() * seen);
+            if (j < k) items.set((int) j, item);
+        }
+
+        /**
+         * @return The number of items offered so far.
+         */
+        public long seen() {
+            return seen;
+        }
+
+        /**
+         * @return The current sample, up to {@code k} items.
+         */
+        public List<T> result() {
+            return new ArrayList<>(items);
+        }
+    }
+
+    private static final class Keyed<T> {
+        final T item;
+        final double key;
+
+        Keyed(T item, double key) {
+            this.item = item;
+            this.key = key;
+        }
+    }
+}
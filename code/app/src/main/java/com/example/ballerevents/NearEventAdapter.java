@@ -94,7 +94,7 @@ public class NearEventAdapter extends ListAdapter<Event, NearEventAdapter.EventV
 
             // Load image via Glide with placeholder/error fallbacks
             Glide.with(binding.getRoot().getContext())
-                    .load(event.getEventPosterUrl())
+                    .load(ImageVariants.forView(binding.ivEventImage, event.getEventPosterVariants(), event.getEventPosterUrl()))
                     .placeholder(R.drawable.placeholder_image)
                     .error(R.drawable.placeholder_image)
                     .into(binding.ivEventImage);
@@ -1,6 +1,7 @@
 package com.example.ballerevents;
 
 import com.google.firebase.firestore.DocumentId;
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.ServerTimestamp;
 import java.util.Date;
 
@@ -10,6 +11,13 @@ import java.util.Date;
  * This class maps directly to documents stored in:
  * <code>users/{userId}/notifications/{notificationId}</code>
  * </p>
+ * <p>
+ * Event broadcasts (<code>events/{eventId}/broadcasts/{broadcastId}</code>, see
+ * {@link BroadcastRepository}) are read into the same model with {@link #isBroadcast()} set;
+ * their read state comes from the user's read cursor instead of a stored field.
+ * Entries read back from the archive (see {@link NotificationArchiver}) have
+ * {@link #isArchived()} set and are read-only.
+ * </p>
  */
 public class Notification {
 
@@ -21,6 +29,10 @@ public class Notification {
     private String type;
     private String senderId;
     private boolean isRead;
+    @Exclude
+    private boolean broadcast;
+    @Exclude
+    private boolean archived;
 
     @ServerTimestamp
     private Date timestamp;
@@ -59,6 +71,17 @@ public class Notification {
 
     public boolean isRead() { return isRead; }
     public Date getTimestamp() { return timestamp; }
+    public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
 
     public void setRead(boolean read) { isRead = read; }
+
+    @Exclude
+    public boolean isBroadcast() { return broadcast; }
+    @Exclude
+    public void setBroadcast(boolean broadcast) { this.broadcast = broadcast; }
+
+    @Exclude
+    public boolean isArchived() { return archived; }
+    @Exclude
+    public void setArchived(boolean archived) { this.archived = archived; }
 }
\ No newline at end of file
@@ -0,0 +1,400 @@
+package com.example.ballerevents;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Moves a user's old notifications into compact monthly digests, so their inbox (and the
+ * {@code notifications} collection group) stops growing with account age.
+ * <p>
+ * Notifications older than the retention age are read oldest first, one page of
+ * {@link #PAGE_SIZE} at a time. Each page is written in one transaction: its entries are
+ * appended to <code>users/{uid}/notificationArchive/{yyyy-MM-pp}</code>, the originals are
+ * deleted, and the unread counter (see {@link NotificationInbox}) drops by the unread ones
+ * archived, never below zero. Each notification is read again inside the transaction, so
+ * one deleted or marked read since the page was queried is counted as it is now. Each digest tracks the estimated size of its entries (see {@link #entrySize}), and
+ * a month whose digest would grow past {@link #MAX_DIGEST_BYTES} continues in the next part,
+ * leaving room below Firestore's 1 MiB document limit. Titles and messages are cut to
+ * {@link #MAX_TEXT_CHARS} when archived, so a single entry always fits. The current part of
+ * each month is kept in {@link #PARTS_FIELD} of the inbox state document.
+ * </p>
+ * <p>
+ * {@link #runIfDue} runs the job at most once per {@link #RUN_INTERVAL_MS}.
+ * {@link #loadOlderDigest} reads archived entries back one digest at a time, newest first.
+ * </p>
+ */
+public class NotificationArchiver {
+
+    private static final String TAG = "NotificationArchiver";
+
+    public static final String ARCHIVE = "notificationArchive";
+    /** Default age after which notifications are archived. */
+    public static final long DEFAULT_RETENTION_MS = 90L * 24 * 60 * 60 * 1000;
+    /** Shortest time between two runs for the same user. */
+    static final long RUN_INTERVAL_MS = 24L * 60 * 60 * 1000;
+    /** Notifications archived per transaction, leaving room for digest and state writes. */
+    static final int PAGE_SIZE = 400;
+    /** Pages archived per run; the rest waits for the next run. */
+    static final int MAX_PAGES_PER_RUN = 10;
+    /** Estimated size of the entries in one digest document. */
+    static final long MAX_DIGEST_BYTES = 768 * 1024;
+    /** Longest title or message kept in an archived entry. */
+    static final int MAX_TEXT_CHARS = 2000;
+    /** Inbox state field mapping each month to its current digest part. */
+    static final String PARTS_FIELD = "archiveParts";
+    /** Inbox state field with the time of the last run. */
+    static final String LAST_RUN_FIELD = "archivedAtMillis";
+
+    private final FirebaseFirestore db;
+    private final String uid;
+    private final long retentionMillis;
+    private final CollectionReference archive;
+    /** Last digest returned by {@link #loadOlderDigest}. */
+    @Nullable private DocumentSnapshot digestCursor;
+    private boolean hasMoreDigests = true;
+
+    public NotificationArchiver(FirebaseFirestore db, String uid) {
+        this(db, uid, DEFAULT_RETENTION_MS);
+    }
+
+    /**
+     * @param db              Firestore instance.
+     * @param uid             The user whose notifications are archived.
+     * @param retentionMillis Age after which a notification is archived.
+     */
+    public NotificationArchiver(FirebaseFirestore db, String uid, long retentionMillis) {
+        this.db = db;
+        this.uid = uid;
+        this.retentionMillis = retentionMillis;
+        this.archive = db.collection("users").document(uid).collection(ARCHIVE);
+    }
+
+    /**
+     * Runs the job unless it already ran within {@link #RUN_INTERVAL_MS}.
+     *
+     * @param cb Callback for completion (optional); receives the number of notifications archived.
+     */
+    public void runIfDue(@Nullable FirestoreEventRepository.ItemCallback<Integer> cb) {
+        DocumentReference stateRef = NotificationInbox.stateRef(db, uid);
+        long now = System.currentTimeMillis();
+        stateRef.get()
+                .addOnSuccessListener(snap -> {
+                    Long lastRun = snap.getLong(LAST_RUN_FIELD);
+                    if (lastRun != null && now - lastRun < RUN_INTERVAL_MS) {
+                        if (cb != null) cb.onSuccess(0);
+                        return;
+                    }
+                    stateRef.set(Collections.singletonMap(LAST_RUN_FIELD, now), SetOptions.merge());
+                    run(new Date(now - retentionMillis), 0, 0, cb);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Could not read inbox state", e);
+                    if (cb != null) cb.onError(e);
+                });
+    }
+
+    private void run(Date cutoff, int page, int archived,
+                     @Nullable FirestoreEventRepository.ItemCallback<Integer> cb) {
+        if (page >= MAX_PAGES_PER_RUN) {
+            if (cb != null) cb.onSuccess(archived);
+            return;
+        }
+        db.collection("users").document(uid).collection("notifications")
+                .whereLessThan("timestamp", cutoff)
+                .orderBy("timestamp")
+                .limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    if (docs.isEmpty()) {
+                        if (cb != null) cb.onSuccess(archived);
+                        return;
+                    }
+                    archivePage(docs)
+                            .addOnSuccessListener(moved -> {
+                                if (docs.size() < PAGE_SIZE) {
+                                    if (cb != null) cb.onSuccess(archived + moved);
+                                } else {
+                                    run(cutoff, page + 1, archived + moved, cb);
+                                }
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.w(TAG, "Archiving failed after " + archived + " notifications", e);
+                                if (cb != null) cb.onError(e);
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    if (cb != null) cb.onError(e);
+                });
+    }
+
+    /**
+     * Appends one page to the digests and deletes the originals in a single transaction.
+     * Entries are appended with arrayUnion, so an entry written twice is stored once.
+     * Notifications deleted since the page was queried are skipped.
+     *
+     * @return A task with the number of notifications archived.
+     */
+    private Task<Integer> archivePage(List<DocumentSnapshot> docs) {
+        DocumentReference stateRef = NotificationInbox.stateRef(db, uid);
+
+        return db.runTransaction(tx -> {
+            Map<String, List<DocumentSnapshot>> byMonth = new LinkedHashMap<>();
+            int found = 0;
+            for (DocumentSnapshot queried : docs) {
+                DocumentSnapshot doc = tx.get(queried.getReference());
+                if (!doc.exists()) continue;
+                Date timestamp = doc.getDate("timestamp");
+                String month = monthKey(timestamp != null ? timestamp.getTime() : 0);
+                byMonth.computeIfAbsent(month, k -> new ArrayList<>()).add(doc);
+                found++;
+            }
+            if (found == 0) return 0;
+
+            DocumentSnapshot state = tx.get(stateRef);
+            Map<String, DocumentSnapshot> currentDigests = new HashMap<>();
+            Map<String, Integer> currentParts = new HashMap<>();
+            for (String month : byMonth.keySet()) {
+                Long part = state.getLong(PARTS_FIELD + "." + month);
+                int p = part != null ? part.intValue() : 0;
+                currentParts.put(month, p);
+                currentDigests.put(month, tx.get(archive.document(digestId(month, p))));
+            }
+
+            int unread = 0;
+            Map<String, Object> parts = new HashMap<>();
+            for (Map.Entry<String, List<DocumentSnapshot>> group : byMonth.entrySet()) {
+                String month = group.getKey();
+                List<DocumentSnapshot> entries = group.getValue();
+                List<Map<String, Object>> compact = new ArrayList<>();
+                long[] entryBytes = new long[entries.size()];
+                for (int i = 0; i < entries.size(); i++) {
+                    compact.add(compact(entries.get(i)));
+                    entryBytes[i] = entrySize(compact.get(i));
+                }
+                Long stored = currentDigests.get(month).getLong("bytes");
+                int[] sizes = split(stored != null ? stored : 0, entryBytes, MAX_DIGEST_BYTES);
+
+                int part = currentParts.get(month);
+                int from = 0;
+                for (int size : sizes) {
+                    if (size > 0) {
+                        long bytes = 0;
+                        for (int i = from; i < from + size; i++) bytes += entryBytes[i];
+                        Map<String, Object> digest = new HashMap<>();
+                        digest.put("month", month);
+                        digest.put("part", part);
+                        digest.put("count", FieldValue.increment(size));
+                        digest.put("bytes", FieldValue.increment(bytes));
+                        digest.put("entries", FieldValue.arrayUnion(compact.subList(from, from + size).toArray()));
+                        tx.set(archive.document(digestId(month, part)), digest, SetOptions.merge());
+                    }
+                    from += size;
+                    if (from < entries.size()) part++;
+                }
+                parts.put(month, part);
+
+                for (DocumentSnapshot doc : entries) {
+                    if (!Boolean.TRUE.equals(doc.getBoolean("read"))) unread++;
+                    tx.delete(doc.getReference());
+                }
+            }
+
+            Map<String, Object> stateUpdate = new HashMap<>();
+            stateUpdate.put(PARTS_FIELD, parts);
+            if (unread > 0 && state.exists()) {
+                stateUpdate.put(NotificationInbox.UNREAD_COUNT_FIELD,
+                        NotificationInbox.decremented(state.getLong(NotificationInbox.UNREAD_COUNT_FIELD), unread));
+            }
+            tx.set(stateRef, stateUpdate, SetOptions.merge());
+            return found;
+        });
+    }
+
+    /**
+     * @return False once every digest has been returned by {@link #loadOlderDigest}.
+     */
+    public boolean hasMoreDigests() {
+        return hasMoreDigests;
+    }
+
+    /**
+     * Loads the next digest, newest first, as read-only notifications.
+     *
+     * @param cb Callback receiving the digest's entries, newest first (empty once none are left).
+     */
+    public void loadOlderDigest(FirestoreEventRepository.ListCallback<Notification> cb) {
+        if (!hasMoreDigests) {
+            cb.onSuccess(new ArrayList<>());
+            return;
+        }
+        Query query = archive.orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        if (digestCursor != null) query = query.startAfter(digestCursor);
+        query.limit(1).get()
+                .addOnSuccessListener(snap -> {
+                    if (snap.isEmpty()) {
+                        hasMoreDigests = false;
+                        cb.onSuccess(new ArrayList<>());
+                        return;
+                    }
+                    digestCursor = snap.getDocuments().get(0);
+                    List<Notification> entries = new ArrayList<>();
+                    Object raw = digestCursor.get("entries");
+                    if (raw instanceof List) {
+                        for (Object entry : (List<?>) raw) {
+                            if (entry instanceof Map) entries.add(fromCompact((Map<?, ?>) entry));
+                        }
+                    }
+                    entries.sort(BroadcastRepository.NEWEST_FIRST);
+                    cb.onSuccess(entries);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    private static Map<String, Object> compact(DocumentSnapshot doc) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", doc.getId());
+        entry.put("title", truncate(doc.getString("title"), MAX_TEXT_CHARS));
+        entry.put("message", truncate(doc.getString("message"), MAX_TEXT_CHARS));
+        entry.put("eventId", doc.getString("eventId"));
+        entry.put("type", doc.getString("type"));
+        entry.put("senderId", doc.getString("senderId"));
+        entry.put("read", Boolean.TRUE.equals(doc.getBoolean("read")));
+        Date timestamp = doc.getDate("timestamp");
+        entry.put("at", timestamp != null ? timestamp.getTime() : 0L);
+        return entry;
+    }
+
+    private static Notification fromCompact(Map<?, ?> entry) {
+        Notification n = new Notification(stringOf(entry.get("title")), stringOf(entry.get("message")),
+                stringOf(entry.get("eventId")), stringOf(entry.get("type")));
+        n.setId(stringOf(entry.get("id")));
+        n.setSenderId(stringOf(entry.get("senderId")));
+        n.setRead(Boolean.TRUE.equals(entry.get("read")));
+        Object at = entry.get("at");
+        n.setTimestamp(at instanceof Number ? new Date(((Number) at).longValue()) : null);
+        n.setArchived(true);
+        return n;
+    }
+
+    @Nullable
+    private static String stringOf(@Nullable Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * @param millis Epoch millis.
+     * @return The UTC month, e.g. "2025-03".
+     */
+    static String monthKey(long millis) {
+        Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.ROOT);
+        c.setTimeInMillis(millis);
+        return String.format(Locale.ROOT, "%04d-%02d", c.get(Calendar.YEAR), c.get(Calendar.MONTH) + 1);
+    }
+
+    /**
+     * @return The digest document ID; IDs sort in time order.
+     */
+    static String digestId(String month, int part) {
+        return String.format(Locale.ROOT, "%s-%02d", month, part);
+    }
+
+    /**
+     * @param text Text to store (may be null).
+     * @param max  Longest length kept.
+     * @return The text, cut to at most {@code max} chars without splitting a surrogate pair.
+     */
+    @Nullable
+    static String truncate(@Nullable String text, int max) {
+        if (text == null || text.length() <= max) return text;
+        int end = Character.isHighSurrogate(text.charAt(max - 1)) ? max - 1 : max;
+        return text.substring(0, end);
+    }
+
+    /**
+     * Estimates the stored size of an archived entry with Firestore's size rules: each field
+     * name and string takes its UTF-8 length plus one byte, numbers eight bytes, booleans and
+     * nulls one byte, plus the map's own overhead.
+     *
+     * @param entry An entry built for a digest.
+     * @return The estimated size in bytes.
+     */
+    static long entrySize(Map<String, Object> entry) {
+        long size = 32;
+        for (Map.Entry<String, Object> field : entry.entrySet()) {
+            size += utf8Length(field.getKey()) + 1;
+            Object value = field.getValue();
+            if (value instanceof String) size += utf8Length((String) value) + 1;
+            else if (value instanceof Number) size += 8;
+            else size += 1;
+        }
+        return size;
+    }
+
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) length += 1;
+            else if (c < 0x800) length += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else length += 3;
+        }
+        return length;
+    }
+
+    /**
+     * Splits incoming entries across the current digest and as many new parts as needed.
+     * Every part takes at least one entry, so an entry larger than {@code maxBytes} still
+     * gets a part of its own.
+     *
+     * @param currentBytes Size of the entries already in the current part.
+     * @param entryBytes   Size of each entry to add, in order.
+     * @param maxBytes     Size limit of a part.
+     * @return Entries written to the current part (0 if they do not fit), then to each following part.
+     */
+    static int[] split(long currentBytes, long[] entryBytes, long maxBytes) {
+        List<Integer> sizes = new ArrayList<>();
+        int count = 0;
+        long bytes = currentBytes;
+        boolean current = true;
+        for (long entry : entryBytes) {
+            if (bytes + entry > maxBytes && (count > 0 || current)) {
+                sizes.add(count);
+                count = 0;
+                bytes = 0;
+                current = false;
+            }
+            count++;
+            bytes += entry;
+        }
+        sizes.add(count);
+        int[] result = new int[sizes.size()];
+        for (int i = 0; i < result.length; i++) result[i] = sizes.get(i);
+        return result;
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.ballerevents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends one {@link Notification} to many users, writing
+ * <code>users/{uid}/notifications/{autoId}</code> for each recipient.
+ * <p>
+ * Recipients are read from an {@link Iterable} one chunk of {@link #MAX_RECIPIENTS_PER_BATCH}
+ * at a time, so a large audience is never held in a single batch. For each chunk the recipients'
+ * profiles are fetched and users with {@link UserProfile#isNotificationsEnabled()} off, or
+ * without a profile, are skipped. Up to {@link #MAX_PARALLEL_BATCHES} batches are committed
+ * at once, and a failed batch is retried with exponential backoff before its recipients
+ * are counted as failed; the other batches continue.
+ * </p>
+ * <p>
+ * Writers that cannot go through a dispatch, such as the lottery's transactions, apply the
+ * same rule with {@link #acceptsNotifications(DocumentSnapshot)}.
+ * </p>
+ * <p>
+ * Every dispatch adds to the process-wide {@link Metrics} (see {@link #metrics()}).
+ * </p>
+ */
+public class NotificationDispatcher {
+
+    private static final String TAG = "NotificationDispatcher";
+
+    /**
+     * Recipients per batch. Each takes two writes (the notification and its unread counter,
+     * see {@link NotificationInbox}), below Firestore's limit of 500.
+     */
+    public static final int MAX_RECIPIENTS_PER_BATCH = 225;
+    static final int MAX_PARALLEL_BATCHES = 3;
+    static final int MAX_ATTEMPTS = 4;
+    static final long RETRY_BASE_DELAY_MS = 500;
+
+    private static final Metrics METRICS = new Metrics();
+
+    /**
+     * Receives the outcome of a dispatch.
+     */
+    public interface DispatchCallback {
+        void onComplete(Result result);
+    }
+
+    /**
+     * Outcome of one dispatch.
+     */
+    public static final class Result {
+        /** Recipients whose notification was written. */
+        public final int sent;
+        /** Recipients skipped because they opted out or have no profile. */
+        public final int skipped;
+        /** Recipients whose profile lookup or batch failed after every retry. */
+        public final List<String> failedIds;
+        /** The first error, or null. */
+        @Nullable public final Exception firstError;
+
+        Result(int sent, int skipped, List<String> failedIds, @Nullable Exception firstError) {
+            this.sent = sent;
+            this.skipped = skipped;
+            this.failedIds = Collections.unmodifiableList(failedIds);
+            this.firstError = firstError;
+        }
+    }
+
+    /**
+     * Delivery counters for every dispatch in this process. Latency is measured per batch,
+     * from the first commit attempt to its success or final failure.
+     */
+    public static final class Metrics {
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong totalLatencyMs = new AtomicLong();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+
+        public long getSent() { return sent.get(); }
+        public long getFailed() { return failed.get(); }
+        public long getSkipped() { return skipped.get(); }
+        public long getBatches() { return batches.get(); }
+        public long getMaxLatencyMs() { return maxLatencyMs.get(); }
+
+        /**
+         * @return The mean batch latency, or 0 before the first batch.
+         */
+        public long getAverageLatencyMs() {
+            long count = batches.get();
+            return count == 0 ? 0 : totalLatencyMs.get() / count;
+        }
+
+        /** Sets every counter back to zero. */
+        public void reset() {
+            sent.set(0);
+            failed.set(0);
+            skipped.set(0);
+            batches.set(0);
+            totalLatencyMs.set(0);
+            maxLatencyMs.set(0);
+        }
+
+        void recordBatch(long latencyMs) {
+            batches.incrementAndGet();
+            totalLatencyMs.addAndGet(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final FirestoreBatchFetcher batchFetcher;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public NotificationDispatcher() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public NotificationDispatcher(FirebaseFirestore db) {
+        this.db = db;
+        this.batchFetcher = new FirestoreBatchFetcher(db);
+    }
+
+    /**
+     * @param userSnap The user document, read by the caller.
+     * @return True if notifications may be written for this user.
+     */
+    public static boolean acceptsNotifications(DocumentSnapshot userSnap) {
+        return acceptsNotifications(userSnap.exists(), userSnap.getBoolean("notificationsEnabled"));
+    }
+
+    /**
+     * @param profileExists True if the user has a profile.
+     * @param enabled       The profile's {@code notificationsEnabled} field (null if unset).
+     * @return True if the user has a profile and has not turned notifications off.
+     */
+    static boolean acceptsNotifications(boolean profileExists, @Nullable Boolean enabled) {
+        return profileExists && !Boolean.FALSE.equals(enabled);
+    }
+
+    /**
+     * @param profiles Profiles fetched for a chunk.
+     * @return The UIDs of the profiles that accept notifications.
+     */
+    static List<String> optedIn(List<UserProfile> profiles) {
+        List<String> targets = new ArrayList<>();
+        for (UserProfile profile : profiles) {
+            if (acceptsNotifications(true, profile.isNotificationsEnabled())) targets.add(profile.getUid());
+        }
+        return targets;
+    }
+
+    /**
+     * Reads the next chunk of recipients, ignoring null IDs.
+     *
+     * @param recipients The remaining recipients.
+     * @param max        Largest chunk size.
+     * @return Up to {@code max} IDs; empty once the recipients run out.
+     */
+    static List<String> nextChunk(Iterator<String> recipients, int max) {
+        List<String> chunk = new ArrayList<>();
+        while (chunk.size() < max && recipients.hasNext()) {
+            String uid = recipients.next();
+            if (uid != null) chunk.add(uid);
+        }
+        return chunk;
+    }
+
+    /**
+     * @param chunkSize    Recipients in the chunk.
+     * @param targets      Recipients that accept notifications.
+     * @param lookupFailed Recipients whose profile could not be read; they count as failed.
+     * @return Recipients skipped because they opted out or have no profile.
+     */
+    static int skippedCount(int chunkSize, int targets, int lookupFailed) {
+        return chunkSize - targets - lookupFailed;
+    }
+
+    /**
+     * @param attempt The attempt that just failed, starting at 1.
+     * @return The delay before the next attempt, or -1 if the batch should be counted as failed.
+     */
+    static long retryDelayMs(int attempt) {
+        return attempt >= MAX_ATTEMPTS ? -1 : RETRY_BASE_DELAY_MS << (attempt - 1);
+    }
+
+    /**
+     * @return The delivery counters of this process.
+     */
+    public static Metrics metrics() {
+        return METRICS;
+    }
+
+    /**
+     * Sends a notification to a single user.
+     *
+     * @param notification The notification; its timestamp is set by the server.
+     * @param recipientId  The user ID.
+     * @param cb           Callback for the outcome (optional).
+     */
+    public void send(Notification notification, String recipientId, @Nullable DispatchCallback cb) {
+        send(notification, Collections.singletonList(recipientId), cb);
+    }
+
+    /**
+     * Sends a notification to every user in {@code recipientIds}. Null IDs are ignored.
+     *
+     * @param notification The notification; its timestamp is set by the server.
+     * @param recipientIds The user IDs, read lazily, one chunk at a time.
+     * @param cb           Callback for the outcome (optional).
+     */
+    public void send(Notification notification, Iterable<String> recipientIds, @Nullable DispatchCallback cb) {
+        new Dispatch(notification, recipientIds.iterator(), cb).pump();
+    }
+
+    /** State of one {@link #send} call. Runs on the main thread. */
+    private final class Dispatch {
+        private final Notification notification;
+        private final Iterator<String> recipients;
+        @Nullable private final DispatchCallback cb;
+
+        private int inFlight = 0;
+        private int sent = 0;
+        private int skipped = 0;
+        private final List<String> failedIds = new ArrayList<>();
+        @Nullable private Exception firstError;
+        private boolean finished = false;
+
+        Dispatch(Notification notification, Iterator<String> recipients, @Nullable DispatchCallback cb) {
+            this.notification = notification;
+            this.recipients = recipients;
+            this.cb = cb;
+        }
+
+        /** Starts chunks until the parallel limit is reached or the recipients run out. */
+        void pump() {
+            while (inFlight < MAX_PARALLEL_BATCHES) {
+                List<String> chunk = nextChunk(recipients, MAX_RECIPIENTS_PER_BATCH);
+                if (chunk.isEmpty()) break;
+                inFlight++;
+                sendChunk(chunk);
+            }
+            if (inFlight == 0 && !finished) {
+                finished = true;
+                if (cb != null) cb.onComplete(new Result(sent, skipped, failedIds, firstError));
+            }
+        }
+
+        private void sendChunk(List<String> chunk) {
+            batchFetcher.fetchProfiles(chunk, (profiles, lookupFailedIds, lookupError) -> {
+                List<String> targets = optedIn(profiles);
+                int chunkSkipped = skippedCount(chunk.size(), targets.size(), lookupFailedIds.size());
+                skipped += chunkSkipped;
+                METRICS.skipped.addAndGet(chunkSkipped);
+                if (!lookupFailedIds.isEmpty()) fail(lookupFailedIds, lookupError);
+
+                if (targets.isEmpty()) {
+                    chunkDone();
+                    return;
+                }
+                commit(targets, 1, SystemClock.elapsedRealtime());
+            });
+        }
+
+        private void commit(List<String> targets, int attempt, long startedAt) {
+            WriteBatch batch = db.batch();
+            for (String uid : targets) {
+                batch.set(db.collection("users").document(uid).collection("notifications").document(), notification);
+                NotificationInbox.countNew(batch, db, uid, 1);
+            }
+            batch.commit()
+                    .addOnSuccessListener(unused -> {
+                        METRICS.recordBatch(SystemClock.elapsedRealtime() - startedAt);
+                        METRICS.sent.addAndGet(targets.size());
+                        sent += targets.size();
+                        chunkDone();
+                    })
+                    .addOnFailureListener(e -> {
+                        long delay = retryDelayMs(attempt);
+                        if (delay < 0) {
+                            METRICS.recordBatch(SystemClock.elapsedRealtime() - startedAt);
+                            fail(targets, e);
+                            chunkDone();
+                            return;
+                        }
+                        Log.w(TAG, "Notification batch failed (attempt " + attempt + "), retrying in " + delay + " ms", e);
+                        handler.postDelayed(() -> commit(targets, attempt + 1, startedAt), delay);
+                    });
+        }
+
+        private void fail(List<String> ids, @Nullable Exception e) {
+            failedIds.addAll(ids);
+            METRICS.failed.addAndGet(ids.size());
+            if (firstError == null) firstError = e;
+        }
+
+        private void chunkDone() {
+            inFlight--;
+            pump();
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.ballerevents;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A user's personal notifications, read one page at a time, and their unread counter.
+ * <p>
+ * {@link #listenToNewest} loads the newest {@link #PAGE_SIZE} notifications and keeps a live
+ * listener on them and on anything newer. Older notifications are loaded on demand with
+ * {@link #loadOlder}, starting after the oldest one already loaded; they are not live.
+ * </p>
+ * <p>
+ * The number of unread notifications is kept in {@link #UNREAD_COUNT_FIELD} of
+ * <code>users/{uid}/inbox/state</code>, so screens can show a badge without reading the
+ * inbox. Every writer of a notification calls {@link #countNew}, and {@link #markRead},
+ * {@link #delete} and {@link #markAllRead} keep the counter in step; their decrements stop at
+ * zero. A notification that is rewritten by a retried batch can be counted twice;
+ * {@link #markAllRead} resets the counter to zero. Notifications that predate the counter
+ * were never counted; {@link #listenToUnreadCount} seeds the counter once from an aggregate
+ * count of the unread notifications and records that in {@link #SEEDED_FIELD}. The state
+ * document alone says nothing, since {@link #countNew} creates it with the first increment.
+ * </p>
+ * <p>
+ * The counter covers personal notifications only. Unread broadcasts are derived from read
+ * cursors (see {@link BroadcastRepository}), so screens add them from the broadcast feed.
+ * </p>
+ */
+public class NotificationInbox {
+
+    private static final String TAG = "NotificationInbox";
+
+    /** Notifications per page. */
+    public static final int PAGE_SIZE = 30;
+    /** Field of the inbox state document with the number of unread notifications. */
+    public static final String UNREAD_COUNT_FIELD = "unreadCount";
+    /** Field of the inbox state document set once the counter has been seeded. */
+    static final String SEEDED_FIELD = "unreadSeeded";
+    /** Read flag of notifications sent by older organizer screens, replaced by {@code read}. */
+    static final String LEGACY_READ_FIELD = "isRead";
+
+    private final FirebaseFirestore db;
+    private final String uid;
+    private final CollectionReference notifications;
+    /** Oldest notification loaded so far; older pages start after it. */
+    @Nullable private DocumentSnapshot oldest;
+    private boolean hasMore = false;
+
+    /**
+     * @param db  Firestore instance.
+     * @param uid The user whose inbox is read.
+     */
+    public NotificationInbox(FirebaseFirestore db, String uid) {
+        this.db = db;
+        this.uid = uid;
+        this.notifications = db.collection("users").document(uid).collection("notifications");
+    }
+
+    /**
+     * @return The document that holds a user's unread counter.
+     */
+    static DocumentReference stateRef(FirebaseFirestore db, String uid) {
+        return db.collection("users").document(uid).collection("inbox").document("state");
+    }
+
+    /**
+     * Adds to a user's unread counter in the batch that writes the notifications. The state
+     * document is merged, so users without one get it created.
+     */
+    static void countNew(WriteBatch batch, FirebaseFirestore db, String uid, int count) {
+        batch.set(stateRef(db, uid), Collections.singletonMap(UNREAD_COUNT_FIELD, FieldValue.increment(count)),
+                SetOptions.merge());
+    }
+
+    /**
+     * Adds to a user's unread counter in the transaction that writes the notifications.
+     */
+    static void countNew(Transaction tx, FirebaseFirestore db, String uid, int count) {
+        tx.set(stateRef(db, uid), Collections.singletonMap(UNREAD_COUNT_FIELD, FieldValue.increment(count)),
+                SetOptions.merge());
+    }
+
+    /**
+     * Counts one notification as read in a transaction that has read {@code state}, the
+     * user's state document. Stops at zero, and leaves a missing document to be seeded.
+     */
+    private static void countRead(Transaction tx, DocumentSnapshot state) {
+        countRead(tx, state, 1);
+    }
+
+    private static void countRead(Transaction tx, DocumentSnapshot state, long read) {
+        if (!state.exists()) return;
+        tx.update(state.getReference(), UNREAD_COUNT_FIELD, decremented(state.getLong(UNREAD_COUNT_FIELD), read));
+    }
+
+    /**
+     * @param count The stored unread count (null if unset).
+     * @return The count after one notification is read, never below zero.
+     */
+    static long decremented(@Nullable Long count) {
+        return decremented(count, 1);
+    }
+
+    /**
+     * @param count The stored unread count (null if unset).
+     * @param read  Notifications that stopped being unread.
+     * @return The count after they are read, never below zero.
+     */
+    static long decremented(@Nullable Long count, long read) {
+        return count == null || count <= read ? 0 : count - read;
+    }
+
+    /**
+     * Listens to a user's unread counter. If it has not been seeded yet, it is seeded from
+     * the unread notifications (see {@link #seedUnreadCount}).
+     *
+     * @param db  Firestore instance.
+     * @param uid The user ID.
+     * @param cb  Callback receiving the count on every change.
+     * @return The ListenerRegistration object (call remove() to stop listening).
+     */
+    public static ListenerRegistration listenToUnreadCount(FirebaseFirestore db, String uid,
+                                                           FirestoreEventRepository.ItemCallback<Long> cb) {
+        boolean[] seeding = new boolean[1];
+        return stateRef(db, uid).addSnapshotListener((snap, e) -> {
+            if (e != null) {
+                cb.onError(e);
+                return;
+            }
+            if (snap == null) return;
+            if (!Boolean.TRUE.equals(snap.getBoolean(SEEDED_FIELD)) && !snap.getMetadata().isFromCache() && !seeding[0]) {
+                seeding[0] = true;
+                seedUnreadCount(db, uid);
+            }
+            Long count = snap.getLong(UNREAD_COUNT_FIELD);
+            cb.onSuccess(count != null ? count : 0);
+        });
+    }
+
+    /**
+     * Seeds a user's counter from an aggregate count of their unread notifications, unless
+     * another client seeded it meanwhile. The aggregate already includes notifications
+     * counted since the state document was created, so it replaces the stored value; changes
+     * to the counter while the aggregate ran are added on top (see {@link #seededCount}).
+     */
+    static void seedUnreadCount(FirebaseFirestore db, String uid) {
+        DocumentReference state = stateRef(db, uid);
+        state.get(Source.SERVER).onSuccessTask(before -> {
+            Long counted = before.getLong(UNREAD_COUNT_FIELD);
+            return db.collection("users").document(uid).collection("notifications")
+                    .whereEqualTo("read", false)
+                    .count()
+                    .get(AggregateSource.SERVER)
+                    .onSuccessTask(aggregate -> db.runTransaction(tx -> {
+                        DocumentSnapshot current = tx.get(state);
+                        if (Boolean.TRUE.equals(current.getBoolean(SEEDED_FIELD))) return null;
+                        Map<String, Object> seed = new HashMap<>();
+                        seed.put(UNREAD_COUNT_FIELD,
+                                seededCount(aggregate.getCount(), counted, current.getLong(UNREAD_COUNT_FIELD)));
+                        seed.put(SEEDED_FIELD, true);
+                        tx.set(state, seed, SetOptions.merge());
+                        return null;
+                    }));
+        }).addOnFailureListener(e -> Log.w(TAG, "Failed to seed unread count", e));
+    }
+
+    /**
+     * @param unread  Aggregate count of unread notifications.
+     * @param before  The counter read just before the aggregate (null if unset).
+     * @param current The counter read in the seeding transaction (null if unset).
+     * @return The seeded counter: the aggregate plus whatever was counted or read while it
+     *         ran, never below zero.
+     */
+    static long seededCount(long unread, @Nullable Long before, @Nullable Long current) {
+        long delta = (current != null ? current : 0) - (before != null ? before : 0);
+        return Math.max(0, unread + delta);
+    }
+
+    /**
+     * Loads the newest page and then listens to it. The live window is pinned to the oldest
+     * notification of the first page, so new arrivals extend it instead of pushing entries
+     * out between the live window and the older pages.
+     *
+     * @param cb Callback receiving the live window, newest first, on every change.
+     * @return The registration; call remove() to stop listening.
+     */
+    public ListenerRegistration listenToNewest(FirestoreEventRepository.ListCallback<Notification> cb) {
+        ListenerRegistration[] live = new ListenerRegistration[1];
+        boolean[] removed = new boolean[1];
+        Query newest = notifications.orderBy("timestamp", Query.Direction.DESCENDING);
+
+        newest.limit(PAGE_SIZE).get()
+                .addOnSuccessListener(first -> {
+                    if (removed[0]) return;
+                    List<DocumentSnapshot> docs = first.getDocuments();
+                    hasMore = docs.size() == PAGE_SIZE;
+                    oldest = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+                    Query window = hasMore ? newest.endAt(oldest) : newest;
+                    live[0] = window.addSnapshotListener((snap, e) -> {
+                        if (e != null) {
+                            cb.onError(e);
+                            return;
+                        }
+                        if (snap != null) cb.onSuccess(toNotifications(snap.getDocuments()));
+                    });
+                })
+                .addOnFailureListener(cb::onError);
+
+        return () -> {
+            removed[0] = true;
+            if (live[0] != null) live[0].remove();
+        };
+    }
+
+    /**
+     * @return False once every notification older than the live window has been loaded.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Loads the next {@link #PAGE_SIZE} notifications older than those already loaded.
+     *
+     * @param cb Callback receiving the page, newest first.
+     */
+    public void loadOlder(FirestoreEventRepository.ListCallback<Notification> cb) {
+        if (!hasMore || oldest == null) {
+            cb.onSuccess(new ArrayList<>());
+            return;
+        }
+        notifications.orderBy("timestamp", Query.Direction.DESCENDING)
+                .startAfter(oldest)
+                .limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(snap -> {
+                    List<DocumentSnapshot> docs = snap.getDocuments();
+                    hasMore = docs.size() == PAGE_SIZE;
+                    if (!docs.isEmpty()) oldest = docs.get(docs.size() - 1);
+                    cb.onSuccess(toNotifications(docs));
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Marks a notification as read and decrements the counter if it was unread.
+     *
+     * @param notificationId The notification document ID.
+     */
+    public void markRead(String notificationId) {
+        DocumentReference ref = notifications.document(notificationId);
+        db.runTransaction(tx -> {
+            DocumentSnapshot snap = tx.get(ref);
+            DocumentSnapshot state = tx.get(stateRef(db, uid));
+            if (!snap.exists() || Boolean.TRUE.equals(snap.getBoolean("read"))) return null;
+            tx.update(ref, "read", true);
+            countRead(tx, state);
+            return null;
+        }).addOnFailureListener(e -> Log.w(TAG, "Failed to mark notification read", e));
+    }
+
+    /**
+     * Deletes a notification and decrements the counter if it was unread.
+     *
+     * @param notificationId The notification document ID.
+     */
+    public void delete(String notificationId) {
+        DocumentReference ref = notifications.document(notificationId);
+        db.runTransaction(tx -> {
+            DocumentSnapshot snap = tx.get(ref);
+            DocumentSnapshot state = tx.get(stateRef(db, uid));
+            if (!snap.exists()) return null;
+            if (!Boolean.TRUE.equals(snap.getBoolean("read"))) countRead(tx, state);
+            tx.delete(ref);
+            return null;
+        }).addOnFailureListener(e -> Log.w(TAG, "Failed to delete notification", e));
+    }
+
+    /**
+     * Marks every unread notification as read with a {@link BulkUpdater}, then lowers the
+     * counter by the number marked, so notifications that arrive meanwhile stay counted.
+     * Only unread notifications are read and written. A second pass covers notifications
+     * that only carry the legacy {@link #LEGACY_READ_FIELD} flag, in case
+     * {@link NotificationReadBackfill#backfillAll} has not run; they were never counted.
+     *
+     * @param listener Receives progress and the outcome (optional).
+     */
+    public void markAllRead(@Nullable BulkUpdater.Listener listener) {
+        BulkUpdater updater = new BulkUpdater(db);
+        updater.update(notifications.whereEqualTo("read", false),
+                Collections.singletonMap("read", true), null, new BulkUpdater.Listener() {
+                    @Override
+                    public void onProgress(int updated, int scanned) {
+                        if (listener != null) listener.onProgress(updated, scanned);
+                    }
+
+                    @Override
+                    public void onComplete(int updated) {
+                        markLegacyRead(updater, updated, listener);
+                    }
+
+                    @Override
+                    public void onError(Exception e, int updated) {
+                        Log.w(TAG, "Failed to mark all read after " + updated + " notifications", e);
+                        if (listener != null) listener.onError(e, updated);
+                    }
+                });
+    }
+
+    private void markLegacyRead(BulkUpdater updater, int updatedBefore, @Nullable BulkUpdater.Listener listener) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("read", true);
+        updates.put(LEGACY_READ_FIELD, true);
+        updater.update(notifications.whereEqualTo(LEGACY_READ_FIELD, false), updates,
+                doc -> Boolean.TRUE.equals(doc.getBoolean("read")), new BulkUpdater.Listener() {
+                    @Override
+                    public void onProgress(int updated, int scanned) {
+                        if (listener != null) listener.onProgress(updatedBefore + updated, scanned);
+                    }
+
+                    @Override
+                    public void onComplete(int updated) {
+                        countMarkedRead(updatedBefore);
+                        if (listener != null) listener.onComplete(updatedBefore + updated);
+                    }
+
+                    @Override
+                    public void onError(Exception e, int updated) {
+                        Log.w(TAG, "Failed to mark all read after " + (updatedBefore + updated) + " notifications", e);
+                        if (listener != null) listener.onError(e, updatedBefore + updated);
+                    }
+                });
+    }
+
+    /**
+     * Lowers the counter by the notifications {@link #markAllRead} flipped from unread.
+     */
+    private void countMarkedRead(int marked) {
+        if (marked <= 0) return;
+        db.runTransaction(tx -> {
+            countRead(tx, tx.get(stateRef(db, uid)), marked);
+            return null;
+        }).addOnFailureListener(e -> Log.w(TAG, "Failed to update unread count", e));
+    }
+
+    private static List<Notification> toNotifications(List<DocumentSnapshot> docs) {
+        List<Notification> list = new ArrayList<>();
+        for (DocumentSnapshot doc : docs) {
+            Notification n = doc.toObject(Notification.class);
+            if (n != null) list.add(n);
+        }
+        return list;
+    }
+}
@@ -5,8 +5,10 @@ import android.util.Log;
 import android.view.View;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.ballerevents.databinding.ActivityNotificationLogsBinding;
 import com.google.firebase.auth.FirebaseAuth;
@@ -14,20 +16,22 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 /**
  * Activity for displaying and managing user notifications.
  *
  * <p>Features include:</p>
  * <ul>
- * <li>Real-time monitoring of user notifications.</li>
+ * <li>Real-time monitoring of the newest notifications, merged with the broadcasts of the
+ * user's events (see {@link BroadcastRepository}).</li>
+ * <li>Loading older notifications page by page while scrolling (see {@link NotificationInbox}),
+ * then archived ones digest by digest (see {@link NotificationArchiver}).</li>
  * <li>Responding to event invitations (Accept/Decline).</li>
  * <li>Following users back directly from notifications.</li>
  * <li>Marking notifications as read or deleting them.</li>
@@ -35,12 +39,27 @@ import java.util.Map;
  */
 public class NotificationLogsActivity extends AppCompatActivity {
 
+    private static final String TAG = "NotificationLogsActivity";
+    /** Rows from the end at which the next older page is requested. */
+    private static final int PREFETCH_DISTANCE = 10;
+
     private ActivityNotificationLogsBinding binding;
     private NotificationLogsAdapter adapter;
     private FirebaseFirestore db;
     private FirebaseAuth auth;
+    private BroadcastRepository broadcastRepository;
+    private NotificationInbox inbox;
+    private NotificationArchiver archiver;
     private ListenerRegistration notifListener;
+    private ListenerRegistration broadcastListener;
+    /** The live window: the newest page and anything newer. */
     private List<Notification> allNotifications = new ArrayList<>();
+    /** Older pages, loaded on scroll; not live. */
+    private final List<Notification> olderNotifications = new ArrayList<>();
+    /** Read-only entries from the archive, loaded after the older pages run out. */
+    private final List<Notification> archivedNotifications = new ArrayList<>();
+    private List<Notification> broadcasts = new ArrayList<>();
+    private boolean loadingOlder = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -50,6 +69,7 @@ public class NotificationLogsActivity extends AppCompatActivity {
 
         db = FirebaseFirestore.getInstance();
         auth = FirebaseAuth.getInstance();
+        broadcastRepository = new BroadcastRepository(db);
 
         if (binding.btnBack != null) binding.btnBack.setOnClickListener(v -> finish());
         binding.tvTitle.setText("Notifications");
@@ -57,7 +77,10 @@ public class NotificationLogsActivity extends AppCompatActivity {
         setupRecyclerView();
 
         if (auth.getCurrentUser() != null) {
+            inbox = new NotificationInbox(db, auth.getCurrentUser().getUid());
+            archiver = new NotificationArchiver(db, auth.getCurrentUser().getUid());
             setupRealtimeListener();
+            archiver.runIfDue(null);
         } else {
             finish();
         }
@@ -69,7 +92,8 @@ public class NotificationLogsActivity extends AppCompatActivity {
      * Initializes the RecyclerView adapter in interactive mode.
      */
     private void setupRecyclerView() {
-        binding.rvLogs.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        binding.rvLogs.setLayoutManager(layoutManager);
 
         adapter = new NotificationLogsAdapter(new NotificationLogsAdapter.OnItemAction() {
             @Override public void onMarkRead(Notification notif) { markAsRead(notif); }
@@ -81,33 +105,95 @@ public class NotificationLogsActivity extends AppCompatActivity {
         }, false);
 
         binding.rvLogs.setAdapter(adapter);
+        binding.rvLogs.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int last = layoutManager.findLastVisibleItemPosition();
+                if (last != RecyclerView.NO_POSITION && last >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadOlderPage();
+                }
+            }
+        });
     }
 
     /**
-     * Sets up a real-time listener for the current user's notifications collection.
+     * Sets up real-time listeners for the newest page of the current user's notifications
+     * and for the broadcasts of their events.
      */
     private void setupRealtimeListener() {
         String userId = auth.getCurrentUser().getUid();
         binding.progressBar.setVisibility(View.VISIBLE);
 
-        notifListener = db.collection("users")
-                .document(userId)
-                .collection("notifications")
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .addSnapshotListener((snapshots, e) -> {
-                    binding.progressBar.setVisibility(View.GONE);
-                    if (e != null) return;
-                    if (snapshots != null) {
-                        allNotifications = snapshots.toObjects(Notification.class);
-                        for (int i = 0; i < snapshots.size(); i++) {
-                            allNotifications.get(i).setId(snapshots.getDocuments().get(i).getId());
-                        }
-                        adapter.submitList(new ArrayList<>(allNotifications));
-                        binding.tvEmpty.setVisibility(allNotifications.isEmpty() ? View.VISIBLE : View.GONE);
+        notifListener = inbox.listenToNewest(new FirestoreEventRepository.ListCallback<Notification>() {
+            @Override
+            public void onSuccess(List<Notification> list) {
+                binding.progressBar.setVisibility(View.GONE);
+                allNotifications = list;
+                showMergedFeed();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                binding.progressBar.setVisibility(View.GONE);
+                Log.w(TAG, "Notification listener failed", e);
+            }
+        });
+
+        broadcastListener = broadcastRepository.listenToFeed(userId,
+                new FirestoreEventRepository.ListCallback<Notification>() {
+                    @Override
+                    public void onSuccess(List<Notification> list) {
+                        broadcasts = list;
+                        showMergedFeed();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Broadcast feed failed", e);
                     }
                 });
     }
 
+    /**
+     * Shows personal notifications and broadcasts as one list, newest first.
+     */
+    private void showMergedFeed() {
+        List<Notification> merged = new ArrayList<>(allNotifications);
+        merged.addAll(olderNotifications);
+        merged.addAll(archivedNotifications);
+        merged.addAll(broadcasts);
+        merged.sort(BroadcastRepository.NEWEST_FIRST);
+        adapter.submitList(merged);
+        binding.tvEmpty.setVisibility(merged.isEmpty() ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Appends the next page of older notifications or, once those run out, the next
+     * archive digest.
+     */
+    private void loadOlderPage() {
+        if (loadingOlder) return;
+        boolean fromArchive = !inbox.hasMore();
+        if (fromArchive && !archiver.hasMoreDigests()) return;
+        loadingOlder = true;
+        FirestoreEventRepository.ListCallback<Notification> cb = new FirestoreEventRepository.ListCallback<Notification>() {
+            @Override
+            public void onSuccess(List<Notification> page) {
+                loadingOlder = false;
+                (fromArchive ? archivedNotifications : olderNotifications).addAll(page);
+                showMergedFeed();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                loadingOlder = false;
+                Log.w(TAG, "Failed to load older notifications", e);
+            }
+        };
+        if (fromArchive) archiver.loadOlderDigest(cb);
+        else inbox.loadOlder(cb);
+    }
+
     /**
      * Handles the "Follow Back" action from a new follower notification.
      */
@@ -136,42 +222,85 @@ public class NotificationLogsActivity extends AppCompatActivity {
     private void respondToInvite(Notification notif, String status) {
         if (notif.getEventId() == null) return;
         String userId = auth.getCurrentUser().getUid();
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("invitationStatus." + userId, status);
-
-        if ("declined".equals(status)) {
-            updates.put("selectedUserIds", FieldValue.arrayRemove(userId));
-            updates.put("cancelledUserIds", FieldValue.arrayUnion(userId));
-        } else if ("accepted".equals(status)) {
-            updates.put("selectedUserIds", FieldValue.arrayRemove(userId));
-        }
+        new EntrantRepository(db).respondToInvite(notif.getEventId(), userId, status,
+                new FirestoreEventRepository.VoidCallback() {
+                    @Override
+                    public void onSuccess() {
+                        Toast.makeText(NotificationLogsActivity.this, "Response sent: " + status, Toast.LENGTH_SHORT).show();
+                        markAsRead(notif);
+                    }
 
-        db.collection("events").document(notif.getEventId()).update(updates)
-                .addOnSuccessListener(a -> {
-                    Toast.makeText(this, "Response sent: " + status, Toast.LENGTH_SHORT).show();
-                    markAsRead(notif);
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(NotificationLogsActivity.this, "Error sending response", Toast.LENGTH_SHORT).show();
+                    }
                 });
     }
 
     private void deleteNotification(Notification notif) {
-        db.collection("users").document(auth.getCurrentUser().getUid())
-                .collection("notifications").document(notif.getId()).delete();
+        if (notif.isArchived()) return;
+        if (notif.isBroadcast()) {
+            broadcastRepository.dismiss(auth.getCurrentUser().getUid(), notif.getId());
+            return;
+        }
+        inbox.delete(notif.getId());
+        // Older pages are not live, so they are updated here.
+        if (olderNotifications.remove(notif)) showMergedFeed();
     }
 
     private void markAsRead(Notification notif) {
-        db.collection("users").document(auth.getCurrentUser().getUid())
-                .collection("notifications").document(notif.getId()).update("read", true);
+        if (notif.isArchived()) return;
+        if (notif.isBroadcast()) {
+            broadcastRepository.markRead(auth.getCurrentUser().getUid(), notif);
+            return;
+        }
+        inbox.markRead(notif.getId());
+        if (!notif.isRead() && olderNotifications.contains(notif)) {
+            notif.setRead(true);
+            adapter.notifyItemChanged(adapter.getCurrentList().indexOf(notif));
+        }
     }
 
     private void markAllAsRead() {
         String userId = auth.getCurrentUser().getUid();
-        db.collection("users").document(userId).collection("notifications").get()
-                .addOnSuccessListener(q -> db.runBatch(batch -> q.forEach(doc -> batch.update(doc.getReference(), "read", true))));
+        binding.btnMarkAll.setEnabled(false);
+        inbox.markAllRead(new BulkUpdater.Listener() {
+            @Override
+            public void onProgress(int updated, int scanned) {
+                binding.btnMarkAll.setText("Marked " + updated + "…");
+            }
+
+            @Override
+            public void onComplete(int updated) {
+                resetMarkAllButton();
+                // Older pages are not live, so they are updated here.
+                for (Notification notif : olderNotifications) notif.setRead(true);
+                adapter.notifyDataSetChanged();
+            }
+
+            @Override
+            public void onError(Exception e, int updated) {
+                resetMarkAllButton();
+                Toast.makeText(NotificationLogsActivity.this, "Could not mark all as read", Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        Set<String> broadcastEventIds = new HashSet<>();
+        for (Notification broadcast : broadcasts) {
+            if (!broadcast.isRead()) broadcastEventIds.add(broadcast.getEventId());
+        }
+        broadcastRepository.markAllRead(userId, broadcastEventIds);
+    }
+
+    private void resetMarkAllButton() {
+        binding.btnMarkAll.setEnabled(true);
+        binding.btnMarkAll.setText("Mark all as read");
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
         if (notifListener != null) notifListener.remove();
+        if (broadcastListener != null) broadcastListener.remove();
     }
 }
\ No newline at end of file
@@ -23,6 +23,9 @@ import java.util.Locale;
  * <li><b>Interactive Mode:</b> Allows users to Accept/Decline invites and Follow Back.</li>
  * <li><b>Admin Mode:</b> Read-only view where interactive buttons are hidden.</li>
  * </ul>
+ * Personal notifications and event broadcasts ({@link Notification#isBroadcast()}) share
+ * the list; broadcasts show a bell icon and can only be marked read or dismissed. Archived
+ * entries ({@link Notification#isArchived()}) are shown read-only, as in admin mode.
  * </p>
  */
 public class NotificationLogsAdapter
@@ -62,7 +65,7 @@ public class NotificationLogsAdapter
             new DiffUtil.ItemCallback<Notification>() {
                 @Override
                 public boolean areItemsTheSame(@NonNull Notification a, @NonNull Notification b) {
-                    return a.getId().equals(b.getId());
+                    return a.isBroadcast() == b.isBroadcast() && a.getId().equals(b.getId());
                 }
 
                 @Override
@@ -84,7 +87,7 @@ public class NotificationLogsAdapter
     public void onBindViewHolder(@NonNull VH h, int position) {
         Notification n = getItem(position);
 
-        h.ivAvatar.setImageResource(R.drawable.ic_notification_alert);
+        h.ivAvatar.setImageResource(n.isBroadcast() ? R.drawable.ic_bell : R.drawable.ic_notification_alert);
         h.tvMessage.setText(n.getMessage());
         h.tvTitle.setText(n.getTitle() == null ? "Notification" : n.getTitle());
 
@@ -95,7 +98,7 @@ public class NotificationLogsAdapter
         }
 
         // Admin View Logic: Hide all interactive elements
-        if (isAdminView) {
+        if (isAdminView || n.isArchived()) {
             h.actionsRow.setVisibility(View.GONE);
             h.btnMarkRead.setVisibility(View.GONE);
             h.unreadDot.setVisibility(View.GONE);
@@ -105,8 +108,8 @@ public class NotificationLogsAdapter
         }
 
         String type = n.getType() != null ? n.getType() : "";
-        boolean invite = "invitation".equalsIgnoreCase(type);
-        boolean follower = "new_follower".equalsIgnoreCase(type);
+        boolean invite = !n.isBroadcast() && "invitation".equalsIgnoreCase(type);
+        boolean follower = !n.isBroadcast() && "new_follower".equalsIgnoreCase(type);
 
         h.actionsRow.setVisibility(View.GONE);
         h.btnMarkRead.setVisibility(View.GONE);
@@ -0,0 +1,70 @@
+package com.example.ballerevents;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.Collections;
+
+/**
+ * One-off tool that writes the {@code read} flag on notifications sent by older organizer
+ * screens, which only carry the legacy {@link NotificationInbox#LEGACY_READ_FIELD} flag.
+ * Safe to re-run.
+ */
+public class NotificationReadBackfill {
+
+    private final FirebaseFirestore db;
+
+    public NotificationReadBackfill() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public NotificationReadBackfill(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Copies the legacy flag into {@code read} on every user's notifications that lack it,
+     * so {@link NotificationInbox#markAllRead} and the unread counter see them. One
+     * {@link BulkUpdater} pass per value over the {@code notifications} collection group,
+     * which needs a collection group index on {@link NotificationInbox#LEGACY_READ_FIELD}.
+     *
+     * @param listener Receives progress and the number of notifications updated.
+     */
+    public void backfillAll(BulkUpdater.Listener listener) {
+        Query notifications = db.collectionGroup("notifications");
+        BulkUpdater updater = new BulkUpdater(db);
+        updater.update(notifications.whereEqualTo(NotificationInbox.LEGACY_READ_FIELD, false),
+                Collections.singletonMap("read", false), doc -> doc.contains("read"), new BulkUpdater.Listener() {
+                    @Override
+                    public void onProgress(int updated, int scanned) {
+                        listener.onProgress(updated, scanned);
+                    }
+
+                    @Override
+                    public void onComplete(int unread) {
+                        updater.update(notifications.whereEqualTo(NotificationInbox.LEGACY_READ_FIELD, true),
+                                Collections.singletonMap("read", true), doc -> doc.contains("read"), new BulkUpdater.Listener() {
+                                    @Override
+                                    public void onProgress(int updated, int scanned) {
+                                        listener.onProgress(unread + updated, scanned);
+                                    }
+
+                                    @Override
+                                    public void onComplete(int read) {
+                                        listener.onComplete(unread + read);
+                                    }
+
+                                    @Override
+                                    public void onError(Exception e, int read) {
+                                        listener.onError(e, unread + read);
+                                    }
+                                });
+                    }
+
+                    @Override
+                    public void onError(Exception e, int unread) {
+                        listener.onError(e, unread);
+                    }
+                });
+    }
+}
@@ -28,7 +28,9 @@ import com.google.firebase.firestore.FirebaseFirestore;
  *
  * <p><b>Navigation Note:</b> Event-specific actions (like running a lottery) are NOT performed here.
  * Organizers must navigate to the <b>Event</b> tab, tap a specific event, and use the
- * {@link OrganizerWaitlistActivity} management screen.</p>
+ * {@link OrganizerWaitlistActivity} management screen. While this activity is visible,
+ * {@link AutoDrawScheduler} draws the organizer's events as soon as their registration
+ * closes; {@link AutoDrawWorker}, scheduled from here, does so in the background.</p>
  */
 public class OrganizerActivity extends AppCompatActivity {
 
@@ -39,6 +41,7 @@ public class OrganizerActivity extends AppCompatActivity {
     private FirebaseFirestore db;
     private FirebaseAuth mAuth;
     private String currentUserId;
+    private AutoDrawScheduler autoDrawScheduler;
 
     // Stores the ID of the event selected in the Event Tab (for future features)
     private String selectedEventId;
@@ -58,6 +61,8 @@ public class OrganizerActivity extends AppCompatActivity {
             return;
         }
         currentUserId = mAuth.getCurrentUser().getUid();
+        autoDrawScheduler = new AutoDrawScheduler(db, currentUserId);
+        AutoDrawWorker.schedule(this);
 
         if (binding.btnBack != null) {
             binding.btnBack.setOnClickListener(v -> finish());
@@ -82,6 +87,18 @@ public class OrganizerActivity extends AppCompatActivity {
         loadOrganizerHeaderInfo();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (autoDrawScheduler != null) autoDrawScheduler.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (autoDrawScheduler != null) autoDrawScheduler.stop();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -20,8 +20,10 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.SetOptions;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -40,6 +42,8 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
 
     public static final String EXTRA_EVENT_ID = "EXTRA_EVENT_ID";
     private static final String TAG = "EventCreation";
+    private static final String STATE_POSTER_URI = "STATE_POSTER_URI";
+    private static final String STATE_BANNER_URI = "STATE_BANNER_URI";
 
     private ActivityOrganizerEventCreationBinding binding;
     private FirebaseFirestore db;
@@ -53,6 +57,11 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
     // Original URLs (only used when editing)
     private String existingPosterUrl = null;
     private String existingBannerUrl = null;
+    private Map<String, String> existingPosterVariants = null;
+    private Map<String, String> existingBannerVariants = null;
+
+    // Poster and banner upload in progress, if any
+    private ImageUploadManager.Job uploadJob = null;
 
     // Date/time storage
     private final Calendar eventCal = Calendar.getInstance();
@@ -87,6 +96,13 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
         binding = ActivityOrganizerEventCreationBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
+        if (savedInstanceState != null) {
+            selectedPosterUri = savedInstanceState.getParcelable(STATE_POSTER_URI);
+            selectedBannerUri = savedInstanceState.getParcelable(STATE_BANNER_URI);
+            if (selectedPosterUri != null) Glide.with(this).load(selectedPosterUri).into(binding.ivEventPoster);
+            if (selectedBannerUri != null) Glide.with(this).load(selectedBannerUri).centerCrop().into(binding.ivPageHeader);
+        }
+
         db = FirebaseFirestore.getInstance();
         auth = FirebaseAuth.getInstance();
         eventIdToEdit = getIntent().getStringExtra(EXTRA_EVENT_ID);
@@ -105,6 +121,21 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
         binding.btnBack.setOnClickListener(v -> finish());
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // Keeps the picked images, so saving after a restart resumes their uploads
+        outState.putParcelable(STATE_POSTER_URI, selectedPosterUri);
+        outState.putParcelable(STATE_BANNER_URI, selectedBannerUri);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Keep upload progress across configuration changes; drop it when the screen is left
+        if (uploadJob != null) uploadJob.cancel(isFinishing());
+    }
+
     /**
      * Sets up click listeners for image selection views.
      */
@@ -141,6 +172,8 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
         new TimePickerDialog(this, (view, h, min) -> {
             cal.set(Calendar.HOUR_OF_DAY, h);
             cal.set(Calendar.MINUTE, min);
+            cal.set(Calendar.SECOND, 0);
+            cal.set(Calendar.MILLISECOND, 0);
             target.setText(timeFormat.format(cal.getTime()));
         }, cal.get(Calendar.HOUR_OF_DAY), cal.get(Calendar.MINUTE), false).show();
     }
@@ -164,6 +197,12 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
                     binding.etDate.setText(e.getDate());
                     binding.etTime.setText(e.getTime());
 
+                    // Keep the start time unless the organizer picks a new date or time
+                    long startTime = e.getStartTimeMillis() > 0
+                            ? e.getStartTimeMillis()
+                            : EventFieldsBackfill.parseLegacyStartTime(e.getDate(), e.getTime());
+                    if (startTime > 0) eventCal.setTimeInMillis(startTime);
+
                     if (e.getMaxAttendees() > 0) {
                         binding.etMaxAttendees.setText(String.valueOf(e.getMaxAttendees()));
                     }
@@ -173,13 +212,19 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
                     // Poster
                     if (e.getEventPosterUrl() != null && !e.getEventPosterUrl().isEmpty()) {
                         existingPosterUrl = e.getEventPosterUrl();
-                        Glide.with(this).load(existingPosterUrl).into(binding.ivEventPoster);
+                        existingPosterVariants = e.getEventPosterVariants();
+                        if (selectedPosterUri == null) {
+                            Glide.with(this).load(existingPosterUrl).into(binding.ivEventPoster);
+                        }
                     }
 
                     // Banner
                     if (e.getEventBannerUrl() != null && !e.getEventBannerUrl().isEmpty()) {
                         existingBannerUrl = e.getEventBannerUrl();
-                        Glide.with(this).load(existingBannerUrl).centerCrop().into(binding.ivPageHeader);
+                        existingBannerVariants = e.getEventBannerVariants();
+                        if (selectedBannerUri == null) {
+                            Glide.with(this).load(existingBannerUrl).centerCrop().into(binding.ivPageHeader);
+                        }
                     }
 
                     // Registration window
@@ -235,19 +280,20 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
 
         Map<String, Object> data = new HashMap<>();
         data.put("title", title);
+        data.put("titleLower", EventFieldsBackfill.titleKey(title));
         data.put("description", description);
         data.put("date", date);
         data.put("time", time);
+        data.put("startTimeMillis", eventCal.getTimeInMillis());
         data.put("locationName", location);
         data.put("maxAttendees", capacity);
         data.put("geolocationRequired", geolocationRequired);
 
-        if (!TextUtils.isEmpty(binding.etRegStartDate.getText())) {
-            data.put("registrationOpenAtMillis", regStartCal.getTimeInMillis());
-        }
-        if (!TextUtils.isEmpty(binding.etRegEndDate.getText())) {
-            data.put("registrationCloseAtMillis", regEndCal.getTimeInMillis());
-        }
+        // 0 means no limit; it is always written so "Open Now" searches can match it
+        data.put("registrationOpenAtMillis", TextUtils.isEmpty(binding.etRegStartDate.getText())
+                ? 0L : regStartCal.getTimeInMillis());
+        data.put("registrationCloseAtMillis", TextUtils.isEmpty(binding.etRegEndDate.getText())
+                ? 0L : regEndCal.getTimeInMillis());
 
         if (auth.getCurrentUser() != null) {
             data.put("organizerId", auth.getCurrentUser().getUid());
@@ -257,22 +303,25 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
     }
 
     /**
-     * Handles the asynchronous upload of poster and banner images.
-     * Once uploads are complete, it proceeds to save event data to Firestore.
+     * Uploads the selected poster and banner together, then saves the event to Firestore.
+     * <p>
+     * Both images upload in parallel through {@link ImageUploadManager} and the event is saved
+     * only once both are stored. If either fails, the other is stopped; saving again resumes
+     * both from where they stopped. The images being replaced are deleted only once the event
+     * document points at the new ones (see {@link #deleteReplacedImages}), so a failed upload
+     * or save never leaves the event without its old image.
+     * </p>
      *
      * @param data The map of event data to be saved.
      */
     private void uploadImagesAndSave(Map<String, Object> data) {
 
-        int uploadCount = 0;
-
-        if (selectedPosterUri != null) uploadCount++;
-        if (selectedBannerUri != null) uploadCount++;
-
-        final int[] remaining = {uploadCount};
+        List<ImageUploadManager.Request> requests = new ArrayList<>();
+        if (selectedPosterUri != null) requests.add(ImageUploadHelper.eventPosterRequest(selectedPosterUri));
+        if (selectedBannerUri != null) requests.add(ImageUploadHelper.eventBannerRequest(selectedBannerUri));
 
         // No uploads needed → save directly
-        if (uploadCount == 0) {
+        if (requests.isEmpty()) {
 
             if (existingPosterUrl != null) data.put("eventPosterUrl", existingPosterUrl);
             if (existingBannerUrl != null) data.put("eventBannerUrl", existingBannerUrl);
@@ -281,57 +330,59 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
             return;
         }
 
-        // Upload poster
-        if (selectedPosterUri != null) {
-            ImageUploadHelper.uploadEventPoster(selectedPosterUri, new ImageUploadHelper.UploadCallback() {
-                @Override
-                public void onSuccess(String downloadUrl) {
-                    data.put("eventPosterUrl", downloadUrl);
+        uploadJob = new ImageUploadManager(this).upload(requests, new ImageUploadManager.Listener() {
+            @Override
+            public void onComplete(List<ImageUploadManager.UploadedImage> images) {
+                uploadJob = null;
+                int next = 0;
 
-                    if (existingPosterUrl != null && !existingPosterUrl.isEmpty()) {
-                        ImageUploadHelper.deleteImage(existingPosterUrl, null);
-                    }
-
-                    if (--remaining[0] == 0) {
-                        saveEventToFirestore(data);
-                    }
+                if (selectedPosterUri != null) {
+                    ImageUploadManager.UploadedImage poster = images.get(next++);
+                    data.put("eventPosterUrl", poster.downloadUrl);
+                    data.put("eventPosterVariants", poster.variantUrls);
                 }
 
-                @Override
-                public void onFailure(Exception e) {
-                    resetSaveButton();
-                    Toast.makeText(OrganizerEventCreationActivity.this, "Poster upload failed", Toast.LENGTH_LONG).show();
+                if (selectedBannerUri != null) {
+                    ImageUploadManager.UploadedImage banner = images.get(next);
+                    data.put("eventBannerUrl", banner.downloadUrl);
+                    data.put("eventBannerVariants", banner.variantUrls);
                 }
-            });
-        }
-
-        // Upload banner
-        if (selectedBannerUri != null) {
-            ImageUploadHelper.uploadEventBanner(selectedBannerUri, new ImageUploadHelper.UploadCallback() {
-                @Override
-                public void onSuccess(String downloadUrl) {
-                    data.put("eventBannerUrl", downloadUrl);
 
-                    if (existingBannerUrl != null && !existingBannerUrl.isEmpty()) {
-                        ImageUploadHelper.deleteImage(existingBannerUrl, null);
-                    }
+                saveEventToFirestore(data);
+            }
 
-                    if (--remaining[0] == 0) {
-                        saveEventToFirestore(data);
-                    }
-                }
+            @Override
+            public void onError(Exception e) {
+                uploadJob = null;
+                Log.e(TAG, "Image upload failed", e);
+                resetSaveButton();
+                Toast.makeText(OrganizerEventCreationActivity.this,
+                        "Image upload failed. Save again to resume.", Toast.LENGTH_LONG).show();
+            }
+        });
+    }
 
-                @Override
-                public void onFailure(Exception e) {
-                    resetSaveButton();
-                    Toast.makeText(OrganizerEventCreationActivity.this, "Banner upload failed", Toast.LENGTH_LONG).show();
-                }
-            });
+    /**
+     * Deletes the stored poster and banner that the saved event no longer uses. Called only
+     * after the save succeeded.
+     */
+    private void deleteReplacedImages() {
+        if (selectedPosterUri != null) {
+            ImageUploadHelper.deleteVariants(existingPosterVariants);
+            if (existingPosterUrl != null && !existingPosterUrl.isEmpty()) {
+                ImageUploadHelper.deleteImage(existingPosterUrl, null);
+            }
+        }
+        if (selectedBannerUri != null) {
+            ImageUploadHelper.deleteVariants(existingBannerVariants);
+            if (existingBannerUrl != null && !existingBannerUrl.isEmpty()) {
+                ImageUploadHelper.deleteImage(existingBannerUrl, null);
+            }
         }
     }
 
     /**
-     * Commits the event data to Firestore.
+     * Commits the event data to Firestore, then deletes the images it replaced.
      *
      * @param data The final map of event fields.
      */
@@ -341,6 +392,7 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
             db.collection("events").document(eventIdToEdit)
                     .set(data, SetOptions.merge())
                     .addOnSuccessListener(a -> {
+                        deleteReplacedImages();
                         Toast.makeText(this, "Event updated!", Toast.LENGTH_SHORT).show();
                         finish();
                     })
@@ -349,8 +401,16 @@ public class OrganizerEventCreationActivity extends AppCompatActivity {
                         Toast.makeText(this, "Update failed", Toast.LENGTH_LONG).show();
                     });
         } else {
+            // New events keep their entrants in the subcollection, with zeroed counters
+            data.put("entrantStorage", Event.STORAGE_SUBCOLLECTION);
+            data.put("waitlistCount", 0);
+            data.put("selectedCount", 0);
+            data.put("cancelledCount", 0);
+            data.put("enrolledCount", 0);
+
             db.collection("events").add(data)
                     .addOnSuccessListener(a -> {
+                        deleteReplacedImages();
                         Toast.makeText(this, "Event created!", Toast.LENGTH_SHORT).show();
                         finish();
                     })
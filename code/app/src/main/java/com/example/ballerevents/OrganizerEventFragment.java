@@ -183,7 +183,7 @@ public class OrganizerEventFragment extends Fragment {
 
         db.collection("events")
                 .whereEqualTo("organizerId", currentUserId)
-                .orderBy("date", Query.Direction.DESCENDING)
+                .orderBy("startTimeMillis", Query.Direction.DESCENDING)
                 .get()
                 .addOnSuccessListener(snapshot -> {
                     binding.progressBar.setVisibility(View.GONE);
@@ -9,23 +9,28 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.ballerevents.databinding.ActivityOrganizerFinalEntrantsBinding;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Activity that displays the list of entrants who have been chosen in the lottery.
- * This corresponds to users whose IDs are in the event's {@code chosenUserIds} list.
+ * This corresponds to entrants who were drawn, invited or accepted, as reported by
+ * {@link EntrantRepository}.
  */
 public class OrganizerFinalEntrantsActivity extends AppCompatActivity {
 
     public static final String EXTRA_EVENT_ID = "EXTRA_EVENT_ID";
     private static final String TAG = "OrganizerFinalEntrants";
+    private static final List<String> CHOSEN_STATUSES = Arrays.asList(
+            Entrant.STATUS_CHOSEN, Entrant.STATUS_INVITED, Entrant.STATUS_ACCEPTED);
 
     private ActivityOrganizerFinalEntrantsBinding binding;
     private FirebaseFirestore db;
+    private FirestoreBatchFetcher batchFetcher;
+    private EntrantRepository entrantRepository;
 
     private String eventId;
     private OrganizerFinalEntrantsAdapter adapter;
@@ -38,6 +43,8 @@ public class OrganizerFinalEntrantsActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         db = FirebaseFirestore.getInstance();
+        batchFetcher = new FirestoreBatchFetcher(db);
+        entrantRepository = new EntrantRepository(db);
 
         eventId = getIntent().getStringExtra(EXTRA_EVENT_ID);
         if (eventId == null || eventId.isEmpty()) {
@@ -62,7 +69,7 @@ public class OrganizerFinalEntrantsActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads the event document to retrieve the {@code chosenUserIds} list.
+     * Loads the event document to resolve the IDs of the chosen entrants.
      * Subsequently fetches the {@link UserProfile} documents for those IDs.
      */
     private void fetchFinalEntrants() {
@@ -79,39 +86,21 @@ public class OrganizerFinalEntrantsActivity extends AppCompatActivity {
                         return;
                     }
 
-                    List<String> chosenIds = event.getChosenUserIds();
-                    if (chosenIds == null || chosenIds.isEmpty()) {
-                        binding.tvMessage.setText("No chosen entrants yet.");
-                        binding.tvMessage.setVisibility(android.view.View.VISIBLE);
-                        finalEntrantProfiles.clear();
-                        adapter.notifyDataSetChanged();
-                        return;
-                    }
+                    event.setId(snapshot.getId());
 
-                    db.collection("users")
-                            .whereIn(FieldPath.documentId(), chosenIds)
-                            .get()
-                            .addOnSuccessListener(userSnap -> {
-                                finalEntrantProfiles.clear();
-                                for (var d : userSnap.getDocuments()) {
-                                    UserProfile u = d.toObject(UserProfile.class);
-                                    if (u != null) {
-                                        finalEntrantProfiles.add(u);
-                                    }
+                    entrantRepository.fetchUserIdsByStatus(event, CHOSEN_STATUSES,
+                            new FirestoreEventRepository.ListCallback<String>() {
+                                @Override
+                                public void onSuccess(List<String> chosenIds) {
+                                    showFinalEntrants(chosenIds);
                                 }
 
-                                if (finalEntrantProfiles.isEmpty()) {
-                                    binding.tvMessage.setText("No chosen entrants found.");
+                                @Override
+                                public void onError(Exception e) {
+                                    Log.e(TAG, "Error loading chosen entrants", e);
+                                    binding.tvMessage.setText("Error loading entrants.");
                                     binding.tvMessage.setVisibility(android.view.View.VISIBLE);
-                                } else {
-                                    binding.tvMessage.setVisibility(android.view.View.GONE);
                                 }
-                                adapter.notifyDataSetChanged();
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error loading chosen entrants users", e);
-                                binding.tvMessage.setText("Error loading entrants.");
-                                binding.tvMessage.setVisibility(android.view.View.VISIBLE);
                             });
                 })
                 .addOnFailureListener(e -> {
@@ -120,4 +109,32 @@ public class OrganizerFinalEntrantsActivity extends AppCompatActivity {
                     binding.tvMessage.setVisibility(android.view.View.VISIBLE);
                 });
     }
+
+    private void showFinalEntrants(List<String> chosenIds) {
+        if (chosenIds.isEmpty()) {
+            binding.tvMessage.setText("No chosen entrants yet.");
+            binding.tvMessage.setVisibility(android.view.View.VISIBLE);
+            finalEntrantProfiles.clear();
+            adapter.notifyDataSetChanged();
+            return;
+        }
+
+        batchFetcher.fetchProfiles(chosenIds, (profiles, failedIds, error) -> {
+            if (!failedIds.isEmpty()) {
+                Log.e(TAG, "Error loading chosen entrants users", error);
+            }
+            finalEntrantProfiles.clear();
+            finalEntrantProfiles.addAll(profiles);
+
+            if (finalEntrantProfiles.isEmpty()) {
+                binding.tvMessage.setText(failedIds.isEmpty()
+                        ? "No chosen entrants found."
+                        : "Error loading entrants.");
+                binding.tvMessage.setVisibility(android.view.View.VISIBLE);
+            } else {
+                binding.tvMessage.setVisibility(android.view.View.GONE);
+            }
+            adapter.notifyDataSetChanged();
+        });
+    }
 }
\ No newline at end of file
@@ -56,7 +56,7 @@ public class OrganizerFinalEntrantsAdapter
         holder.binding.tvEmail.setText(user.getEmail());
 
         Glide.with(holder.itemView.getContext())
-                .load(user.getProfilePictureUrl())
+                .load(ImageVariants.forView(holder.binding.ivAvatar, user.getProfilePictureVariants(), user.getProfilePictureUrl()))
                 .placeholder(R.drawable.placeholder_avatar1)
                 .error(R.drawable.placeholder_avatar1)
                 .into(holder.binding.ivAvatar);
@@ -16,7 +16,6 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.ballerevents.databinding.FragmentOrganizerFollowingBinding;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 
@@ -36,6 +35,7 @@ public class OrganizerFollowingFragment extends Fragment {
 
     private FragmentOrganizerFollowingBinding binding;
     private FirebaseFirestore db;
+    private FirestoreBatchFetcher batchFetcher;
     private FirebaseAuth mAuth;
     private String currentUserId;
 
@@ -47,6 +47,7 @@ public class OrganizerFollowingFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         db = FirebaseFirestore.getInstance();
+        batchFetcher = new FirestoreBatchFetcher(db);
         mAuth = FirebaseAuth.getInstance();
         if (mAuth.getCurrentUser() != null) {
             currentUserId = mAuth.getCurrentUser().getUid();
@@ -164,27 +165,14 @@ public class OrganizerFollowingFragment extends Fragment {
             return;
         }
 
-        List<String> chunk = ids.subList(0, Math.min(ids.size(), 10));
-
-        db.collection("users")
-                .whereIn(FieldPath.documentId(), chunk)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<UserProfile> profiles = new ArrayList<>();
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
-                        UserProfile p = doc.toObject(UserProfile.class);
-                        if (p != null) {
-                            p.setUid(doc.getId());
-                            profiles.add(p);
-                        }
-                    }
-                    adapter.submitList(profiles);
-                    emptyView.setVisibility(profiles.isEmpty() ? View.VISIBLE : View.GONE);
-                })
-                .addOnFailureListener(e -> {
-                    Log.w(TAG, "Error fetching profile list", e);
-                    emptyView.setVisibility(View.VISIBLE);
-                });
+        batchFetcher.fetchProfiles(ids, (profiles, failedIds, error) -> {
+            if (binding == null) return;
+            if (!failedIds.isEmpty()) {
+                Log.w(TAG, "Error fetching " + failedIds.size() + " profiles", error);
+            }
+            adapter.submitList(profiles);
+            emptyView.setVisibility(profiles.isEmpty() ? View.VISIBLE : View.GONE);
+        });
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.example.ballerevents;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.Toast;
 
@@ -11,24 +12,29 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.ballerevents.databinding.ActivityOrganizerLotteryWinnersBinding;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Activity that displays the list of entrants who have won the lottery for a specific event.
  * <p>
- * Fetches the list of user IDs from the event's `chosenUserIds` field and retrieves
- * their profile information to display in a RecyclerView.
+ * Fetches the IDs of the drawn entrants via {@link EntrantRepository} and retrieves
+ * their profile information in batched chunks via {@link FirestoreBatchFetcher},
+ * updating the list once per chunk in the winners' original order.
  * </p>
  */
 public class OrganizerLotteryWinnersActivity extends AppCompatActivity {
 
     public static final String EXTRA_EVENT_ID = "eventId";
+    private static final String TAG = "LotteryWinnersActivity";
+    private static final List<String> WINNER_STATUSES = Arrays.asList(
+            Entrant.STATUS_CHOSEN, Entrant.STATUS_INVITED, Entrant.STATUS_ACCEPTED);
 
     private ActivityOrganizerLotteryWinnersBinding binding;
     private FirebaseFirestore db;
+    private FirestoreBatchFetcher batchFetcher;
+    private EntrantRepository entrantRepository;
 
-    private final List<UserProfile> winners = new ArrayList<>();
     private OrganizerLotteryWinnersAdapter adapter;
 
     @Override
@@ -38,8 +44,10 @@ public class OrganizerLotteryWinnersActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         db = FirebaseFirestore.getInstance();
+        batchFetcher = new FirestoreBatchFetcher(db);
+        entrantRepository = new EntrantRepository(db);
 
-        adapter = new OrganizerLotteryWinnersAdapter(winners);
+        adapter = new OrganizerLotteryWinnersAdapter();
         binding.recyclerWinners.setLayoutManager(new LinearLayoutManager(this));
         binding.recyclerWinners.setAdapter(adapter);
 
@@ -71,26 +79,52 @@ public class OrganizerLotteryWinnersActivity extends AppCompatActivity {
                     }
 
                     Event event = snapshot.toObject(Event.class);
-                    if (event == null || event.getChosenUserIds() == null || event.getChosenUserIds().isEmpty()) {
+                    if (event == null) {
                         binding.tvMessage.setText("No lottery winners selected yet.");
                         binding.tvMessage.setVisibility(View.VISIBLE);
                         return;
                     }
+                    event.setId(snapshot.getId());
+
+                    entrantRepository.fetchUserIdsByStatus(event, WINNER_STATUSES,
+                            new FirestoreEventRepository.ListCallback<String>() {
+                                @Override
+                                public void onSuccess(List<String> winnerIds) {
+                                    showWinners(winnerIds);
+                                }
+
+                                @Override
+                                public void onError(Exception e) {
+                                    Log.w(TAG, "Failed to load winners", e);
+                                    binding.tvMessage.setText("Error loading winners.");
+                                    binding.tvMessage.setVisibility(View.VISIBLE);
+                                }
+                            });
+                });
+    }
 
-                    List<String> winnerIds = event.getChosenUserIds();
-                    winners.clear();
-
-                    for (String uid : winnerIds) {
-                        db.collection("users").document(uid)
-                                .get()
-                                .addOnSuccessListener(doc -> {
-                                    UserProfile p = doc.toObject(UserProfile.class);
-                                    if (p != null) {
-                                        winners.add(p);
-                                        adapter.notifyDataSetChanged();
-                                    }
-                                });
+    /**
+     * Resolves the winners' profiles, rendering each chunk as it arrives.
+     *
+     * @param winnerIds The IDs of the drawn entrants.
+     */
+    private void showWinners(List<String> winnerIds) {
+        if (winnerIds.isEmpty()) {
+            binding.tvMessage.setText("No lottery winners selected yet.");
+            binding.tvMessage.setVisibility(View.VISIBLE);
+            return;
+        }
+        binding.tvMessage.setVisibility(View.GONE);
+
+        batchFetcher.fetchProfiles(winnerIds,
+                (loadedSoFar, completed, total) -> adapter.submitList(loadedSoFar),
+                (profiles, failedIds, error) -> {
+                    adapter.submitList(profiles);
+                    if (!failedIds.isEmpty()) {
+                        Log.w(TAG, "Failed to load " + failedIds.size() + " winners", error);
+                        binding.tvMessage.setText("Some winners could not be loaded.");
+                        binding.tvMessage.setVisibility(View.VISIBLE);
                     }
                 });
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,32 @@
 package com.example.ballerevents;
 
 import android.view.LayoutInflater;
-import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.ballerevents.databinding.ItemProfileSimpleBinding;
 
-import java.util.List;
+import java.util.Objects;
 
 /**
  * Adapter for displaying a simple list of lottery winners.
  * <p>
  * Uses {@code item_profile_simple} layout to show basic user information
- * (name and email) for selected entrants.
+ * (name and email) for selected entrants. Backed by {@link ListAdapter} so that
+ * incremental submissions only rebind the rows that changed.
  * </p>
  */
-public class OrganizerLotteryWinnersAdapter extends RecyclerView.Adapter<OrganizerLotteryWinnersAdapter.ViewHolder> {
-
-    private final List<UserProfile> profiles;
+public class OrganizerLotteryWinnersAdapter extends ListAdapter<UserProfile, OrganizerLotteryWinnersAdapter.ViewHolder> {
 
     /**
-     * Constructs the adapter with a list of user profiles.
-     *
-     * @param profiles The list of users who won the lottery.
+     * Constructs an empty adapter. Populate it with {@link #submitList}.
      */
-    public OrganizerLotteryWinnersAdapter(List<UserProfile> profiles) {
-        this.profiles = profiles;
+    public OrganizerLotteryWinnersAdapter() {
+        super(ProfileDiffCallback);
     }
 
     @NonNull
@@ -45,16 +42,11 @@ public class OrganizerLotteryWinnersAdapter extends RecyclerView.Adapter<Organiz
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        UserProfile p = profiles.get(position);
+        UserProfile p = getItem(position);
         holder.binding.tvName.setText(p.getName());
         holder.binding.tvEmail.setText(p.getEmail());
     }
 
-    @Override
-    public int getItemCount() {
-        return profiles.size();
-    }
-
     static class ViewHolder extends RecyclerView.ViewHolder {
         ItemProfileSimpleBinding binding;
 
@@ -63,4 +55,21 @@ public class OrganizerLotteryWinnersAdapter extends RecyclerView.Adapter<Organiz
             binding = b;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * DiffUtil callback identifying winners by UID and comparing the displayed fields.
+     */
+    private static final DiffUtil.ItemCallback<UserProfile> ProfileDiffCallback =
+            new DiffUtil.ItemCallback<UserProfile>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull UserProfile oldItem, @NonNull UserProfile newItem) {
+                    return Objects.equals(oldItem.getUid(), newItem.getUid());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull UserProfile oldItem, @NonNull UserProfile newItem) {
+                    return Objects.equals(oldItem.getName(), newItem.getName())
+                            && Objects.equals(oldItem.getEmail(), newItem.getEmail());
+                }
+            };
+}
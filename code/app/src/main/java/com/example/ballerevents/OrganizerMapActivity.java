@@ -52,7 +52,7 @@ public class OrganizerMapActivity extends AppCompatActivity implements OnMapRead
     }
 
     /**
-     * Fetches the event document and retrieves the map of entrant locations.
+     * Fetches the event document and then the entrant locations for its storage mode.
      */
     private void loadEventLocations() {
         if (eventId == null) return;
@@ -60,14 +60,25 @@ public class OrganizerMapActivity extends AppCompatActivity implements OnMapRead
         db.collection("events").document(eventId).get()
                 .addOnSuccessListener(snapshot -> {
                     Event event = snapshot.toObject(Event.class);
-                    if (event != null) {
-                        Map<String, GeoPoint> locations = event.getEntrantLocations();
-                        if (locations != null && !locations.isEmpty()) {
-                            displayMarkers(locations);
-                        } else {
-                            Toast.makeText(this, "No locations to display.", Toast.LENGTH_SHORT).show();
-                        }
-                    }
+                    if (event == null) return;
+                    event.setId(snapshot.getId());
+
+                    new EntrantRepository(db).fetchLocations(event,
+                            new FirestoreEventRepository.ItemCallback<Map<String, GeoPoint>>() {
+                                @Override
+                                public void onSuccess(Map<String, GeoPoint> locations) {
+                                    if (locations != null && !locations.isEmpty()) {
+                                        displayMarkers(locations);
+                                    } else {
+                                        Toast.makeText(OrganizerMapActivity.this, "No locations to display.", Toast.LENGTH_SHORT).show();
+                                    }
+                                }
+
+                                @Override
+                                public void onError(Exception e) {
+                                    Toast.makeText(OrganizerMapActivity.this, "Could not load locations.", Toast.LENGTH_SHORT).show();
+                                }
+                            });
                 });
     }
 
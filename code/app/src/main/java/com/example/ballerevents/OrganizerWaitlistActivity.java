@@ -21,13 +21,9 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.ballerevents.databinding.ActivityOrganizerWaitlistBinding;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.WriteBatch;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.MultiFormatWriter;
 import com.google.zxing.common.BitMatrix;
@@ -35,10 +31,10 @@ import com.journeyapps.barcodescanner.BarcodeEncoder;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Activity for Organizers to manage the waitlist for a specific event.
@@ -59,12 +55,13 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
     private static final String TAG = "OrganizerWaitlistActivity";
     private static final int REQUEST_STORAGE_PERMISSION = 100;
 
-    private enum ViewMode {
-        WAITLIST, SELECTED, CANCELLED, ENROLLED
-    }
-
     private ActivityOrganizerWaitlistBinding binding;
     private FirebaseFirestore db;
+    private FirestoreBatchFetcher batchFetcher;
+    private EntrantRepository entrantRepository;
+    private LotteryEngine lotteryEngine;
+    private NotificationDispatcher notificationDispatcher;
+    private BroadcastRepository broadcastRepository;
     private String eventId;
     private Event currentEvent;
     private ListenerRegistration eventListener;
@@ -72,6 +69,12 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
     private WaitlistUserAdapter listAdapter;
     private final List<UserProfile> displayedProfiles = new ArrayList<>();
     private ViewMode currentMode = ViewMode.WAITLIST;
+    private int profileRequestId = 0;
+    /** ID of a draw that failed part-way; reused when the organizer retries. */
+    private String failedDrawId;
+    private int failedDrawSpots;
+    private boolean pendingDrawsResumed = false;
+    private AlertDialog drawProgressDialog;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -80,6 +83,11 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         db = FirebaseFirestore.getInstance();
+        batchFetcher = new FirestoreBatchFetcher(db);
+        entrantRepository = new EntrantRepository(db);
+        lotteryEngine = new LotteryEngine(db);
+        notificationDispatcher = new NotificationDispatcher(db);
+        broadcastRepository = new BroadcastRepository(db);
         eventId = getIntent().getStringExtra(EXTRA_EVENT_ID);
 
         if (eventId == null) {
@@ -137,7 +145,7 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
      * @param selectedCount Number of currently selected items.
      */
     private void updateUIBasedOnSelection(int selectedCount) {
-        String modeName = getModeName(currentMode);
+        String modeName = currentMode.label();
         if (selectedCount > 0) {
             binding.btnNotifyAll.setText("Notify Selected (" + selectedCount + ")");
             binding.btnNotifyAll.setBackgroundColor(getColor(R.color.purple_500));
@@ -148,20 +156,11 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
 
         if (currentEvent != null) {
             int max = currentEvent.getMaxAttendees();
-            int waiting = (currentEvent.getWaitlistUserIds() != null) ? currentEvent.getWaitlistUserIds().size() : 0;
+            int waiting = currentEvent.getWaitlistCount();
             binding.tvCapacityInfo.setText(String.format("Capacity: %d | Checked: %d | Waiting: %d", max, selectedCount, waiting));
         }
     }
 
-    private String getModeName(ViewMode mode) {
-        switch (mode) {
-            case SELECTED: return "Selected";
-            case CANCELLED: return "Cancelled";
-            case ENROLLED: return "Enrolled";
-            default: return "Waitlist";
-        }
-    }
-
     /**
      * Sets up click listeners for all interactive buttons.
      */
@@ -169,7 +168,7 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
         binding.btnDrawLottery.setOnClickListener(v -> handleDrawClick());
         binding.btnGenerateQr.setOnClickListener(v -> generateAndSaveQRCode());
         binding.btnBack.setOnClickListener(v -> finish());
-        binding.btnExportCsv.setOnClickListener(v -> exportAcceptedEntrantsToCsv());
+        binding.btnExportCsv.setOnClickListener(v -> showExportOptions());
         binding.btnFilter.setOnClickListener(this::showFilterMenu);
 
         binding.btnNotifyAll.setOnClickListener(v -> {
@@ -179,9 +178,11 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
                     Toast.makeText(this, "List is empty.", Toast.LENGTH_SHORT).show();
                     return;
                 }
-                promptForNotification(displayedProfiles, "All " + getModeName(currentMode));
+                List<String> audience = currentMode.statuses();
+                promptForNotification("All " + currentMode.label(), msg -> sendBroadcast(audience, msg));
             } else {
-                promptForNotification(selectedUsers, "Selected (" + selectedUsers.size() + ")");
+                promptForNotification("Selected (" + selectedUsers.size() + ")",
+                        msg -> sendBatchNotification(selectedUsers, msg));
             }
         });
     }
@@ -211,7 +212,7 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
                     startActivity(intent);
                     return true;
             }
-            binding.tvTitle.setText(getModeName(currentMode));
+            binding.tvTitle.setText(currentMode.label());
             binding.btnDrawLottery.setVisibility(currentMode == ViewMode.WAITLIST ? View.VISIBLE : View.GONE);
 
             listAdapter.clearSelection();
@@ -236,7 +237,8 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
                 .setItems(options.toArray(new String[0]), (dialog, which) -> {
                     String selection = options.get(which);
                     if (selection.equals("Send Message")) {
-                        promptForNotification(Collections.singletonList(user), user.getName());
+                        promptForNotification(user.getName(),
+                                msg -> sendBatchNotification(Collections.singletonList(user), msg));
                     } else if (selection.equals("Cancel Entrant")) {
                         confirmCancelEntrant(user);
                     }
@@ -257,65 +259,106 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
         String uid = user.getUid();
         if (uid == null) return;
 
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("selectedUserIds", FieldValue.arrayRemove(uid));
-        updates.put("cancelledUserIds", FieldValue.arrayUnion(uid));
-        updates.put("invitationStatus." + uid, "cancelled");
+        entrantRepository.cancelEntrant(eventId, uid, new FirestoreEventRepository.VoidCallback() {
+            @Override
+            public void onSuccess() {
+                Toast.makeText(OrganizerWaitlistActivity.this, "Cancelled.", Toast.LENGTH_SHORT).show();
+                sendCancellationNotification(user);
+            }
 
-        db.collection("events").document(eventId).update(updates)
-                .addOnSuccessListener(a -> {
-                    Toast.makeText(this, "Cancelled.", Toast.LENGTH_SHORT).show();
-                    sendCancellationNotification(user);
-                });
+            @Override
+            public void onError(Exception e) {
+                Log.w(TAG, "Cancel failed", e);
+                Toast.makeText(OrganizerWaitlistActivity.this, "Could not cancel entrant.", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void sendCancellationNotification(UserProfile user) {
-        DocumentReference notifRef = db.collection("users").document(user.getUid())
-                .collection("notifications").document();
-        Map<String, Object> data = new HashMap<>();
-        data.put("title", "Event Update: " + currentEvent.getTitle());
-        data.put("message", "Your invitation has been cancelled.");
-        data.put("eventId", eventId);
-        data.put("timestamp", new Date());
-        data.put("isRead", false);
-        notifRef.set(data);
+        notificationDispatcher.send(
+                new Notification("Event Update: " + currentEvent.getTitle(),
+                        "Your invitation has been cancelled.", eventId, "general"),
+                user.getUid(), null);
     }
 
     /**
-     * Exports the list of accepted entrants to a CSV file.
+     * Lets the organizer choose what to export: the accepted entrants' names and emails as
+     * CSV, or every list in a chosen format with chosen columns.
      */
-    private void exportAcceptedEntrantsToCsv() {
+    private void showExportOptions() {
         if (currentEvent == null) return;
-        List<String> acceptedIds = new ArrayList<>();
-        if (currentEvent.getInvitationStatus() != null) {
-            for (Map.Entry<String, String> entry : currentEvent.getInvitationStatus().entrySet()) {
-                if ("accepted".equals(entry.getValue())) acceptedIds.add(entry.getKey());
-            }
-        }
-        if (acceptedIds.isEmpty()) {
-            Toast.makeText(this, "No accepted entrants.", Toast.LENGTH_SHORT).show();
-            return;
+        String[] choices = {"Enrolled (CSV)", "All lists (CSV)", "All lists (JSON Lines)",
+                "All lists (CSV, gzip)", "All lists (JSON Lines, gzip)"};
+        new AlertDialog.Builder(this)
+                .setTitle("Export entrants")
+                .setItems(choices, (d, which) -> {
+                    if (which == 0) {
+                        exportEntrants(ExportOptions.ACCEPTED_CSV);
+                        return;
+                    }
+                    ExportFormat format = which % 2 == 1 ? ExportFormat.CSV : ExportFormat.JSON_LINES;
+                    promptForColumns(format, which >= 3);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void promptForColumns(ExportFormat format, boolean gzip) {
+        ExportColumn[] columns = ExportColumn.values();
+        String[] headers = new String[columns.length];
+        boolean[] checked = new boolean[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            headers[i] = columns[i].header;
+            checked[i] = true;
         }
+        new AlertDialog.Builder(this)
+                .setTitle("Columns")
+                .setMultiChoiceItems(headers, checked, (d, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Export", (d, w) -> {
+                    List<ExportColumn> selected = new ArrayList<>();
+                    for (int i = 0; i < columns.length; i++) {
+                        if (checked[i]) selected.add(columns[i]);
+                    }
+                    if (selected.isEmpty()) {
+                        Toast.makeText(this, "Select at least one column.", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    exportEntrants(new ExportOptions(format, gzip, selected, EnumSet.allOf(ViewMode.class)));
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Exports entrants to Downloads, showing the number of rows written in the title while
+     * the export runs.
+     */
+    private void exportEntrants(ExportOptions options) {
+        binding.btnExportCsv.setEnabled(false);
         binding.progressBar.setVisibility(View.VISIBLE);
-        db.collection("users")
-                .whereIn(FieldPath.documentId(), acceptedIds.subList(0, Math.min(acceptedIds.size(), 10)))
-                .get()
-                .addOnSuccessListener(snap -> {
-                    List<UserProfile> profiles = snap.toObjects(UserProfile.class);
-                    CsvExportHelper.exportAcceptedEntrants(this, currentEvent.getTitle(), profiles, new CsvExportHelper.ExportCallback() {
-                        @Override public void onSuccess(String path) {
-                            Toast.makeText(OrganizerWaitlistActivity.this, "Saved: " + path, Toast.LENGTH_LONG).show();
-                            binding.progressBar.setVisibility(View.GONE);
-                        }
-                        @Override public void onFailure(Exception e) {
-                            Toast.makeText(OrganizerWaitlistActivity.this, "Failed.", Toast.LENGTH_SHORT).show();
-                            binding.progressBar.setVisibility(View.GONE);
-                        }
-                    });
-                });
+        CsvExportHelper.exportEntrants(this, currentEvent, options, new CsvExportHelper.ExportCallback() {
+            @Override public void onProgress(int rowsWritten) {
+                binding.tvTitle.setText("Exporting… " + rowsWritten);
+            }
+            @Override public void onSuccess(String path) {
+                Toast.makeText(OrganizerWaitlistActivity.this, "Saved: " + path, Toast.LENGTH_LONG).show();
+                done();
+            }
+            @Override public void onFailure(Exception e) {
+                Log.w(TAG, "Could not export entrants", e);
+                String message = e instanceof IllegalArgumentException ? "No entrants to export." : "Failed.";
+                Toast.makeText(OrganizerWaitlistActivity.this, message, Toast.LENGTH_SHORT).show();
+                done();
+            }
+            private void done() {
+                binding.tvTitle.setText(currentMode.label());
+                binding.btnExportCsv.setEnabled(true);
+                binding.progressBar.setVisibility(View.GONE);
+            }
+        });
     }
 
-    private void promptForNotification(List<UserProfile> targets, String titleSuffix) {
+    private void promptForNotification(String titleSuffix, Consumer<String> onSend) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Notify " + titleSuffix);
         final EditText input = new EditText(this);
@@ -323,33 +366,47 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
         builder.setView(input);
         builder.setPositiveButton("Send", (d, w) -> {
             String msg = input.getText().toString().trim();
-            if (!msg.isEmpty()) sendBatchNotification(targets, msg);
+            if (!msg.isEmpty()) onSend.accept(msg);
         });
         builder.setNegativeButton("Cancel", null);
         builder.show();
     }
 
+    /**
+     * Sends one event broadcast to every entrant in the given statuses, instead of a copy
+     * per entrant.
+     */
+    private void sendBroadcast(List<String> audience, String message) {
+        Notification notification = new Notification("Update: " + currentEvent.getTitle(), message, eventId, "general");
+        broadcastRepository.broadcast(eventId, notification, audience, new FirestoreEventRepository.VoidCallback() {
+            @Override
+            public void onSuccess() {
+                Toast.makeText(OrganizerWaitlistActivity.this, "Sent!", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w(TAG, "Broadcast failed", e);
+                Toast.makeText(OrganizerWaitlistActivity.this, "Failed to send.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void sendBatchNotification(List<UserProfile> targets, String message) {
-        WriteBatch batch = db.batch();
-        int count = 0;
-        for (UserProfile user : targets) {
-            if (user.getUid() == null) continue;
-            DocumentReference ref = db.collection("users").document(user.getUid())
-                    .collection("notifications").document();
-            Map<String, Object> data = new HashMap<>();
-            data.put("title", "Update: " + currentEvent.getTitle());
-            data.put("message", message);
-            data.put("timestamp", new Date());
-            data.put("isRead", false);
-            batch.set(ref, data);
-            count++;
-        }
-        if (count > 0) {
-            batch.commit().addOnSuccessListener(a -> {
+        List<String> ids = new ArrayList<>();
+        for (UserProfile user : targets) ids.add(user.getUid());
+        Notification notification = new Notification("Update: " + currentEvent.getTitle(), message, eventId, "general");
+
+        notificationDispatcher.send(notification, ids, result -> {
+            if (result.failedIds.isEmpty()) {
                 Toast.makeText(this, "Sent!", Toast.LENGTH_SHORT).show();
-                listAdapter.clearSelection();
-            });
-        }
+            } else {
+                Log.w(TAG, "Notification failed for " + result.failedIds.size() + " users", result.firstError);
+                Toast.makeText(this, "Sent to " + result.sent + ", failed for " + result.failedIds.size(),
+                        Toast.LENGTH_SHORT).show();
+            }
+            listAdapter.clearSelection();
+        });
     }
 
     private void startRealtimeUpdates() {
@@ -367,6 +424,8 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
                         if (currentEvent != null) {
                             currentEvent.setId(snapshot.getId());
                             fetchProfilesForCurrentMode();
+                            resumePendingDraws();
+                            refillFreedSeats(snapshot);
                         }
                     }
                     binding.progressBar.setVisibility(View.GONE);
@@ -375,31 +434,30 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
 
     private void fetchProfilesForCurrentMode() {
         if (currentEvent == null) return;
-        List<String> targetIds = new ArrayList<>();
-        Map<String, String> statusMap = currentEvent.getInvitationStatus() != null ? currentEvent.getInvitationStatus() : new HashMap<>();
-
-        switch (currentMode) {
-            case WAITLIST:
-                if (currentEvent.getWaitlistUserIds() != null) targetIds.addAll(currentEvent.getWaitlistUserIds());
-                break;
-            case SELECTED:
-                for (Map.Entry<String, String> entry : statusMap.entrySet()) {
-                    if ("pending".equals(entry.getValue()) || "invited".equals(entry.getValue())) targetIds.add(entry.getKey());
-                }
-                break;
-            case CANCELLED:
-                if (currentEvent.getCancelledUserIds() != null) targetIds.addAll(currentEvent.getCancelledUserIds());
-                break;
-            case ENROLLED:
-                for (Map.Entry<String, String> entry : statusMap.entrySet()) {
-                    if ("accepted".equals(entry.getValue())) targetIds.add(entry.getKey());
-                }
-                break;
-        }
-        fetchProfilesByIds(targetIds);
+        ViewMode mode = currentMode;
+        entrantRepository.fetchUserIdsByStatus(currentEvent, mode.statuses(),
+                new FirestoreEventRepository.ListCallback<String>() {
+                    @Override
+                    public void onSuccess(List<String> targetIds) {
+                        if (mode == currentMode) fetchProfilesByIds(targetIds);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Failed to load entrants", e);
+                        if (mode == currentMode) fetchProfilesByIds(new ArrayList<>());
+                    }
+                });
     }
 
+    /**
+     * Resolves the given user IDs to profiles and displays them, preserving the ID order.
+     * Responses from superseded requests (e.g. after switching view mode) are ignored.
+     *
+     * @param ids The user IDs to display.
+     */
     private void fetchProfilesByIds(List<String> ids) {
+        int requestId = ++profileRequestId;
         if (ids == null || ids.isEmpty()) {
             displayedProfiles.clear();
             listAdapter.notifyDataSetChanged();
@@ -408,23 +466,19 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
             updateUIBasedOnSelection(0);
             return;
         }
-        db.collection("users")
-                .whereIn(FieldPath.documentId(), ids.subList(0, Math.min(ids.size(), 10)))
-                .get()
-                .addOnSuccessListener(snap -> {
-                    displayedProfiles.clear();
-                    for (DocumentSnapshot doc : snap.getDocuments()) {
-                        UserProfile p = doc.toObject(UserProfile.class);
-                        if (p != null) {
-                            p.setUid(doc.getId());
-                            displayedProfiles.add(p);
-                        }
-                    }
-                    listAdapter.notifyDataSetChanged();
-                    binding.tvEmpty.setVisibility(displayedProfiles.isEmpty() ? View.VISIBLE : View.GONE);
-                    binding.progressBar.setVisibility(View.GONE);
-                    updateUIBasedOnSelection(0);
-                });
+        batchFetcher.fetchProfiles(ids, (profiles, failedIds, error) -> {
+            if (requestId != profileRequestId) return;
+            if (!failedIds.isEmpty()) {
+                Log.w(TAG, "Failed to load " + failedIds.size() + " of " + ids.size() + " profiles", error);
+                Toast.makeText(this, "Some entrants could not be loaded.", Toast.LENGTH_SHORT).show();
+            }
+            displayedProfiles.clear();
+            displayedProfiles.addAll(profiles);
+            listAdapter.notifyDataSetChanged();
+            binding.tvEmpty.setVisibility(displayedProfiles.isEmpty() ? View.VISIBLE : View.GONE);
+            binding.progressBar.setVisibility(View.GONE);
+            updateUIBasedOnSelection(0);
+        });
     }
 
     /**
@@ -433,9 +487,33 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
      */
     private void handleDrawClick() {
         if (currentEvent == null) return;
-        int max = currentEvent.getMaxAttendees();
-        int selected = (currentEvent.getSelectedUserIds() != null) ? currentEvent.getSelectedUserIds().size() : 0;
+        if (!currentEvent.usesEntrantSubcollection()) {
+            showDrawDialog(currentEvent.getSelectedCount(), currentEvent.getWaitlistCount());
+            return;
+        }
+
+        // The cached counters may lag behind the shards, so read the live totals.
+        new ShardedCounter(db).fetchTotals(currentEvent.getId(), new FirestoreEventRepository.ItemCallback<Map<String, Long>>() {
+            @Override
+            public void onSuccess(Map<String, Long> totals) {
+                showDrawDialog(totals.get(ShardedCounter.SELECTED).intValue(),
+                        totals.get(ShardedCounter.WAITLIST).intValue());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w(TAG, "Could not read live counters", e);
+                showDrawDialog(currentEvent.getSelectedCount(), currentEvent.getWaitlistCount());
+            }
+        });
+    }
 
+    /**
+     * @param selected     Number of entrants already holding a spot.
+     * @param waitlistSize Number of entrants still waiting.
+     */
+    private void showDrawDialog(int selected, int waitlistSize) {
+        int max = currentEvent.getMaxAttendees();
         int maxSpots = max - selected;
 
         if (maxSpots <= 0) {
@@ -443,7 +521,6 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
             return;
         }
 
-        int waitlistSize = (currentEvent.getWaitlistUserIds() != null) ? currentEvent.getWaitlistUserIds().size() : 0;
         int defaultDrawAmount = Math.min(maxSpots, waitlistSize);
 
         if (waitlistSize == 0) {
@@ -475,56 +552,82 @@ public class OrganizerWaitlistActivity extends AppCompatActivity {
     }
 
     /**
-     * Executes the lottery logic: shuffles waitlist, picks winners, moves them to selected list,
-     * and sends notifications.
+     * Executes the lottery logic through {@link LotteryEngine}: picks winners from the current
+     * waitlist, moves them to the selected list and notifies every entrant, showing progress.
+     * If a draw fails part-way, retrying the same number of spots reuses its draw ID so
+     * nobody is drawn or notified twice.
      * @param spots The number of entrants to sample.
      */
     private void performLotteryDraw(int spots) {
-        if (currentEvent.getWaitlistUserIds() == null) return;
-
-        List<String> pool = new ArrayList<>(currentEvent.getWaitlistUserIds());
-        Collections.shuffle(pool);
-
-        int actualDraw = Math.min(pool.size(), spots);
-        List<String> winners = pool.subList(0, actualDraw);
-        List<String> losers = new ArrayList<>(pool.subList(actualDraw, pool.size()));
-
-        currentEvent.getWaitlistUserIds().removeAll(winners);
-        if (currentEvent.getSelectedUserIds() == null) currentEvent.setSelectedUserIds(new ArrayList<>());
-        currentEvent.getSelectedUserIds().addAll(winners);
-
-        if (currentEvent.getInvitationStatus() == null) currentEvent.setInvitationStatus(new HashMap<>());
-        for (String w : winners) currentEvent.getInvitationStatus().put(w, "pending");
-
-        WriteBatch batch = db.batch();
-        batch.update(db.collection("events").document(eventId),
-                "waitlistUserIds", currentEvent.getWaitlistUserIds(),
-                "selectedUserIds", currentEvent.getSelectedUserIds(),
-                "invitationStatus", currentEvent.getInvitationStatus());
-
-        for (String winnerId : winners) {
-            String notifId = db.collection("users").document(winnerId).collection("notifications").document().getId();
-            Notification notif = new Notification(
-                    "You Won the Lottery! \uD83C\uDF89",
-                    "You have been selected for " + currentEvent.getTitle() + ". Please accept or decline your invitation.",
-                    eventId,
-                    "invitation"
-            );
-            batch.set(db.collection("users").document(winnerId).collection("notifications").document(notifId), notif);
-        }
+        String drawId = failedDrawId != null && failedDrawSpots == spots
+                ? failedDrawId : LotteryEngine.newDrawId();
+        failedDrawId = drawId;
+        failedDrawSpots = spots;
+
+        drawProgressDialog = new AlertDialog.Builder(this)
+                .setTitle("Drawing Lottery")
+                .setMessage("Selecting winners…")
+                .setCancelable(false)
+                .show();
+
+        lotteryEngine.draw(eventId, spots, drawId, drawListener(true));
+    }
+
+    /**
+     * Finishes the notifications of draws that were interrupted, e.g. because the app was
+     * closed during the fan-out. Runs once per activity.
+     */
+    private void resumePendingDraws() {
+        if (pendingDrawsResumed) return;
+        pendingDrawsResumed = true;
+        lotteryEngine.resumePending(eventId, drawListener(false));
+    }
 
-        for (String loserId : losers) {
-            String notifId = db.collection("users").document(loserId).collection("notifications").document().getId();
-            Notification notif = new Notification(
-                    "Lottery Update",
-                    "You were not selected in the recent draw for " + currentEvent.getTitle() + ". You remain on the waitlist for future chances.",
-                    eventId,
-                    "info"
-            );
-            batch.set(db.collection("users").document(loserId).collection("notifications").document(notifId), notif);
+    /**
+     * Backs up the refill that the declining device requests: if seats were freed and not
+     * yet refilled, e.g. because that device went offline, a replacement draw is scheduled.
+     */
+    private void refillFreedSeats(DocumentSnapshot snapshot) {
+        Long pending = snapshot.getLong(ReplacementDrawer.PENDING_FIELD);
+        if ((pending != null && pending > 0) || snapshot.get(ReplacementDrawer.CLAIM_FIELD) != null) {
+            new ReplacementDrawer(db).requestRefill(eventId);
         }
+    }
+
+    private LotteryEngine.DrawListener drawListener(boolean showResult) {
+        return new LotteryEngine.DrawListener() {
+            @Override
+            public void onProgress(int notified, int total) {
+                if (drawProgressDialog != null && drawProgressDialog.isShowing()) {
+                    drawProgressDialog.setMessage("Notified " + notified + " of " + total + " entrants…");
+                }
+            }
 
-        batch.commit().addOnSuccessListener(a -> Toast.makeText(this, "Draw Complete", Toast.LENGTH_SHORT).show());
+            @Override
+            public void onComplete(int winners) {
+                dismissDrawProgress();
+                if (!showResult) return;
+                failedDrawId = null;
+                Toast.makeText(OrganizerWaitlistActivity.this,
+                        "Draw Complete: " + winners + " selected", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Draw failed", e);
+                dismissDrawProgress();
+                if (!showResult) return;
+                Toast.makeText(OrganizerWaitlistActivity.this,
+                        "Draw failed. Draw again with the same number to resume.", Toast.LENGTH_LONG).show();
+            }
+        };
+    }
+
+    private void dismissDrawProgress() {
+        if (drawProgressDialog != null && drawProgressDialog.isShowing() && !isFinishing()) {
+            drawProgressDialog.dismiss();
+        }
+        drawProgressDialog = null;
     }
 
     /**
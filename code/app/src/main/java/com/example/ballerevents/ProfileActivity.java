@@ -14,10 +14,10 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.FieldPath;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Activity displaying the entrant's profile and event history.
@@ -35,6 +35,7 @@ public class ProfileActivity extends AppCompatActivity {
     private static final String TAG = "ProfileActivity";
     private ActivityProfileBinding binding;
     private FirebaseFirestore db;
+    private FirestoreBatchFetcher batchFetcher;
     private FirebaseAuth auth;
     private ListenerRegistration userListener;
 
@@ -48,6 +49,7 @@ public class ProfileActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         db = FirebaseFirestore.getInstance();
+        batchFetcher = new FirestoreBatchFetcher(db);
         auth = FirebaseAuth.getInstance();
 
         if (auth.getCurrentUser() != null) {
@@ -161,23 +163,43 @@ public class ProfileActivity extends AppCompatActivity {
             return;
         }
 
-        List<String> subset = eventIds.subList(0, Math.min(eventIds.size(), 10));
-
-        db.collection("events")
-                .whereIn(FieldPath.documentId(), subset)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Event> joinedEvents = new ArrayList<>();
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
-                        Event event = doc.toObject(Event.class);
-                        if (event != null) {
-                            event.setId(doc.getId());
-                            joinedEvents.add(event);
-                        }
+        batchFetcher.fetchEvents(eventIds, (joinedEvents, failedIds, error) -> {
+            if (!failedIds.isEmpty()) {
+                Log.w(TAG, "Error loading " + failedIds.size() + " joined events", error);
+            }
+            historyAdapter.submitList(joinedEvents);
+            loadEntrantStatuses(joinedEvents);
+        });
+    }
+
+    /**
+     * Loads the user's statuses for joined events that keep their entrants in the
+     * subcollection, with a single collection group query.
+     *
+     * @param joinedEvents The events shown in the history list.
+     */
+    private void loadEntrantStatuses(List<Event> joinedEvents) {
+        boolean anySubcollection = false;
+        for (Event e : joinedEvents) {
+            if (e.usesEntrantSubcollection()) {
+                anySubcollection = true;
+                break;
+            }
+        }
+        if (!anySubcollection) return;
+
+        new EntrantRepository(db).fetchStatusesForUser(currentUserId,
+                new FirestoreEventRepository.ItemCallback<Map<String, String>>() {
+                    @Override
+                    public void onSuccess(Map<String, String> statuses) {
+                        historyAdapter.setEntrantStatuses(statuses);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Error loading entrant statuses", e);
                     }
-                    historyAdapter.submitList(joinedEvents);
-                })
-                .addOnFailureListener(e -> Log.w(TAG, "Error loading joined events", e));
+                });
     }
 
     @Override
@@ -17,17 +17,12 @@ import com.bumptech.glide.Glide;
 import com.example.ballerevents.databinding.ActivityProfileDetailsBinding;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -47,6 +42,7 @@ public class ProfileDetailsActivity extends AppCompatActivity {
     public static final String EXTRA_PROFILE_ID = "extra_profile_id";
     private ActivityProfileDetailsBinding binding;
     private FirebaseFirestore db;
+    private FirestoreBatchFetcher batchFetcher;
     private FirebaseAuth auth;
     private String profileId;
     private String currentUserId;
@@ -60,6 +56,7 @@ public class ProfileDetailsActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         db = FirebaseFirestore.getInstance();
+        batchFetcher = new FirestoreBatchFetcher(db);
         auth = FirebaseAuth.getInstance();
 
         if (auth.getCurrentUser() != null) {
@@ -221,16 +218,10 @@ public class ProfileDetailsActivity extends AppCompatActivity {
             String myName = doc.getString("name");
             if (myName == null) myName = "Someone";
 
-            Map<String, Object> notif = new HashMap<>();
-            notif.put("title", "New Follower");
-            notif.put("message", myName + " started following you!");
-            notif.put("type", "new_follower");
-            notif.put("senderId", currentUserId);
-            notif.put("timestamp", new Date());
-            notif.put("read", false);
-
-            db.collection("users").document(profileId)
-                    .collection("notifications").add(notif);
+            Notification notif = new Notification("New Follower", myName + " started following you!",
+                    null, "new_follower");
+            notif.setSenderId(currentUserId);
+            new NotificationDispatcher(db).send(notif, profileId, null);
         });
     }
 
@@ -254,26 +245,16 @@ public class ProfileDetailsActivity extends AppCompatActivity {
         }
 
         binding.progressHistory.setVisibility(View.VISIBLE);
-        List<String> idList = new ArrayList<>(allEventIds);
-        List<String> queryIds = idList.subList(0, Math.min(idList.size(), 10));
-
-        db.collection("events")
-                .whereIn(FieldPath.documentId(), queryIds)
-                .get()
-                .addOnSuccessListener(snap -> {
-                    binding.progressHistory.setVisibility(View.GONE);
-                    List<HistoryItem> items = new ArrayList<>();
-                    for (DocumentSnapshot doc : snap.getDocuments()) {
-                        Event e = doc.toObject(Event.class);
-                        if (e != null) {
-                            String status = determineStatus(user, doc.getId());
-                            items.add(new HistoryItem(e.getTitle(), status, e.getDate()));
-                        }
-                    }
-                    historyAdapter.submitList(items);
-                    if (items.isEmpty()) binding.tvNoHistory.setVisibility(View.VISIBLE);
-                })
-                .addOnFailureListener(e -> binding.progressHistory.setVisibility(View.GONE));
+        batchFetcher.fetchEvents(new ArrayList<>(allEventIds), (events, failedIds, error) -> {
+            binding.progressHistory.setVisibility(View.GONE);
+            List<HistoryItem> items = new ArrayList<>();
+            for (Event e : events) {
+                String status = determineStatus(user, e.getId());
+                items.add(new HistoryItem(e.getTitle(), status, e.getDate()));
+            }
+            historyAdapter.submitList(items);
+            if (items.isEmpty()) binding.tvNoHistory.setVisibility(View.VISIBLE);
+        });
     }
 
     private String determineStatus(UserProfile user, String eventId) {
@@ -108,7 +108,7 @@ public class ProfilesListAdapter extends ListAdapter<UserProfile, ProfilesListAd
             b.ivMenu.setVisibility(android.view.View.GONE);
 
             Glide.with(b.getRoot().getContext())
-                    .load(p.getProfilePictureUrl())
+                    .load(ImageVariants.forView(b.ivAvatar, p.getProfilePictureVariants(), p.getProfilePictureUrl()))
                     .placeholder(R.drawable.placeholder_avatar1)
                     .error(R.drawable.placeholder_avatar1)
                     .into(b.ivAvatar);
@@ -0,0 +1,196 @@
+package com.example.ballerevents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Refills the seats freed when invitees decline or are cancelled, without the organizer
+ * having to draw again.
+ * <p>
+ * {@link EntrantRepository} adds one to the event's {@link #PENDING_FIELD} in the same
+ * transaction that moves a selected entrant to declined or cancelled, then calls
+ * {@link #requestRefill}. Requests for the same event within {@link #COALESCE_WINDOW_MS} on
+ * one device are merged into a single refill.
+ * </p>
+ * <p>
+ * A refill claims the pending seats in a transaction. It counts the open seats from the live
+ * selected total (cached value plus shards), subtracts the seats it claims from the counter
+ * and stores the claim ({@link #CLAIM_FIELD}) with the next replacement draw ID on the event.
+ * Seats that cannot be filled yet stay pending rather than being dropped, and seats a draw
+ * leaves empty because the waitlist ran out are added back when its claim is cleared.
+ * Concurrent declines, on this device or others, either land before the claim and are
+ * included, or after it and start the next refill. A device that finds an open claim re-runs the same
+ * draw, which {@link LotteryEngine} ignores if it was already recorded, so a seat is never
+ * filled twice. Replacement draws only notify the winners.
+ * </p>
+ */
+public class ReplacementDrawer {
+
+    private static final String TAG = "ReplacementDrawer";
+
+    /** Event field counting seats freed since the last replacement draw. */
+    public static final String PENDING_FIELD = "pendingReplacements";
+    /** Event field holding the replacement draw in progress: {@code {drawId, spots}}. */
+    public static final String CLAIM_FIELD = "replacementDraw";
+    /** Event field numbering the replacement draws, used to build their draw IDs. */
+    static final String SEQUENCE_FIELD = "replacementSeq";
+
+    /** Declines arriving within this window are refilled together. */
+    public static final long COALESCE_WINDOW_MS = 3_000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /** Events with a refill already scheduled on this device. */
+    private static final Set<String> scheduledRefills = new HashSet<>();
+
+    private final FirebaseFirestore db;
+    private final LotteryEngine lotteryEngine;
+    private final ShardedCounter shardedCounter;
+
+    public ReplacementDrawer() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public ReplacementDrawer(FirebaseFirestore db) {
+        this.db = db;
+        this.lotteryEngine = new LotteryEngine(db);
+        this.shardedCounter = new ShardedCounter(db);
+    }
+
+    /**
+     * Schedules a refill of an event's freed seats at the end of the coalescing window.
+     * Further requests for the same event before then are merged into it.
+     *
+     * @param eventId The event ID.
+     */
+    public void requestRefill(String eventId) {
+        if (!scheduledRefills.add(eventId)) return;
+        handler.postDelayed(() -> {
+            scheduledRefills.remove(eventId);
+            refill(eventId, null);
+        }, COALESCE_WINDOW_MS);
+    }
+
+    /**
+     * Draws replacements for every seat freed so far, or finishes an interrupted
+     * replacement draw. Does nothing if no seat is pending.
+     *
+     * @param eventId The event ID.
+     * @param cb      Callback for completion (optional).
+     */
+    public void refill(String eventId, @Nullable FirestoreEventRepository.VoidCallback cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.<Map<?, ?>>runTransaction(tx -> {
+                    DocumentSnapshot snap = tx.get(eventRef);
+                    Map<?, ?> open = (Map<?, ?>) snap.get(CLAIM_FIELD);
+                    if (open != null && open.get("drawId") instanceof String) return open;
+
+                    Long pending = snap.getLong(PENDING_FIELD);
+                    if (pending == null || pending <= 0) return null;
+
+                    Event event = snap.toObject(Event.class);
+                    if (event == null) return null;
+                    // The cached selectedCount of subcollection events may trail the shards,
+                    // so the live total is read within the claim.
+                    long selected = event.usesEntrantSubcollection()
+                            ? shardedCounter.liveTotal(tx, snap, ShardedCounter.SELECTED)
+                            : event.getSelectedCount();
+                    int spots = openSeats(pending, event.getMaxAttendees(), selected);
+                    // Seats that cannot be filled yet stay pending for the next refill
+                    if (spots <= 0) return null;
+
+                    Long seq = snap.getLong(SEQUENCE_FIELD);
+                    long next = (seq != null ? seq : 0) + 1;
+                    Map<String, Object> claim = new HashMap<>();
+                    claim.put("drawId", "replacement-" + next);
+                    claim.put("spots", (long) spots);
+
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put(PENDING_FIELD, FieldValue.increment(-spots));
+                    updates.put(SEQUENCE_FIELD, next);
+                    updates.put(CLAIM_FIELD, claim);
+                    tx.update(eventRef, updates);
+                    return claim;
+                })
+                .addOnSuccessListener(claim -> {
+                    if (claim == null) {
+                        if (cb != null) cb.onSuccess();
+                        return;
+                    }
+                    String drawId = (String) claim.get("drawId");
+                    int spots = ((Number) claim.get("spots")).intValue();
+                    draw(eventId, drawId, spots, cb);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Could not claim replacement seats", e);
+                    if (cb != null) cb.onError(e);
+                });
+    }
+
+    private void draw(String eventId, String drawId, int spots, @Nullable FirestoreEventRepository.VoidCallback cb) {
+        lotteryEngine.draw(eventId, spots, drawId, false, new LotteryEngine.DrawListener() {
+            @Override
+            public void onProgress(int notified, int total) { }
+
+            @Override
+            public void onComplete(int winners) {
+                Log.d(TAG, "Replacement draw " + drawId + " filled " + winners + " of " + spots + " seats");
+                release(eventId, drawId, spots - winners, cb);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // The claim stays on the event, so the next refill resumes this draw.
+                Log.w(TAG, "Replacement draw " + drawId + " failed", e);
+                if (cb != null) cb.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Clears the claim if it still belongs to {@code drawId}, returning the seats the draw
+     * could not fill to {@link #PENDING_FIELD}.
+     */
+    private void release(String eventId, String drawId, int unfilled,
+                         @Nullable FirestoreEventRepository.VoidCallback cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.runTransaction(tx -> {
+                    Map<?, ?> open = (Map<?, ?>) tx.get(eventRef).get(CLAIM_FIELD);
+                    if (open != null && drawId.equals(open.get("drawId"))) {
+                        Map<String, Object> updates = new HashMap<>();
+                        updates.put(CLAIM_FIELD, FieldValue.delete());
+                        if (unfilled > 0) updates.put(PENDING_FIELD, FieldValue.increment(unfilled));
+                        tx.update(eventRef, updates);
+                    }
+                    return null;
+                })
+                .addOnSuccessListener(unused -> { if (cb != null) cb.onSuccess(); })
+                .addOnFailureListener(e -> { if (cb != null) cb.onError(e); });
+    }
+
+    /**
+     * Computes how many replacements to draw.
+     *
+     * @param freed        Seats freed since the last replacement draw.
+     * @param maxAttendees The event capacity; zero or less means unlimited.
+     * @param selected     Entrants currently drawn, invited or enrolled (live total).
+     * @return The number of seats to refill; the rest of {@code freed} stays pending.
+     */
+    static int openSeats(long freed, int maxAttendees, long selected) {
+        long spots = Math.max(0, freed);
+        if (maxAttendees > 0) spots = Math.min(spots, Math.max(0, maxAttendees - selected));
+        return (int) Math.min(spots, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.ballerevents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Distributed counters for the high-contention event totals ({@link #WAITLIST} and
+ * {@link #SELECTED}).
+ * <p>
+ * Firestore sustains roughly one write per second on a single document, so joins do not
+ * increment the event document directly. Each change is written to one of
+ * {@link #DEFAULT_NUM_SHARDS} shard documents chosen at random:
+ * <code>events/{eventId}/counters/{counter}/shards/{index}</code>.
+ * </p>
+ * <p>
+ * The event document keeps a cached total in the field of the same name. At most once per
+ * {@link #ROLLUP_INTERVAL_MS}, {@link #maybeRollUp} moves the pending shard values into that
+ * field in a transaction, so queries such as {@code orderBy("waitlistCount")} stay usable.
+ * The live total is the cached field plus the pending shard values. {@link #liveTotal} reads
+ * it inside a caller's transaction and {@link #fetchTotals} in one of its own, so the cached
+ * field and the shards always come from the same point in time.
+ * </p>
+ */
+public class ShardedCounter {
+
+    private static final String TAG = "ShardedCounter";
+
+    /** Number of entrants on the waiting list. */
+    public static final String WAITLIST = "waitlistCount";
+    /** Number of drawn, invited or enrolled entrants. */
+    public static final String SELECTED = "selectedCount";
+    /** Counters handled by this class. Other event counters are written directly. */
+    public static final List<String> COUNTERS = Collections.unmodifiableList(Arrays.asList(WAITLIST, SELECTED));
+
+    /** Shards per counter; each absorbs about one write per second. */
+    public static final int DEFAULT_NUM_SHARDS = 10;
+    /** Minimum time between two roll-ups of the same event. */
+    public static final long ROLLUP_INTERVAL_MS = 10_000;
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    /** Events with a deferred roll-up already pending on this device. */
+    private static final Set<String> scheduledRollUps = new HashSet<>();
+
+    private final FirebaseFirestore db;
+    private final int numShards;
+    private final Random random = new Random();
+
+    public ShardedCounter(FirebaseFirestore db) {
+        this(db, DEFAULT_NUM_SHARDS);
+    }
+
+    /**
+     * @param db        Firestore instance.
+     * @param numShards Shards per counter. Must not shrink once data has been written.
+     */
+    public ShardedCounter(FirebaseFirestore db, int numShards) {
+        this.db = db;
+        this.numShards = Math.max(1, numShards);
+    }
+
+    /**
+     * @param counter A counter name from {@link #COUNTERS}.
+     * @return True if changes to this counter should go through the shards.
+     */
+    public static boolean isSharded(String counter) {
+        return COUNTERS.contains(counter);
+    }
+
+    private CollectionReference shards(String eventId, String counter) {
+        return db.collection("events").document(eventId)
+                .collection("counters").document(counter)
+                .collection("shards");
+    }
+
+    private DocumentReference randomShard(String eventId, String counter) {
+        return shards(eventId, counter).document(String.valueOf(random.nextInt(numShards)));
+    }
+
+    private static Map<String, Object> delta(long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("count", FieldValue.increment(delta));
+        return data;
+    }
+
+    /**
+     * Adds {@code delta} to a random shard as part of a transaction.
+     */
+    public void increment(Transaction tx, String eventId, String counter, long delta) {
+        tx.set(randomShard(eventId, counter), delta(delta), SetOptions.merge());
+    }
+
+    /**
+     * Adds {@code delta} to a random shard as part of a write batch.
+     */
+    public void increment(WriteBatch batch, String eventId, String counter, long delta) {
+        batch.set(randomShard(eventId, counter), delta(delta), SetOptions.merge());
+    }
+
+    /**
+     * Fetches the live totals of all sharded counters. The event and its shards are read in
+     * one transaction (see {@link #liveTotal}), so a roll-up running at the same time cannot
+     * make a value count twice or not at all.
+     *
+     * @param eventId The event ID.
+     * @param cb      Callback receiving counter names mapped to totals.
+     */
+    public void fetchTotals(String eventId, FirestoreEventRepository.ItemCallback<Map<String, Long>> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.<Map<String, Long>>runTransaction(tx -> {
+                    DocumentSnapshot eventSnap = tx.get(eventRef);
+                    Map<String, Long> totals = new HashMap<>();
+                    for (String counter : COUNTERS) totals.put(counter, liveTotal(tx, eventSnap, counter));
+                    return totals;
+                })
+                .addOnSuccessListener(cb::onSuccess)
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Reads the live total of a counter inside a transaction: the cached value on the event
+     * plus every shard, read by ID since transactions cannot run queries. Being part of the
+     * transaction, the total cannot change before it commits.
+     *
+     * @param tx        The transaction; must not have written yet.
+     * @param eventSnap The event, read in the same transaction.
+     * @param counter   A counter name from {@link #COUNTERS}.
+     * @return The live total.
+     */
+    public long liveTotal(Transaction tx, DocumentSnapshot eventSnap, String counter)
+            throws FirebaseFirestoreException {
+        Long cached = eventSnap.getLong(counter);
+        long total = cached != null ? cached : 0;
+        for (int i = 0; i < numShards; i++) {
+            Long value = tx.get(shards(eventSnap.getId(), counter).document(String.valueOf(i))).getLong("count");
+            if (value != null) total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Rolls up the shards of an event if its cached totals are older than
+     * {@link #ROLLUP_INTERVAL_MS}. Otherwise a single roll-up is scheduled for when the
+     * interval ends, so the last write before a quiet period still reaches the cached
+     * total. Failures are only logged; the next call retries.
+     *
+     * @param event The event, used to skip the transaction when the cache is still fresh.
+     */
+    public void maybeRollUp(Event event) {
+        long now = System.currentTimeMillis();
+        long last = event.getCountersRolledUpAtMillis();
+        if (isRollUpDue(last, now)) {
+            rollUp(event.getId(), null);
+            return;
+        }
+
+        String eventId = event.getId();
+        if (scheduledRollUps.add(eventId)) {
+            handler.postDelayed(() -> {
+                scheduledRollUps.remove(eventId);
+                rollUp(eventId, null);
+            }, last + ROLLUP_INTERVAL_MS - now);
+        }
+    }
+
+    /**
+     * Moves pending shard values into the event's cached totals, unless another client
+     * did so within the last {@link #ROLLUP_INTERVAL_MS}.
+     *
+     * @param eventId The event ID.
+     * @param cb      Callback for completion (may be null).
+     */
+    public void rollUp(String eventId, @Nullable FirestoreEventRepository.VoidCallback cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.runTransaction(tx -> {
+                    DocumentSnapshot eventSnap = tx.get(eventRef);
+                    if (!eventSnap.exists()) return null;
+                    Long last = eventSnap.getLong("countersRolledUpAtMillis");
+                    long now = System.currentTimeMillis();
+                    if (!isRollUpDue(last != null ? last : 0, now)) return null;
+
+                    // Transactions cannot run queries, so read every possible shard by ID.
+                    Map<DocumentReference, Long> pending = new HashMap<>();
+                    Map<String, Object> updates = new HashMap<>();
+                    for (String counter : COUNTERS) {
+                        long total = 0;
+                        for (int i = 0; i < numShards; i++) {
+                            DocumentReference ref = shards(eventId, counter).document(String.valueOf(i));
+                            Long value = tx.get(ref).getLong("count");
+                            if (value != null && value != 0) {
+                                pending.put(ref, value);
+                                total += value;
+                            }
+                        }
+                        if (total != 0) updates.put(counter, FieldValue.increment(total));
+                    }
+
+                    updates.put("countersRolledUpAtMillis", now);
+                    tx.update(eventRef, updates);
+                    for (Map.Entry<DocumentReference, Long> entry : pending.entrySet()) {
+                        tx.update(entry.getKey(), "count", FieldValue.increment(-entry.getValue()));
+                    }
+                    return null;
+                })
+                .addOnSuccessListener(unused -> { if (cb != null) cb.onSuccess(); })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Counter roll-up failed for " + eventId, e);
+                    if (cb != null) cb.onError(e);
+                });
+    }
+
+    /**
+     * @param lastRollUpMillis Time of the previous roll-up (0 if never).
+     * @param nowMillis        Current time.
+     * @return True if a new roll-up may run.
+     */
+    static boolean isRollUpDue(long lastRollUpMillis, long nowMillis) {
+        return nowMillis - lastRollUpMillis >= ROLLUP_INTERVAL_MS;
+    }
+}
@@ -83,7 +83,7 @@ public class TrendingEventAdapter extends ListAdapter<Event, TrendingEventAdapte
             binding.tvPrice.setText(event.getPrice());
 
             Glide.with(binding.getRoot().getContext())
-                    .load(event.getEventPosterUrl())
+                    .load(ImageVariants.forView(binding.ivEventBackground, event.getEventPosterVariants(), event.getEventPosterUrl()))
                     .placeholder(R.drawable.placeholder_image)
                     .error(R.drawable.placeholder_image)
                     .into(binding.ivEventBackground);
@@ -2,6 +2,7 @@ package com.example.ballerevents;
 
 import com.google.firebase.firestore.DocumentId;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
 
 /**
@@ -27,6 +28,8 @@ public class UserProfile {
     public String aboutMe;
     public List<String> interests;
     public String profilePictureUrl;
+    /** {@link ImageVariants} URLs of the profile picture by key (null for older uploads). */
+    public Map<String, String> profilePictureVariants;
 
     public List<String> appliedEventIds;
     public List<String> invitedEventIds;
@@ -75,6 +78,7 @@ public class UserProfile {
     public String getAboutMe() { return aboutMe; }
     public List<String> getInterests() { return interests; }
     public String getProfilePictureUrl() { return profilePictureUrl; }
+    public Map<String, String> getProfilePictureVariants() { return profilePictureVariants; }
 
     public List<String> getAppliedEventIds() { return appliedEventIds; }
     public List<String> getInvitedEventIds() { return invitedEventIds; }
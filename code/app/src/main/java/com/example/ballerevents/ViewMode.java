@@ -0,0 +1,52 @@
+package com.example.ballerevents;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The lists of entrants an organizer works with, each covering one or more entrant statuses.
+ * Used by {@link OrganizerWaitlistActivity} to filter its list and by exports to label rows.
+ */
+public enum ViewMode {
+    WAITLIST("Waitlist", Collections.singletonList(Entrant.STATUS_WAITING)),
+    SELECTED("Selected", Arrays.asList(Entrant.STATUS_CHOSEN, Entrant.STATUS_INVITED)),
+    CANCELLED("Cancelled", Arrays.asList(Entrant.STATUS_DECLINED, Entrant.STATUS_CANCELLED)),
+    ENROLLED("Enrolled", Collections.singletonList(Entrant.STATUS_ACCEPTED));
+
+    private final String label;
+    private final List<String> statuses;
+
+    ViewMode(String label, List<String> statuses) {
+        this.label = label;
+        this.statuses = statuses;
+    }
+
+    /**
+     * @return The name shown to organizers.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * @return The entrant statuses in this list.
+     */
+    public List<String> statuses() {
+        return statuses;
+    }
+
+    /**
+     * @param status An entrant status.
+     * @return The list the status belongs to, or null if it is not a known status.
+     */
+    @Nullable
+    public static ViewMode of(@Nullable String status) {
+        for (ViewMode mode : values()) {
+            if (mode.statuses.contains(status)) return mode;
+        }
+        return null;
+    }
+}
@@ -79,7 +79,7 @@ public class WaitlistUserAdapter extends RecyclerView.Adapter<WaitlistUserAdapte
         holder.tvEmail.setText(user.getEmail());
 
         Glide.with(holder.itemView.getContext())
-                .load(user.getProfilePictureUrl())
+                .load(ImageVariants.forView(holder.ivAvatar, user.getProfilePictureVariants(), user.getProfilePictureUrl()))
                 .placeholder(R.drawable.placeholder_avatar1)
                 .error(R.drawable.placeholder_avatar1)
                 .circleCrop()
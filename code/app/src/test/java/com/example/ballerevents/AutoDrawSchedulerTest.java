@@ -0,0 +1,49 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Local unit tests for the scheduling rules of {@link AutoDrawScheduler}.
+ */
+public class AutoDrawSchedulerTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    public void dueOnlyAfterCloseWithinLookback() {
+        assertTrue(AutoDrawScheduler.isDue(NOW, null, NOW));
+        assertTrue(AutoDrawScheduler.isDue(NOW - 1, null, NOW));
+        assertTrue(AutoDrawScheduler.isDue(NOW - 1, AutoDrawScheduler.STATE_RUNNING, NOW));
+
+        assertFalse(AutoDrawScheduler.isDue(NOW + 1, null, NOW));
+        assertFalse(AutoDrawScheduler.isDue(0, null, NOW));
+        assertFalse(AutoDrawScheduler.isDue(NOW - AutoDrawScheduler.LOOKBACK_MS, null, NOW));
+        assertFalse(AutoDrawScheduler.isDue(NOW - 1, AutoDrawScheduler.STATE_COMPLETE, NOW));
+    }
+
+    @Test
+    public void drawsCapacityOrEveryone() {
+        assertEquals(25, AutoDrawScheduler.spotsToDraw(25));
+        assertEquals(Integer.MAX_VALUE, AutoDrawScheduler.spotsToDraw(0));
+        assertEquals(Integer.MAX_VALUE, AutoDrawScheduler.spotsToDraw(-1));
+    }
+
+    @Test
+    public void wakesAtNextCloseWithinBounds() {
+        long soon = NOW + 60_000;
+        assertEquals(soon, AutoDrawScheduler.nextWakeUpMillis(Arrays.asList(NOW + 3_600_000, soon, 0L), NOW));
+        assertEquals(NOW + AutoDrawScheduler.MAX_SLEEP_MS,
+                AutoDrawScheduler.nextWakeUpMillis(Collections.singletonList(NOW + 3_600_000), NOW));
+        assertEquals(NOW + AutoDrawScheduler.MIN_SLEEP_MS,
+                AutoDrawScheduler.nextWakeUpMillis(Collections.singletonList(NOW + 1), NOW));
+        assertEquals(NOW + AutoDrawScheduler.MAX_SLEEP_MS,
+                AutoDrawScheduler.nextWakeUpMillis(Collections.emptyList(), NOW));
+    }
+}
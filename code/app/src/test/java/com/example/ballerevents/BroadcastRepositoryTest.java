@@ -0,0 +1,63 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Local unit tests for the read-cursor, audience and visibility rules of {@link BroadcastRepository}.
+ */
+public class BroadcastRepositoryTest {
+
+    @Test
+    public void readWhenNotAfterCursor() {
+        Date cursor = new Date(1_000);
+        assertTrue(BroadcastRepository.isRead(new Date(999), cursor));
+        assertTrue(BroadcastRepository.isRead(new Date(1_000), cursor));
+        assertFalse(BroadcastRepository.isRead(new Date(1_001), cursor));
+        assertFalse(BroadcastRepository.isRead(new Date(1), null));
+        assertFalse(BroadcastRepository.isRead(null, cursor));
+    }
+
+    @Test
+    public void audienceMatchesStatus() {
+        assertTrue(BroadcastRepository.inAudience(null, Entrant.STATUS_WAITING));
+        assertTrue(BroadcastRepository.inAudience(Collections.emptyList(), Entrant.STATUS_ACCEPTED));
+        assertTrue(BroadcastRepository.inAudience(
+                Arrays.asList(Entrant.STATUS_CHOSEN, Entrant.STATUS_INVITED), Entrant.STATUS_INVITED));
+
+        assertFalse(BroadcastRepository.inAudience(
+                Collections.singletonList(Entrant.STATUS_WAITING), Entrant.STATUS_ACCEPTED));
+        assertFalse(BroadcastRepository.inAudience(null, null));
+    }
+
+    @Test
+    public void hidesBroadcastsSentBeforeJoining() {
+        Date joined = new Date(1_000);
+        assertFalse(BroadcastRepository.isVisible(new Date(999), joined, null, Entrant.STATUS_WAITING, false));
+        assertFalse(BroadcastRepository.isVisible(new Date(999), joined, null, Entrant.STATUS_WAITING, true));
+        assertTrue(BroadcastRepository.isVisible(new Date(1_000), joined, null, Entrant.STATUS_WAITING, false));
+        // Pending broadcasts, and legacy events without a join time
+        assertTrue(BroadcastRepository.isVisible(null, joined, null, Entrant.STATUS_WAITING, false));
+        assertTrue(BroadcastRepository.isVisible(new Date(1), null, null, Entrant.STATUS_WAITING, false));
+    }
+
+    @Test
+    public void shownBroadcastsSurviveStatusChange() {
+        List<String> waiting = Collections.singletonList(Entrant.STATUS_WAITING);
+        Date sent = new Date(2_000);
+        Date joined = new Date(1_000);
+        assertTrue(BroadcastRepository.isVisible(sent, joined, waiting, Entrant.STATUS_WAITING, false));
+        // Invited after the broadcast was shown
+        assertFalse(BroadcastRepository.isVisible(sent, joined, waiting, Entrant.STATUS_INVITED, false));
+        assertTrue(BroadcastRepository.isVisible(sent, joined, waiting, Entrant.STATUS_INVITED, true));
+        // Left the event
+        assertFalse(BroadcastRepository.isVisible(sent, joined, waiting, null, true));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Local unit tests for the row format of {@link CsvExportHelper}.
+ */
+public class CsvExportHelperTest {
+
+    @Test
+    public void plainFieldsAreNotQuoted() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvExportHelper.writeRow(out, "Name", "Email");
+        CsvExportHelper.writeRow(out, "Ada Lovelace", "ada@example.com");
+        assertEquals("Name,Email\nAda Lovelace,ada@example.com\n", out.toString());
+    }
+
+    @Test
+    public void specialFieldsAreQuotedAndEscaped() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvExportHelper.writeRow(out, "Smith, John", "say \"hi\"");
+        CsvExportHelper.writeRow(out, "two\nlines", null);
+        assertEquals("\"Smith, John\",\"say \"\"hi\"\"\"\n\"two\nlines\",\n", out.toString());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local unit tests for converting legacy array-based entrants into subcollection
+ * documents and for the counter rules shared with {@link EntrantRepository}.
+ */
+public class EntrantsMigrationTest {
+
+    private static Event legacyEvent() {
+        Event event = new Event();
+        event.setWaitlistUserIds(new ArrayList<>(Arrays.asList("w1", "w2", "declined1")));
+        event.setSelectedUserIds(new ArrayList<>(Arrays.asList("invited1", "accepted1")));
+        event.setCancelledUserIds(new ArrayList<>(Arrays.asList("declined1", "cancelled1")));
+
+        Map<String, String> invitation = new HashMap<>();
+        invitation.put("invited1", "pending");
+        invitation.put("accepted1", "accepted");
+        invitation.put("declined1", "declined");
+        invitation.put("cancelled1", "cancelled");
+        event.setInvitationStatus(invitation);
+        return event;
+    }
+
+    @Test
+    public void buildEntrants_mapsEveryUserOnceInWaitlistOrder() {
+        List<Entrant> entrants = EntrantsMigration.buildEntrants(legacyEvent(), 1000L);
+
+        assertEquals(6, entrants.size());
+        assertEquals("w1", entrants.get(0).getUserId());
+        assertEquals("w2", entrants.get(1).getUserId());
+        assertEquals(1000L, entrants.get(0).getJoinedAt().getTime());
+        assertEquals(1001L, entrants.get(1).getJoinedAt().getTime());
+
+        Map<String, String> statuses = new HashMap<>();
+        for (Entrant e : entrants) statuses.put(e.getUserId(), e.getStatus());
+        assertEquals(Entrant.STATUS_WAITING, statuses.get("w1"));
+        assertEquals(Entrant.STATUS_DECLINED, statuses.get("declined1"));
+        assertEquals(Entrant.STATUS_INVITED, statuses.get("invited1"));
+        assertEquals(Entrant.STATUS_ACCEPTED, statuses.get("accepted1"));
+        assertEquals(Entrant.STATUS_CANCELLED, statuses.get("cancelled1"));
+    }
+
+    @Test
+    public void staleIds_dropsUsersWhoLeftBeforeRerun() {
+        // An aborted run wrote "gone"; the user left before the re-run
+        List<Entrant> written = EntrantsMigration.buildEntrants(legacyEvent(), 0L);
+        List<String> existing = Arrays.asList("w1", "gone", "accepted1");
+
+        assertEquals(Arrays.asList("gone"), EntrantsMigration.staleIds(existing, written));
+        assertTrue(EntrantsMigration.staleIds(new ArrayList<>(), written).isEmpty());
+    }
+
+    @Test
+    public void countersFor_matchesLegacyGetters() {
+        Event event = legacyEvent();
+        Map<String, Long> counters = EntrantsMigration.countersFor(
+                EntrantsMigration.buildEntrants(event, 0L));
+
+        assertEquals(2L, (long) counters.get("waitlistCount"));
+        assertEquals(event.getSelectedCount(), (long) counters.get("selectedCount"));
+        assertEquals(event.getCancelledCount(), (long) counters.get("cancelledCount"));
+        assertEquals(event.getEnrolledCount(), (long) counters.get("enrolledCount"));
+    }
+
+    @Test
+    public void counterDeltas_acceptKeepsSeatAndEnrolls() {
+        Map<String, Long> deltas = EntrantRepository.counterDeltas(
+                Entrant.STATUS_INVITED, Entrant.STATUS_ACCEPTED);
+
+        assertEquals(1, deltas.size());
+        assertEquals(1L, (long) deltas.get("enrolledCount"));
+    }
+
+    @Test
+    public void counterDeltas_declineFreesSeat() {
+        Map<String, Long> deltas = EntrantRepository.counterDeltas(
+                Entrant.STATUS_INVITED, Entrant.STATUS_DECLINED);
+
+        assertEquals(-1L, (long) deltas.get("selectedCount"));
+        assertEquals(1L, (long) deltas.get("cancelledCount"));
+        assertFalse(deltas.containsKey("waitlistCount"));
+    }
+
+    @Test
+    public void counterDeltas_joinAddsToWaitlist() {
+        Map<String, Long> deltas = EntrantRepository.counterDeltas(null, Entrant.STATUS_WAITING);
+
+        assertEquals(1, deltas.size());
+        assertTrue(deltas.containsKey("waitlistCount"));
+    }
+}
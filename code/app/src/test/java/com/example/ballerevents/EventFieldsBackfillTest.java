@@ -0,0 +1,78 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Local unit tests for the derived fields in {@link EventFieldsBackfill} and the
+ * start-time range check in {@link EventFilter}.
+ */
+public class EventFieldsBackfillTest {
+
+    private static long local(int year, int month, int day, int hour, int minute) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month, day, hour, minute);
+        return cal.getTimeInMillis();
+    }
+
+    @Test
+    public void parsesBothLegacyDateFormats() {
+        long expected = local(2025, Calendar.MARCH, 5, 19, 30);
+        assertEquals(expected, EventFieldsBackfill.parseLegacyStartTime("05 March, 2025", "07:30 PM"));
+        assertEquals(expected, EventFieldsBackfill.parseLegacyStartTime("03/05/2025", "07:30 PM"));
+    }
+
+    @Test
+    public void missingOrBadTimeMeansMidnight() {
+        long midnight = local(2025, Calendar.MARCH, 5, 0, 0);
+        assertEquals(midnight, EventFieldsBackfill.parseLegacyStartTime("5 March, 2025", null));
+        assertEquals(midnight, EventFieldsBackfill.parseLegacyStartTime("03/05/2025", "soon"));
+    }
+
+    @Test
+    public void unparseableDatesGiveZero() {
+        assertEquals(0, EventFieldsBackfill.parseLegacyStartTime(null, "07:30 PM"));
+        assertEquals(0, EventFieldsBackfill.parseLegacyStartTime("TBD", null));
+        assertEquals(0, EventFieldsBackfill.parseLegacyStartTime("13/45/2025", null));
+        assertEquals(0, EventFieldsBackfill.parseLegacyStartTime("05 March, 2025 extra", null));
+    }
+
+    @Test
+    public void titleKeyIsTrimmedAndLowercased() {
+        assertEquals("jazz night", EventFieldsBackfill.titleKey("  Jazz NIGHT "));
+        assertTrue(EventFieldsBackfill.titleKey("Jazz Night").startsWith(EventFieldsBackfill.titleKey("JAZZ")));
+    }
+
+    @Test
+    public void dateRangeIncludesTheWholeLastDay() {
+        Date start = new Date(local(2025, Calendar.MARCH, 1, 0, 0));
+        Date end = new Date(local(2025, Calendar.MARCH, 5, 0, 0));
+        List<String> noTags = Collections.emptyList();
+
+        Event evening = new Event();
+        evening.setDate("03/05/2025");
+        evening.setStartTimeMillis(local(2025, Calendar.MARCH, 5, 19, 30));
+        assertTrue(EventFilter.matches(evening, "", noTags, start, end));
+
+        Event nextDay = new Event();
+        nextDay.setDate("03/06/2025");
+        nextDay.setStartTimeMillis(local(2025, Calendar.MARCH, 6, 0, 0));
+        assertFalse(EventFilter.matches(nextDay, "", noTags, start, end));
+
+        Event notBackfilled = new Event();
+        notBackfilled.setDate("05 March, 2025");
+        assertFalse(EventFilter.matches(notBackfilled, "", noTags, start, end));
+
+        Event undated = new Event();
+        assertTrue(EventFilter.matches(undated, "", noTags, start, end));
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Local unit tests for {@link EventSearchIndex}: every query must return exactly what
+ * {@link EventFilter#performSearchAndFilter} returns, including after updates and removals
+ * and at 10k events. {@link EventSearchIndexBenchmark} times both at 10k and 100k events
+ * with the same generated events and queries.
+ */
+public class EventSearchIndexTest {
+
+    private static final String[] WORDS = {
+            "jazz", "night", "rock", "swim", "lessons", "yoga", "park", "city", "hall", "piano",
+            "workshop", "community", "dance", "kids", "art", "festival", "chess", "club", "run", "café"
+    };
+    private static final String[] TAGS = {"Music", "Sports", "Art", "Kids", "Outdoor", "Education"};
+    private static final String[] MONTHS = {"January", "March", "June", "September", "December"};
+    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd MMMM, yyyy", Locale.US);
+
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(' ');
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sb.append(random.nextInt(4) == 0 ? word.toUpperCase() : word);
+        }
+        return sb.toString();
+    }
+
+    static Event randomEvent(Random random, String id) {
+        Event e = new Event();
+        e.setId(id);
+        e.setTitle(random.nextInt(50) == 0 ? null : words(random, 2 + random.nextInt(3)));
+        e.setDescription(random.nextInt(10) == 0 ? null : words(random, 5 + random.nextInt(10)));
+        e.setOrganizer(words(random, 1) + " Org");
+
+        List<String> tags = new ArrayList<>();
+        for (String tag : TAGS) {
+            if (random.nextInt(3) == 0) tags.add(tag);
+        }
+        e.setTags(random.nextInt(20) == 0 ? null : tags);
+
+        int kind = random.nextInt(20);
+        if (kind == 0) {
+            e.setDate(null);
+        } else if (kind == 1) {
+            e.setDate("TBD");
+        } else {
+            e.setDate((1 + random.nextInt(28)) + " " + MONTHS[random.nextInt(MONTHS.length)] + ", 2025");
+            e.setTime(String.format(Locale.US, "%02d:%02d PM", 1 + random.nextInt(12), random.nextInt(60)));
+            e.setStartTimeMillis(EventFieldsBackfill.parseLegacyStartTime(e.getDate(), e.getTime()));
+        }
+        return e;
+    }
+
+    static List<EventSearchIndex.Query> queries() throws Exception {
+        Date march = DATE_FORMAT.parse("01 March, 2025");
+        Date june = DATE_FORMAT.parse("30 June, 2025");
+        List<EventSearchIndex.Query> queries = new ArrayList<>();
+        for (String q : new String[]{"", "j", "ja", "jazz", " JAZZ ", "azz nig", "ks yo", "org", "café", "zzzz"}) {
+            queries.add(new EventSearchIndex.Query(q, null, null, null));
+            queries.add(new EventSearchIndex.Query(q, Collections.singletonList("Music"), null, null));
+            queries.add(new EventSearchIndex.Query(q, Arrays.asList("Art", "Kids"), march, june));
+            queries.add(new EventSearchIndex.Query(q, Collections.emptyList(), march, june));
+        }
+        queries.add(new EventSearchIndex.Query("jazz", Collections.singletonList("Unknown"), null, null));
+        queries.add(new EventSearchIndex.Query("jazz", null, march, null));
+        return queries;
+    }
+
+    private static List<Event> linear(List<Event> events, EventSearchIndex.Query q) {
+        return EventFilter.performSearchAndFilter(events, q.normalizedQuery, q.tags, q.startDate, q.endDate);
+    }
+
+    private static List<String> ids(List<Event> events) {
+        List<String> out = new ArrayList<>();
+        for (Event e : events) out.add(e.getId());
+        return out;
+    }
+
+    private static void assertSameResults(List<Event> events, EventSearchIndex index) throws Exception {
+        for (EventSearchIndex.Query q : queries()) {
+            List<String> expected = ids(linear(events, q));
+            assertEquals("query '" + q.normalizedQuery + "' " + q.tags, expected, ids(index.filter(events, q)));
+            for (Event e : events) {
+                assertEquals(expected.contains(e.getId()), index.matches(e.getId(), q));
+            }
+        }
+    }
+
+    @Test
+    public void matchesLinearScan() throws Exception {
+        Random random = new Random(7);
+        List<Event> events = new ArrayList<>();
+        EventSearchIndex index = new EventSearchIndex();
+        for (int i = 0; i < 2_000; i++) {
+            Event e = randomEvent(random, "e" + i);
+            events.add(e);
+            index.put(e);
+        }
+        assertSameResults(events, index);
+    }
+
+    @Test
+    public void matchesLinearScanAfterUpdatesAndRemovals() throws Exception {
+        Random random = new Random(11);
+        List<Event> events = new ArrayList<>();
+        EventSearchIndex index = new EventSearchIndex();
+        for (int i = 0; i < 500; i++) {
+            Event e = randomEvent(random, "e" + i);
+            events.add(e);
+            index.put(e);
+        }
+
+        // Enough churn to trigger compaction
+        for (int step = 0; step < 3_000; step++) {
+            int i = random.nextInt(events.size());
+            if (random.nextInt(5) == 0) {
+                index.remove(events.remove(i).getId());
+                Event e = randomEvent(random, "n" + step);
+                events.add(e);
+                index.put(e);
+            } else {
+                Event e = randomEvent(random, events.get(i).getId());
+                events.set(i, e);
+                index.put(e);
+            }
+        }
+        assertEquals(events.size(), index.size());
+        assertSameResults(events, index);
+    }
+
+    @Test
+    public void unknownAndRemovedEventsNeverMatch() {
+        EventSearchIndex index = new EventSearchIndex();
+        Event e = new Event();
+        e.setId("a");
+        e.setTitle("Jazz Night");
+        index.put(e);
+        EventSearchIndex.Query q = new EventSearchIndex.Query("jazz", null, null, null);
+        assertTrue(index.matches("a", q));
+        assertFalse(index.matches("b", q));
+
+        index.remove("a");
+        assertFalse(index.matches("a", q));
+        assertTrue(index.search(q).isEmpty());
+    }
+
+    @Test
+    public void matchesLinearScanAtScale() throws Exception {
+        int size = 10_000;
+        Random random = new Random(size);
+        List<Event> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) events.add(randomEvent(random, "e" + i));
+
+        EventSearchIndex index = new EventSearchIndex();
+        for (Event e : events) index.put(e);
+
+        for (EventSearchIndex.Query q : queries()) {
+            assertEquals(ids(linear(events, q)), ids(index.filter(events, q)));
+        }
+    }
+}
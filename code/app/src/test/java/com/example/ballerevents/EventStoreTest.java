@@ -0,0 +1,99 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Local unit tests for {@link EventStore}: applying document changes in place must give the
+ * same list, trending set and filter results as rebuilding from scratch.
+ */
+public class EventStoreTest {
+
+    private static Event event(String id, String title, int waitlist) {
+        Event e = new Event();
+        e.setId(id);
+        e.setTitle(title);
+        e.setWaitlistCount(waitlist);
+        return e;
+    }
+
+    private static List<String> ids(List<Event> events) {
+        List<String> out = new ArrayList<>();
+        for (Event e : events) out.add(e.getId());
+        return out;
+    }
+
+    @Test
+    public void changesAreAppliedInQueryOrder() {
+        EventStore store = new EventStore(3);
+        store.added(event("b", "B", 1), 0);
+        store.added(event("a", "A", 1), 0);
+        store.added(event("c", "C", 1), 2);
+        assertEquals(List.of("a", "b", "c"), ids(store.getAll()));
+
+        // "a" renamed to "D" moves from index 0 to the end
+        store.modified(event("a", "D", 1), 0, 2);
+        assertEquals(List.of("b", "c", "a"), ids(store.getAll()));
+
+        store.removed("c", 1);
+        assertEquals(List.of("b", "a"), ids(store.getAll()));
+    }
+
+    @Test
+    public void trendingMatchesFullSortUnderRandomChanges() {
+        EventStore store = new EventStore(3);
+        List<Event> reference = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50; i++) {
+            Event e = event("e" + i, "T" + i, random.nextInt(100));
+            store.added(e, store.size());
+            reference.add(e);
+        }
+
+        for (int step = 0; step < 500; step++) {
+            int index = random.nextInt(reference.size());
+            Event updated = event(reference.get(index).getId(), reference.get(index).getTitle(), random.nextInt(100));
+            store.modified(updated, index, index);
+            reference.set(index, updated);
+
+            List<Event> sorted = new ArrayList<>(reference);
+            Collections.sort(sorted, EventStore.BY_POPULARITY);
+            assertEquals(ids(sorted.subList(0, 3)), ids(store.getTrending()));
+        }
+
+        // Removing a trending member promotes the next event
+        String top = store.getTrending().get(0).getId();
+        int topIndex = ids(reference).indexOf(top);
+        store.removed(top, topIndex);
+        reference.remove(topIndex);
+        Collections.sort(reference, EventStore.BY_POPULARITY);
+        assertEquals(ids(reference.subList(0, 3)), ids(store.getTrending()));
+    }
+
+    @Test
+    public void filterIsReevaluatedForChangedRowsOnly() {
+        EventStore store = new EventStore(3);
+        store.added(event("a", "Jazz Night", 0), 0);
+        store.added(event("b", "Rock Show", 0), 1);
+
+        store.setFilter(e -> e.getTitle().contains("Jazz"));
+        assertTrue(store.consumeMatchesChanged());
+        assertEquals(List.of("a"), ids(store.getMatches()));
+
+        store.modified(event("b", "Rock Show", 5), 1, 1);
+        assertFalse(store.consumeMatchesChanged());
+
+        store.modified(event("b", "Rock Jazz", 5), 1, 1);
+        assertTrue(store.consumeMatchesChanged());
+        assertEquals(List.of("a", "b"), ids(store.getMatches()));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local unit tests for {@link ExportPipeline} and its writers, on a synthetic roster of
+ * {@link #ROWS} entrants written in pages the size of a real export.
+ */
+public class ExportPipelineTest {
+
+    private static final int ROWS = 100_000;
+    private static final String[] STATUSES = {
+            Entrant.STATUS_WAITING, Entrant.STATUS_CHOSEN, Entrant.STATUS_INVITED,
+            Entrant.STATUS_ACCEPTED, Entrant.STATUS_DECLINED, Entrant.STATUS_CANCELLED
+    };
+
+    @Test
+    public void allListsAsCsvWriteEveryRow() throws IOException {
+        List<String> lines = lines(export(allColumns(ExportFormat.CSV, false)));
+        assertEquals(ROWS + 1, lines.size());
+        assertEquals("Name,Email,List,Status,Joined At,Invitation,Latitude,Longitude", lines.get(0));
+        assertEquals("\"Doe, User 0\",user0@example.com,Waitlist,waiting,1970-01-01T00:00:00Z,,0.0,0.0",
+                lines.get(1));
+        assertEquals("\"Doe, User 5\",user5@example.com,Cancelled,cancelled,1970-01-01T00:00:05Z,revoked,,",
+                lines.get(6));
+    }
+
+    @Test
+    public void allListsAsJsonLinesWriteEveryRow() throws IOException {
+        List<String> lines = lines(export(allColumns(ExportFormat.JSON_LINES, false)));
+        assertEquals(ROWS, lines.size());
+        assertEquals("{\"name\":\"Doe, User 0\",\"email\":\"user0@example.com\",\"list\":\"Waitlist\","
+                + "\"status\":\"waiting\",\"joinedAt\":\"1970-01-01T00:00:00Z\",\"invitation\":null,"
+                + "\"latitude\":0.0,\"longitude\":0.0}", lines.get(0));
+        for (String line : lines) assertTrue(line.startsWith("{") && line.endsWith("}"));
+    }
+
+    @Test
+    public void gzipMatchesPlainOutput() throws IOException {
+        for (ExportFormat format : ExportFormat.values()) {
+            byte[] plain = export(allColumns(format, false));
+            byte[] compressed = export(allColumns(format, true));
+            assertTrue(compressed.length < plain.length / 4);
+            ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = in.read(buffer)) > 0; ) unzipped.write(buffer, 0, n);
+            }
+            assertArrayEquals(plain, unzipped.toByteArray());
+        }
+    }
+
+    @Test
+    public void selectedListsAndColumnsOnly() throws IOException {
+        List<String> lines = lines(export(ExportOptions.ACCEPTED_CSV));
+        assertEquals(rowsWithStatus(Entrant.STATUS_ACCEPTED) + 1, lines.size());
+        assertEquals("Name,Email", lines.get(0));
+        assertEquals("\"Doe, User 3\",user3@example.com", lines.get(1));
+
+        ExportOptions selected = new ExportOptions(ExportFormat.CSV, false,
+                Arrays.asList(ExportColumn.STATUS, ExportColumn.EMAIL),
+                EnumSet.of(ViewMode.SELECTED, ViewMode.CANCELLED));
+        lines = lines(export(selected));
+        assertEquals(rowsWithStatus(Entrant.STATUS_CHOSEN, Entrant.STATUS_INVITED,
+                Entrant.STATUS_DECLINED, Entrant.STATUS_CANCELLED) + 1, lines.size());
+        assertEquals("chosen,user1@example.com", lines.get(1));
+    }
+
+    @Test
+    public void jsonStringsAreEscaped() throws IOException {
+        Entrant entrant = new Entrant("u", Entrant.STATUS_WAITING, null);
+        entrant.setId("u");
+        UserProfile profile = new UserProfile();
+        profile.setUid("u");
+        profile.name = "A \"quoted\"\\name\n\u0001";
+        Map<String, UserProfile> profiles = new HashMap<>();
+        profiles.put("u", profile);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportPipeline pipeline = new ExportPipeline(out, new ExportOptions(ExportFormat.JSON_LINES, false,
+                Arrays.asList(ExportColumn.NAME, ExportColumn.JOINED_AT), EnumSet.allOf(ViewMode.class)))) {
+            assertEquals(1, pipeline.writePage(Arrays.asList(entrant), profiles));
+        }
+        assertEquals("{\"name\":\"A \\\"quoted\\\"\\\\name\\n\\u0001\",\"joinedAt\":null}\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static ExportOptions allColumns(ExportFormat format, boolean gzip) {
+        return new ExportOptions(format, gzip, Arrays.asList(ExportColumn.values()), EnumSet.allOf(ViewMode.class));
+    }
+
+    /**
+     * Writes the synthetic roster in pages of {@link CsvExportHelper#PAGE_SIZE}, creating each
+     * page only when it is written, as a real export does.
+     */
+    private static byte[] export(ExportOptions options) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportPipeline pipeline = new ExportPipeline(out, options)) {
+            for (int start = 0; start < ROWS; start += CsvExportHelper.PAGE_SIZE) {
+                List<Entrant> entrants = new ArrayList<>();
+                Map<String, UserProfile> profiles = new HashMap<>();
+                for (int i = start; i < Math.min(ROWS, start + CsvExportHelper.PAGE_SIZE); i++) {
+                    String uid = "user" + i;
+                    Entrant entrant = new Entrant(uid, STATUSES[i % STATUSES.length],
+                            i % 2 == 0 ? new GeoPoint(i % 90, -(i % 180)) : null);
+                    entrant.setId(uid);
+                    entrant.setJoinedAt(new Date(i * 1000L));
+                    entrants.add(entrant);
+
+                    UserProfile profile = new UserProfile();
+                    profile.setUid(uid);
+                    profile.name = "Doe, User " + i;
+                    profile.email = uid + "@example.com";
+                    profiles.put(uid, profile);
+                }
+                pipeline.writePage(entrants, profiles);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static int rowsWithStatus(String... statuses) {
+        List<String> wanted = Arrays.asList(statuses);
+        int count = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (wanted.contains(STATUSES[i % STATUSES.length])) count++;
+        }
+        return count;
+    }
+
+    private static List<String> lines(byte[] bytes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null; ) lines.add(line);
+        }
+        return lines;
+    }
+}
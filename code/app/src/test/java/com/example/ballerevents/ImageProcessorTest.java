@@ -0,0 +1,33 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the sizing rules of {@link ImageProcessor}.
+ */
+public class ImageProcessorTest {
+
+    @Test
+    public void scaledSizeFitsAndKeepsAspectRatio() {
+        // 12 MP portrait camera photo into the poster box
+        assertArrayEquals(new int[]{1080, 1440}, ImageProcessor.scaledSize(3000, 4000, 1080, 1920));
+        // Very wide panorama is bound by its width
+        assertArrayEquals(new int[]{1920, 240}, ImageProcessor.scaledSize(8000, 1000, 1920, 1080));
+        // Small images are not enlarged
+        assertArrayEquals(new int[]{300, 200}, ImageProcessor.scaledSize(300, 200, 512, 512));
+        // Extreme ratios never reach zero
+        assertArrayEquals(new int[]{512, 1}, ImageProcessor.scaledSize(100_000, 10, 512, 512));
+    }
+
+    @Test
+    public void sampleSizeStaysAboveTarget() {
+        assertEquals(2, ImageProcessor.sampleSize(3000, 4000, 1080, 1440));
+        assertEquals(4, ImageProcessor.sampleSize(4000, 3000, 512, 384));
+        assertEquals(1, ImageProcessor.sampleSize(300, 200, 300, 200));
+        // Bound by the wide side only: the height may not shrink below its target either
+        assertEquals(4, ImageProcessor.sampleSize(8000, 1000, 1920, 240));
+    }
+}
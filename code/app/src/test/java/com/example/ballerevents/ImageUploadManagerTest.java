@@ -0,0 +1,40 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the resume and retry rules of {@link ImageUploadManager}.
+ */
+public class ImageUploadManagerTest {
+
+    @Test
+    public void stateKeyIdentifiesImageAndKind() {
+        String uri = "content://media/external/images/media/42";
+        assertEquals(ImageUploadManager.stateKey(ImageProcessor.Spec.POSTER, uri),
+                ImageUploadManager.stateKey(ImageProcessor.Spec.POSTER, uri));
+        // The same picture as poster and banner is processed differently
+        assertNotEquals(ImageUploadManager.stateKey(ImageProcessor.Spec.POSTER, uri),
+                ImageUploadManager.stateKey(ImageProcessor.Spec.BANNER, uri));
+    }
+
+    @Test
+    public void retryDelayDoublesPerAttempt() {
+        assertEquals(1000, ImageUploadManager.retryDelayMs(1));
+        assertEquals(2000, ImageUploadManager.retryDelayMs(2));
+        assertEquals(4000, ImageUploadManager.retryDelayMs(ImageUploadManager.MAX_ATTEMPTS - 1));
+    }
+
+    @Test
+    public void expiredSessionsAreRestarted() {
+        assertTrue(ImageUploadManager.isSessionGone(404));
+        assertTrue(ImageUploadManager.isSessionGone(410));
+        // Server errors and dropped connections resume the same session
+        assertFalse(ImageUploadManager.isSessionGone(503));
+        assertFalse(ImageUploadManager.isSessionGone(0));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local unit tests for the variant sizing and selection rules of {@link ImageVariants}.
+ */
+public class ImageVariantsTest {
+
+    @Test
+    public void pickSmallestCoveringVariant() {
+        Map<String, String> variants = new HashMap<>();
+        variants.put("thumb", "t");
+        variants.put("medium", "m");
+        variants.put("full", "f");
+
+        // 56dp tile at 3x
+        assertEquals("t", ImageVariants.pick(variants, "f", 168, 168));
+        // 220x140dp card at 3x
+        assertEquals("m", ImageVariants.pick(variants, "f", 660, 420));
+        // Full-width on a 1080px screen, height unknown
+        assertEquals("f", ImageVariants.pick(variants, "f", 1080, 0));
+    }
+
+    @Test
+    public void pickFallsBackToFullUrl() {
+        assertEquals("legacy", ImageVariants.pick(null, "legacy", 100, 100));
+        assertNull(ImageVariants.pick(null, null, 100, 100));
+
+        Map<String, String> fullOnly = new HashMap<>();
+        fullOnly.put("full", "f");
+        assertEquals("f", ImageVariants.pick(fullOnly, "", 100, 100));
+    }
+
+    @Test
+    public void completeSharesNextLargerUrl() {
+        // A 512px profile picture has no medium variant
+        Map<String, String> uploaded = new HashMap<>();
+        uploaded.put("thumb", "t");
+        uploaded.put("full", "f");
+        Map<String, String> complete = ImageVariants.complete(uploaded);
+        assertEquals("t", complete.get("thumb"));
+        assertEquals("f", complete.get("medium"));
+        assertEquals("f", complete.get("full"));
+
+        uploaded.remove("thumb");
+        assertEquals("f", ImageVariants.complete(uploaded).get("thumb"));
+    }
+
+    @Test
+    public void variantsCapTheShorterEdge() {
+        assertArrayEquals(new int[]{720, 1280}, ImageVariants.scaledToShortEdge(1080, 1920, 720));
+        assertArrayEquals(new int[]{569, 320}, ImageVariants.scaledToShortEdge(1920, 1080, 320));
+        assertNull(ImageVariants.scaledToShortEdge(512, 512, 720));
+        assertNull(ImageVariants.scaledToShortEdge(1920, 240, 320));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Local unit tests for the join rules in {@link JoinOutcome#evaluate} and the matching
+ * window check in {@link Event#isRegistrationOpenAt}.
+ */
+public class JoinOutcomeTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    private static Event event(long openAt, long closeAt, int maxAttendees, int waitlistCount) {
+        Event e = new Event();
+        e.setRegistrationOpenAtMillis(openAt);
+        e.setRegistrationCloseAtMillis(closeAt);
+        e.setMaxAttendees(maxAttendees);
+        e.setWaitlistCount(waitlistCount);
+        return e;
+    }
+
+    @Test
+    public void joinsInsideWindowAndUnderCapacity() {
+        assertEquals(JoinOutcome.JOINED, JoinOutcome.evaluate(event(NOW - 1, NOW + 1, 10, 9), false, NOW));
+        assertEquals(JoinOutcome.JOINED, JoinOutcome.evaluate(event(NOW, NOW + 1, 0, 500), false, NOW));
+    }
+
+    @Test
+    public void unsetWindowDoesNotBlock() {
+        assertEquals(JoinOutcome.JOINED, JoinOutcome.evaluate(event(0, 0, 0, 0), false, NOW));
+        assertEquals(JoinOutcome.JOINED, JoinOutcome.evaluate(event(NOW - 1, 0, 0, 0), false, NOW));
+    }
+
+    @Test
+    public void registrationOpenMatchesJoinWindow() {
+        long[][] windows = {{0, 0}, {NOW - 1, 0}, {NOW - 1, NOW + 1}, {NOW + 1, 0}, {NOW - 2, NOW}};
+        for (long[] w : windows) {
+            Event e = event(w[0], w[1], 0, 0);
+            assertEquals("open " + w[0] + ", close " + w[1],
+                    JoinOutcome.evaluate(e, false, NOW) == JoinOutcome.JOINED, e.isRegistrationOpenAt(NOW));
+        }
+    }
+
+    @Test
+    public void rejectsOutsideWindow() {
+        assertEquals(JoinOutcome.NOT_OPEN_YET, JoinOutcome.evaluate(event(NOW + 1, NOW + 2, 0, 0), false, NOW));
+        assertEquals(JoinOutcome.CLOSED, JoinOutcome.evaluate(event(NOW - 2, NOW, 0, 0), false, NOW));
+    }
+
+    @Test
+    public void rejectsWhenFull() {
+        assertEquals(JoinOutcome.FULL, JoinOutcome.evaluate(event(0, 0, 10, 10), false, NOW));
+        assertEquals(JoinOutcome.FULL, JoinOutcome.evaluate(event(0, 0, 10, 12), false, NOW));
+    }
+
+    @Test
+    public void fullUsesWaitlistArrayForLegacyEvents() {
+        Event e = new Event();
+        e.setMaxAttendees(2);
+        e.setWaitlistUserIds(new ArrayList<>(Arrays.asList("a", "b")));
+        assertEquals(JoinOutcome.FULL, JoinOutcome.evaluate(e, false, NOW));
+    }
+
+    @Test
+    public void alreadyJoinedWinsOverOtherReasons() {
+        assertEquals(JoinOutcome.ALREADY_JOINED, JoinOutcome.evaluate(event(NOW + 1, NOW - 1, 1, 5), true, NOW));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Local unit tests for {@link LotterySampler}. The uniformity tests draw many times from a
+ * small pool and compare the win counts against the expected count with a chi-square
+ * statistic; with fixed seeds they are deterministic. Timing at 1M entrants is measured by
+ * {@link LotterySamplerBenchmark}, outside the unit tests.
+ */
+public class LotterySamplerTest {
+
+    /** Chi-square critical value for 19 degrees of freedom at p = 0.001. */
+    private static final double CHI_SQUARE_19_DF = 43.82;
+
+    private static List<Integer> pool(int size) {
+        List<Integer> pool = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) pool.add(i);
+        return pool;
+    }
+
+    private static double chiSquare(int[] counts, double expected) {
+        double sum = 0;
+        for (int count : counts) sum += (count - expected) * (count - expected) / expected;
+        return sum;
+    }
+
+    private static void assertDistinctFromPool(List<Integer> winners, int poolSize) {
+        assertEquals(winners.size(), new HashSet<>(winners).size());
+        for (int w : winners) assertTrue(w >= 0 && w < poolSize);
+    }
+
+    @Test
+    public void sameSeedGivesSameDraw() {
+        List<Integer> pool = pool(1_000);
+        assertEquals(new LotterySampler(42).sample(pool, 50), new LotterySampler(42).sample(pool, 50));
+
+        LotterySampler.Reservoir<Integer> a = new LotterySampler(42).reservoir(50);
+        LotterySampler.Reservoir<Integer> b = new LotterySampler(42).reservoir(50);
+        for (int i : pool) {
+            a.offer(i);
+            b.offer(i);
+        }
+        assertEquals(a.result(), b.result());
+    }
+
+    @Test
+    public void sampleHandlesEdgeSizes() {
+        LotterySampler sampler = new LotterySampler(1);
+        assertTrue(sampler.sample(pool(10), 0).isEmpty());
+        assertTrue(sampler.sample(pool(10), -3).isEmpty());
+        assertTrue(sampler.sample(new ArrayList<Integer>(), 5).isEmpty());
+
+        List<Integer> all = sampler.sample(pool(10), 25);
+        Collections.sort(all);
+        assertEquals(pool(10), all);
+
+        List<Integer> input = pool(10);
+        sampler.sample(input, 5);
+        assertEquals(pool(10), input);
+    }
+
+    @Test
+    public void losersAreThePoolWithoutWinners() {
+        List<Integer> pool = pool(100);
+        List<Integer> winners = new LotterySampler(3).sample(pool, 30);
+        List<Integer> losers = LotterySampler.losers(pool, winners);
+        assertEquals(70, losers.size());
+        for (int w : winners) assertTrue(!losers.contains(w));
+
+        List<Integer> sorted = new ArrayList<>(losers);
+        Collections.sort(sorted);
+        assertEquals(sorted, losers);
+    }
+
+    @Test
+    public void sampleIsUniform() {
+        int poolSize = 20;
+        int k = 5;
+        int trials = 20_000;
+        int[] wins = new int[poolSize];
+        LotterySampler sampler = new LotterySampler(7);
+        for (int t = 0; t < trials; t++) {
+            List<Integer> winners = sampler.sample(pool(poolSize), k);
+            assertDistinctFromPool(winners, poolSize);
+            for (int w : winners) wins[w]++;
+        }
+        assertTrue(chiSquare(wins, (double) trials * k / poolSize) < CHI_SQUARE_19_DF);
+    }
+
+    @Test
+    public void reservoirIsUniform() {
+        int poolSize = 20;
+        int k = 5;
+        int trials = 20_000;
+        int[] wins = new int[poolSize];
+        LotterySampler sampler = new LotterySampler(11);
+        for (int t = 0; t < trials; t++) {
+            LotterySampler.Reservoir<Integer> reservoir = sampler.reservoir(k);
+            for (int i = 0; i < poolSize; i++) reservoir.offer(i);
+            assertEquals(poolSize, reservoir.seen());
+            List<Integer> winners = reservoir.result();
+            assertEquals(k, winners.size());
+            assertDistinctFromPool(winners, poolSize);
+            for (int w : winners) wins[w]++;
+        }
+        assertTrue(chiSquare(wins, (double) trials * k / poolSize) < CHI_SQUARE_19_DF);
+    }
+
+    @Test
+    public void reservoirKeepsEverythingWhenStreamIsShort() {
+        LotterySampler.Reservoir<Integer> reservoir = new LotterySampler(5).reservoir(10);
+        for (int i = 0; i < 4; i++) reservoir.offer(i);
+        assertEquals(pool(4), reservoir.result());
+    }
+
+    @Test
+    public void weightedFavoursHeavierEntrants() {
+        // Entrant 1 weighs three times entrant 0, so it should win a single spot ~75% of the time.
+        List<Integer> pool = pool(2);
+        int trials = 20_000;
+        int heavyWins = 0;
+        LotterySampler sampler = new LotterySampler(13);
+        for (int t = 0; t < trials; t++) {
+            List<Integer> winners = sampler.sampleWeighted(pool, i -> i == 1 ? 3.0 : 1.0, 1);
+            assertEquals(1, winners.size());
+            if (winners.get(0) == 1) heavyWins++;
+        }
+        double share = (double) heavyWins / trials;
+        assertTrue("share " + share, Math.abs(share - 0.75) < 0.02);
+    }
+
+    @Test
+    public void weightedWithEqualWeightsIsUniformAndSkipsZeroWeights() {
+        int poolSize = 21;
+        int k = 5;
+        int trials = 20_000;
+        int[] wins = new int[poolSize - 1];
+        LotterySampler sampler = new LotterySampler(17);
+        for (int t = 0; t < trials; t++) {
+            // Entrant 20 has weight zero and must never win.
+            List<Integer> winners = sampler.sampleWeighted(pool(poolSize), i -> i == 20 ? 0.0 : 2.5, k);
+            assertDistinctFromPool(winners, poolSize - 1);
+            for (int w : winners) wins[w]++;
+        }
+        assertTrue(chiSquare(wins, (double) trials * k / (poolSize - 1)) < CHI_SQUARE_19_DF);
+    }
+
+    @Test
+    public void priorityFillsHigherTiersFirst() {
+        // 0..9 are tier 2, 10..29 tier 1, 30..49 tier 0.
+        List<Integer> pool = pool(50);
+        LotterySampler sampler = new LotterySampler(19);
+        int[] tier1Wins = new int[20];
+        for (int t = 0; t < 5_000; t++) {
+            List<Integer> winners = sampler.samplePriority(pool, i -> i < 10 ? 2 : i < 30 ? 1 : 0, 15);
+            assertEquals(15, winners.size());
+            assertDistinctFromPool(winners, 50);
+            int tier2 = 0;
+            int tier1 = 0;
+            for (int w : winners) {
+                if (w < 10) {
+                    tier2++;
+                } else if (w < 30) {
+                    tier1++;
+                    tier1Wins[w - 10]++;
+                }
+            }
+            assertEquals(10, tier2);
+            assertEquals(5, tier1);
+        }
+        assertTrue(chiSquare(tier1Wins, 5_000 * 5 / 20.0) < CHI_SQUARE_19_DF);
+    }
+}
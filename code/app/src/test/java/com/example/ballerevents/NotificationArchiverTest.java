@@ -0,0 +1,91 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local unit tests for the digest layout of {@link NotificationArchiver}.
+ */
+public class NotificationArchiverTest {
+
+    @Test
+    public void monthKeyUsesUtc() {
+        assertEquals("1970-01", NotificationArchiver.monthKey(0));
+        // 2025-03-31T23:59:59.999Z and one millisecond later
+        assertEquals("2025-03", NotificationArchiver.monthKey(1_743_465_599_999L));
+        assertEquals("2025-04", NotificationArchiver.monthKey(1_743_465_600_000L));
+    }
+
+    @Test
+    public void digestIdsSortInTimeOrder() {
+        assertEquals("2025-03-00", NotificationArchiver.digestId("2025-03", 0));
+        assertTrue(NotificationArchiver.digestId("2025-03", 9).compareTo(NotificationArchiver.digestId("2025-03", 10)) < 0);
+        assertTrue(NotificationArchiver.digestId("2025-03", 12).compareTo(NotificationArchiver.digestId("2025-04", 0)) < 0);
+        assertTrue(NotificationArchiver.digestId("2025-12", 0).compareTo(NotificationArchiver.digestId("2026-01", 0)) < 0);
+    }
+
+    private static long[] sizes(int count, long size) {
+        long[] sizes = new long[count];
+        Arrays.fill(sizes, size);
+        return sizes;
+    }
+
+    @Test
+    public void splitFillsCurrentPartFirst() {
+        assertArrayEquals(new int[]{5}, NotificationArchiver.split(0, sizes(5, 1), 10));
+        assertArrayEquals(new int[]{3, 2}, NotificationArchiver.split(7, sizes(5, 1), 10));
+        assertArrayEquals(new int[]{0, 10, 10, 1}, NotificationArchiver.split(10, sizes(21, 1), 10));
+        assertArrayEquals(new int[]{0}, NotificationArchiver.split(4, sizes(0, 1), 10));
+    }
+
+    @Test
+    public void splitByBytesNotCount() {
+        assertArrayEquals(new int[]{1, 2, 1}, NotificationArchiver.split(2, new long[]{6, 5, 5, 9}, 10));
+        // An entry larger than a part still gets a part of its own
+        assertArrayEquals(new int[]{0, 1, 1}, NotificationArchiver.split(0, new long[]{15, 3}, 10));
+    }
+
+    @Test
+    public void longMessagesStayWithinDigestLimit() {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) message.append('\u00e9');
+        String truncated = NotificationArchiver.truncate(message.toString(), NotificationArchiver.MAX_TEXT_CHARS);
+        assertEquals(NotificationArchiver.MAX_TEXT_CHARS, truncated.length());
+
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", "n1");
+        entry.put("title", truncated);
+        entry.put("message", truncated);
+        entry.put("read", false);
+        entry.put("at", 0L);
+        long size = NotificationArchiver.entrySize(entry);
+        assertTrue(size > 4L * NotificationArchiver.MAX_TEXT_CHARS);
+        assertTrue(size < NotificationArchiver.MAX_DIGEST_BYTES);
+
+        // Digest parts never pass the limit once entries are cut
+        long[] entries = sizes(1_000, size);
+        int[] parts = NotificationArchiver.split(0, entries, NotificationArchiver.MAX_DIGEST_BYTES);
+        int total = 0;
+        for (int count : parts) {
+            assertTrue(count * size <= NotificationArchiver.MAX_DIGEST_BYTES);
+            total += count;
+        }
+        assertEquals(1_000, total);
+    }
+
+    @Test
+    public void truncateKeepsSurrogatePairsWhole() {
+        assertEquals("abc", NotificationArchiver.truncate("abc", 5));
+        assertNull(NotificationArchiver.truncate(null, 5));
+        assertEquals("ab", NotificationArchiver.truncate("ab\uD83C\uDF89", 3));
+        assertEquals("ab\uD83C\uDF89", NotificationArchiver.truncate("ab\uD83C\uDF89c", 4));
+    }
+}
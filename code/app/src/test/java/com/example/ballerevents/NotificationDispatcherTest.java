@@ -0,0 +1,90 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Local unit tests for the chunking, opt-out and retry rules of {@link NotificationDispatcher}
+ * and for its {@link NotificationDispatcher.Metrics}.
+ */
+public class NotificationDispatcherTest {
+
+    private static UserProfile profile(String uid, boolean enabled) {
+        UserProfile p = new UserProfile();
+        p.setId(uid);
+        p.setNotificationsEnabled(enabled);
+        return p;
+    }
+
+    @Test
+    public void chunksSkipNullsAndStopAtLimit() {
+        Iterator<String> recipients = Arrays.asList("a", null, "b", "c", null, "d", "e").iterator();
+        assertEquals(Arrays.asList("a", "b"), NotificationDispatcher.nextChunk(recipients, 2));
+        assertEquals(Arrays.asList("c", "d"), NotificationDispatcher.nextChunk(recipients, 2));
+        assertEquals(Collections.singletonList("e"), NotificationDispatcher.nextChunk(recipients, 2));
+        assertTrue(NotificationDispatcher.nextChunk(recipients, 2).isEmpty());
+    }
+
+    @Test
+    public void chunksCoverLargeAudienceOnce() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) ids.add("user-" + i);
+        Iterator<String> recipients = ids.iterator();
+
+        List<String> seen = new ArrayList<>();
+        List<String> chunk;
+        while (!(chunk = NotificationDispatcher.nextChunk(recipients, NotificationDispatcher.MAX_RECIPIENTS_PER_BATCH)).isEmpty()) {
+            assertTrue(chunk.size() <= NotificationDispatcher.MAX_RECIPIENTS_PER_BATCH);
+            seen.addAll(chunk);
+        }
+        assertEquals(ids, seen);
+    }
+
+    @Test
+    public void optedOutAndMissingProfilesAreSkipped() {
+        assertTrue(NotificationDispatcher.acceptsNotifications(true, null));
+        assertTrue(NotificationDispatcher.acceptsNotifications(true, true));
+        assertFalse(NotificationDispatcher.acceptsNotifications(true, false));
+        assertFalse(NotificationDispatcher.acceptsNotifications(false, null));
+
+        List<String> targets = NotificationDispatcher.optedIn(
+                Arrays.asList(profile("a", true), profile("b", false), profile("c", true)));
+        assertEquals(Arrays.asList("a", "c"), targets);
+
+        // Five recipients: two opted in, one opted out, one without a profile, one failed lookup
+        assertEquals(2, NotificationDispatcher.skippedCount(5, targets.size(), 1));
+    }
+
+    @Test
+    public void retriesBackOffThenGiveUp() {
+        assertEquals(NotificationDispatcher.RETRY_BASE_DELAY_MS, NotificationDispatcher.retryDelayMs(1));
+        assertEquals(NotificationDispatcher.RETRY_BASE_DELAY_MS * 2, NotificationDispatcher.retryDelayMs(2));
+        assertEquals(NotificationDispatcher.RETRY_BASE_DELAY_MS * 4, NotificationDispatcher.retryDelayMs(3));
+        assertEquals(-1, NotificationDispatcher.retryDelayMs(NotificationDispatcher.MAX_ATTEMPTS));
+    }
+
+    @Test
+    public void metricsTrackBatchLatency() {
+        NotificationDispatcher.Metrics metrics = new NotificationDispatcher.Metrics();
+        assertEquals(0, metrics.getAverageLatencyMs());
+
+        metrics.recordBatch(100);
+        metrics.recordBatch(300);
+        assertEquals(2, metrics.getBatches());
+        assertEquals(200, metrics.getAverageLatencyMs());
+        assertEquals(300, metrics.getMaxLatencyMs());
+
+        metrics.reset();
+        assertEquals(0, metrics.getBatches());
+        assertEquals(0, metrics.getMaxLatencyMs());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the unread counter rules of {@link NotificationInbox}.
+ */
+public class NotificationInboxTest {
+
+    @Test
+    public void decrementStopsAtZero() {
+        assertEquals(2, NotificationInbox.decremented(3L));
+        assertEquals(0, NotificationInbox.decremented(1L));
+        assertEquals(0, NotificationInbox.decremented(0L));
+        assertEquals(0, NotificationInbox.decremented(-4L));
+        assertEquals(0, NotificationInbox.decremented(null));
+
+        assertEquals(3, NotificationInbox.decremented(10L, 7));
+        assertEquals(0, NotificationInbox.decremented(5L, 7));
+        assertEquals(0, NotificationInbox.decremented(null, 2));
+    }
+
+    @Test
+    public void seedReplacesCounterAndKeepsChangesDuringAggregate() {
+        // A user with 5 old unread notifications whose first new one created {unreadCount: 1}
+        assertEquals(6, NotificationInbox.seededCount(6, 1L, 1L));
+        // One more arrived while the aggregate ran
+        assertEquals(7, NotificationInbox.seededCount(6, 1L, 2L));
+        assertEquals(3, NotificationInbox.seededCount(3, null, null));
+        assertEquals(0, NotificationInbox.seededCount(0, 2L, 0L));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ballerevents;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the seat counting of {@link ReplacementDrawer}.
+ */
+public class ReplacementDrawerTest {
+
+    @Test
+    public void refillsFreedSeatsUpToCapacity() {
+        assertEquals(3, ReplacementDrawer.openSeats(3, 10, 7));
+        // Seats already taken by a concurrent draw stay pending
+        assertEquals(1, ReplacementDrawer.openSeats(3, 10, 9));
+        assertEquals(0, ReplacementDrawer.openSeats(3, 10, 10));
+        assertEquals(0, ReplacementDrawer.openSeats(3, 10, 12));
+    }
+
+    @Test
+    public void unlimitedEventsRefillEveryFreedSeat() {
+        assertEquals(4, ReplacementDrawer.openSeats(4, 0, 1_000));
+        assertEquals(4, ReplacementDrawer.openSeats(4, -1, 1_000));
+        assertEquals(0, ReplacementDrawer.openSeats(-2, 0, 0));
+        assertEquals(Integer.MAX_VALUE, ReplacementDrawer.openSeats(Long.MAX_VALUE, 0, 0));
+    }
+}